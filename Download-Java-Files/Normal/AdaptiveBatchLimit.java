@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.client;
+
+import com.alipay.sofa.jraft.rhea.options.BatchingOptions;
+import com.alipay.sofa.jraft.util.Requires;
+
+/**
+ * The batch size of an adaptive batching handler, see
+ * {@link BatchingOptions#isAdaptiveBatching()}.
+ *
+ * The limit grows additively while more requests than the current limit are
+ * queued up behind the handler, and shrinks multiplicatively once the smoothed
+ * latency of the batches exceeds twice the lowest latency of the recent batches,
+ * which means the batches got large enough to queue up on the server.
+ *
+ * @author jiachun.fjc
+ */
+final class AdaptiveBatchLimit {
+
+    // the lowest latency is taken over windows of this many batches, so that it
+    // follows a server which became slower for good
+    private static final int    WINDOW_SAMPLES = 256;
+    private static final double SMOOTHING      = 0.2;
+    private static final double TOLERANCE      = 2.0;
+
+    private final int           maxLimit;
+    private volatile int        limit;
+
+    // guarded by 'this'
+    private double              smoothedLatency  = -1;
+    private long                minLatency       = Long.MAX_VALUE;
+    private long                windowMinLatency = Long.MAX_VALUE;
+    private int                 samples;
+
+    AdaptiveBatchLimit(int maxLimit) {
+        Requires.requireTrue(maxLimit > 0, "maxLimit must > 0");
+        this.maxLimit = maxLimit;
+        this.limit = maxLimit;
+    }
+
+    int get() {
+        return this.limit;
+    }
+
+    /**
+     * @param latencyNanos the time from sending a batch to its response
+     * @param backlog      the number of requests waiting for the handler
+     */
+    synchronized void onSample(final long latencyNanos, final long backlog) {
+        if (this.smoothedLatency < 0) {
+            this.smoothedLatency = latencyNanos;
+        } else {
+            this.smoothedLatency += SMOOTHING * (latencyNanos - this.smoothedLatency);
+        }
+        this.windowMinLatency = Math.min(this.windowMinLatency, latencyNanos);
+        if (++this.samples >= WINDOW_SAMPLES) {
+            this.minLatency = this.windowMinLatency;
+            this.windowMinLatency = Long.MAX_VALUE;
+            this.samples = 0;
+        }
+        final long baseline = Math.min(this.minLatency, this.windowMinLatency);
+        final int cur = this.limit;
+        if (this.smoothedLatency > TOLERANCE * baseline) {
+            this.limit = Math.max(1, cur - Math.max(1, cur >> 2));
+            // start over with the next sample, the former ones were of larger batches
+            this.smoothedLatency = -1;
+        } else if (backlog >= cur) {
+            this.limit = Math.min(this.maxLimit, cur + Math.max(1, cur >> 3));
+        }
+    }
+}
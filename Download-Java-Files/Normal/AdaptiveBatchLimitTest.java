@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author jiachun.fjc
+ */
+public class AdaptiveBatchLimitTest {
+
+    @Test
+    public void shrinkOnLatencyTest() {
+        final AdaptiveBatchLimit limit = new AdaptiveBatchLimit(100);
+        Assert.assertEquals(100, limit.get());
+        limit.onSample(1000, 0);
+        Assert.assertEquals(100, limit.get());
+        limit.onSample(10000, 0);
+        Assert.assertEquals(75, limit.get());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(10000, 0);
+        }
+        Assert.assertEquals(1, limit.get());
+    }
+
+    @Test
+    public void growOnBacklogTest() {
+        final AdaptiveBatchLimit limit = new AdaptiveBatchLimit(100);
+        limit.onSample(1000, 0);
+        limit.onSample(10000, 0);
+        Assert.assertEquals(75, limit.get());
+        // no backlog, keeps the limit
+        limit.onSample(1000, 0);
+        Assert.assertEquals(75, limit.get());
+        limit.onSample(1000, 75);
+        Assert.assertEquals(84, limit.get());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(1000, 1000);
+        }
+        Assert.assertEquals(100, limit.get());
+    }
+
+    @Test
+    public void followSlowerServerTest() {
+        final AdaptiveBatchLimit limit = new AdaptiveBatchLimit(100);
+        limit.onSample(1000, 0);
+        // the server became slower for good, the limit recovers once the window of the fast batches is over
+        for (int i = 0; i < 1024; i++) {
+            limit.onSample(10000, 1000);
+        }
+        Assert.assertEquals(100, limit.get());
+    }
+}
@@ -38,6 +38,12 @@ public abstract class AggregationResultFilterNode<AGGREGATOR extends Aggregator<
 		aggregator.nextBlock(block);
 	}
 
+	@Override
+	public void endBlock(Block block) {
+		super.endBlock(block);
+		aggregator.endBlock(block);
+	}
+
 	@Override
 	public void acceptEvent(Block block, int event) {
 		aggregator.aggregateEvent(block, event);
@@ -4,10 +4,12 @@ import java.util.Set;
 
 import com.bakdata.conquery.models.datasets.Table;
 import com.bakdata.conquery.models.events.Block;
+import com.bakdata.conquery.models.events.ColumnarBlock;
 import com.bakdata.conquery.models.identifiable.ids.specific.TableId;
 import com.bakdata.conquery.models.query.QueryContext;
 import com.bakdata.conquery.models.query.queryplan.QPNode;
 import com.bakdata.conquery.models.query.queryplan.aggregators.Aggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.VectorizedAggregator;
 import com.bakdata.conquery.models.query.queryplan.clone.CloneContext;
 
 import lombok.Getter;
@@ -19,11 +21,21 @@ public class AggregatorNode<T> extends QPNode  {
 
 	private final Aggregator<T> aggregator;
 	private boolean triggered = false;
+	/**
+	 * the accepted events of the current block, if it is handed to the aggregator as a whole
+	 */
+	private int[] selection;
+	private int selected;
 	
 	@Override
 	public void nextEvent(Block block, int event) {
 		triggered = true;
-		aggregator.aggregateEvent(block, event);
+		if(selection != null) {
+			selection[selected++] = event;
+		}
+		else {
+			aggregator.aggregateEvent(block, event);
+		}
 	}
 
 	@Override
@@ -44,6 +56,25 @@ public class AggregatorNode<T> extends QPNode  {
 	@Override
 	public void nextBlock(Block block) {
 		aggregator.nextBlock(block);
+		if(aggregator instanceof VectorizedAggregator && block instanceof ColumnarBlock) {
+			if(selection == null || selection.length < block.size()) {
+				selection = new int[block.size()];
+			}
+			selected = 0;
+		}
+		else {
+			selection = null;
+		}
+	}
+	
+	@Override
+	@SuppressWarnings("unchecked")
+	public void endBlock(Block block) {
+		if(selection != null && selected > 0) {
+			((VectorizedAggregator<T>) aggregator).aggregateEvents((ColumnarBlock) block, selection, selected);
+			selected = 0;
+		}
+		aggregator.endBlock(block);
 	}
 	
 	@Override
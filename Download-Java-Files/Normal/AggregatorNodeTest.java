@@ -0,0 +1,160 @@
+package com.bakdata.conquery.models.query.queryplan.specific;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import com.bakdata.conquery.models.datasets.Column;
+import com.bakdata.conquery.models.datasets.Import;
+import com.bakdata.conquery.models.datasets.ImportColumn;
+import com.bakdata.conquery.models.events.ColumnarBlock;
+import com.bakdata.conquery.models.identifiable.ids.specific.DatasetId;
+import com.bakdata.conquery.models.identifiable.ids.specific.TableId;
+import com.bakdata.conquery.models.query.queryplan.aggregators.Aggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.specific.CountAggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.specific.sum.IntegerSumAggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.specific.sum.MoneySumAggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.specific.sum.RealSumAggregator;
+import com.bakdata.conquery.models.types.CType;
+import com.bakdata.conquery.models.types.MajorTypeId;
+
+/**
+ * Compares the vectorized path of the {@link AggregatorNode} over columnar blocks with calling the aggregator event by event.
+ */
+public class AggregatorNodeTest {
+
+	/**
+	 * block sizes differ, so that the selection of the node is reused as well as grown
+	 */
+	private static final int[] BLOCK_SIZES = {130, 40, 300, 1};
+
+	@TestFactory
+	public Stream<DynamicTest> vectorizedMatchesRowByRow() {
+		Import imp = createImport();
+		List<ColumnarBlock> blocks = new ArrayList<>();
+		for (int size : BLOCK_SIZES) {
+			blocks.add(ColumnarBlock.of(0, imp, createEvents(size)));
+		}
+
+		return Stream.<Function<Column, Aggregator<?>>>of(
+			CountAggregator::new,
+			IntegerSumAggregator::new,
+			MoneySumAggregator::new,
+			RealSumAggregator::new
+		).flatMap(factory -> Stream.of(column(0), column(1), column(2))
+			.filter(column -> accepts(factory.apply(column), column))
+			.map(column -> DynamicTest.dynamicTest(
+				factory.apply(column).getClass().getSimpleName() + " on column " + column.getPosition(),
+				() -> assertSameResult(factory.apply(column), factory.apply(column), blocks)
+			))
+		);
+	}
+
+	@Test
+	public void nothingAccepted() {
+		ColumnarBlock block = ColumnarBlock.of(0, createImport(), createEvents(50));
+		AggregatorNode<Long> node = new AggregatorNode<>(new CountAggregator(column(0)));
+		node.nextBlock(block);
+		node.endBlock(block);
+		assertThat(node.isContained()).isFalse();
+		assertThat(node.getAggregator().getAggregationResult()).isEqualTo(0L);
+	}
+
+	private static void assertSameResult(Aggregator<?> vectorized, Aggregator<?> rowByRow, List<ColumnarBlock> blocks) {
+		AggregatorNode<?> node = new AggregatorNode<>(vectorized);
+		for (ColumnarBlock block : blocks) {
+			node.nextBlock(block);
+			rowByRow.nextBlock(block);
+			for (int event = 0; event < block.size(); event++) {
+				if (isFilteredOut(event)) {
+					continue;
+				}
+				node.nextEvent(block, event);
+				rowByRow.aggregateEvent(block, event);
+			}
+			node.endBlock(block);
+			rowByRow.endBlock(block);
+		}
+
+		assertThat(node.isContained()).isTrue();
+		Object expected = rowByRow.getAggregationResult();
+		Object actual = vectorized.getAggregationResult();
+		if (expected instanceof Double) {
+			assertThat((Double) actual).isCloseTo((Double) expected, offset(1e-6));
+		}
+		else {
+			assertThat(actual).isEqualTo(expected);
+		}
+	}
+
+	/**
+	 * the sums only work on the columns of their own major type, count works on all of them
+	 */
+	private static boolean accepts(Aggregator<?> aggregator, Column column) {
+		if (aggregator instanceof IntegerSumAggregator) {
+			return column.getPosition() == 0;
+		}
+		if (aggregator instanceof MoneySumAggregator) {
+			return column.getPosition() == 1;
+		}
+		if (aggregator instanceof RealSumAggregator) {
+			return column.getPosition() == 2;
+		}
+		return true;
+	}
+
+	/**
+	 * stands in for the filters in front of the aggregator
+	 */
+	private static boolean isFilteredOut(int event) {
+		return event % 4 == 1;
+	}
+
+	private static List<Object[]> createEvents(int size) {
+		List<Object[]> events = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			events.add(new Object[] {
+				i % 3 == 0 ? null : Long.valueOf(i * 1000L - 70_000L),
+				i % 5 == 0 ? null : Long.valueOf(i * 199L),
+				i % 7 == 0 ? null : Double.valueOf(i / 3d)
+			});
+		}
+		return events;
+	}
+
+	private static Import createImport() {
+		Import imp = new Import();
+		imp.setTable(new TableId(new DatasetId("test_dataset"), "table"));
+		imp.setName("import");
+		imp.setColumnar(true);
+		imp.setColumns(new ImportColumn[] {
+			column(imp, 0, MajorTypeId.INTEGER.createType()),
+			column(imp, 1, MajorTypeId.MONEY.createType()),
+			column(imp, 2, MajorTypeId.REAL.createType())
+		});
+		return imp;
+	}
+
+	private static Column column(int pos) {
+		Column column = new Column();
+		column.setPosition(pos);
+		return column;
+	}
+
+	private static ImportColumn column(Import imp, int pos, CType<?, ?> valueType) {
+		ImportColumn col = new ImportColumn();
+		col.setName(String.format("@column%02d", pos));
+		col.setParent(imp);
+		col.setPosition(pos);
+		col.setType(valueType);
+		return col;
+	}
+}
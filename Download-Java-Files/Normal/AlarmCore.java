@@ -22,10 +22,15 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import org.apache.skywalking.oap.server.core.alarm.AlarmCallback;
 import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
+import org.apache.skywalking.oap.server.telemetry.api.GaugeMetric;
+import org.apache.skywalking.oap.server.telemetry.api.HistogramMetric;
+import org.apache.skywalking.oap.server.telemetry.api.MetricCreator;
+import org.apache.skywalking.oap.server.telemetry.api.MetricTag;
 import org.joda.time.LocalDateTime;
 import org.joda.time.Minutes;
 import org.slf4j.Logger;
@@ -42,6 +47,10 @@ public class AlarmCore {
 
     private Map<String, List<RunningRule>> runningContext;
     private LocalDateTime lastExecuteTime;
+    private final int checkShardCount;
+    private final ExecutorService checkPool;
+    private volatile HistogramMetric checkLatency;
+    private volatile GaugeMetric checkLag;
 
     AlarmCore(Rules rules) {
         runningContext = new HashMap<>();
@@ -57,6 +66,19 @@ public class AlarmCore {
             }
             runningRules.add(runningRule);
         });
+
+        checkShardCount = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+        checkPool = Executors.newFixedThreadPool(checkShardCount);
+    }
+
+    /**
+     * Register the metrics of the alarm check, which are ignored before this.
+     */
+    public void initMetrics(MetricCreator metricCreator) {
+        checkLatency = metricCreator.createHistogramMetric("alarm_check_latency", "The latency of checking all alarm rules once",
+            MetricTag.EMPTY_KEY, MetricTag.EMPTY_VALUE);
+        checkLag = metricCreator.createGauge("alarm_check_lag", "The seconds from the start of the checked minute to the end of the check",
+            MetricTag.EMPTY_KEY, MetricTag.EMPTY_VALUE);
     }
 
     public List<RunningRule> findRunningRule(String indicatorName) {
@@ -69,6 +91,7 @@ public class AlarmCore {
         Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
             try {
                 List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
+                long startNanos = System.nanoTime();
                 LocalDateTime checkTime = LocalDateTime.now();
                 int minutes = Minutes.minutesBetween(lastExecuteTime, checkTime).getMinutes();
                 boolean[] hasExecute = new boolean[] {false};
@@ -80,13 +103,14 @@ public class AlarmCore {
                          */
                         if (checkTime.getSecondOfMinute() > 15) {
                             hasExecute[0] = true;
-                            alarmMessageList.addAll(runningRule.check());
+                            alarmMessageList.addAll(runningRule.check(checkPool, checkShardCount));
                         }
                     }
                 }));
                 // Set the last execute time, and make sure the second is `00`, such as: 18:30:00
                 if (hasExecute[0]) {
                     lastExecuteTime = checkTime.minusSeconds(checkTime.getSecondOfMinute());
+                    recordCheck(startNanos, checkTime);
                 }
 
                 if (alarmMessageList.size() > 0) {
@@ -97,4 +121,16 @@ public class AlarmCore {
             }
         }, 10, 10, TimeUnit.SECONDS);
     }
+
+    private void recordCheck(long startNanos, LocalDateTime checkTime) {
+        HistogramMetric latency = checkLatency;
+        if (latency != null) {
+            latency.observe((System.nanoTime() - startNanos) / 1.0E9D);
+        }
+        GaugeMetric lag = checkLag;
+        if (lag != null) {
+            long checkedMinute = checkTime.withSecondOfMinute(0).withMillisOfSecond(0).toDate().getTime();
+            lag.setValue((System.currentTimeMillis() - checkedMinute) / 1000D);
+        }
+    }
 }
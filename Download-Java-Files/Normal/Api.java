@@ -57,6 +57,7 @@ import java.security.InvalidAlgorithmParameterException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -79,7 +80,10 @@ public class API {
     private Undertow server;
 
     private final Gson gson = new GsonBuilder().create();
-    private volatile PearlDiver pearlDiver = new PearlDiver();
+    //the proof of work searches in progress, by the address of the caller
+    private final Map<PearlDiver, InetAddress> powSearches = new ConcurrentHashMap<>();
+    //guards the transaction data of attached transactions, the proof of work runs concurrently
+    private final Object attachLock = new Object();
 
     private final AtomicInteger counter = new AtomicInteger(0);
 
@@ -265,7 +269,7 @@ public class API {
 
                     final List<String> trytes = getParameterAsList(request,"trytes", TRYTES_SIZE);
 
-                    List<String> elements = attachToTangleStatement(trunkTransaction, branchTransaction, minWeightMagnitude, trytes);
+                    List<String> elements = attachToTangleStatement(trunkTransaction, branchTransaction, minWeightMagnitude, trytes, sourceAddress.getAddress());
                     return AttachToTangleResponse.create(elements);
                 }
                 case "broadcastTransactions": {
@@ -339,7 +343,7 @@ public class API {
                     return getTotalOrderStatement();
                 }
                 case "interruptAttachingToTangle": {
-                    return interruptAttachingToTangleStatement();
+                    return interruptAttachingToTangleStatement(sourceAddress.getAddress());
                 }
                 case "removeNeighbors": {
                     List<String> uris = getParameterAsList(request,"uris",0);
@@ -874,12 +878,17 @@ public class API {
     }
 
     /**
-      * Interrupts and completely aborts the <code>attachToTangle</code> process.
+      * Interrupts and completely aborts the <code>attachToTangle</code> processes of the caller.
       *
+      * @param caller the address of the caller
       * @return {@link com.iota.iri.service.dto.AbstractResponse}
       **/
-    private AbstractResponse interruptAttachingToTangleStatement(){
-        pearlDiver.cancel();
+    private AbstractResponse interruptAttachingToTangleStatement(final InetAddress caller){
+        powSearches.forEach((pearlDiver, address) -> {
+            if (address.equals(caller)) {
+                pearlDiver.cancel();
+            }
+        });
         return AbstractResponse.createEmptyResponse();
     }
 
@@ -1217,20 +1226,20 @@ public class API {
         return GetBalancesResponse.create(elements, hashes.stream().map(h -> h.toString()).collect(Collectors.toList()), index);
     }
 
-    private static int counter_PoW = 0;
+    private static final AtomicInteger counter_PoW = new AtomicInteger(0);
     public static int getCounterPoW() {
-        return counter_PoW;
+        return counter_PoW.get();
     }
-    public static void incCounterPoW() {
-        API.counter_PoW++;
+    public static int incCounterPoW() {
+        return API.counter_PoW.incrementAndGet();
     }
 
-    private static long ellapsedTime_PoW = 0L;
+    private static final AtomicLong ellapsedTime_PoW = new AtomicLong(0L);
     public static long getEllapsedTimePoW() {
-        return ellapsedTime_PoW;
+        return ellapsedTime_PoW.get();
     }
     public static void incEllapsedTimePoW(long ellapsedTime) {
-        ellapsedTime_PoW += ellapsedTime;
+        ellapsedTime_PoW.addAndGet(ellapsedTime);
     }
 
     /**
@@ -1247,66 +1256,88 @@ public class API {
       * @param trytes the list of trytes to attach
       * @return trytes the list of transactions in trytes
       **/
-    public synchronized List<String> attachToTangleStatement(final Hash trunkTransaction, final Hash branchTransaction,
+    public List<String> attachToTangleStatement(final Hash trunkTransaction, final Hash branchTransaction,
                                                                   final int minWeightMagnitude, final List<String> trytes) {
+        return attachToTangleStatement(trunkTransaction, branchTransaction, minWeightMagnitude, trytes, null);
+    }
+
+    /**
+      * Attaches the specified transactions (trytes) to the Tangle by doing Proof of Work, see
+      * {@link #attachToTangleStatement(Hash, Hash, int, List)}. The Proof of Work can be interrupted by the caller.
+      *
+      * @param caller the address of the caller, or null if it can not be interrupted
+      **/
+    private List<String> attachToTangleStatement(final Hash trunkTransaction, final Hash branchTransaction,
+                                                 final int minWeightMagnitude, final List<String> trytes,
+                                                 final InetAddress caller) {
         final List<TransactionViewModel> transactionViewModels = new LinkedList<>();
 
         Hash prevTransaction = null;
-        pearlDiver = new PearlDiver();
-
-        byte[] transactionTrits = Converter.allocateTritsForTrytes(TRYTES_SIZE);
+        final PearlDiver pearlDiver = new PearlDiver();
+        if (caller != null) {
+            powSearches.put(pearlDiver, caller);
+        }
+        try {
+            byte[] transactionTrits = Converter.allocateTritsForTrytes(TRYTES_SIZE);
 
-        for (final String tryte : trytes) {
-            long startTime = System.nanoTime();
-            long timestamp = System.currentTimeMillis();
-            try {
-                Converter.trits(tryte, transactionTrits, 0);
-                byte[] tTrits = IotaIOUtils.processTxnTrytes(transactionTrits);
-                //branch and trunk
-                System.arraycopy((prevTransaction == null ? trunkTransaction : prevTransaction).trits(), 0,
-                        tTrits, TransactionViewModel.TRUNK_TRANSACTION_TRINARY_OFFSET,
-                        TransactionViewModel.TRUNK_TRANSACTION_TRINARY_SIZE);
-                System.arraycopy((prevTransaction == null ? branchTransaction : trunkTransaction).trits(), 0,
-                        tTrits, TransactionViewModel.BRANCH_TRANSACTION_TRINARY_OFFSET,
-                        TransactionViewModel.BRANCH_TRANSACTION_TRINARY_SIZE);
-
-                //attachment fields: tag and timestamps
-                //tag - copy the obsolete tag to the attachment tag field only if tag isn't set.
-                if(IntStream.range(TransactionViewModel.TAG_TRINARY_OFFSET, TransactionViewModel.TAG_TRINARY_OFFSET + TransactionViewModel.TAG_TRINARY_SIZE).allMatch(idx -> tTrits[idx]  == ((byte) 0))) {
-                    System.arraycopy(tTrits, TransactionViewModel.OBSOLETE_TAG_TRINARY_OFFSET,
-                    tTrits, TransactionViewModel.TAG_TRINARY_OFFSET,
-                    TransactionViewModel.TAG_TRINARY_SIZE);
-                }
+            for (final String tryte : trytes) {
+                long startTime = System.nanoTime();
+                long timestamp = System.currentTimeMillis();
+                try {
+                    Converter.trits(tryte, transactionTrits, 0);
+                    byte[] tTrits = IotaIOUtils.processTxnTrytes(transactionTrits);
+                    //branch and trunk
+                    System.arraycopy((prevTransaction == null ? trunkTransaction : prevTransaction).trits(), 0,
+                            tTrits, TransactionViewModel.TRUNK_TRANSACTION_TRINARY_OFFSET,
+                            TransactionViewModel.TRUNK_TRANSACTION_TRINARY_SIZE);
+                    System.arraycopy((prevTransaction == null ? branchTransaction : trunkTransaction).trits(), 0,
+                            tTrits, TransactionViewModel.BRANCH_TRANSACTION_TRINARY_OFFSET,
+                            TransactionViewModel.BRANCH_TRANSACTION_TRINARY_SIZE);
+
+                    //attachment fields: tag and timestamps
+                    //tag - copy the obsolete tag to the attachment tag field only if tag isn't set.
+                    if(IntStream.range(TransactionViewModel.TAG_TRINARY_OFFSET, TransactionViewModel.TAG_TRINARY_OFFSET + TransactionViewModel.TAG_TRINARY_SIZE).allMatch(idx -> tTrits[idx]  == ((byte) 0))) {
+                        System.arraycopy(tTrits, TransactionViewModel.OBSOLETE_TAG_TRINARY_OFFSET,
+                        tTrits, TransactionViewModel.TAG_TRINARY_OFFSET,
+                        TransactionViewModel.TAG_TRINARY_SIZE);
+                    }
 
-                Converter.copyTrits(timestamp,tTrits,TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_OFFSET,
-                        TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_SIZE);
-                Converter.copyTrits(0,tTrits,TransactionViewModel.ATTACHMENT_TIMESTAMP_LOWER_BOUND_TRINARY_OFFSET,
-                        TransactionViewModel.ATTACHMENT_TIMESTAMP_LOWER_BOUND_TRINARY_SIZE);
-                Converter.copyTrits(MAX_TIMESTAMP_VALUE,tTrits,TransactionViewModel.ATTACHMENT_TIMESTAMP_UPPER_BOUND_TRINARY_OFFSET,
-                        TransactionViewModel.ATTACHMENT_TIMESTAMP_UPPER_BOUND_TRINARY_SIZE);
+                    Converter.copyTrits(timestamp,tTrits,TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_OFFSET,
+                            TransactionViewModel.ATTACHMENT_TIMESTAMP_TRINARY_SIZE);
+                    Converter.copyTrits(0,tTrits,TransactionViewModel.ATTACHMENT_TIMESTAMP_LOWER_BOUND_TRINARY_OFFSET,
+                            TransactionViewModel.ATTACHMENT_TIMESTAMP_LOWER_BOUND_TRINARY_SIZE);
+                    Converter.copyTrits(MAX_TIMESTAMP_VALUE,tTrits,TransactionViewModel.ATTACHMENT_TIMESTAMP_UPPER_BOUND_TRINARY_OFFSET,
+                            TransactionViewModel.ATTACHMENT_TIMESTAMP_UPPER_BOUND_TRINARY_SIZE);
 
-                if (!pearlDiver.search(tTrits, minWeightMagnitude, instance.configuration.getPowThreads())) {
-                    transactionViewModels.clear();
-                    break;
-                }
-                //validate PoW - throws exception if invalid
-                final TransactionViewModel transactionViewModel = instance.transactionValidator.validateTrits(tTrits, instance.transactionValidator.getMinWeightMagnitude());
-                IotaIOUtils.processReceivedTxn(transactionViewModel);
+                    if (!pearlDiver.search(tTrits, minWeightMagnitude, instance.configuration.getPowThreads())) {
+                        transactionViewModels.clear();
+                        break;
+                    }
+                    //validate PoW - throws exception if invalid
+                    final TransactionViewModel transactionViewModel = instance.transactionValidator.validateTrits(tTrits, instance.transactionValidator.getMinWeightMagnitude());
+                    synchronized (attachLock) {
+                        IotaIOUtils.processReceivedTxn(transactionViewModel);
+                    }
 
-                transactionViewModels.add(transactionViewModel);
-                prevTransaction = transactionViewModel.getHash();
-            } finally {
-                API.incEllapsedTimePoW(System.nanoTime() - startTime);
-                API.incCounterPoW();
-                if ( ( API.getCounterPoW() % 100) == 0 ) {
-                    String sb = "Last 100 PoW consumed " +
-                            API.getEllapsedTimePoW() / 1000000000L +
-                            " seconds processing time.";
-                    log.info(sb);
-                    counter_PoW = 0;
-                    ellapsedTime_PoW = 0L;
+                    transactionViewModels.add(transactionViewModel);
+                    prevTransaction = transactionViewModel.getHash();
+                } finally {
+                    API.incEllapsedTimePoW(System.nanoTime() - startTime);
+                    //every count is seen by one attachment only, so only one of them logs and resets
+                    int count = API.incCounterPoW();
+                    if ( ( count % 100) == 0 ) {
+                        String sb = "Last 100 PoW consumed " +
+                                ellapsedTime_PoW.getAndSet(0L) / 1000000000L +
+                                " seconds processing time, " + PearlDiver.getHashRate() + " hashes/s.";
+                        log.info(sb);
+                        counter_PoW.compareAndSet(count, 0);
+                    }
                 }
             }
+        } finally {
+            if (caller != null) {
+                powSearches.remove(pearlDiver);
+            }
         }
 
         final List<String> elements = new LinkedList<>();
@@ -25,7 +25,26 @@ final class AtePairing {
    * @return GTPoint
    */
   static GTPoint pair(G1Point p1, G2Point p2) {
-    FP12 e = PAIR.ate(p2.ecp2Point(), p1.ecpPoint());
+    return finalExponentiation(millerLoop(p1, p2));
+  }
+
+  /**
+   * The pairing without the final exponentiation. The product of several Miller loops only needs
+   * one final exponentiation to give the product of their pairings.
+   *
+   * @param p1 the point in Group1, not null
+   * @param p2 the point in Group2, not null
+   * @return the output of the Miller loop
+   */
+  static FP12 millerLoop(G1Point p1, G2Point p2) {
+    return PAIR.ate(p2.ecp2Point(), p1.ecpPoint());
+  }
+
+  /**
+   * @param e the output of a Miller loop, or a product of them, not null
+   * @return GTPoint
+   */
+  static GTPoint finalExponentiation(FP12 e) {
     return new GTPoint(PAIR.fexp(e));
   }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.entity;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.alipay.sofa.jraft.conf.Configuration;
+import com.alipay.sofa.jraft.entity.Ballot.PosHint;
+
+/**
+ * A ballot to vote, that can be granted by several threads concurrently.
+ *
+ * Every peer is granted once by a CAS on its flag, and only the thread that
+ * set the flag decrements the quorum, so no lock is needed.
+ *
+ * @author boyan (boyan@alibaba-inc.com)
+ */
+public class AtomicBallot {
+
+    private final PeerId[]           peers;
+    private final PeerId[]           oldPeers;
+    // granted flags of the current peers followed by the old peers
+    private final AtomicIntegerArray found;
+    private final AtomicInteger      quorum;
+    private final AtomicInteger      oldQuorum;
+
+    /**
+     * Create the ballot with current conf and old conf.
+     *
+     * @param conf      current configuration
+     * @param oldConf   old configuration
+     */
+    public AtomicBallot(Configuration conf, Configuration oldConf) {
+        this.peers = toArray(conf);
+        this.oldPeers = toArray(oldConf);
+        this.found = new AtomicIntegerArray(this.peers.length + this.oldPeers.length);
+        this.quorum = new AtomicInteger(this.peers.length / 2 + 1);
+        this.oldQuorum = new AtomicInteger(oldConf == null ? 0 : this.oldPeers.length / 2 + 1);
+    }
+
+    private static PeerId[] toArray(Configuration conf) {
+        if (conf == null) {
+            return new PeerId[0];
+        }
+        final List<PeerId> peers = conf.listPeers();
+        return peers.toArray(new PeerId[peers.size()]);
+    }
+
+    private static int findPeer(PeerId peerId, PeerId[] peers, int posHint) {
+        if (posHint >= 0 && posHint < peers.length && peers[posHint].equals(peerId)) {
+            return posHint;
+        }
+        for (int i = 0; i < peers.length; i++) {
+            if (peers[i].equals(peerId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public PosHint grant(PeerId peerId, PosHint hint) {
+        hint.pos0 = findPeer(peerId, this.peers, hint.pos0);
+        if (hint.pos0 >= 0 && this.found.compareAndSet(hint.pos0, 0, 1)) {
+            this.quorum.decrementAndGet();
+        }
+        if (this.oldPeers.length == 0) {
+            hint.pos1 = -1;
+            return hint;
+        }
+        hint.pos1 = findPeer(peerId, this.oldPeers, hint.pos1);
+        if (hint.pos1 >= 0 && this.found.compareAndSet(this.peers.length + hint.pos1, 0, 1)) {
+            this.oldQuorum.decrementAndGet();
+        }
+        return hint;
+    }
+
+    public void grant(PeerId peerId) {
+        this.grant(peerId, new PosHint());
+    }
+
+    /**
+     * Returns true when the ballot is granted.
+     *
+     * @return true if the ballot is granted
+     */
+    public boolean isGranted() {
+        return this.quorum.get() <= 0 && this.oldQuorum.get() <= 0;
+    }
+}
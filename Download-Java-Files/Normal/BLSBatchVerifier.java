@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.artemis.util.bls;
+
+import com.google.common.primitives.UnsignedLong;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.consensys.cava.bytes.Bytes;
+import net.consensys.cava.bytes.Bytes32;
+import tech.pegasys.artemis.util.mikuli.BatchVerifier;
+import tech.pegasys.artemis.util.mikuli.PublicKey;
+
+/**
+ * Collects the arguments of bls_verify() and bls_verify_multiple() calls, to verify all of the
+ * signatures together with a {@link BatchVerifier}.
+ */
+public final class BLSBatchVerifier {
+
+  private final BatchVerifier batchVerifier = new BatchVerifier();
+
+  /**
+   * Adds the arguments of a bls_verify() call.
+   *
+   * @param pubkey the compressed public key
+   * @param messageHash the message digest signed
+   * @param signature the signature
+   * @param domain the domain parameter defined by the spec
+   */
+  public void add(
+      BLSPublicKey pubkey, Bytes32 messageHash, BLSSignature signature, UnsignedLong domain) {
+    batchVerifier.add(
+        pubkey.getPublicKey(),
+        signature.getSignature(),
+        Bytes.wrap(messageHash),
+        domain.longValue());
+  }
+
+  /**
+   * Adds the arguments of a bls_verify_multiple() call.
+   *
+   * @param pubkeys a list of compressed public keys
+   * @param messageHashes a list of the same number of messages
+   * @param aggregateSignature the single signature over these public keys and messages
+   * @param domain the domain parameter defined by the spec
+   */
+  public void addMultiple(
+      List<BLSPublicKey> pubkeys,
+      List<Bytes32> messageHashes,
+      BLSSignature aggregateSignature,
+      UnsignedLong domain) {
+    List<PublicKey> publicKeys =
+        pubkeys.stream().map(BLSPublicKey::getPublicKey).collect(Collectors.toList());
+    List<Bytes> messages = messageHashes.stream().map(Bytes::wrap).collect(Collectors.toList());
+    batchVerifier.add(publicKeys, aggregateSignature.getSignature(), messages, domain.longValue());
+  }
+
+  /**
+   * Verifies all of the signatures added. Empty signatures and public keys are invalid.
+   *
+   * @return whether each signature is valid, in the order they were added
+   */
+  public boolean[] verify() {
+    return batchVerifier.verify();
+  }
+}
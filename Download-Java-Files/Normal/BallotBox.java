@@ -16,7 +16,11 @@
  */
 package com.alipay.sofa.jraft.core;
 
-import java.util.concurrent.locks.StampedLock;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -28,15 +32,22 @@ import com.alipay.sofa.jraft.FSMCaller;
 import com.alipay.sofa.jraft.Lifecycle;
 import com.alipay.sofa.jraft.closure.ClosureQueue;
 import com.alipay.sofa.jraft.conf.Configuration;
+import com.alipay.sofa.jraft.entity.AtomicBallot;
 import com.alipay.sofa.jraft.entity.Ballot;
 import com.alipay.sofa.jraft.entity.PeerId;
 import com.alipay.sofa.jraft.option.BallotBoxOptions;
-import com.alipay.sofa.jraft.util.ArrayDeque;
 import com.alipay.sofa.jraft.util.OnlyForTest;
 import com.alipay.sofa.jraft.util.Requires;
 
 /**
  * Ballot box for voting.
+ *
+ * {@link #commitAt} is called by every replicator on every ack and takes no
+ * lock: the pending ballots are kept in a {@link PendingBallotRing} whose
+ * ballots are granted by CAS, and the last committed index only increases by
+ * CAS. The leader and follower transitions and {@link #appendPendingTask} are
+ * serialized by a lock that {@link #commitAt} does not take.
+ *
  * @author boyan (boyan@alibaba-inc.com)
  *
  * 2018-Apr-04 2:32:10 PM
@@ -44,37 +55,29 @@ import com.alipay.sofa.jraft.util.Requires;
 @ThreadSafe
 public class BallotBox implements Lifecycle<BallotBoxOptions> {
 
-    private static final Logger      LOG                = LoggerFactory.getLogger(BallotBox.class);
+    private static final Logger         LOG                = LoggerFactory.getLogger(BallotBox.class);
 
-    private FSMCaller                waiter;
-    private ClosureQueue             closureQueue;
-    private final StampedLock        stampedLock        = new StampedLock();
-    private long                     lastCommittedIndex = 0;
-    private long                     pendingIndex;
-    private final ArrayDeque<Ballot> pendingMetaQueue   = new ArrayDeque<>();
+    private FSMCaller                   waiter;
+    private ClosureQueue                closureQueue;
+    private final Lock                  lock               = new ReentrantLock();
+    private final AtomicLong            lastCommittedIndex = new AtomicLong(0);
+    // null if not leader
+    private volatile PendingBallotRing  pendingBallots;
 
     @OnlyForTest
     long getPendingIndex() {
-        return this.pendingIndex;
+        final PendingBallotRing pendingBallots = this.pendingBallots;
+        return pendingBallots != null ? pendingBallots.getPendingIndex() : 0;
     }
 
     @OnlyForTest
-    ArrayDeque<Ballot> getPendingMetaQueue() {
-        return this.pendingMetaQueue;
+    List<AtomicBallot> getPendingMetaQueue() {
+        final PendingBallotRing pendingBallots = this.pendingBallots;
+        return pendingBallots != null ? pendingBallots.pendingBallots() : Collections.emptyList();
     }
 
     public long getLastCommittedIndex() {
-        long stamp = stampedLock.tryOptimisticRead();
-        long optimisticVal = this.lastCommittedIndex;
-        if (stampedLock.validate(stamp)) {
-            return optimisticVal;
-        }
-        stamp = stampedLock.readLock();
-        try {
-            return this.lastCommittedIndex;
-        } finally {
-            stampedLock.unlockRead(stamp);
-        }
+        return this.lastCommittedIndex.get();
     }
 
     @Override
@@ -93,50 +96,68 @@ public class BallotBox implements Lifecycle<BallotBoxOptions> {
      * Set logs in [first_log_index, last_log_index] are stable at |peer|.
      */
     public boolean commitAt(long firstLogIndex, long lastLogIndex, PeerId peer) {
-        //TODO  use lock-free algorithm here?
-        final long stamp = stampedLock.writeLock();
-        long lastCommittedIndex = 0;
-        try {
-            if (pendingIndex == 0) {
-                return false;
-            }
-            if (lastLogIndex < pendingIndex) {
-                return true;
-            }
+        final PendingBallotRing pendingBallots = this.pendingBallots;
+        if (pendingBallots == null) {
+            return false;
+        }
+        final long pendingIndex = pendingBallots.getPendingIndex();
+        if (lastLogIndex < pendingIndex) {
+            return true;
+        }
 
-            if (lastLogIndex >= pendingIndex + pendingMetaQueue.size()) {
-                throw new ArrayIndexOutOfBoundsException();
-            }
+        if (lastLogIndex >= pendingBallots.getTailIndex()) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
 
-            final long startAt = Math.max(pendingIndex, firstLogIndex);
-            Ballot.PosHint hint = new Ballot.PosHint();
-            for (long logIndex = startAt; logIndex <= lastLogIndex; logIndex++) {
-                final Ballot bl = this.pendingMetaQueue.get((int) (logIndex - pendingIndex));
-                hint = bl.grant(peer, hint);
-                if (bl.isGranted()) {
-                    lastCommittedIndex = logIndex;
-                }
+        long lastCommittedIndex = 0;
+        final long startAt = Math.max(pendingIndex, firstLogIndex);
+        Ballot.PosHint hint = new Ballot.PosHint();
+        for (long logIndex = startAt; logIndex <= lastLogIndex; logIndex++) {
+            final AtomicBallot bl = pendingBallots.get(logIndex);
+            if (bl == null) {
+                // committed meanwhile
+                continue;
             }
-            if (lastCommittedIndex == 0) {
-                return true;
+            hint = bl.grant(peer, hint);
+            if (bl.isGranted()) {
+                lastCommittedIndex = logIndex;
             }
-            // When removing a peer off the raft group which contains even number of
-            // peers, the quorum would decrease by 1, e.g. 3 of 4 changes to 2 of 3. In
-            // this case, the log after removal may be committed before some previous
-            // logs, since we use the new configuration to deal the quorum of the
-            // removal request, we think it's safe to commit all the uncommitted
-            // previous logs, which is not well proved right now
-            pendingMetaQueue.removeRange(0, (int) (lastCommittedIndex - pendingIndex) + 1);
-            LOG.debug("Committed log fromIndex={}, toIndex={}.", pendingIndex, lastCommittedIndex);
-            pendingIndex = lastCommittedIndex + 1;
-            this.lastCommittedIndex = lastCommittedIndex;
-        } finally {
-            stampedLock.unlockWrite(stamp);
         }
+        if (lastCommittedIndex == 0) {
+            return true;
+        }
+        // When removing a peer off the raft group which contains even number of
+        // peers, the quorum would decrease by 1, e.g. 3 of 4 changes to 2 of 3. In
+        // this case, the log after removal may be committed before some previous
+        // logs, since we use the new configuration to deal the quorum of the
+        // removal request, we think it's safe to commit all the uncommitted
+        // previous logs, which is not well proved right now
+        if (!pendingBallots.commit(lastCommittedIndex)) {
+            // committed by another replicator
+            return true;
+        }
+        // the pending tasks have been cleared meanwhile
+        if (this.pendingBallots != pendingBallots || !updateLastCommittedIndex(lastCommittedIndex)) {
+            return true;
+        }
+        LOG.debug("Committed log toIndex={}.", lastCommittedIndex);
+        // The committed indexes of concurrent calls may reach the waiter in
+        // another order, which it tolerates.
         this.waiter.onCommitted(lastCommittedIndex);
         return true;
     }
 
+    private boolean updateLastCommittedIndex(long lastCommittedIndex) {
+        long current;
+        do {
+            current = this.lastCommittedIndex.get();
+            if (lastCommittedIndex <= current) {
+                return false;
+            }
+        } while (!this.lastCommittedIndex.compareAndSet(current, lastCommittedIndex));
+        return true;
+    }
+
     /**
      * Called when the leader steps down, otherwise the behavior is undefined
      * When a leader steps down, the uncommitted user applications should
@@ -144,13 +165,12 @@ public class BallotBox implements Lifecycle<BallotBoxOptions> {
      * truncate.
      */
     public void clearPendingTasks() {
-        final long stamp = stampedLock.writeLock();
+        this.lock.lock();
         try {
-            this.pendingMetaQueue.clear();
-            this.pendingIndex = 0;
+            this.pendingBallots = null;
             this.closureQueue.clear();
         } finally {
-            stampedLock.unlockWrite(stamp);
+            this.lock.unlock();
         }
     }
 
@@ -164,23 +184,24 @@ public class BallotBox implements Lifecycle<BallotBoxOptions> {
      * @return returns true if reset success
      */
     public boolean resetPendingIndex(long newPendingIndex) {
-        final long stamp = stampedLock.writeLock();
+        this.lock.lock();
         try {
-            if (!(pendingIndex == 0 && pendingMetaQueue.isEmpty())) {
-                LOG.error("resetPendingIndex fail, pendingIndex={}, pendingMetaQueueSize={}", pendingIndex,
-                    pendingMetaQueue.size());
+            final PendingBallotRing pendingBallots = this.pendingBallots;
+            if (pendingBallots != null) {
+                LOG.error("resetPendingIndex fail, pendingIndex={}, pendingMetaQueueSize={}",
+                    pendingBallots.getPendingIndex(), pendingBallots.getTailIndex() - pendingBallots.getPendingIndex());
                 return false;
             }
-            if (newPendingIndex <= this.lastCommittedIndex) {
+            if (newPendingIndex <= this.lastCommittedIndex.get()) {
                 LOG.error("resetPendingIndex fail, newPendingIndex={}, lastCommittedIndex={}", newPendingIndex,
-                    lastCommittedIndex);
+                    this.lastCommittedIndex.get());
                 return false;
             }
-            this.pendingIndex = newPendingIndex;
+            this.pendingBallots = new PendingBallotRing(newPendingIndex);
             this.closureQueue.resetFirstIndex(newPendingIndex);
             return true;
         } finally {
-            stampedLock.unlockWrite(stamp);
+            this.lock.unlock();
         }
     }
 
@@ -194,22 +215,19 @@ public class BallotBox implements Lifecycle<BallotBoxOptions> {
      * @return          returns true on success
      */
     public boolean appendPendingTask(Configuration conf, Configuration oldConf, Closure done) {
-        final Ballot bl = new Ballot();
-        if (!bl.init(conf, oldConf)) {
-            LOG.error("Fail to init ballot");
-            return false;
-        }
-        final long stamp = stampedLock.writeLock();
+        final AtomicBallot bl = new AtomicBallot(conf, oldConf);
+        this.lock.lock();
         try {
-            if (pendingIndex <= 0) {
-                LOG.error("Fail to appendingTask, pendingIndex={}", pendingIndex);
+            final PendingBallotRing pendingBallots = this.pendingBallots;
+            if (pendingBallots == null) {
+                LOG.error("Fail to appendingTask, pendingIndex=0");
                 return false;
             }
-            this.pendingMetaQueue.add(bl);
+            pendingBallots.add(bl);
             this.closureQueue.appendPendingClosure(done);
             return true;
         } finally {
-            stampedLock.unlockWrite(stamp);
+            this.lock.unlock();
         }
     }
 
@@ -220,29 +238,25 @@ public class BallotBox implements Lifecycle<BallotBoxOptions> {
      * @return returns true if set success
      */
     public boolean setLastCommittedIndex(long lastCommittedIndex) {
-        boolean doUnlock = true;
-        final long stamp = stampedLock.writeLock();
+        this.lock.lock();
         try {
-            if (pendingIndex != 0 || !pendingMetaQueue.isEmpty()) {
-                Requires.requireTrue(lastCommittedIndex < this.pendingIndex,
-                    "Node changes to leader, pendingIndex=%d, param lastCommittedIndex=%d", pendingIndex,
-                    lastCommittedIndex);
+            final PendingBallotRing pendingBallots = this.pendingBallots;
+            if (pendingBallots != null) {
+                Requires.requireTrue(lastCommittedIndex < pendingBallots.getPendingIndex(),
+                    "Node changes to leader, pendingIndex=%d, param lastCommittedIndex=%d",
+                    pendingBallots.getPendingIndex(), lastCommittedIndex);
                 return false;
             }
-            if (lastCommittedIndex < this.lastCommittedIndex) {
+            if (lastCommittedIndex < this.lastCommittedIndex.get()) {
                 return false;
             }
-            if (lastCommittedIndex > this.lastCommittedIndex) {
-                this.lastCommittedIndex = lastCommittedIndex;
-                stampedLock.unlockWrite(stamp);
-                doUnlock = false;
-                this.waiter.onCommitted(lastCommittedIndex);
+            if (!updateLastCommittedIndex(lastCommittedIndex)) {
+                return true;
             }
         } finally {
-            if (doUnlock) {
-                stampedLock.unlockWrite(stamp);
-            }
+            this.lock.unlock();
         }
+        this.waiter.onCommitted(lastCommittedIndex);
         return true;
     }
 
@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import com.alipay.sofa.jraft.Closure;
+import com.alipay.sofa.jraft.FSMCaller;
+import com.alipay.sofa.jraft.closure.ClosureQueue;
+import com.alipay.sofa.jraft.closure.TaskClosure;
+import com.alipay.sofa.jraft.conf.Configuration;
+import com.alipay.sofa.jraft.entity.PeerId;
+import com.alipay.sofa.jraft.option.BallotBoxOptions;
+
+/**
+ * A leader of a group with 5 replicas appending tasks to the ballot box, while
+ * the 4 replicator threads of the followers ack every log concurrently.
+ *
+ * @author jiachun.fjc
+ */
+@SuppressWarnings("all")
+@State(Scope.Group)
+public class BallotBoxBenchmark {
+
+    private static final int     REPLICAS    = 5;
+    private static final int     MAX_PENDING = 4096;
+
+    private BallotBox            box;
+    private PeerId[]             peers;
+    private Configuration        conf;
+    private volatile long        appended;
+    private final AtomicInteger  nextPeer    = new AtomicInteger(1);
+
+    @State(Scope.Thread)
+    public static class Replicator {
+        PeerId peer;
+        long   nextIndex;
+
+        @Setup(Level.Iteration)
+        public void setup(BallotBoxBenchmark benchmark) {
+            this.peer = benchmark.peers[1 + benchmark.nextPeer.getAndIncrement() % (REPLICAS - 1)];
+            this.nextIndex = 1;
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.peers = new PeerId[REPLICAS];
+        this.conf = new Configuration();
+        for (int i = 0; i < REPLICAS; i++) {
+            this.peers[i] = new PeerId("localhost", 8081 + i);
+            this.conf.addPeer(this.peers[i]);
+        }
+        final BallotBoxOptions opts = new BallotBoxOptions();
+        opts.setWaiter((FSMCaller) Proxy.newProxyInstance(FSMCaller.class.getClassLoader(),
+            new Class[] { FSMCaller.class }, (proxy, method, args) -> Boolean.TRUE));
+        opts.setClosureQueue(new NoopClosureQueue());
+        this.box = new BallotBox();
+        this.box.init(opts);
+        this.box.resetPendingIndex(1);
+        this.appended = 0;
+    }
+
+    @Benchmark
+    @Group("ballot")
+    @GroupThreads(1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean appendPendingTask() {
+        if (this.appended - this.box.getLastCommittedIndex() >= MAX_PENDING) {
+            return false;
+        }
+        this.box.appendPendingTask(this.conf, null, null);
+        this.appended++;
+        return true;
+    }
+
+    @Benchmark
+    @Group("ballot")
+    @GroupThreads(REPLICAS - 1)
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean commitAt(Replicator replicator) {
+        if (replicator.nextIndex > this.appended) {
+            return false;
+        }
+        this.box.commitAt(replicator.nextIndex, replicator.nextIndex, replicator.peer);
+        replicator.nextIndex++;
+        return true;
+    }
+
+    private static class NoopClosureQueue implements ClosureQueue {
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public void resetFirstIndex(long firstIndex) {
+        }
+
+        @Override
+        public void appendPendingClosure(Closure closure) {
+        }
+
+        @Override
+        public long popClosureUntil(long endIndex, List<Closure> closures) {
+            return endIndex;
+        }
+
+        @Override
+        public long popClosureUntil(long endIndex, List<Closure> closures, List<TaskClosure> taskClosures) {
+            return endIndex;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder() //
+            .include(BallotBoxBenchmark.class.getSimpleName()) //
+            .warmupIterations(3) //
+            .warmupTime(TimeValue.seconds(10)) //
+            .measurementIterations(3) //
+            .measurementTime(TimeValue.seconds(10)) //
+            .forks(1) //
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -152,4 +152,38 @@ public class BallotBoxTest {
         assertEquals(1, this.box.getLastCommittedIndex());
         Mockito.verify(this.waiter, Mockito.only()).onCommitted(1);
     }
+
+    @Test
+    public void testConcurrentCommitAt() throws Exception {
+        assertTrue(box.resetPendingIndex(1));
+        final int tasks = 5000;
+        for (int i = 0; i < tasks; i++) {
+            assertTrue(this.box.appendPendingTask(
+                JRaftUtils.getConfiguration("localhost:8081,localhost:8082,localhost:8083,localhost:8084,localhost:8085"),
+                null, new Closure() {
+
+                    @Override
+                    public void run(Status status) {
+
+                    }
+                }));
+        }
+        final Thread[] replicators = new Thread[4];
+        for (int i = 0; i < replicators.length; i++) {
+            final PeerId peer = new PeerId("localhost", 8082 + i);
+            replicators[i] = new Thread(() -> {
+                for (long index = 1; index <= tasks; index += 7) {
+                    assertTrue(this.box.commitAt(index, Math.min(index + 6, tasks), peer));
+                }
+            });
+            replicators[i].start();
+        }
+        for (final Thread replicator : replicators) {
+            replicator.join();
+        }
+        assertEquals(tasks, this.box.getLastCommittedIndex());
+        assertEquals(tasks + 1, this.box.getPendingIndex());
+        assertTrue(this.box.getPendingMetaQueue().isEmpty());
+        Mockito.verify(this.waiter, Mockito.atLeastOnce()).onCommitted(Mockito.anyLong());
+    }
 }
@@ -25,11 +25,19 @@ public class BaseKVStoreTest {
     protected MemoryDBOptions  dbOptions;
 
     protected void setup() throws Exception {
-        this.kvStore = new MemoryRawKVStore();
-        this.dbOptions = new MemoryDBOptions();
+        this.kvStore = newKVStore();
+        this.dbOptions = newDBOptions();
         this.kvStore.init(this.dbOptions);
     }
 
+    protected MemoryRawKVStore newKVStore() {
+        return new MemoryRawKVStore();
+    }
+
+    protected MemoryDBOptions newDBOptions() {
+        return new MemoryDBOptions();
+    }
+
     protected void tearDown() throws Exception {
         this.kvStore.shutdown();
     }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.artemis.util.mikuli;
+
+import static tech.pegasys.artemis.util.mikuli.G2Point.hashToG2;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+import net.consensys.cava.bytes.Bytes;
+import org.apache.milagro.amcl.BLS381.BIG;
+import org.apache.milagro.amcl.BLS381.ECP;
+import org.apache.milagro.amcl.BLS381.ECP2;
+import org.apache.milagro.amcl.BLS381.FP12;
+
+/**
+ * Verifies many signatures together, each over one or more public keys and messages.
+ *
+ * <p>Every signature i is valid if and only if the product of e(publicKey_ij, H(message_ij)) over
+ * its public keys and messages equals e(g1, signature_i). The signatures are checked at once by
+ * raising both sides of every equation to a random 64 bit scalar r_i, so the product of all the
+ * equations only needs one Miller loop per public key, one for the sum of r_i * signature_i, and a
+ * single final exponentiation. An invalid signature only passes with probability 2^-63.
+ *
+ * <p>If the batch fails, every signature is verified on its own to find the invalid ones. The
+ * Miller loops are run in parallel.
+ */
+public final class BatchVerifier {
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final List<Item> items = new ArrayList<>();
+
+  /**
+   * Adds a signature over a single message.
+   *
+   * @param publicKey The public key, not null
+   * @param signature The signature, not null
+   * @param message The message data to verify, not null
+   * @param domain The domain value added to the message
+   */
+  public void add(PublicKey publicKey, Signature signature, Bytes message, long domain) {
+    add(
+        Collections.singletonList(publicKey),
+        signature,
+        Collections.singletonList(message),
+        domain);
+  }
+
+  /**
+   * Adds a signature over several messages, as for {@link BLS12381#verifyMultiple(List,
+   * Signature, List, long)}.
+   *
+   * @param publicKeys The list of public keys, not null
+   * @param signature The signature, not null
+   * @param messages The list of message data to verify, not null
+   * @param domain The domain value added to the messages
+   */
+  public void add(
+      List<PublicKey> publicKeys, Signature signature, List<Bytes> messages, long domain) {
+    items.add(new Item(publicKeys, signature, messages, domain));
+  }
+
+  /** @return the number of signatures added */
+  public int size() {
+    return items.size();
+  }
+
+  /**
+   * Verifies all of the signatures added.
+   *
+   * @return whether each signature is valid, in the order they were added
+   */
+  public boolean[] verify() {
+    boolean[] valid = new boolean[items.size()];
+    if (items.isEmpty()) {
+      return valid;
+    }
+    if (verifyBatch()) {
+      for (int i = 0; i < valid.length; i++) {
+        valid[i] = true;
+      }
+      return valid;
+    }
+    IntStream.range(0, items.size())
+        .parallel()
+        .forEach(i -> valid[i] = items.get(i).isWellFormed() && verify(items.get(i)));
+    return valid;
+  }
+
+  private boolean verifyBatch() {
+    if (items.stream().anyMatch(item -> !item.isWellFormed())) {
+      return false;
+    }
+    if (items.size() == 1) {
+      return verify(items.get(0));
+    }
+
+    Scalar[] scalars = new Scalar[items.size()];
+    for (int i = 0; i < scalars.length; i++) {
+      scalars[i] = randomScalar();
+    }
+    FP12 product =
+        IntStream.range(0, items.size())
+            .parallel()
+            .mapToObj(i -> items.get(i).millerLoop(scalars[i]))
+            .reduce(BatchVerifier::mul)
+            .get();
+
+    G2Point signatureSum =
+        IntStream.range(0, items.size())
+            .parallel()
+            .mapToObj(i -> copy(items.get(i).signature.g2Point()).mul(scalars[i]))
+            .reduce(G2Point::add)
+            .get();
+    product.mul(signatureMillerLoop(signatureSum));
+
+    return AtePairing.finalExponentiation(product).isUnity();
+  }
+
+  private static boolean verify(Item item) {
+    FP12 product = item.millerLoop(null);
+    product.mul(signatureMillerLoop(copy(item.signature.g2Point())));
+    return AtePairing.finalExponentiation(product).isUnity();
+  }
+
+  // The Miller loop of e(-g1, signature), which is one for the signature at infinity.
+  private static FP12 signatureMillerLoop(G2Point signature) {
+    if (signature.ecp2Point().is_infinity()) {
+      return new FP12(1);
+    }
+    return AtePairing.millerLoop(negatedGenerator(), signature);
+  }
+
+  private static FP12 mul(FP12 a, FP12 b) {
+    FP12 product = new FP12(a);
+    product.mul(b);
+    return product;
+  }
+
+  private static Scalar randomScalar() {
+    byte[] bytes = new byte[BIG.MODBYTES];
+    byte[] random = new byte[8];
+    RANDOM.nextBytes(random);
+    System.arraycopy(random, 0, bytes, bytes.length - random.length, random.length);
+    // Never zero, which would let any signature pass.
+    bytes[bytes.length - 1] |= 1;
+    return new Scalar(BIG.fromBytes(bytes));
+  }
+
+  // The points of the public keys and signatures may be shared between threads, so they are copied
+  // before multiplying or pairing them, which may normalise them in place.
+
+  private static G1Point negatedGenerator() {
+    ECP point = new ECP();
+    point.copy(KeyPair.g1Generator.ecpPoint());
+    point.neg();
+    return new G1Point(point);
+  }
+
+  private static G1Point copy(G1Point p1) {
+    ECP point = new ECP();
+    point.copy(p1.ecpPoint());
+    return new G1Point(point);
+  }
+
+  private static G2Point copy(G2Point p2) {
+    return new G2Point(new ECP2(p2.ecp2Point()));
+  }
+
+  private static final class Item {
+    private final List<PublicKey> publicKeys;
+    private final Signature signature;
+    private final List<Bytes> messages;
+    private final long domain;
+
+    private Item(
+        List<PublicKey> publicKeys, Signature signature, List<Bytes> messages, long domain) {
+      this.publicKeys = publicKeys;
+      this.signature = signature;
+      this.messages = messages;
+      this.domain = domain;
+    }
+
+    private boolean isWellFormed() {
+      return signature != null
+          && !publicKeys.isEmpty()
+          && publicKeys.size() == messages.size()
+          && publicKeys.stream().allMatch(publicKey -> publicKey != null);
+    }
+
+    /**
+     * @param scalar the scalar to multiply the public keys with, or null for one
+     * @return the product of the Miller loops of the public keys and the hashes of their messages
+     */
+    private FP12 millerLoop(Scalar scalar) {
+      FP12 product = new FP12(1);
+      for (int i = 0; i < publicKeys.size(); i++) {
+        G1Point publicKey = publicKeys.get(i).g1Point();
+        if (publicKey.ecpPoint().is_infinity()) {
+          // Pairs to one, as for the aggregate of no public keys.
+          continue;
+        }
+        publicKey = scalar == null ? copy(publicKey) : copy(publicKey).mul(scalar);
+        product.mul(AtePairing.millerLoop(publicKey, hashToG2(messages.get(i), domain)));
+      }
+      return product;
+    }
+  }
+}
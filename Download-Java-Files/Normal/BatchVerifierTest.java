@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.artemis.util.mikuli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Arrays;
+import net.consensys.cava.bytes.Bytes;
+import org.junit.jupiter.api.Test;
+
+class BatchVerifierTest {
+
+  private static final long DOMAIN = 42L;
+
+  @Test
+  void succeedsWhenBatchOfValidSignaturesVerifies() {
+    BatchVerifier batchVerifier = new BatchVerifier();
+    for (int i = 0; i < 4; i++) {
+      KeyPair keyPair = KeyPair.random();
+      Bytes message = Bytes.wrap(new byte[] {(byte) i});
+      Signature signature = BLS12381.sign(keyPair, message, DOMAIN).signature();
+      batchVerifier.add(keyPair.publicKey(), signature, message, DOMAIN);
+    }
+    assertArrayEquals(new boolean[] {true, true, true, true}, batchVerifier.verify());
+  }
+
+  @Test
+  void succeedsWhenBatchFindsTheInvalidSignature() {
+    BatchVerifier batchVerifier = new BatchVerifier();
+    for (int i = 0; i < 4; i++) {
+      KeyPair keyPair = KeyPair.random();
+      Bytes message = Bytes.wrap(new byte[] {(byte) i});
+      Signature signature = BLS12381.sign(keyPair, message, DOMAIN).signature();
+      long domain = i == 2 ? DOMAIN + 1 : DOMAIN;
+      batchVerifier.add(keyPair.publicKey(), signature, message, domain);
+    }
+    assertArrayEquals(new boolean[] {true, true, false, true}, batchVerifier.verify());
+  }
+
+  @Test
+  void succeedsWhenBatchVerifiesAggregateSignatures() {
+    KeyPair keyPair1 = KeyPair.random();
+    KeyPair keyPair2 = KeyPair.random();
+    Bytes message1 = Bytes.fromHexString("0x01");
+    Bytes message2 = Bytes.fromHexString("0x02");
+    Signature aggregate =
+        Signature.aggregate(
+            Arrays.asList(
+                BLS12381.sign(keyPair1, message1, DOMAIN).signature(),
+                BLS12381.sign(keyPair2, message2, DOMAIN).signature()));
+
+    BatchVerifier batchVerifier = new BatchVerifier();
+    batchVerifier.add(
+        Arrays.asList(keyPair1.publicKey(), keyPair2.publicKey()),
+        aggregate,
+        Arrays.asList(message1, message2),
+        DOMAIN);
+    batchVerifier.add(
+        Arrays.asList(keyPair2.publicKey(), keyPair1.publicKey()),
+        aggregate,
+        Arrays.asList(message1, message2),
+        DOMAIN);
+    batchVerifier.add(keyPair1.publicKey(), aggregate, message1, DOMAIN);
+    assertArrayEquals(new boolean[] {true, false, false}, batchVerifier.verify());
+  }
+
+  @Test
+  void succeedsWhenEmptyBatchVerifies() {
+    assertArrayEquals(new boolean[0], new BatchVerifier().verify());
+  }
+}
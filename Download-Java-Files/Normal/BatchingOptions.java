@@ -24,15 +24,23 @@ public class BatchingOptions {
 
     // If batching is allowed, the client will submit the requests in batch mode,
     // which will improve the throughput without any negative impact on the delay.
-    private boolean allowBatching = true;
+    private boolean allowBatching      = true;
     // Maximum number of requests that can be applied in a batch.
-    private int     batchSize     = 100;
+    private int     batchSize          = 100;
     // Internal disruptor buffers size for get/put request etc.
-    private int     bufSize       = 8192;
+    private int     bufSize            = 8192;
     // Maximum bytes size to cached for put-request (keys.size + value.size).
-    private int     maxWriteBytes = 32768;
+    private int     maxWriteBytes      = 32768;
     // Maximum bytes size to cached for get-request (keys.size).
-    private int     maxReadBytes  = 1024;
+    private int     maxReadBytes       = 1024;
+    // If adaptive batching is enabled, the batch size grows while requests queue
+    // up and shrinks when the latency of the batches goes up, bounded by batchSize,
+    // and the batches complete in the order they were sent.
+    private boolean adaptiveBatching   = false;
+    // Maximum number of batches in flight per batching handler when batching
+    // adaptively, requests linger in the handler until one of them completes.
+    // 0 means no limit.
+    private int     maxInflightBatches = 8;
 
     public boolean isAllowBatching() {
         return allowBatching;
@@ -74,9 +82,26 @@ public class BatchingOptions {
         this.maxReadBytes = maxReadBytes;
     }
 
+    public boolean isAdaptiveBatching() {
+        return adaptiveBatching;
+    }
+
+    public void setAdaptiveBatching(boolean adaptiveBatching) {
+        this.adaptiveBatching = adaptiveBatching;
+    }
+
+    public int getMaxInflightBatches() {
+        return maxInflightBatches;
+    }
+
+    public void setMaxInflightBatches(int maxInflightBatches) {
+        this.maxInflightBatches = maxInflightBatches;
+    }
+
     @Override
     public String toString() {
         return "BatchingOptions{" + "allowBatching=" + allowBatching + ", batchSize=" + batchSize + ", bufSize="
-               + bufSize + ", maxWriteBytes=" + maxWriteBytes + ", maxReadBytes=" + maxReadBytes + '}';
+               + bufSize + ", maxWriteBytes=" + maxWriteBytes + ", maxReadBytes=" + maxReadBytes
+               + ", adaptiveBatching=" + adaptiveBatching + ", maxInflightBatches=" + maxInflightBatches + '}';
     }
 }
@@ -60,6 +60,16 @@ public final class BatchingOptionsConfigured implements Configured<BatchingOptio
         return this;
     }
 
+    public BatchingOptionsConfigured withAdaptiveBatching(final boolean adaptiveBatching) {
+        this.opts.setAdaptiveBatching(adaptiveBatching);
+        return this;
+    }
+
+    public BatchingOptionsConfigured withMaxInflightBatches(final int maxInflightBatches) {
+        this.opts.setMaxInflightBatches(maxInflightBatches);
+        return this;
+    }
+
     @Override
     public BatchingOptions config() {
         return this.opts;
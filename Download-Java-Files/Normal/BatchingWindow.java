@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.client;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import com.alipay.sofa.jraft.rhea.options.BatchingOptions;
+import com.alipay.sofa.jraft.util.Requires;
+
+/**
+ * The batches in flight of an adaptive batching handler, see
+ * {@link BatchingOptions#isAdaptiveBatching()}.
+ *
+ * The batch size follows an {@link AdaptiveBatchLimit}, at most
+ * {@link BatchingOptions#getMaxInflightBatches()} batches are in flight and the
+ * batches complete in the order they were sent. A batch which is not full yet
+ * lingers in the handler while the window is full, and the handler is woken up
+ * once a batch in flight completes.
+ *
+ * @author jiachun.fjc
+ */
+final class BatchingWindow {
+
+    private final AdaptiveBatchLimit   limit;
+    // null unless the number of batches in flight is limited
+    private final Semaphore            inflightPermits;
+    // the number of requests waiting for the handler
+    private final LongSupplier         backlog;
+    // wakes up the handler to send the lingering requests
+    private final Runnable             wakeup;
+
+    // the batches in flight in the order they were sent, guarded by itself
+    private final Deque<InflightBatch> inflightBatches = new ArrayDeque<>();
+    private boolean                    completing;
+    // whether requests linger in the handler until a batch in flight completes
+    private volatile boolean           lingering;
+
+    BatchingWindow(int maxBatchSize, int maxInflightBatches, LongSupplier backlog, Runnable wakeup) {
+        Requires.requireNonNull(backlog, "backlog");
+        Requires.requireNonNull(wakeup, "wakeup");
+        this.limit = new AdaptiveBatchLimit(maxBatchSize);
+        this.inflightPermits = maxInflightBatches > 0 ? new Semaphore(maxInflightBatches) : null;
+        this.backlog = backlog;
+        this.wakeup = wakeup;
+    }
+
+    int batchSize() {
+        return this.limit.get();
+    }
+
+    /**
+     * Returns true if the cached requests may be sent as a batch now, in which
+     * case a permit for one more batch in flight has been taken. A full batch
+     * waits for a permit, any other batch lingers if there is none.
+     */
+    boolean tryAcquire(final boolean full) {
+        if (this.inflightPermits == null) {
+            return true;
+        }
+        if (full) {
+            this.lingering = false;
+            this.inflightPermits.acquireUninterruptibly();
+            return true;
+        }
+        // set before trying, so that a batch completing in between sees it and wakes the handler up
+        this.lingering = true;
+        if (this.inflightPermits.tryAcquire()) {
+            this.lingering = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sends a batch, returns a future that completes after those of all the
+     * batches sent before.
+     */
+    <R> CompletableFuture<R> send(final Supplier<CompletableFuture<R>> sender) {
+        final InflightBatch batch = new InflightBatch();
+        synchronized (this.inflightBatches) {
+            this.inflightBatches.add(batch);
+        }
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        CompletableFuture<R> sent;
+        try {
+            sent = sender.get();
+        } catch (final Throwable t) {
+            sent = new CompletableFuture<>();
+            sent.completeExceptionally(t);
+        }
+        sent.whenComplete((result, throwable) -> onComplete(batch, () -> {
+            if (throwable == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(throwable);
+            }
+        }));
+        return future;
+    }
+
+    int inflight() {
+        synchronized (this.inflightBatches) {
+            return this.inflightBatches.size();
+        }
+    }
+
+    private void onComplete(final InflightBatch batch, final Runnable completion) {
+        this.limit.onSample(System.nanoTime() - batch.startNanos, this.backlog.getAsLong());
+        if (this.inflightPermits != null) {
+            this.inflightPermits.release();
+            if (this.lingering) {
+                this.wakeup.run();
+            }
+        }
+        synchronized (this.inflightBatches) {
+            batch.completion = completion;
+            if (this.completing) {
+                // the thread completing the batches before this one completes it as well
+                return;
+            }
+            this.completing = true;
+        }
+        for (;;) {
+            final InflightBatch head;
+            synchronized (this.inflightBatches) {
+                head = this.inflightBatches.peekFirst();
+                if (head == null || head.completion == null) {
+                    this.completing = false;
+                    return;
+                }
+                this.inflightBatches.pollFirst();
+            }
+            head.completion.run();
+        }
+    }
+
+    private static class InflightBatch {
+
+        private final long startNanos = System.nanoTime();
+        // set once the response arrived, guarded by BatchingWindow#inflightBatches
+        private Runnable   completion;
+    }
+}
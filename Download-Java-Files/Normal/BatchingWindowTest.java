@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.client;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ * @author jiachun.fjc
+ */
+public class BatchingWindowTest {
+
+    private final AtomicInteger wakeups = new AtomicInteger();
+
+    private BatchingWindow newWindow(final int maxInflightBatches) {
+        return new BatchingWindow(100, maxInflightBatches, () -> 0, this.wakeups::incrementAndGet);
+    }
+
+    @Test
+    public void completeInSendOrderTest() {
+        final BatchingWindow window = newWindow(3);
+        final List<Integer> completed = new CopyOnWriteArrayList<>();
+        final CompletableFuture<Integer>[] responses = newResponses(3);
+        for (int i = 0; i < responses.length; i++) {
+            final int index = i;
+            Assert.assertTrue(window.tryAcquire(false));
+            window.send(() -> responses[index]).whenComplete((result, throwable) -> completed.add(result));
+        }
+        Assert.assertEquals(3, window.inflight());
+
+        responses[2].complete(2);
+        responses[1].complete(1);
+        // the first batch is still in flight, so are the ones sent after it
+        Assert.assertTrue(completed.isEmpty());
+        Assert.assertEquals(3, window.inflight());
+
+        responses[0].complete(0);
+        Assert.assertEquals(0, window.inflight());
+        Assert.assertEquals(3, completed.size());
+        Assert.assertEquals(0, completed.get(0).intValue());
+        Assert.assertEquals(1, completed.get(1).intValue());
+        Assert.assertEquals(2, completed.get(2).intValue());
+    }
+
+    @Test
+    public void failedBatchCompletesInOrderTest() throws Exception {
+        final BatchingWindow window = newWindow(2);
+        final CompletableFuture<Integer> first = new CompletableFuture<>();
+        Assert.assertTrue(window.tryAcquire(false));
+        final CompletableFuture<Integer> firstResult = window.send(() -> first);
+        Assert.assertTrue(window.tryAcquire(false));
+        final CompletableFuture<Integer> secondResult = window.send(() -> {
+            throw new IllegalStateException("fail to send");
+        });
+        Assert.assertFalse(secondResult.isDone());
+
+        first.complete(1);
+        Assert.assertEquals(1, firstResult.get().intValue());
+        try {
+            secondResult.get();
+            Assert.fail();
+        } catch (final ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertEquals(0, window.inflight());
+    }
+
+    @Test
+    public void lingerUntilBatchCompletesTest() {
+        final BatchingWindow window = newWindow(1);
+        final CompletableFuture<Integer> response = new CompletableFuture<>();
+        Assert.assertTrue(window.tryAcquire(false));
+        window.send(() -> response);
+
+        // the window is full, the requests which are not a full batch linger
+        Assert.assertFalse(window.tryAcquire(false));
+        Assert.assertFalse(window.tryAcquire(false));
+        Assert.assertEquals(0, this.wakeups.get());
+
+        response.complete(1);
+        // the handler is woken up to send the lingering requests
+        Assert.assertEquals(1, this.wakeups.get());
+        Assert.assertTrue(window.tryAcquire(false));
+    }
+
+    @Test
+    public void noWakeupWithoutLingeringTest() {
+        final BatchingWindow window = newWindow(1);
+        final CompletableFuture<Integer> response = new CompletableFuture<>();
+        Assert.assertTrue(window.tryAcquire(false));
+        window.send(() -> response);
+        response.complete(1);
+        Assert.assertEquals(0, this.wakeups.get());
+    }
+
+    @Test
+    public void fullBatchWaitsForPermitTest() throws Exception {
+        final BatchingWindow window = newWindow(1);
+        final CompletableFuture<Integer> response = new CompletableFuture<>();
+        Assert.assertTrue(window.tryAcquire(false));
+        window.send(() -> response);
+        // a batch lingered before the full one came in
+        Assert.assertFalse(window.tryAcquire(false));
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean acquired = new AtomicBoolean();
+        final Thread handler = new Thread(() -> {
+            started.countDown();
+            acquired.set(window.tryAcquire(true));
+        });
+        handler.start();
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        // a full batch does not linger, it waits for the batch in flight
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handler.getState() != Thread.State.WAITING) {
+            Assert.assertTrue(handler.isAlive());
+            Assert.assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        Assert.assertFalse(acquired.get());
+
+        response.complete(1);
+        handler.join(TimeUnit.SECONDS.toMillis(5));
+        Assert.assertFalse(handler.isAlive());
+        Assert.assertTrue(acquired.get());
+        // the full batch took over the lingering requests, there is nothing left to wake up
+        Assert.assertEquals(0, this.wakeups.get());
+    }
+
+    @Test
+    public void unlimitedInflightTest() {
+        final BatchingWindow window = newWindow(0);
+        final CompletableFuture<Integer>[] responses = newResponses(10);
+        for (int i = 0; i < responses.length; i++) {
+            final int index = i;
+            Assert.assertTrue(window.tryAcquire(i % 2 == 0));
+            window.send(() -> responses[index]);
+        }
+        Assert.assertEquals(10, window.inflight());
+        for (final CompletableFuture<Integer> response : responses) {
+            response.complete(0);
+        }
+        Assert.assertEquals(0, window.inflight());
+        Assert.assertEquals(0, this.wakeups.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Integer>[] newResponses(final int n) {
+        final CompletableFuture<Integer>[] responses = new CompletableFuture[n];
+        for (int i = 0; i < n; i++) {
+            responses[i] = new CompletableFuture<>();
+        }
+        return responses;
+    }
+}
@@ -35,10 +35,12 @@ import static tech.pegasys.artemis.util.hashtree.HashTreeUtil.hash_tree_root;
 import static tech.pegasys.artemis.util.hashtree.HashTreeUtil.integerListHashTreeRoot;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Ints;
 import com.google.common.primitives.UnsignedLong;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Objects;
@@ -131,26 +133,22 @@ public class BeaconStateUtil {
         previous_epoch.compareTo(epoch) <= 0 && epoch.compareTo(next_epoch) <= 0,
         "checkArgument threw and exception in get_crosslink_committees_at_slot()");
 
-    UnsignedLong committees_per_epoch = UnsignedLong.ZERO;
     Bytes32 seed = Bytes32.ZERO;
     UnsignedLong shuffling_epoch = UnsignedLong.ZERO;
     UnsignedLong shuffling_start_shard = UnsignedLong.ZERO;
 
     if (epoch.compareTo(current_epoch) == 0) {
-      committees_per_epoch = get_current_epoch_committee_count(state);
       seed = state.getCurrent_shuffling_seed();
       shuffling_epoch = state.getCurrent_shuffling_epoch();
       shuffling_start_shard = state.getCurrent_shuffling_start_shard();
 
     } else if (epoch.compareTo(previous_epoch) == 0) {
-      committees_per_epoch = get_previous_epoch_committee_count(state);
       seed = state.getPrevious_shuffling_seed();
       shuffling_epoch = state.getPrevious_shuffling_epoch();
       shuffling_start_shard = state.getPrevious_shuffling_start_shard();
 
     } else if (epoch.compareTo(next_epoch) == 0) {
       UnsignedLong current_committees_per_epoch = get_current_epoch_committee_count(state);
-      committees_per_epoch = get_next_epoch_committee_count(state);
       shuffling_epoch = next_epoch;
       UnsignedLong epochs_since_last_registry_update =
           current_epoch.minus(state.getValidator_registry_update_epoch());
@@ -170,8 +168,20 @@ public class BeaconStateUtil {
         shuffling_start_shard = state.getCurrent_shuffling_start_shard();
       }
     }
-    List<List<Integer>> shuffling =
-        get_shuffling(seed, state.getValidator_registry(), shuffling_epoch);
+    int[][] shuffling;
+    if (state instanceof BeaconStateWithCache) {
+      shuffling =
+          ((BeaconStateWithCache) state)
+              .getShufflingCache()
+              .get_committees(seed, state.getValidator_registry(), shuffling_epoch);
+    } else {
+      int[] active_validator_indices =
+          get_active_validator_index_array(state.getValidator_registry(), shuffling_epoch);
+      shuffling = compute_committees(seed, active_validator_indices);
+    }
+    // The committee count of the epoch is that of the shuffling, as both only depend on the
+    // validators active in the shuffling epoch.
+    UnsignedLong committees_per_epoch = UnsignedLong.valueOf(shuffling.length);
     UnsignedLong offset = slot.mod(UnsignedLong.valueOf(SLOTS_PER_EPOCH));
     UnsignedLong committees_per_slot =
         committees_per_epoch.dividedBy(UnsignedLong.valueOf(SLOTS_PER_EPOCH));
@@ -183,13 +193,14 @@ public class BeaconStateUtil {
             .mod(UnsignedLong.valueOf(Constants.SHARD_COUNT));
     ArrayList<CrosslinkCommittee> crosslink_committees_at_slot = new ArrayList<>();
     for (long i = 0; i < committees_per_slot.longValue(); i++) {
+      int shard_index = toIntExact(slot_start_shard.longValue() + i) % Constants.SHARD_COUNT;
       CrosslinkCommittee committee =
           new CrosslinkCommittee(
               committees_per_slot
                   .times(offset)
                   .plus(UnsignedLong.valueOf(i))
                   .mod(UnsignedLong.valueOf(Constants.SHARD_COUNT)),
-              shuffling.get(toIntExact(slot_start_shard.longValue() + i) % Constants.SHARD_COUNT));
+              Collections.unmodifiableList(Ints.asList(shuffling[shard_index])));
       crosslink_committees_at_slot.add(committee);
     }
     return crosslink_committees_at_slot;
@@ -207,22 +218,6 @@ public class BeaconStateUtil {
    * expected to appropriately use caching/memoization to avoid redoing work.
    */
 
-  /**
-   * Return the number of committees in the previous epoch of the given state.
-   *
-   * @param state - The state under consideration.
-   * @return The number of committees in the previous epoch.
-   * @see <a
-   *     href="https://github.com/ethereum/eth2.0-specs/blob/v0.4.0/specs/core/0_beacon-chain.md#get_previous_epoch_committee_count">get_previous_epoch_committee_count
-   *     - Spec v0.4</a>
-   */
-  private static UnsignedLong get_previous_epoch_committee_count(BeaconState state) {
-    List<Integer> previous_active_validators =
-        ValidatorsUtil.get_active_validator_indices(
-            state.getValidator_registry(), state.getPrevious_shuffling_epoch());
-    return get_epoch_committee_count(UnsignedLong.valueOf(previous_active_validators.size()));
-  }
-
   /**
    * Returns the number of committees in the current epoch of the given state.
    *
@@ -239,22 +234,6 @@ public class BeaconStateUtil {
     return get_epoch_committee_count(UnsignedLong.valueOf(current_active_validators.size()));
   }
 
-  /**
-   * Returns the number of committees in the next epoch of the given state.
-   *
-   * @param state - The state under consideration.
-   * @return The number of committees in the next epoch.
-   * @see <a
-   *     href="https://github.com/ethereum/eth2.0-specs/blob/v0.4.0/specs/core/0_beacon-chain.md#get_next_epoch_committee_count">get_next_epoch_committee_count
-   *     - Spec v0.4</a>
-   */
-  private static UnsignedLong get_next_epoch_committee_count(BeaconState state) {
-    List<Integer> next_active_validators =
-        ValidatorsUtil.get_active_validator_indices(
-            state.getValidator_registry(), get_current_epoch(state).plus(UnsignedLong.ONE));
-    return get_epoch_committee_count(UnsignedLong.valueOf(next_active_validators.size()));
-  }
-
   /**
    * Generate a seed for the given epoch.
    *
@@ -657,22 +636,59 @@ public class BeaconStateUtil {
    */
   public static List<List<Integer>> get_shuffling(
       Bytes32 seed, List<Validator> validators, UnsignedLong epoch) throws IllegalStateException {
+    int[][] committees =
+        compute_committees(seed, get_active_validator_index_array(validators, epoch));
+    List<List<Integer>> shuffling = new ArrayList<>(committees.length);
+    for (int[] committee : committees) {
+      shuffling.add(new ArrayList<>(Ints.asList(committee)));
+    }
+    return shuffling;
+  }
 
-    List<Integer> active_validator_indices =
-        ValidatorsUtil.get_active_validator_indices(validators, epoch);
-
-    int length = active_validator_indices.size();
-    List<Integer> shuffled_indices =
-        Arrays.stream(shuffle(length, seed)).boxed().collect(Collectors.toList());
-    List<Integer> shuffled_active_validator_indices =
-        active_validator_indices
-            .parallelStream()
-            .map(i -> active_validator_indices.get(shuffled_indices.get(i)))
-            .collect(Collectors.toList());
+  /**
+   * Shuffles the active validators and splits them into crosslink committees, as {@link
+   * #get_shuffling(Bytes32, List, UnsignedLong)} does, without boxing the indices.
+   *
+   * @param seed - A shuffling seed.
+   * @param active_validator_indices - The indices of the active validators, in ascending order.
+   * @return The committees of validator indices.
+   */
+  public static int[][] compute_committees(Bytes32 seed, int[] active_validator_indices) {
+    int length = active_validator_indices.length;
+    int[] shuffled_indices = shuffle(length, seed);
+    int[] shuffled_active_validator_indices = new int[length];
+    for (int i = 0; i < length; i++) {
+      shuffled_active_validator_indices[i] =
+          active_validator_indices[shuffled_indices[active_validator_indices[i]]];
+    }
 
     int committeesPerEpoch = get_epoch_committee_count(UnsignedLong.valueOf(length)).intValue();
+    int[][] committees = new int[committeesPerEpoch][];
+    for (int i = 0; i < committeesPerEpoch; i++) {
+      int startIndex = toIntExact((long) length * i / committeesPerEpoch);
+      int endIndex = toIntExact((long) length * (i + 1) / committeesPerEpoch);
+      committees[i] = Arrays.copyOfRange(shuffled_active_validator_indices, startIndex, endIndex);
+    }
+    return committees;
+  }
 
-    return split(shuffled_active_validator_indices, committeesPerEpoch);
+  /**
+   * Returns the indices of the validators that are active in the given epoch, in ascending order.
+   *
+   * @param validators - The validator registry.
+   * @param epoch - Epoch under consideration.
+   * @return The active validator indices.
+   */
+  public static int[] get_active_validator_index_array(
+      List<Validator> validators, UnsignedLong epoch) {
+    int[] active_validator_indices = new int[validators.size()];
+    int count = 0;
+    for (int index = 0; index < validators.size(); index++) {
+      if (validators.get(index).is_active_validator(epoch)) {
+        active_validator_indices[count++] = index;
+      }
+    }
+    return Arrays.copyOf(active_validator_indices, count);
   }
 
   /**
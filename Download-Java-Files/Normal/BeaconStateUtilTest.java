@@ -23,6 +23,7 @@ import static tech.pegasys.artemis.datastructures.util.DataStructureUtil.newDepo
 import static tech.pegasys.artemis.datastructures.util.DataStructureUtil.randomUnsignedLong;
 import static tech.pegasys.artemis.datastructures.util.DataStructureUtil.randomValidator;
 
+import com.google.common.primitives.Ints;
 import com.google.common.primitives.UnsignedLong;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -546,5 +547,26 @@ class BeaconStateUtilTest {
     }
   }
 
+  @Test
+  void succeedsWhenComputeCommitteesSplitsTheShuffle() {
+    Bytes32 seed = Bytes32.random();
+    int listSize = 1000;
+    int[] active_validator_indices = new int[listSize];
+    List<Integer> shuffled = new ArrayList<>();
+    for (int i = 0; i < listSize; i++) {
+      active_validator_indices[i] = i;
+      shuffled.add(BeaconStateUtil.get_permuted_index(i, listSize, seed));
+    }
+    int committeeCount =
+        BeaconStateUtil.get_epoch_committee_count(UnsignedLong.valueOf(listSize)).intValue();
+    List<List<Integer>> expected = BeaconStateUtil.split(shuffled, committeeCount);
+
+    int[][] committees = BeaconStateUtil.compute_committees(seed, active_validator_indices);
+    assertEquals(expected.size(), committees.length);
+    for (int i = 0; i < committees.length; i++) {
+      assertEquals(expected.get(i), Ints.asList(committees[i]));
+    }
+  }
+
   // *************** END Shuffling Tests *****************
 }
@@ -20,14 +20,19 @@ import net.consensys.cava.bytes.Bytes;
 import net.consensys.cava.bytes.Bytes32;
 import tech.pegasys.artemis.datastructures.Copyable;
 import tech.pegasys.artemis.datastructures.blocks.Eth1Data;
+import tech.pegasys.artemis.datastructures.util.ShufflingCache;
 
 public final class BeaconStateWithCache extends BeaconState {
 
   protected int currentBeaconProposerIndex = -1;
 
+  // Shared with the copies of this state, the shufflings are keyed by seed and epoch.
+  private final ShufflingCache shufflingCache;
+
   public BeaconStateWithCache() {
     super();
     this.currentBeaconProposerIndex = -1;
+    this.shufflingCache = new ShufflingCache();
   }
 
   public BeaconStateWithCache(BeaconStateWithCache state) {
@@ -61,6 +66,8 @@ public final class BeaconStateWithCache extends BeaconState {
     this.latest_eth1_data = new Eth1Data(state.getLatest_eth1_data());
     this.eth1_data_votes = this.copyList(state.getEth1_data_votes(), new ArrayList<>());
     this.deposit_index = state.getDeposit_index();
+
+    this.shufflingCache = state.shufflingCache;
   }
 
   private <S extends Copyable<S>, T extends List<S>> T copyList(T sourceList, T destinationList) {
@@ -94,6 +101,10 @@ public final class BeaconStateWithCache extends BeaconState {
     return this;
   }
 
+  public ShufflingCache getShufflingCache() {
+    return this.shufflingCache;
+  }
+
   public void invalidateCache() {
     this.currentBeaconProposerIndex = -1;
   }
@@ -19,14 +19,17 @@ import static tech.pegasys.artemis.datastructures.Constants.GENESIS_EPOCH;
 import static tech.pegasys.artemis.datastructures.util.BeaconStateUtil.get_initial_beacon_state;
 import static tech.pegasys.artemis.datastructures.util.DataStructureUtil.randomDeposits;
 
+import com.google.common.primitives.Ints;
 import com.google.common.primitives.UnsignedLong;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import net.consensys.cava.bytes.Bytes32;
 import net.consensys.cava.junit.BouncyCastleExtension;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import tech.pegasys.artemis.datastructures.blocks.Eth1Data;
+import tech.pegasys.artemis.datastructures.util.BeaconStateUtil;
 import tech.pegasys.artemis.util.bls.BLSPublicKey;
 
 @ExtendWith(BouncyCastleExtension.class)
@@ -100,4 +103,25 @@ class BeaconStateWithCacheTest {
     assertThat(deepCopy.getValidator_registry().get(0).getPubkey())
         .isNotEqualTo(state.getValidator_registry().get(0).getPubkey());
   }
+
+  @Test
+  void deepCopySharesShufflingsTest() {
+    BeaconStateWithCache state = (BeaconStateWithCache) newState(16);
+    Bytes32 seed = state.getCurrent_shuffling_seed();
+    UnsignedLong epoch = state.getCurrent_shuffling_epoch();
+    state.getShufflingCache().precompute(seed, state.getValidator_registry(), epoch);
+
+    BeaconStateWithCache deepCopy = BeaconStateWithCache.deepCopy(state);
+    int[][] committees =
+        deepCopy.getShufflingCache().get_committees(seed, deepCopy.getValidator_registry(), epoch);
+    assertThat(state.getShufflingCache().get_committees(seed, state.getValidator_registry(), epoch))
+        .isSameAs(committees);
+
+    List<List<Integer>> shuffling =
+        BeaconStateUtil.get_shuffling(seed, state.getValidator_registry(), epoch);
+    assertThat(committees).hasSameSizeAs(shuffling);
+    for (int i = 0; i < committees.length; i++) {
+      assertThat(Ints.asList(committees[i])).isEqualTo(shuffling.get(i));
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package com.iota.iri.benchmarks;
 
 import com.iota.iri.benchmarks.dbbenchmark.RocksDbBenchmark;
+import com.iota.iri.benchmarks.powbenchmark.PearlDiverBenchmark;
 import org.junit.Test;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.runner.Runner;
@@ -28,4 +29,20 @@ public class BenchmarkRunner {
         //possible to do assertions over run results
         new Runner(opts).run();
     }
+
+    @Test
+    public void launchPowBenchmarks() throws RunnerException {
+        Options opts = new OptionsBuilder()
+                .include(PearlDiverBenchmark.class.getName() + ".*")
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .warmupIterations(3)
+                .forks(1)
+                .measurementIterations(5)
+                .shouldFailOnError(true)
+                .shouldDoGC(false)
+                .build();
+
+        new Runner(opts).run();
+    }
 }
@@ -49,7 +49,6 @@ import static tech.pegasys.artemis.datastructures.util.BeaconStateUtil.slot_to_e
 import static tech.pegasys.artemis.datastructures.util.BeaconStateUtil.verify_slashable_attestation;
 import static tech.pegasys.artemis.util.bls.BLSAggregate.bls_aggregate_pubkeys;
 import static tech.pegasys.artemis.util.bls.BLSVerify.bls_verify;
-import static tech.pegasys.artemis.util.bls.BLSVerify.bls_verify_multiple;
 import static tech.pegasys.artemis.util.hashtree.HashTreeUtil.hash_tree_root;
 
 import com.google.common.primitives.UnsignedLong;
@@ -81,6 +80,7 @@ import tech.pegasys.artemis.datastructures.state.PendingAttestation;
 import tech.pegasys.artemis.datastructures.state.Validator;
 import tech.pegasys.artemis.datastructures.util.BeaconStateUtil;
 import tech.pegasys.artemis.util.alogger.ALogger;
+import tech.pegasys.artemis.util.bls.BLSBatchVerifier;
 import tech.pegasys.artemis.util.bls.BLSException;
 import tech.pegasys.artemis.util.bls.BLSPublicKey;
 import tech.pegasys.artemis.util.bls.BLSSignature;
@@ -371,6 +371,11 @@ public final class BlockProcessorUtil {
           block.getBody().getAttestations().size() <= MAX_ATTESTATIONS,
           "in process attestations(): 1");
 
+      // The aggregate signatures are verified together once all the other checks passed, and the
+      // attestations are only appended to the state after that.
+      BLSBatchVerifier aggregate_signatures = new BLSBatchVerifier();
+      List<PendingAttestation> pending_attestations = new ArrayList<>();
+
       // For each attestation in block.body.attestations:
       for (Attestation attestation : block.getBody().getAttestations()) {
         // - Verify that attestation.data.slot
@@ -444,7 +449,7 @@ public final class BlockProcessorUtil {
 
         // - Verify bitfields and aggregate signature
         checkArgument(
-            verify_bitfields_and_aggregate_signature(attestation, state),
+            verify_bitfields_and_aggregate_signature(attestation, state, aggregate_signatures),
             "in process attestations(): 7");
 
         // - Verify that attestation.data.shard_block_root == ZERO_HASH
@@ -463,8 +468,17 @@ public final class BlockProcessorUtil {
                 attestation.getData(),
                 attestation.getCustody_bitfield(),
                 state.getSlot());
-        state.getLatest_attestations().add(pendingAttestation);
+        pending_attestations.add(pendingAttestation);
+      }
+
+      boolean[] valid_signatures = aggregate_signatures.verify();
+      for (int i = 0; i < valid_signatures.length; i++) {
+        checkArgument(
+            valid_signatures[i],
+            "in process attestations(): 7 invalid aggregate signature of attestation %s",
+            i);
       }
+      state.getLatest_attestations().addAll(pending_attestations);
     } catch (IllegalArgumentException e) {
       LOG.log(Level.WARN, "BlockProcessingException thrown in processAttestations()");
       throw new BlockProcessingException(e);
@@ -490,10 +504,12 @@ public final class BlockProcessorUtil {
    *
    * @param attestation
    * @param state
-   * @return true if bitfields and aggregate signature verified. Otherwise, false.
+   * @param aggregate_signatures the batch to add the aggregate signature to, it is verified there
+   * @return true if bitfields verified. Otherwise, false.
    */
   private static boolean verify_bitfields_and_aggregate_signature(
-      Attestation attestation, BeaconState state) throws BlockProcessingException {
+      Attestation attestation, BeaconState state, BLSBatchVerifier aggregate_signatures)
+      throws BlockProcessingException {
     checkArgument(
         Objects.equals(
             attestation.getCustody_bitfield(),
@@ -565,9 +581,7 @@ public final class BlockProcessorUtil {
     LOG.log(Level.DEBUG, "message1: " + messages.get(1).toHexString());
     LOG.log(Level.DEBUG, "signature: " + signature);
     LOG.log(Level.DEBUG, "domain: " + domain);
-    checkArgument(
-        bls_verify_multiple(pubkeys, messages, signature, domain),
-        "checkArgument threw and exception in verify_bitfields_and_aggregate_signature() 4");
+    aggregate_signatures.addMultiple(pubkeys, messages, signature, domain);
 
     return true;
   }
@@ -19,6 +19,7 @@ package com.alipay.sofa.jraft.storage.snapshot.remote;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledFuture;
@@ -75,6 +76,7 @@ public class BoltSession implements Session {
     private ByteBufferCollector          destBuf;
     private CopyOptions                  copyOptions = new CopyOptions();
     private OutputStream                 outputStream;
+    private FileChannel                  fileChannel;
     private ScheduledFuture<?>           timer;
     private String                       destPath;
     private Future<Message>              rpcCall;
@@ -117,6 +119,7 @@ public class BoltSession implements Session {
         try {
             if (!this.finished) {
                 Utils.closeQuietly(this.outputStream);
+                Utils.closeQuietly(this.fileChannel);
             }
         } finally {
             this.lock.unlock();
@@ -146,6 +149,14 @@ public class BoltSession implements Session {
         this.outputStream = out;
     }
 
+    /**
+     * Writes the received data to the channel at its current position, without
+     * buffering it in between.
+     */
+    public void setFileChannel(FileChannel fileChannel) {
+        this.fileChannel = fileChannel;
+    }
+
     @Override
     public void cancel() {
         this.lock.lock();
@@ -190,6 +201,10 @@ public class BoltSession implements Session {
                 Utils.closeQuietly(this.outputStream);
                 this.outputStream = null;
             }
+            if (this.fileChannel != null) {
+                Utils.closeQuietly(this.fileChannel);
+                this.fileChannel = null;
+            }
             if (this.destBuf != null) {
                 final ByteBuffer buf = this.destBuf.getBuffer();
                 if (buf != null) {
@@ -242,7 +257,20 @@ public class BoltSession implements Session {
             if (!response.getEof()) {
                 this.requestBuilder.setCount(response.getReadSize());
             }
-            if (this.outputStream != null) {
+            if (this.fileChannel != null) {
+                try {
+                    for (final ByteBuffer buf : response.getData().asReadOnlyByteBufferList()) {
+                        while (buf.hasRemaining()) {
+                            this.fileChannel.write(buf);
+                        }
+                    }
+                } catch (final IOException e) {
+                    LOG.error("Fail to write into file {}", this.destPath);
+                    this.st.setError(RaftError.EIO, RaftError.EIO.name());
+                    onFinished();
+                    return;
+                }
+            } else if (this.outputStream != null) {
                 try {
                     response.getData().writeTo(this.outputStream);
                 } catch (final IOException e) {
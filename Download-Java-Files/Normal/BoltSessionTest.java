@@ -16,6 +16,10 @@
  */
 package com.alipay.sofa.jraft.storage.snapshot.remote;
 
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.CountDownLatch;
 
 import org.junit.After;
@@ -40,10 +44,13 @@ import com.alipay.sofa.jraft.util.Utils;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(value = MockitoJUnitRunner.class)
 public class BoltSessionTest {
@@ -141,6 +148,27 @@ public class BoltSessionTest {
         assertSame(future, this.session.getRpcCall());
     }
 
+    @Test
+    public void testOnRpcReturnedToFileChannel() throws Exception {
+        final File file = File.createTempFile("bolt-session", ".data");
+        try {
+            final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+            this.session.setFileChannel(channel);
+
+            this.session.onRpcReturned(Status.OK(), RpcRequests.GetFileResponse.newBuilder().setReadSize(3)
+                .setEof(false).setData(ByteString.copyFrom(new byte[] { 1, 2, 3 })).build());
+            this.session.onRpcReturned(Status.OK(), RpcRequests.GetFileResponse.newBuilder().setReadSize(2)
+                .setEof(true).setData(ByteString.copyFrom(new byte[] { 4, 5 })).build());
+            this.session.join();
+
+            assertTrue(this.session.status().isOk());
+            assertFalse(channel.isOpen());
+            assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, Files.readAllBytes(file.toPath()));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
     @Test
     public void testOnRpcReturnedRetry() throws Exception {
         assertNull(this.session.getTimer());
@@ -113,6 +113,17 @@ public class Broker implements Serializable, Comparable<Broker> {
     return -1.0;
   }
 
+  /**
+   * Get the capacity of the broker for each resource, also if the broker is not alive.
+   */
+  Map<Resource, Double> capacity() {
+    Map<Resource, Double> capacity = new HashMap<>();
+    for (Resource resource : Resource.cachedValues()) {
+      capacity.put(resource, _brokerCapacity[resource.id()]);
+    }
+    return capacity;
+  }
+
   /**
    * Get replicas residing in the broker.
    */
@@ -34,6 +34,7 @@ class BufferFileUtils {
     static final String CHARSET = "UTF-8";
     static final String DATA_FILE_PREFIX = "data";
     static final String OFFSET_FILE_PREFIX = "offset";
+    static final String SEGMENT_FILE_PREFIX = "segment";
     private static final String SEPARATOR = "-";
     private static final String SUFFIX = ".sw";
 
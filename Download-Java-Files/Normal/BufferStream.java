@@ -35,16 +35,21 @@ public class BufferStream<MESSAGE_TYPE extends GeneratedMessageV3> {
     private final boolean cleanWhenRestart;
     private final int dataFileMaxSize;
     private final int offsetFileMaxSize;
+    private final boolean memoryMapped;
     private final Parser<MESSAGE_TYPE> parser;
     private final DataStreamReader.CallBack<MESSAGE_TYPE> callBack;
     private DataStream<MESSAGE_TYPE> dataStream;
+    private MappedSegmentStream<MESSAGE_TYPE> mappedSegmentStream;
+    private FileLock lock;
+    private Thread shutdownHook;
 
     private BufferStream(String absolutePath, boolean cleanWhenRestart, int dataFileMaxSize, int offsetFileMaxSize,
-        Parser<MESSAGE_TYPE> parser, DataStreamReader.CallBack<MESSAGE_TYPE> callBack) {
+        boolean memoryMapped, Parser<MESSAGE_TYPE> parser, DataStreamReader.CallBack<MESSAGE_TYPE> callBack) {
         this.absolutePath = absolutePath;
         this.cleanWhenRestart = cleanWhenRestart;
         this.dataFileMaxSize = dataFileMaxSize;
         this.offsetFileMaxSize = offsetFileMaxSize;
+        this.memoryMapped = memoryMapped;
         this.parser = parser;
         this.callBack = callBack;
     }
@@ -54,6 +59,20 @@ public class BufferStream<MESSAGE_TYPE extends GeneratedMessageV3> {
         FileUtils.forceMkdir(directory);
         tryLock(directory);
 
+        if (memoryMapped) {
+            mappedSegmentStream = new MappedSegmentStream<>(directory, dataFileMaxSize, parser, callBack);
+
+            if (cleanWhenRestart) {
+                mappedSegmentStream.clean();
+            }
+
+            mappedSegmentStream.initialize();
+
+            shutdownHook = new Thread(this::closeQuietly, "buffer stream shutdown thread");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            return;
+        }
+
         dataStream = new DataStream<>(directory, dataFileMaxSize, offsetFileMaxSize, parser, callBack);
 
         if (cleanWhenRestart) {
@@ -64,12 +83,52 @@ public class BufferStream<MESSAGE_TYPE extends GeneratedMessageV3> {
     }
 
     public synchronized void write(AbstractMessageLite messageLite) {
-        dataStream.getWriter().write(messageLite);
+        if (memoryMapped) {
+            mappedSegmentStream.write(messageLite);
+        } else {
+            dataStream.getWriter().write(messageLite);
+        }
+    }
+
+    /**
+     * Stop reading, commit the offsets of the memory-mapped segments and release the buffer directory. Called at JVM
+     * shutdown, if not called before. The stream mode doesn't stop, and keeps the directory locked.
+     */
+    public synchronized void close() throws InterruptedException {
+        if (!memoryMapped || mappedSegmentStream == null) {
+            return;
+        }
+        mappedSegmentStream.close();
+
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // The JVM is shutting down already, the hook runs and finds this stream closed.
+            }
+        }
+        shutdownHook = null;
+        if (lock != null) {
+            try {
+                lock.release();
+                lock.channel().close();
+            } catch (IOException e) {
+                logger.error(e.getMessage(), e);
+            }
+            lock = null;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (InterruptedException e) {
+            logger.error("Close buffer stream interrupted, directory is: " + absolutePath, e);
+        }
     }
 
     private void tryLock(File directory) {
         logger.info("Try to lock buffer directory, directory is: " + directory.getAbsolutePath());
-        FileLock lock = null;
 
         try {
             lock = new FileOutputStream(new File(directory, "lock")).getChannel().tryLock();
@@ -90,6 +149,7 @@ public class BufferStream<MESSAGE_TYPE extends GeneratedMessageV3> {
         private boolean cleanWhenRestart;
         private int dataFileMaxSize;
         private int offsetFileMaxSize;
+        private boolean memoryMapped;
         private Parser<MESSAGE_TYPE> parser;
         private DataStreamReader.CallBack<MESSAGE_TYPE> callBack;
 
@@ -98,7 +158,7 @@ public class BufferStream<MESSAGE_TYPE extends GeneratedMessageV3> {
         }
 
         public BufferStream<MESSAGE_TYPE> build() {
-            return new BufferStream<>(absolutePath, cleanWhenRestart, dataFileMaxSize, offsetFileMaxSize, parser, callBack);
+            return new BufferStream<>(absolutePath, cleanWhenRestart, dataFileMaxSize, offsetFileMaxSize, memoryMapped, parser, callBack);
         }
 
         public Builder<MESSAGE_TYPE> cleanWhenRestart(boolean cleanWhenRestart) {
@@ -116,6 +176,15 @@ public class BufferStream<MESSAGE_TYPE extends GeneratedMessageV3> {
             return this;
         }
 
+        /**
+         * Use the fixed-size, memory-mapped segment files, sized by {@link #dataFileMaxSize(int)}, instead of the data
+         * and offset files. The offset file size is not used in this mode.
+         */
+        public Builder<MESSAGE_TYPE> memoryMapped(boolean memoryMapped) {
+            this.memoryMapped = memoryMapped;
+            return this;
+        }
+
         public Builder<MESSAGE_TYPE> parser(Parser<MESSAGE_TYPE> parser) {
             this.parser = parser;
             return this;
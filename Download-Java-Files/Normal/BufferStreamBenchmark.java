@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.buffer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.apache.skywalking.apm.network.language.agent.*;
+import org.slf4j.*;
+
+/**
+ * Throughput benchmark of the stream mode and the memory-mapped segment mode of {@link BufferStream}. Each mode writes
+ * the same segments into a new temporary directory, and the time until the reader consumes all of them is reported
+ * too.
+ *
+ * @author peng-yongsheng
+ */
+public class BufferStreamBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(BufferStreamBenchmark.class);
+
+    private static final int SEGMENT_COUNT = 200000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        TraceSegmentObject segment = buildSegment();
+
+        run("stream", false, segment);
+        run("memory-mapped", true, segment);
+    }
+
+    private static void run(String mode, boolean memoryMapped,
+        TraceSegmentObject segment) throws IOException, InterruptedException {
+        File directory = Files.createTempDirectory("buffer-benchmark-" + mode).toFile();
+        AtomicInteger consumed = new AtomicInteger(0);
+        CountDownLatch allConsumed = new CountDownLatch(1);
+
+        BufferStream.Builder<TraceSegmentObject> builder = new BufferStream.Builder<>(directory.getAbsolutePath());
+        builder.cleanWhenRestart(true);
+        builder.dataFileMaxSize(64);
+        builder.offsetFileMaxSize(10);
+        builder.memoryMapped(memoryMapped);
+        builder.parser(TraceSegmentObject.parser());
+        builder.callBack(bufferData -> {
+            if (consumed.incrementAndGet() == SEGMENT_COUNT) {
+                allConsumed.countDown();
+            }
+            return true;
+        });
+
+        BufferStream<TraceSegmentObject> stream = builder.build();
+        stream.initialize();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            stream.write(segment);
+        }
+        long writeNanos = System.nanoTime() - start;
+
+        boolean finished = allConsumed.await(5, TimeUnit.MINUTES);
+        long totalNanos = System.nanoTime() - start;
+
+        logger.info("mode: {}, write: {} segments/s, {} MB/s, write and read all: {} ms, finished: {}", mode,
+            SEGMENT_COUNT * 1_000_000_000L / writeNanos,
+            (long)SEGMENT_COUNT * segment.getSerializedSize() * 1000L / writeNanos,
+            TimeUnit.NANOSECONDS.toMillis(totalNanos), finished);
+
+        stream.close();
+        FileUtils.deleteQuietly(directory);
+    }
+
+    private static TraceSegmentObject buildSegment() {
+        TraceSegmentObject.Builder segment = TraceSegmentObject.newBuilder();
+        for (int i = 0; i < 10; i++) {
+            SpanObject.Builder span = SpanObject.newBuilder();
+            span.setSpanId(i);
+            span.setParentSpanId(i - 1);
+            span.setOperationName("/benchmark/operation/" + i);
+            span.setStartTime(System.currentTimeMillis());
+            span.setEndTime(System.currentTimeMillis() + 10);
+            segment.addSpans(span);
+        }
+        return segment.build();
+    }
+}
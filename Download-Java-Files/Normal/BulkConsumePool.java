@@ -22,6 +22,7 @@ import java.util.*;
 import java.util.concurrent.Callable;
 import org.apache.skywalking.apm.commons.datacarrier.EnvUtil;
 import org.apache.skywalking.apm.commons.datacarrier.buffer.Channels;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.RingChannels;
 
 /**
  * BulkConsumePool works for consuming data from multiple channels(DataCarrier instances), with multiple {@link
@@ -29,6 +30,9 @@ import org.apache.skywalking.apm.commons.datacarrier.buffer.Channels;
  *
  * In typical case, the number of {@link MultipleChannelsConsumer} should be less than the number of channels.
  *
+ * The {@link RingChannels} of a {@link org.apache.skywalking.apm.commons.datacarrier.RingDataCarrier} are added to
+ * one {@link MultipleChannelsConsumer} as a whole, so their rings keep a single consumer thread.
+ *
  * @author wusheng
  */
 public class BulkConsumePool implements ConsumerPool {
@@ -50,6 +54,11 @@ public class BulkConsumePool implements ConsumerPool {
         multipleChannelsConsumer.addNewTarget(channels, consumer);
     }
 
+    synchronized public <T> void add(String name, RingChannels<T> channels, IConsumer<T> consumer) {
+        MultipleChannelsConsumer multipleChannelsConsumer = getLowestPayload();
+        multipleChannelsConsumer.addNewTarget(channels, consumer);
+    }
+
     /**
      * Get the lowest payload consumer thread based on current allocate status.
      *
@@ -71,16 +80,28 @@ public class BulkConsumePool implements ConsumerPool {
      * @return
      */
     @Override public boolean isRunning(Channels channels) {
-        return isStarted;
+        return isRunning();
     }
 
     @Override public void close(Channels channels) {
+        close();
+    }
+
+    @Override public void begin(Channels channels) {
+        begin();
+    }
+
+    public boolean isRunning() {
+        return isStarted;
+    }
+
+    public void close() {
         for (MultipleChannelsConsumer consumer : allConsumers) {
             consumer.shutdown();
         }
     }
 
-    @Override public void begin(Channels channels) {
+    public void begin() {
         if (isStarted) {
             return;
         }
@@ -19,6 +19,8 @@
 package org.apache.skywalking.apm.commons.datacarrier.consumer;
 
 import java.util.*;
+import java.util.concurrent.*;
+import org.apache.skywalking.apm.commons.datacarrier.RingDataCarrier;
 import org.apache.skywalking.apm.commons.datacarrier.buffer.*;
 import org.apache.skywalking.apm.commons.datacarrier.partition.SimpleRollingPartitioner;
 import org.junit.*;
@@ -88,4 +90,84 @@ public class BulkConsumePoolTest {
         Assert.assertEquals(5, result1.size());
         Assert.assertEquals(2, result2.size());
     }
+
+    @Test
+    public void testRingChannels() throws InterruptedException {
+        BulkConsumePool pool = new BulkConsumePool("testRingPool", 2, 1);
+        final int carrierSize = 3;
+        final int perCarrier = 5000;
+        final CountDownLatch done = new CountDownLatch(carrierSize * perCarrier);
+        List<RingDataCarrier<Object>> carriers = new ArrayList<RingDataCarrier<Object>>();
+        final List<Set<String>> consumerThreads = new ArrayList<Set<String>>();
+        for (int c = 0; c < carrierSize; c++) {
+            final Set<String> threads = ConcurrentHashMap.newKeySet();
+            consumerThreads.add(threads);
+            RingDataCarrier<Object> carrier = new RingDataCarrier<Object>("ring" + c, 2, 64);
+            if (c == 0) {
+                carrier.consume(pool, new IConsumer<Object>() {
+                    @Override public void init() {
+
+                    }
+
+                    @Override public void consume(List<Object> data) {
+                        threads.add(Thread.currentThread().getName());
+                        for (Object datum : data) {
+                            done.countDown();
+                        }
+                    }
+
+                    @Override public void onError(List<Object> data, Throwable t) {
+
+                    }
+
+                    @Override public void onExit() {
+
+                    }
+                });
+            } else {
+                carrier.consume(pool, new IBatchConsumer<Object>() {
+                    @Override public void init() {
+
+                    }
+
+                    @Override public void consume(DataSlice<Object> data) {
+                        threads.add(Thread.currentThread().getName());
+                        for (int i = 0; i < data.size(); i++) {
+                            done.countDown();
+                        }
+                    }
+
+                    @Override public void consume(List<Object> data) {
+                        Assert.fail("IBatchConsumer should receive the slice.");
+                    }
+
+                    @Override public void onError(DataSlice<Object> data, Throwable t) {
+
+                    }
+
+                    @Override public void onError(List<Object> data, Throwable t) {
+
+                    }
+
+                    @Override public void onExit() {
+
+                    }
+                });
+            }
+            carriers.add(carrier);
+        }
+
+        for (int i = 0; i < perCarrier; i++) {
+            for (RingDataCarrier<Object> carrier : carriers) {
+                Assert.assertTrue(carrier.produce(new Object()));
+            }
+        }
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.close();
+
+        // The rings of one carrier are drained by one pool thread only.
+        for (Set<String> threads : consumerThreads) {
+            Assert.assertEquals(1, threads.size());
+        }
+    }
 }
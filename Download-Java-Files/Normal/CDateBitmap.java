@@ -0,0 +1,187 @@
+package com.bakdata.conquery.models.common;
+
+/**
+ * A set of days in a closed span, stored as one bit per day starting at {@link #getOffset()}. For dense sets of many
+ * short ranges this is smaller than {@link CDateSet}, and {@link #contains(int)} and the bulk operations do not
+ * depend on the number of ranges.
+ */
+public class CDateBitmap {
+
+	private final int offset;
+	private final long[] words;
+
+	private CDateBitmap(int offset, int days) {
+		this.offset = offset;
+		this.words = new long[(days + 63) >>> 6];
+	}
+
+	/**
+	 * @throws IllegalStateException if the set is open
+	 */
+	public static CDateBitmap of(CDateSet set) {
+		if (set.isEmpty()) {
+			return new CDateBitmap(0, 0);
+		}
+		CDateRange span = set.span();
+		if (span.isOpen()) {
+			throw new IllegalStateException("Can not create a bitmap of the open set " + set);
+		}
+		CDateBitmap bitmap = new CDateBitmap(span.getMinValue(), (int) span.getNumberOfDays());
+		for (int i = 0; i < set.size(); i++) {
+			bitmap.set(set.getMinValue(i), set.getMaxValue(i));
+		}
+		return bitmap;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public boolean contains(int value) {
+		long day = (long) value - offset;
+		if (day < 0 || day >= (long) words.length << 6) {
+			return false;
+		}
+		return (words[(int) (day >>> 6)] & (1L << day)) != 0;
+	}
+
+	public boolean intersects(CDateRange range) {
+		long from = Math.max(0, (long) range.getMinValue() - offset);
+		long to = Math.min(((long) words.length << 6) - 1, (long) range.getMaxValue() - offset);
+		if (from > to) {
+			return false;
+		}
+		int firstWord = (int) (from >>> 6);
+		int lastWord = (int) (to >>> 6);
+		for (int w = firstWord; w <= lastWord; w++) {
+			long mask = -1L;
+			if (w == firstWord) {
+				mask &= -1L << from;
+			}
+			if (w == lastWord) {
+				mask &= -1L >>> (63 - (to & 63));
+			}
+			if ((words[w] & mask) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Keeps only the days that are also in the other bitmap.
+	 */
+	public void retainAll(CDateBitmap other) {
+		for (int w = 0; w < words.length; w++) {
+			words[w] &= other.word(offset + ((long) w << 6));
+		}
+	}
+
+	/**
+	 * Removes all days of the other bitmap.
+	 */
+	public void removeAll(CDateBitmap other) {
+		for (int w = 0; w < words.length; w++) {
+			words[w] &= ~other.word(offset + ((long) w << 6));
+		}
+	}
+
+	public long countDays() {
+		long days = 0;
+		for (long word : words) {
+			days += Long.bitCount(word);
+		}
+		return days;
+	}
+
+	public CDateSet toSet() {
+		CDateSet set = CDateSet.create();
+		int day = 0;
+		int length = words.length << 6;
+		while (day < length) {
+			int start = nextSetBit(day);
+			if (start < 0) {
+				break;
+			}
+			int end = nextClearBit(start);
+			set.add(new CDateRange(offset + start, offset + end - 1));
+			day = end;
+		}
+		return set;
+	}
+
+	private void set(int min, int max) {
+		for (long day = (long) min - offset; day <= (long) max - offset; day++) {
+			words[(int) (day >>> 6)] |= 1L << day;
+		}
+	}
+
+	/**
+	 * The 64 days starting at the given day as one word, days outside of this bitmap are not set.
+	 */
+	private long word(long firstDay) {
+		long start = firstDay - offset;
+		if (start <= -64 || start >= (long) words.length << 6) {
+			return 0L;
+		}
+		int index = (int) Math.floorDiv(start, 64);
+		int shift = (int) Math.floorMod(start, 64);
+		long low = index >= 0 ? words[index] : 0L;
+		if (shift == 0) {
+			return low;
+		}
+		long high = index + 1 < words.length ? words[index + 1] : 0L;
+		return (low >>> shift) | (high << (64 - shift));
+	}
+
+	private int nextSetBit(int from) {
+		int w = from >>> 6;
+		if (w >= words.length) {
+			return -1;
+		}
+		long word = words[w] & (-1L << from);
+		while (word == 0) {
+			if (++w == words.length) {
+				return -1;
+			}
+			word = words[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	private int nextClearBit(int from) {
+		int w = from >>> 6;
+		if (w >= words.length) {
+			return from;
+		}
+		long word = ~words[w] & (-1L << from);
+		while (word == 0) {
+			if (++w == words.length) {
+				return words.length << 6;
+			}
+			word = ~words[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(word);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof CDateBitmap)) {
+			return false;
+		}
+		return toSet().equals(((CDateBitmap) o).toSet());
+	}
+
+	@Override
+	public int hashCode() {
+		return toSet().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return toSet().toString();
+	}
+}
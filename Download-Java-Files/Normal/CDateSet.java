@@ -3,14 +3,12 @@ package com.bakdata.conquery.models.common;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.NavigableMap;
 import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -20,34 +18,40 @@ import com.bakdata.conquery.models.types.specific.DateRangeType;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.google.common.base.Joiner;
-import com.google.common.collect.ForwardingCollection;
-import com.google.common.math.IntMath;
 
-import lombok.EqualsAndHashCode;
-
-@EqualsAndHashCode
+/**
+ * A set of days, stored as the sorted begins and ends of its disjoint and not adjacent ranges in two primitive arrays.
+ * Single ranges are added or removed by a binary search, whole sets are merged, intersected and subtracted in linear
+ * time over both sets. For dense sets with a closed span {@link #asBitmap()} provides one bit per day.
+ */
 @JsonSerialize(using=CDateSetSerializer.class)
 @JsonDeserialize(using=CDateSetDeserializer.class)
 public class CDateSet {
 
 	private static final Pattern PARSE_PATTERN = Pattern.compile("(\\{|,\\s*)((\\d{4}-\\d{2}-\\d{2})?/(\\d{4}-\\d{2}-\\d{2})?)");
-	private final NavigableMap<Integer, CDateRange> rangesByLowerBound;
+	private static final int INITIAL_CAPACITY = 4;
+
+	private int[] mins;
+	private int[] maxs;
+	private int size;
 	private transient Set<CDateRange> asRanges;
 	private transient Set<CDateRange> asDescendingSetOfRanges;
 
 	public static CDateSet create() {
-		return new CDateSet(new TreeMap<>());
+		return new CDateSet(INITIAL_CAPACITY);
 	}
 	
 	public static CDateSet createFull() {
-		CDateSet set = new CDateSet(new TreeMap<>());
+		CDateSet set = create();
 		set.add(CDateRange.all());
 		return set;
 	}
 
 	public static CDateSet create(CDateSet rangeSet) {
-		CDateSet result = create();
-		result.addAll(rangeSet);
+		CDateSet result = new CDateSet(Math.max(INITIAL_CAPACITY, rangeSet.size));
+		System.arraycopy(rangeSet.mins, 0, result.mins, 0, rangeSet.size);
+		System.arraycopy(rangeSet.maxs, 0, result.maxs, 0, rangeSet.size);
+		result.size = rangeSet.size;
 		return result;
 	}
 	
@@ -63,68 +67,74 @@ public class CDateSet {
 		return result;
 	}
 
-	private CDateSet(NavigableMap<Integer, CDateRange> rangesByLowerCut) {
-		this.rangesByLowerBound = rangesByLowerCut;
+	private CDateSet(int capacity) {
+		this.mins = new int[capacity];
+		this.maxs = new int[capacity];
 	}
 
 	public Set<CDateRange> asRanges() {
 		Set<CDateRange> result = asRanges;
-		return (result == null) ? asRanges = new AsRanges(rangesByLowerBound.values()) : result;
+		return (result == null) ? asRanges = new AsRanges(false) : result;
 	}
 
 	public Set<CDateRange> asDescendingSetOfRanges() {
 		Set<CDateRange> result = asDescendingSetOfRanges;
-		return (result == null) ? asDescendingSetOfRanges = new AsRanges(rangesByLowerBound.descendingMap().values()) : result;
+		return (result == null) ? asDescendingSetOfRanges = new AsRanges(true) : result;
 	}
 
-	final class AsRanges extends ForwardingCollection<CDateRange> implements Set<CDateRange> {
+	/**
+	 * A live view of the ranges, creating the {@link CDateRange} objects while iterating.
+	 */
+	final class AsRanges extends AbstractSet<CDateRange> {
 
-		final Collection<CDateRange> delegate;
+		private final boolean descending;
 
-		AsRanges(Collection<CDateRange> delegate) {
-			this.delegate = delegate;
+		AsRanges(boolean descending) {
+			this.descending = descending;
 		}
 
 		@Override
-		protected Collection<CDateRange> delegate() {
-			return delegate;
-		}
+		public Iterator<CDateRange> iterator() {
+			return new Iterator<CDateRange>() {
+				private int next = 0;
 
-		@Override
-		public int hashCode() {
-			int hashCode = 0;
-			for (Object o : this) {
-				hashCode += o != null ? o.hashCode() : 0;
+				@Override
+				public boolean hasNext() {
+					return next < size;
+				}
 
-				hashCode = ~~hashCode;
-			}
-			return hashCode;
+				@Override
+				public CDateRange next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					int index = descending ? size - 1 - next : next;
+					next++;
+					return new CDateRange(mins[index], maxs[index]);
+				}
+			};
 		}
 
 		@Override
-		public boolean equals(Object object) {
-			if (this == object) {
-				return true;
-			}
-			if (object instanceof Set) {
-				Set<?> o = (Set<?>) object;
+		public int size() {
+			return size;
+		}
 
-				try {
-					return this.size() == o.size() && this.containsAll(o);
-				}
-				catch (NullPointerException | ClassCastException ignored) {
-					return false;
-				}
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof CDateRange)) {
+				return false;
 			}
-			return false;
+			CDateRange range = (CDateRange) o;
+			int index = lastStartingAtOrBefore(range.getMinValue());
+			return index >= 0 && mins[index] == range.getMinValue() && maxs[index] == range.getMaxValue();
 		}
 	}
 
 	public CDateRange rangeContaining(int value) {
-		checkNotNull(value);
-		Entry<Integer, CDateRange> floorEntry = rangesByLowerBound.floorEntry(value);
-		if (floorEntry != null && floorEntry.getValue().contains(value)) {
-			return floorEntry.getValue();
+		int index = lastStartingAtOrBefore(value);
+		if (index >= 0 && maxs[index] >= value) {
+			return new CDateRange(mins[index], maxs[index]);
 		}
 		else {
 			return null;
@@ -146,27 +156,116 @@ public class CDateSet {
 	 * @return true iff any Set contains the value
 	 */
 	public boolean contains(int value) {
-		return rangeContaining(value) != null;
+		int index = lastStartingAtOrBefore(value);
+		return index >= 0 && maxs[index] >= value;
 	}
 	
 	public boolean isEmpty() {
-		return asRanges().isEmpty();
+		return size == 0;
 	}
 	
 	public void clear() {
-		rangesByLowerBound.clear();
+		size = 0;
 	}
 	
+	/**
+	 * Tests if every range of the other set is enclosed by one range of this set, in linear time.
+	 */
 	public boolean enclosesAll(CDateSet other) {
-		return enclosesAll(other.asRanges());
+		int i = 0;
+		for (int j = 0; j < other.size; j++) {
+			while (i < size && maxs[i] < other.mins[j]) {
+				i++;
+			}
+			if (i == size || mins[i] > other.mins[j] || maxs[i] < other.maxs[j]) {
+				return false;
+			}
+		}
+		return true;
 	}
 	
+	/**
+	 * Adds all ranges of the other set by merging both sets in linear time.
+	 */
 	public void addAll(CDateSet other) {
-		addAll(other.asRanges());
+		if (other.size == 0) {
+			return;
+		}
+		if (size == 0) {
+			ensureCapacity(other.size);
+			System.arraycopy(other.mins, 0, mins, 0, other.size);
+			System.arraycopy(other.maxs, 0, maxs, 0, other.size);
+			size = other.size;
+			return;
+		}
+
+		int[] newMins = new int[size + other.size];
+		int[] newMaxs = new int[size + other.size];
+		int newSize = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size || j < other.size) {
+			int min;
+			int max;
+			if (j == other.size || (i < size && mins[i] <= other.mins[j])) {
+				min = mins[i];
+				max = maxs[i++];
+			}
+			else {
+				min = other.mins[j];
+				max = other.maxs[j++];
+			}
+
+			if (newSize > 0 && (long) newMaxs[newSize - 1] + 1 >= min) {
+				newMaxs[newSize - 1] = Math.max(newMaxs[newSize - 1], max);
+			}
+			else {
+				newMins[newSize] = min;
+				newMaxs[newSize++] = max;
+			}
+		}
+		mins = newMins;
+		maxs = newMaxs;
+		size = newSize;
 	}
 	
+	/**
+	 * Removes all days of the other set in linear time.
+	 */
 	public void removeAll(CDateSet other) {
-		removeAll(other.asRanges());
+		if (size == 0 || other.size == 0) {
+			return;
+		}
+
+		int[] newMins = new int[size + other.size];
+		int[] newMaxs = new int[size + other.size];
+		int newSize = 0;
+		int j = 0;
+		for (int i = 0; i < size; i++) {
+			long current = mins[i];
+			int max = maxs[i];
+			while (j < other.size && other.maxs[j] < current) {
+				j++;
+			}
+			while (j < other.size && other.mins[j] <= max) {
+				if (other.mins[j] > current) {
+					newMins[newSize] = (int) current;
+					newMaxs[newSize++] = other.mins[j] - 1;
+				}
+				current = (long) other.maxs[j] + 1;
+				if (current > max) {
+					break;
+				}
+				j++;
+			}
+			if (current <= max) {
+				newMins[newSize] = (int) current;
+				newMaxs[newSize++] = max;
+			}
+		}
+		mins = newMins;
+		maxs = newMaxs;
+		size = newSize;
 	}
 
 	public boolean enclosesAll(Iterable<CDateRange> other) {
@@ -192,26 +291,41 @@ public class CDateSet {
 	
 	public boolean intersects(CDateRange range) {
 		checkNotNull(range);
-		Entry<Integer, CDateRange> ceilingEntry = rangesByLowerBound.ceilingEntry(range.getMinValue());
-		if (ceilingEntry != null && ceilingEntry.getValue().intersects(range)) {
-			return true;
+		int index = lastStartingAtOrBefore(range.getMaxValue());
+		return index >= 0 && maxs[index] >= range.getMinValue();
+	}
+
+	/**
+	 * Tests if both sets have at least one day in common, in linear time.
+	 */
+	public boolean intersects(CDateSet other) {
+		int i = 0;
+		int j = 0;
+		while (i < size && j < other.size) {
+			if (maxs[i] < other.mins[j]) {
+				i++;
+			}
+			else if (other.maxs[j] < mins[i]) {
+				j++;
+			}
+			else {
+				return true;
+			}
 		}
-		Entry<Integer, CDateRange> priorEntry = rangesByLowerBound.lowerEntry(range.getMinValue());
-		return priorEntry != null && priorEntry.getValue().intersects(range);
+		return false;
 	}
 
 	public boolean encloses(CDateRange range) {
 		checkNotNull(range);
-		Entry<Integer, CDateRange> floorEntry = rangesByLowerBound.floorEntry(range.getMinValue());
-		return floorEntry != null && floorEntry.getValue().encloses(range);
+		int index = lastStartingAtOrBefore(range.getMinValue());
+		return index >= 0 && maxs[index] >= range.getMaxValue();
 	}
 
 	public CDateRange span() {
-		Entry<Integer, CDateRange> firstEntry = rangesByLowerBound.firstEntry();
-		if (firstEntry == null) {
+		if (size == 0) {
 			throw new NoSuchElementException();
 		}
-		return new CDateRange(firstEntry.getValue().getMinValue(), rangesByLowerBound.lastEntry().getValue().getMaxValue());
+		return new CDateRange(mins[0], maxs[size - 1]);
 	}
 
 	public void add(CDateRange rangeToAdd) {
@@ -220,66 +334,147 @@ public class CDateSet {
 		int lbToAdd = rangeToAdd.getMinValue();
 		int ubToAdd = rangeToAdd.getMaxValue();
 
-		Entry<Integer, CDateRange> entryBelowLB = rangesByLowerBound.lowerEntry(lbToAdd);
-		if (entryBelowLB != null) {
-			CDateRange rangeBelowLB = entryBelowLB.getValue();
-			//left neighbor would be connected
-			if (rangeBelowLB.getMaxValue() >= lbToAdd - 1) {
-				lbToAdd = rangeBelowLB.getMinValue();
-				//left neighbor encloses new range
-				if (rangeBelowLB.getMaxValue() > ubToAdd) {
-					ubToAdd = rangeBelowLB.getMaxValue();
-				}
-				
-			}
-		}
+		//all ranges from first to last are connected to the new range
+		int first = firstEndingAtOrAfter((long) lbToAdd - 1);
+		int last = lastStartingAtOrBefore((long) ubToAdd + 1);
 
-		Entry<Integer, CDateRange> entryBelowUB = rangesByLowerBound.floorEntry(ubToAdd + 1);
-		if (entryBelowUB != null) {
-			CDateRange rangeBelowUB = entryBelowUB.getValue();
-			if (rangeBelowUB.getMaxValue() >= ubToAdd) {
-				ubToAdd = rangeBelowUB.getMaxValue();
-			}
+		if (first <= last) {
+			lbToAdd = Math.min(lbToAdd, mins[first]);
+			ubToAdd = Math.max(ubToAdd, maxs[last]);
 		}
-
-		// Remove ranges which are strictly enclosed.
-		rangesByLowerBound.subMap(lbToAdd, IntMath.saturatedAdd(ubToAdd, 1)).clear();
-
-		putRange(new CDateRange(lbToAdd, ubToAdd));
+		int index = replace(first, last + 1, 1);
+		mins[index] = lbToAdd;
+		maxs[index] = ubToAdd;
 	}
 	
 	public void remove(CDateRange rangeToRemove) {
 		checkNotNull(rangeToRemove);
 
-		Entry<Integer, CDateRange> entryBelowLB = rangesByLowerBound.lowerEntry(rangeToRemove.getMinValue());
-		if (entryBelowLB != null) {
-			CDateRange rangeBelowLB = entryBelowLB.getValue();
-			//left neighbor intersects removed range => shorten it to everything before removed range
-			if (rangeBelowLB.getMaxValue() >= rangeToRemove.getMinValue()) {
-				putRange(new CDateRange(rangeBelowLB.getMinValue(), rangeToRemove.getMinValue() - 1));
-				
-				//left neighbor reaches beyond removed range => have to add cut of right part
-				if (rangeBelowLB.getMaxValue() > rangeToRemove.getMaxValue()) {
-					putRange(new CDateRange(rangeToRemove.getMaxValue() + 1, rangeBelowLB.getMaxValue()));
-				}
+		int lbToRemove = rangeToRemove.getMinValue();
+		int ubToRemove = rangeToRemove.getMaxValue();
+
+		//all ranges from first to last intersect the removed range
+		int first = firstEndingAtOrAfter(lbToRemove);
+		int last = lastStartingAtOrBefore(ubToRemove);
+		if (first > last) {
+			return;
+		}
+
+		boolean keepLeft = mins[first] < lbToRemove;
+		boolean keepRight = maxs[last] > ubToRemove;
+		int leftMin = mins[first];
+		int rightMax = maxs[last];
+
+		int index = replace(first, last + 1, (keepLeft ? 1 : 0) + (keepRight ? 1 : 0));
+		if (keepLeft) {
+			mins[index] = leftMin;
+			maxs[index++] = lbToRemove - 1;
+		}
+		if (keepRight) {
+			mins[index] = ubToRemove + 1;
+			maxs[index] = rightMax;
+		}
+	}
+
+	/**
+	 * A bitmap of the days of this set, which is faster than this set for dense sets with many ranges.
+	 * @throws IllegalStateException if the set is open
+	 */
+	public CDateBitmap asBitmap() {
+		return CDateBitmap.of(this);
+	}
+
+	/**
+	 * Index of the first range which ends at or after the given day, {@code size} if there is none.
+	 */
+	private int firstEndingAtOrAfter(long value) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (maxs[mid] < value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
 			}
 		}
+		return low;
+	}
 
-		Entry<Integer, CDateRange> entryBelowUB = rangesByLowerBound.floorEntry(rangeToRemove.getMaxValue());
-		if (entryBelowUB != null) {
-			CDateRange rangeBelowUB = entryBelowUB.getValue();
-			//if reaches beyond removed range => have to add cut of right part
-			if (rangeBelowUB.getMaxValue() > rangeToRemove.getMaxValue()) {
-				// { > }
-				putRange(new CDateRange(rangeToRemove.getMaxValue() + 1, rangeBelowUB.getMaxValue()));
+	/**
+	 * Index of the last range which starts at or before the given day, -1 if there is none.
+	 */
+	private int lastStartingAtOrBefore(long value) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (mins[mid] <= value) {
+				low = mid + 1;
+			}
+			else {
+				high = mid;
 			}
 		}
+		return low - 1;
+	}
 
-		rangesByLowerBound.subMap(rangeToRemove.getMinValue(), IntMath.saturatedAdd(rangeToRemove.getMaxValue(),1)).clear();
+	/**
+	 * Replaces the ranges from {@code from} (inclusive) to {@code to} (exclusive) with {@code count} unset ranges.
+	 * @return the index of the first replacement
+	 */
+	private int replace(int from, int to, int count) {
+		int newSize = size - (to - from) + count;
+		ensureCapacity(newSize);
+		System.arraycopy(mins, to, mins, from + count, size - to);
+		System.arraycopy(maxs, to, maxs, from + count, size - to);
+		size = newSize;
+		return from;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (mins.length < capacity) {
+			int newCapacity = Math.max(capacity, mins.length * 2);
+			mins = Arrays.copyOf(mins, newCapacity);
+			maxs = Arrays.copyOf(maxs, newCapacity);
+		}
+	}
+
+	int size() {
+		return size;
+	}
+
+	int getMinValue(int index) {
+		return mins[index];
 	}
 
-	private void putRange(CDateRange range) {
-		rangesByLowerBound.put(range.getMinValue(), range);
+	int getMaxValue(int index) {
+		return maxs[index];
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof CDateSet)) {
+			return false;
+		}
+		CDateSet other = (CDateSet) o;
+		return size == other.size
+			&& Arrays.equals(mins, 0, size, other.mins, 0, size)
+			&& Arrays.equals(maxs, 0, size, other.maxs, 0, size);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 1;
+		for (int i = 0; i < size; i++) {
+			result = 31 * result + mins[i];
+			result = 31 * result + maxs[i];
+		}
+		return result;
 	}
 	
 	@Override
@@ -291,31 +486,36 @@ public class CDateSet {
 		return sb.toString();
 	}
 
+	/**
+	 * Keeps only the days which are also in the retained set, in linear time.
+	 */
 	public void retainAll(CDateSet retained) {
-		if(retained.isEmpty()) {
-			this.clear();
-			return;
-		}
-		if(retained.asRanges().iterator().next().isAll()) {
+		if (size == 0) {
 			return;
 		}
 
-		List<CDateRange> l = new ArrayList<>(retained.rangesByLowerBound.values());
-		
-		//remove all before the first range
-		if(!l.get(0).isAtMost()) {
-			this.remove(new CDateRange(Integer.MIN_VALUE, l.get(0).getMinValue() - 1));
-		}
-		
-		//remove all between ranges
-		for(int i=0;i<l.size()-1;i++) {
-			this.remove(new CDateRange(l.get(i).getMaxValue() + 1, l.get(i+1).getMinValue() - 1));
-		}
-		
-		//remove all after the last Range
-		if(!l.get(l.size()-1).isAtLeast()) {
-			this.remove(new CDateRange(l.get(l.size()-1).getMaxValue() + 1, Integer.MAX_VALUE));
+		int[] newMins = new int[size + retained.size];
+		int[] newMaxs = new int[size + retained.size];
+		int newSize = 0;
+		int i = 0;
+		int j = 0;
+		while (i < size && j < retained.size) {
+			int min = Math.max(mins[i], retained.mins[j]);
+			int max = Math.min(maxs[i], retained.maxs[j]);
+			if (min <= max) {
+				newMins[newSize] = min;
+				newMaxs[newSize++] = max;
+			}
+			if (maxs[i] < retained.maxs[j]) {
+				i++;
+			}
+			else {
+				j++;
+			}
 		}
+		mins = newMins;
+		maxs = newMaxs;
+		size = newSize;
 	}
 	
 	public void retainAll(CDateRange retained) {
@@ -340,25 +540,25 @@ public class CDateSet {
 	 */
 	public Long countDays() {
 		//if we have no entries we return zero days
-		if(rangesByLowerBound.firstEntry() == null) {
+		if(size == 0) {
 			return 0L;
 		}
-		if(rangesByLowerBound.firstEntry().getValue().isOpen() || rangesByLowerBound.lastEntry().getValue().isOpen()) {
+		if(mins[0] == Integer.MIN_VALUE || maxs[size - 1] == Integer.MAX_VALUE) {
 			return null;
 		}
 		long sum = 0;
-		for(CDateRange r:this.asRanges()) {
-			sum+=r.getMaxValue() - r.getMinValue() + 1;
+		for(int i = 0; i < size; i++) {
+			sum += (long) maxs[i] - mins[i] + 1;
 		}
 		return sum;
 	}
 
 	public int getMinValue() {
-		return rangesByLowerBound.firstEntry().getValue().getMinValue();
+		return span().getMinValue();
 	}
 
 	public int getMaxValue() {
-		return rangesByLowerBound.lastEntry().getValue().getMaxValue();
+		return span().getMaxValue();
 	}
 	
 	public static CDateSet parse(String value) {
@@ -0,0 +1,165 @@
+package com.bakdata.conquery.models.common;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+import com.google.common.base.Stopwatch;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares {@link CDateSet} with the former implementation on a {@link TreeMap} of {@link CDateRange}s, using the date
+ * distribution of insurance claims: a few multi day hospital stays, many single day outpatient visits and prescription
+ * periods of one to three months, over ten years per patient.
+ */
+@Slf4j @UtilityClass
+public class CDateSetBenchmark {
+
+	private static final int PATIENTS = 20_000;
+	private static final int ROUNDS = 20;
+	private static final int START = CDate.ofLocalDate(LocalDate.of(2010, 1, 1));
+	private static final int DAYS = 10 * 365;
+
+	public static List<List<CDateRange>> data() {
+		Random random = new Random(7);
+		List<List<CDateRange>> patients = new ArrayList<>(PATIENTS);
+		for (int p = 0; p < PATIENTS; p++) {
+			List<CDateRange> claims = new ArrayList<>();
+			int stays = random.nextInt(4);
+			for (int i = 0; i < stays; i++) {
+				claims.add(range(random, 1 + random.nextInt(20)));
+			}
+			int visits = random.nextInt(60);
+			for (int i = 0; i < visits; i++) {
+				claims.add(range(random, 1));
+			}
+			int prescriptions = random.nextInt(12);
+			for (int i = 0; i < prescriptions; i++) {
+				claims.add(range(random, 30 * (1 + random.nextInt(3))));
+			}
+			patients.add(claims);
+		}
+		return patients;
+	}
+
+	private static CDateRange range(Random random, int days) {
+		int min = START + random.nextInt(DAYS);
+		return new CDateRange(min, min + days - 1);
+	}
+
+	public static void main(String[] args) {
+		List<List<CDateRange>> patients = data();
+		CDateSet quarter = CDateSet.create(new CDateRange(START + 365, START + 365 + 90));
+		TreeMapDateSet treeQuarter = new TreeMapDateSet();
+		treeQuarter.add(new CDateRange(START + 365, START + 365 + 90));
+
+		for (int round = 0; round < ROUNDS; round++) {
+			long blackhole = 0;
+
+			Stopwatch stopwatch = Stopwatch.createStarted();
+			for (List<CDateRange> claims : patients) {
+				TreeMapDateSet set = new TreeMapDateSet();
+				for (CDateRange claim : claims) {
+					set.add(claim);
+				}
+				for (int day = START; day < START + DAYS; day += 7) {
+					blackhole += set.contains(day) ? 1 : 0;
+				}
+				for (Entry<Integer, CDateRange> range : treeQuarter.rangesByLowerBound.entrySet()) {
+					set.remove(range.getValue());
+				}
+				blackhole += set.rangesByLowerBound.size();
+			}
+			log.info("TreeMap:  add, contains and remove took {}", stopwatch.stop());
+
+			stopwatch.reset().start();
+			for (List<CDateRange> claims : patients) {
+				CDateSet set = CDateSet.create();
+				for (CDateRange claim : claims) {
+					set.add(claim);
+				}
+				for (int day = START; day < START + DAYS; day += 7) {
+					blackhole += set.contains(day) ? 1 : 0;
+				}
+				set.removeAll(quarter);
+				blackhole += set.asRanges().size();
+			}
+			log.info("int[]:    add, contains and removeAll took {}", stopwatch.stop());
+
+			stopwatch.reset().start();
+			for (List<CDateRange> claims : patients) {
+				CDateBitmap bitmap = CDateSet.create(claims).asBitmap();
+				for (int day = START; day < START + DAYS; day += 7) {
+					blackhole += bitmap.contains(day) ? 1 : 0;
+				}
+				blackhole += bitmap.countDays();
+			}
+			log.info("bitmap:   create and contains took {}", stopwatch.stop());
+
+			stopwatch.reset().start();
+			CDateSet previous = CDateSet.create();
+			for (List<CDateRange> claims : patients) {
+				CDateSet set = CDateSet.create(claims);
+				CDateSet union = CDateSet.create(set);
+				union.addAll(previous);
+				set.retainAll(previous);
+				blackhole += union.asRanges().size() + set.asRanges().size();
+				previous = CDateSet.create(claims);
+			}
+			log.info("int[]:    addAll and retainAll of two patients took {} ({})", stopwatch.stop(), blackhole);
+		}
+	}
+
+	/**
+	 * The former implementation of {@link CDateSet#add} and {@link CDateSet#remove}, as the baseline.
+	 */
+	private static class TreeMapDateSet {
+		private final NavigableMap<Integer, CDateRange> rangesByLowerBound = new TreeMap<>();
+
+		public boolean contains(int value) {
+			Entry<Integer, CDateRange> floorEntry = rangesByLowerBound.floorEntry(value);
+			return floorEntry != null && floorEntry.getValue().contains(value);
+		}
+
+		public void add(CDateRange rangeToAdd) {
+			int lbToAdd = rangeToAdd.getMinValue();
+			int ubToAdd = rangeToAdd.getMaxValue();
+
+			Entry<Integer, CDateRange> entryBelowLB = rangesByLowerBound.lowerEntry(lbToAdd);
+			if (entryBelowLB != null && entryBelowLB.getValue().getMaxValue() >= lbToAdd - 1) {
+				lbToAdd = entryBelowLB.getValue().getMinValue();
+				ubToAdd = Math.max(ubToAdd, entryBelowLB.getValue().getMaxValue());
+			}
+			Entry<Integer, CDateRange> entryBelowUB = rangesByLowerBound.floorEntry(ubToAdd + 1);
+			if (entryBelowUB != null && entryBelowUB.getValue().getMaxValue() >= ubToAdd) {
+				ubToAdd = entryBelowUB.getValue().getMaxValue();
+			}
+			rangesByLowerBound.subMap(lbToAdd, ubToAdd + 1).clear();
+			rangesByLowerBound.put(lbToAdd, new CDateRange(lbToAdd, ubToAdd));
+		}
+
+		public void remove(CDateRange rangeToRemove) {
+			Entry<Integer, CDateRange> entryBelowLB = rangesByLowerBound.lowerEntry(rangeToRemove.getMinValue());
+			if (entryBelowLB != null) {
+				CDateRange rangeBelowLB = entryBelowLB.getValue();
+				if (rangeBelowLB.getMaxValue() >= rangeToRemove.getMinValue()) {
+					rangesByLowerBound.put(rangeBelowLB.getMinValue(), new CDateRange(rangeBelowLB.getMinValue(), rangeToRemove.getMinValue() - 1));
+					if (rangeBelowLB.getMaxValue() > rangeToRemove.getMaxValue()) {
+						rangesByLowerBound.put(rangeToRemove.getMaxValue() + 1, new CDateRange(rangeToRemove.getMaxValue() + 1, rangeBelowLB.getMaxValue()));
+					}
+				}
+			}
+			Entry<Integer, CDateRange> entryBelowUB = rangesByLowerBound.floorEntry(rangeToRemove.getMaxValue());
+			if (entryBelowUB != null && entryBelowUB.getValue().getMaxValue() > rangeToRemove.getMaxValue()) {
+				rangesByLowerBound.put(rangeToRemove.getMaxValue() + 1, new CDateRange(rangeToRemove.getMaxValue() + 1, entryBelowUB.getValue().getMaxValue()));
+			}
+			rangesByLowerBound.subMap(rangeToRemove.getMinValue(), rangeToRemove.getMaxValue() + 1).clear();
+		}
+	}
+}
@@ -120,4 +120,46 @@ public class CDateSetTest {
 		set.retainAll(retain);
 		assertThat(set).hasToString("{2000-06-01/2000-06-20, 2000-12-01/2000-12-31}");
 	}
+	
+	@Test
+	public void testBulkOperations() {
+		CDateSet set = CDateSet.parse("{2000-01-01/2000-01-10, 2000-02-01/2000-02-10, 2000-03-01/2000-03-10}");
+		CDateSet other = CDateSet.parse("{2000-01-05/2000-02-03, 2000-03-10/2000-03-20}");
+		
+		CDateSet union = CDateSet.create(set);
+		union.addAll(other);
+		assertThat(union).hasToString("{2000-01-01/2000-02-10, 2000-03-01/2000-03-20}");
+		
+		CDateSet difference = CDateSet.create(set);
+		difference.removeAll(other);
+		assertThat(difference).hasToString("{2000-01-01/2000-01-04, 2000-02-04/2000-02-10, 2000-03-01/2000-03-09}");
+		
+		CDateSet intersection = CDateSet.create(set);
+		intersection.retainAll(other);
+		assertThat(intersection).hasToString("{2000-01-05/2000-01-10, 2000-02-01/2000-02-03, 2000-03-10/2000-03-10}");
+		
+		assertThat(set.intersects(other)).isTrue();
+		assertThat(union.enclosesAll(set)).isTrue();
+		assertThat(set.enclosesAll(union)).isFalse();
+		assertThat(set.asBitmap().toSet()).isEqualTo(set);
+		assertThat(set.asBitmap().countDays()).isEqualTo(set.countDays());
+	}
+	
+	@Test
+	public void testOpenRanges() {
+		CDateSet set = CDateSet.createFull();
+		set.remove(CDateRange.of(
+			LocalDate.of(2000, 01, 01),
+			LocalDate.of(2000, 12, 31)
+		));
+		assertThat(set.contains(LocalDate.of(1999, 12, 31))).isTrue();
+		assertThat(set.contains(LocalDate.of(2000, 06, 01))).isFalse();
+		assertThat(set.countDays()).isNull();
+		
+		set.add(CDateRange.of(
+			LocalDate.of(2000, 01, 01),
+			LocalDate.of(2000, 12, 31)
+		));
+		assertThat(set).isEqualTo(CDateSet.createFull());
+	}
 }
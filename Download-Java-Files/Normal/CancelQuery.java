@@ -0,0 +1,27 @@
+package com.bakdata.conquery.models.messages.namespaces.specific;
+
+import com.bakdata.conquery.io.cps.CPSType;
+import com.bakdata.conquery.models.identifiable.ids.specific.ManagedQueryId;
+import com.bakdata.conquery.models.messages.namespaces.NamespacedMessage;
+import com.bakdata.conquery.models.messages.namespaces.WorkerMessage;
+import com.bakdata.conquery.models.worker.Worker;
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Stops the execution of a query on the worker. Not a slow message, so it is not queued behind the query it cancels.
+ */
+@CPSType(id="CANCEL_QUERY", base=NamespacedMessage.class)
+@RequiredArgsConstructor(onConstructor_=@JsonCreator) @Getter @ToString(callSuper=true)
+public class CancelQuery extends WorkerMessage {
+
+	private final ManagedQueryId queryId;
+
+	@Override
+	public void react(Worker context) throws Exception {
+		context.getQueryExecutor().cancel(queryId);
+	}
+}
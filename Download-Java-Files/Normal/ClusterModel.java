@@ -93,6 +93,52 @@ public class ClusterModel implements Serializable {
     _capacityEstimationInfoByBrokerId = new HashMap<>();
   }
 
+  /**
+   * Get a deep copy of this cluster model, so that different goal priorities or what-if scenarios can be optimized
+   * in parallel, each on its own copy, instead of generating the cluster model from the load monitor for each of them.
+   * The copy is built with the same steps as the load monitor builds the model: racks and brokers, replicas in their
+   * partition order, replica loads and then the broker states.
+   *
+   * The current placement of the replicas is the original placement in the copy, and the sorted replicas tracked
+   * by goals are not copied.
+   *
+   * @return A copy of this cluster model that shares no mutable state with it.
+   */
+  public ClusterModel copy() {
+    ClusterModel copy = new ClusterModel(_generation, _monitoredPartitionsPercentage);
+    for (Rack rack : _racksById.values()) {
+      copy.createRack(rack.id());
+      for (Broker broker : rack.brokers()) {
+        String estimationInfo = _capacityEstimationInfoByBrokerId.get(broker.id());
+        copy.createBroker(rack.id(), broker.host().name(), broker.id(),
+                          new BrokerCapacityInfo(broker.capacity(), estimationInfo));
+      }
+    }
+    for (Partition partition : _partitionsByTopicPartition.values()) {
+      List<Replica> replicas = partition.replicas();
+      for (int i = 0; i < replicas.size(); i++) {
+        Replica replica = replicas.get(i);
+        copy.createReplica(replica.broker().rack().id(), replica.broker().id(), partition.topicPartition(), i,
+                           replica.isLeader());
+      }
+    }
+    for (Partition partition : _partitionsByTopicPartition.values()) {
+      for (Replica replica : partition.replicas()) {
+        if (!replica.load().isEmpty()) {
+          copy.setReplicaLoad(replica.broker().rack().id(), replica.broker().id(), partition.topicPartition(),
+                              replica.load().loadByWindows(), replica.load().windows());
+        }
+      }
+    }
+    for (Broker broker : _brokers) {
+      if (broker.getState() != Broker.State.ALIVE) {
+        copy.setBrokerState(broker.id(), broker.getState());
+      }
+    }
+    copy._unknownHostId = _unknownHostId;
+    return copy;
+  }
+
   /**
    * get the metadata generation for this cluster model.
    */
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017 LinkedIn Corp. Licensed under the BSD 2-Clause License (the "License"). See License in the project root for license information.
+ */
+
+package com.linkedin.kafka.cruisecontrol.model;
+
+import com.linkedin.kafka.cruisecontrol.common.DeterministicCluster;
+import com.linkedin.kafka.cruisecontrol.common.Resource;
+import com.linkedin.kafka.cruisecontrol.common.TestConstants;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Unit test for {@link ClusterModel#copy()}.
+ */
+public class ClusterModelCopyTest {
+
+  @Test
+  public void testCopyHasSamePlacementAndLoad() {
+    ClusterModel clusterModel = DeterministicCluster.mediumClusterModel(TestConstants.BROKER_CAPACITY);
+    clusterModel.setBrokerState(2, Broker.State.DEAD);
+    ClusterModel copy = clusterModel.copy();
+
+    assertEquals(clusterModel.generation(), copy.generation());
+    assertEquals(clusterModel.getReplicaDistribution(), copy.getReplicaDistribution());
+    assertEquals(clusterModel.getLeaderDistribution(), copy.getLeaderDistribution());
+    assertEquals(clusterModel.selfHealingEligibleReplicas().size(), copy.selfHealingEligibleReplicas().size());
+    assertEquals(clusterModel.maxReplicationFactor(), copy.maxReplicationFactor());
+    for (Resource resource : Resource.cachedValues()) {
+      assertEquals(clusterModel.capacityFor(resource), copy.capacityFor(resource), 1E-6);
+      assertEquals(clusterModel.load().expectedUtilizationFor(resource),
+                   copy.load().expectedUtilizationFor(resource), 1E-6);
+      for (Broker broker : clusterModel.brokers()) {
+        assertEquals(broker.load().expectedUtilizationFor(resource),
+                     copy.broker(broker.id()).load().expectedUtilizationFor(resource), 1E-6);
+      }
+    }
+    copy.sanityCheck();
+  }
+
+  @Test
+  public void testCopyIsIndependent() {
+    ClusterModel clusterModel = DeterministicCluster.smallClusterModel(TestConstants.BROKER_CAPACITY);
+    ClusterModel copy = clusterModel.copy();
+    TopicPartition pInfoT10 = new TopicPartition("T1", 0);
+    double diskLoad = clusterModel.broker(0).load().expectedUtilizationFor(Resource.DISK);
+
+    copy.relocateReplica(pInfoT10, 0, 1);
+    copy.relocateLeadership(new TopicPartition("T1", 1), 1, 0);
+
+    assertTrue(clusterModel.broker(0).replica(pInfoT10) != null);
+    assertFalse(copy.getReplicaDistribution().equals(clusterModel.getReplicaDistribution()));
+    assertEquals(diskLoad, clusterModel.broker(0).load().expectedUtilizationFor(Resource.DISK), 1E-6);
+    assertTrue(clusterModel.partition(new TopicPartition("T1", 1)).leader().broker().id() == 1);
+    clusterModel.sanityCheck();
+    copy.sanityCheck();
+  }
+}
@@ -0,0 +1,472 @@
+package com.bakdata.conquery.models.events;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.bakdata.conquery.models.common.CDateRange;
+import com.bakdata.conquery.models.common.CDateSet;
+import com.bakdata.conquery.models.datasets.Column;
+import com.bakdata.conquery.models.datasets.Import;
+import com.bakdata.conquery.models.datasets.ImportColumn;
+import com.bakdata.conquery.models.types.CType;
+import com.bakdata.conquery.models.types.MajorTypeId;
+import com.bakdata.conquery.models.types.specific.IStringType;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+/**
+ * A {@link Block} that stores its events column by column instead of one generated event object per row.
+ * Every column is one primitive array of its major type (booleans are bit packed) together with a bitmap
+ * of the events that have a value in it.
+ *
+ * Besides the per event accessors of {@link Block}, this allows filters and aggregators to work on a
+ * selection of events at once, see {@link #selectPresent} and the sum methods.
+ */
+public class ColumnarBlock extends Block {
+
+	private final int size;
+	private final MajorTypeId[] types;
+	/**
+	 * one bit per event and column, set if the event has a value in that column
+	 */
+	private final long[][] present;
+	/**
+	 * STRING and DATE columns, DATE_RANGE columns store min and max of an event next to each other
+	 */
+	private final int[][] ints;
+	/**
+	 * INTEGER and MONEY columns, BOOLEAN columns as bits
+	 */
+	private final long[][] longs;
+	private final double[][] reals;
+	private final BigDecimal[][] decimals;
+
+	private ColumnarBlock(int entity, Import imp, int size) {
+		super(entity, imp);
+		this.size = size;
+		int width = imp.getColumns().length;
+		this.types = new MajorTypeId[width];
+		this.present = new long[width][];
+		this.ints = new int[width][];
+		this.longs = new long[width][];
+		this.reals = new double[width][];
+		this.decimals = new BigDecimal[width][];
+
+		for (int c = 0; c < width; c++) {
+			types[c] = imp.getColumns()[c].getType().getTypeId();
+			present[c] = new long[words(size)];
+			switch (types[c]) {
+				case STRING:
+				case DATE:
+					ints[c] = new int[size];
+					break;
+				case DATE_RANGE:
+					ints[c] = new int[2 * size];
+					break;
+				case INTEGER:
+				case MONEY:
+					longs[c] = new long[size];
+					break;
+				case BOOLEAN:
+					longs[c] = new long[words(size)];
+					break;
+				case REAL:
+					reals[c] = new double[size];
+					break;
+				case DECIMAL:
+					decimals[c] = new BigDecimal[size];
+					break;
+				default:
+					throw new IllegalStateException("Unknown major type " + types[c]);
+			}
+		}
+	}
+
+	/**
+	 * Creates the block from events in the layout the generated blocks are created from, meaning every
+	 * value is of the java type of the (minor) type of its column.
+	 */
+	@SuppressWarnings("unchecked")
+	public static ColumnarBlock of(int entity, Import imp, List<Object[]> events) {
+		ColumnarBlock block = new ColumnarBlock(entity, imp, events.size());
+		ImportColumn[] columns = imp.getColumns();
+
+		for (int event = 0; event < events.size(); event++) {
+			Object[] values = events.get(event);
+			for (int c = 0; c < columns.length; c++) {
+				if (values[c] == null) {
+					continue;
+				}
+				Object value = block.types[c] == MajorTypeId.STRING
+					? values[c]
+					: ((CType<Object, ?>) columns[c].getType()).transformToMajorType(values[c], null);
+				block.set(event, c, value);
+			}
+		}
+		return block;
+	}
+
+	/**
+	 * Reads a block written by {@link #writeContent(Output)}.
+	 */
+	public static ColumnarBlock read(int entity, Import imp, Input input) {
+		ColumnarBlock block = new ColumnarBlock(entity, imp, input.readVarInt(true));
+
+		for (int c = 0; c < block.types.length; c++) {
+			readLongs(input, block.present[c]);
+			switch (block.types[c]) {
+				case STRING:
+				case DATE:
+				case DATE_RANGE:
+					for (int i = 0; i < block.ints[c].length; i++) {
+						block.ints[c][i] = input.readInt();
+					}
+					break;
+				case INTEGER:
+				case MONEY:
+				case BOOLEAN:
+					readLongs(input, block.longs[c]);
+					break;
+				case REAL:
+					for (int i = 0; i < block.size; i++) {
+						block.reals[c][i] = input.readDouble();
+					}
+					break;
+				case DECIMAL:
+					for (int i = 0; i < block.size; i++) {
+						if (block.isPresent(i, c)) {
+							int scale = input.readVarInt(false);
+							byte[] unscaled = input.readBytes(input.readVarInt(true));
+							block.decimals[c][i] = new BigDecimal(new BigInteger(unscaled), scale);
+						}
+					}
+					break;
+				default:
+					throw new IllegalStateException("Unknown major type " + block.types[c]);
+			}
+		}
+		return block;
+	}
+
+	@Override
+	public void writeContent(Output output) throws IOException {
+		output.writeVarInt(size, true);
+
+		for (int c = 0; c < types.length; c++) {
+			writeLongs(output, present[c]);
+			switch (types[c]) {
+				case STRING:
+				case DATE:
+				case DATE_RANGE:
+					for (int value : ints[c]) {
+						output.writeInt(value);
+					}
+					break;
+				case INTEGER:
+				case MONEY:
+				case BOOLEAN:
+					writeLongs(output, longs[c]);
+					break;
+				case REAL:
+					for (double value : reals[c]) {
+						output.writeDouble(value);
+					}
+					break;
+				case DECIMAL:
+					for (int i = 0; i < size; i++) {
+						if (isPresent(i, c)) {
+							byte[] unscaled = decimals[c][i].unscaledValue().toByteArray();
+							output.writeVarInt(decimals[c][i].scale(), false);
+							output.writeVarInt(unscaled.length, true);
+							output.writeBytes(unscaled);
+						}
+					}
+					break;
+				default:
+					throw new IllegalStateException("Unknown major type " + types[c]);
+			}
+		}
+	}
+
+	@Override
+	public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+		try (Output output = new Output(1024, -1)) {
+			writeContent(output);
+
+			gen.writeStartObject();
+			gen.writeStringField("import", getImp().getId().toString());
+			gen.writeNumberField("entity", getEntity());
+			gen.writeBinaryField("content", output.toBytes());
+			gen.writeEndObject();
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean has(int event, Column column) {
+		return isPresent(event, column.getPosition());
+	}
+
+	@Override
+	public int getString(int event, Column column) {
+		return ints[column.getPosition()][event];
+	}
+
+	@Override
+	public long getInteger(int event, Column column) {
+		return longs[column.getPosition()][event];
+	}
+
+	@Override
+	public boolean getBoolean(int event, Column column) {
+		return (longs[column.getPosition()][event >>> 6] & (1L << event)) != 0;
+	}
+
+	@Override
+	public double getReal(int event, Column column) {
+		return reals[column.getPosition()][event];
+	}
+
+	@Override
+	public BigDecimal getDecimal(int event, Column column) {
+		return decimals[column.getPosition()][event];
+	}
+
+	@Override
+	public long getMoney(int event, Column column) {
+		return longs[column.getPosition()][event];
+	}
+
+	@Override
+	public int getDate(int event, Column column) {
+		return ints[column.getPosition()][event];
+	}
+
+	@Override
+	public CDateRange getDateRange(int event, Column column) {
+		int[] ranges = ints[column.getPosition()];
+		return new CDateRange(ranges[2 * event], ranges[2 * event + 1]);
+	}
+
+	@Override
+	public Object getAsObject(int event, Column column) {
+		return get(event, column.getPosition());
+	}
+
+	@Override
+	public boolean eventIsContainedIn(int event, Column column, CDateRange dateRange) {
+		int c = column.getPosition();
+		if (!isPresent(event, c)) {
+			return false;
+		}
+		if (types[c] == MajorTypeId.DATE) {
+			return dateRange.contains(ints[c][event]);
+		}
+		return dateRange.intersects(getDateRange(event, column));
+	}
+
+	@Override
+	public boolean eventIsContainedIn(int event, Column column, CDateSet dateRanges) {
+		int c = column.getPosition();
+		if (!isPresent(event, c)) {
+			return false;
+		}
+		if (types[c] == MajorTypeId.DATE) {
+			return dateRanges.contains(ints[c][event]);
+		}
+		return dateRanges.intersects(getDateRange(event, column));
+	}
+
+	@Override
+	public CDateRange getAsDateRange(int event, Column currentColumn) {
+		int c = currentColumn.getPosition();
+		switch (types[c]) {
+			case DATE:
+				return CDateRange.exactly(ints[c][event]);
+			case DATE_RANGE:
+				return getDateRange(event, currentColumn);
+			default:
+				throw new IllegalArgumentException("Column " + currentColumn + " is not a date compatible column");
+		}
+	}
+
+	@Override
+	public Map<String, Object> calculateMap(int event, Import imp) {
+		Map<String, Object> out = new HashMap<>();
+		for (ImportColumn column : imp.getColumns()) {
+			int c = column.getPosition();
+			if (!isPresent(event, c)) {
+				continue;
+			}
+			if (types[c] == MajorTypeId.STRING) {
+				out.put(column.getName(), ((IStringType) column.getType()).createScriptValue(ints[c][event]));
+			}
+			else {
+				out.put(column.getName(), get(event, c));
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Removes all events from the selection which have no value in the given column.
+	 *
+	 * @param events the selected events, only the first {@code length} are used and the remaining are moved to the front
+	 * @return the number of selected events after filtering
+	 */
+	public int selectPresent(Column column, int[] events, int length) {
+		long[] bits = present[column.getPosition()];
+		int selected = 0;
+		for (int i = 0; i < length; i++) {
+			int event = events[i];
+			if ((bits[event >>> 6] & (1L << event)) != 0) {
+				events[selected++] = event;
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * Removes all events from the selection which are not contained in the given date ranges.
+	 *
+	 * @see #selectPresent(Column, int[], int)
+	 */
+	public int selectContainedIn(Column column, CDateSet dateRanges, int[] events, int length) {
+		int selected = 0;
+		for (int i = 0; i < length; i++) {
+			if (eventIsContainedIn(events[i], column, dateRanges)) {
+				events[selected++] = events[i];
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * @return the number of the selected events with a value in the given column
+	 */
+	public int countPresent(Column column, int[] events, int length) {
+		long[] bits = present[column.getPosition()];
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			int event = events[i];
+			count += (int) (bits[event >>> 6] >>> event) & 1;
+		}
+		return count;
+	}
+
+	/**
+	 * Sums up the INTEGER or MONEY column over the selected events, missing values count as zero.
+	 */
+	public long sumLongs(Column column, int[] events, int length) {
+		long[] values = longs[column.getPosition()];
+		long sum = 0;
+		for (int i = 0; i < length; i++) {
+			// missing values are stored as 0
+			sum += values[events[i]];
+		}
+		return sum;
+	}
+
+	/**
+	 * Sums up the REAL column over the selected events in their given order, missing values are skipped.
+	 */
+	public double sumReals(Column column, int[] events, int length) {
+		int c = column.getPosition();
+		double[] values = reals[c];
+		long[] bits = present[c];
+		double sum = 0;
+		for (int i = 0; i < length; i++) {
+			int event = events[i];
+			if ((bits[event >>> 6] & (1L << event)) != 0) {
+				sum += values[event];
+			}
+		}
+		return sum;
+	}
+
+	private void set(int event, int c, Object value) {
+		present[c][event >>> 6] |= 1L << event;
+		switch (types[c]) {
+			case STRING:
+			case DATE:
+				ints[c][event] = ((Number) value).intValue();
+				break;
+			case DATE_RANGE:
+				CDateRange range = (CDateRange) value;
+				ints[c][2 * event] = range.getMinValue();
+				ints[c][2 * event + 1] = range.getMaxValue();
+				break;
+			case INTEGER:
+			case MONEY:
+				longs[c][event] = ((Number) value).longValue();
+				break;
+			case BOOLEAN:
+				if ((Boolean) value) {
+					longs[c][event >>> 6] |= 1L << event;
+				}
+				break;
+			case REAL:
+				reals[c][event] = ((Number) value).doubleValue();
+				break;
+			case DECIMAL:
+				decimals[c][event] = (BigDecimal) value;
+				break;
+			default:
+				throw new IllegalStateException("Unknown major type " + types[c]);
+		}
+	}
+
+	private Object get(int event, int c) {
+		if (!isPresent(event, c)) {
+			return null;
+		}
+		switch (types[c]) {
+			case STRING:
+			case DATE:
+				return ints[c][event];
+			case DATE_RANGE:
+				return new CDateRange(ints[c][2 * event], ints[c][2 * event + 1]);
+			case INTEGER:
+			case MONEY:
+				return longs[c][event];
+			case BOOLEAN:
+				return (longs[c][event >>> 6] & (1L << event)) != 0;
+			case REAL:
+				return reals[c][event];
+			case DECIMAL:
+				return decimals[c][event];
+			default:
+				throw new IllegalStateException("Unknown major type " + types[c]);
+		}
+	}
+
+	private boolean isPresent(int event, int c) {
+		return (present[c][event >>> 6] & (1L << event)) != 0;
+	}
+
+	private static int words(int size) {
+		return (size + 63) >>> 6;
+	}
+
+	private static void writeLongs(Output output, long[] values) {
+		for (long value : values) {
+			output.writeLong(value);
+		}
+	}
+
+	private static void readLongs(Input input, long[] values) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = input.readLong();
+		}
+	}
+}
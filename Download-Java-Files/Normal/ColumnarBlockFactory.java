@@ -0,0 +1,27 @@
+package com.bakdata.conquery.models.events.generation;
+
+import java.io.InputStream;
+import java.util.List;
+
+import com.bakdata.conquery.models.datasets.Import;
+import com.bakdata.conquery.models.events.Block;
+import com.bakdata.conquery.models.events.ColumnarBlock;
+import com.esotericsoftware.kryo.io.Input;
+
+/**
+ * Creates {@link ColumnarBlock}s, used instead of the generated factory for imports that are stored columnar.
+ */
+public class ColumnarBlockFactory extends BlockFactory {
+
+	@Override
+	public Block createBlock(int entity, Import imp, List<Object[]> events) {
+		return ColumnarBlock.of(entity, imp, events);
+	}
+
+	@Override
+	public Block readBlock(int entity, Import imp, InputStream inputStream) {
+		try (Input input = new Input(inputStream)) {
+			return ColumnarBlock.read(entity, imp, input);
+		}
+	}
+}
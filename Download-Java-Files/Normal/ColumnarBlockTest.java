@@ -0,0 +1,147 @@
+package com.bakdata.conquery.models.events;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.bakdata.conquery.models.common.CDateRange;
+import com.bakdata.conquery.models.common.CDateSet;
+import com.bakdata.conquery.models.datasets.Column;
+import com.bakdata.conquery.models.datasets.Import;
+import com.bakdata.conquery.models.datasets.ImportColumn;
+import com.bakdata.conquery.models.identifiable.ids.specific.DatasetId;
+import com.bakdata.conquery.models.identifiable.ids.specific.TableId;
+import com.bakdata.conquery.models.types.CType;
+import com.bakdata.conquery.models.types.MajorTypeId;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+public class ColumnarBlockTest {
+
+	private static final int EVENTS = 130;
+
+	@Test
+	public void testAccessorsAndSerialization() throws IOException {
+		Import imp = createImport();
+		List<Object[]> events = createEvents();
+
+		ColumnarBlock block = ColumnarBlock.of(0, imp, events);
+		assertContent(block, events);
+
+		byte[] content;
+		try (Output output = new Output(1024, -1)) {
+			block.writeContent(output);
+			content = output.toBytes();
+		}
+		try (Input input = new Input(new ByteArrayInputStream(content))) {
+			assertContent(ColumnarBlock.read(0, imp, input), events);
+		}
+	}
+
+	@Test
+	public void testSelection() {
+		Import imp = createImport();
+		List<Object[]> events = createEvents();
+		ColumnarBlock block = ColumnarBlock.of(0, imp, events);
+
+		int[] selection = new int[EVENTS];
+		for (int i = 0; i < EVENTS; i++) {
+			selection[i] = EVENTS - 1 - i;
+		}
+
+		long expectedSum = 0;
+		int expectedCount = 0;
+		for (Object[] event : events) {
+			if (event[0] != null) {
+				expectedSum += (Long) event[0];
+				expectedCount++;
+			}
+		}
+		assertThat(block.sumLongs(column(0), selection, EVENTS)).isEqualTo(expectedSum);
+		assertThat(block.countPresent(column(0), selection, EVENTS)).isEqualTo(expectedCount);
+
+		int selected = block.selectPresent(column(0), selection, EVENTS);
+		assertThat(selected).isEqualTo(expectedCount);
+		for (int i = 0; i < selected; i++) {
+			assertThat(events.get(selection[i])[0]).isNotNull();
+		}
+
+		int contained = block.selectContainedIn(column(3), CDateSet.create(new CDateRange(0, 10)), selection, selected);
+		for (int i = 0; i < contained; i++) {
+			assertThat((Integer) events.get(selection[i])[3]).isBetween(0, 10);
+		}
+	}
+
+	private void assertContent(ColumnarBlock block, List<Object[]> events) {
+		assertThat(block.size()).isEqualTo(events.size());
+		for (int event = 0; event < events.size(); event++) {
+			for (int c = 0; c < events.get(event).length; c++) {
+				Object orig = events.get(event)[c];
+				if (orig == null) {
+					assertThat(block.has(event, column(c))).as("checking " + c + ":" + event + " = null").isFalse();
+				}
+				else if (orig instanceof BigDecimal) {
+					assertThat((BigDecimal) block.getAsObject(event, column(c)))
+						.as("checking " + c + ":" + event + " = '" + orig + "'")
+						.usingComparator(BigDecimal::compareTo)
+						.isEqualTo(orig);
+				}
+				else {
+					assertThat(block.getAsObject(event, column(c))).as("checking " + c + ":" + event + " = '" + orig + "'").isEqualTo(orig);
+				}
+			}
+		}
+	}
+
+	private List<Object[]> createEvents() {
+		List<Object[]> events = new ArrayList<>();
+		for (int i = 0; i < EVENTS; i++) {
+			events.add(new Object[] {
+				i % 3 == 0 ? null : Long.valueOf(i * 1000L),
+				i % 5 == 0 ? null : Boolean.valueOf(i % 2 == 0),
+				i % 7 == 0 ? null : Double.valueOf(i / 3d),
+				i % 11 == 0 ? null : Integer.valueOf(i - 20),
+				i % 13 == 0 ? null : new CDateRange(i, i + 5),
+				i % 17 == 0 ? null : BigDecimal.valueOf(i * 7, i % 4)
+			});
+		}
+		return events;
+	}
+
+	private Import createImport() {
+		Import imp = new Import();
+		imp.setTable(new TableId(new DatasetId("test_dataset"), "table"));
+		imp.setName("import");
+		imp.setColumnar(true);
+		imp.setColumns(new ImportColumn[] {
+			column(imp, 0, MajorTypeId.INTEGER.createType()),
+			column(imp, 1, MajorTypeId.BOOLEAN.createType()),
+			column(imp, 2, MajorTypeId.REAL.createType()),
+			column(imp, 3, MajorTypeId.DATE.createType()),
+			column(imp, 4, MajorTypeId.DATE_RANGE.createType()),
+			column(imp, 5, MajorTypeId.DECIMAL.createType())
+		});
+		return imp;
+	}
+
+	private Column column(int pos) {
+		Column column = new Column();
+		column.setPosition(pos);
+		return column;
+	}
+
+	private ImportColumn column(Import imp, int pos, CType<?, ?> valueType) {
+		ImportColumn col = new ImportColumn();
+		col.setName(String.format("@column%02d", pos));
+		col.setParent(imp);
+		col.setPosition(pos);
+		col.setType(valueType);
+		return col;
+	}
+}
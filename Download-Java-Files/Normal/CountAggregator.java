@@ -2,15 +2,17 @@ package com.bakdata.conquery.models.query.queryplan.aggregators.specific;
 
 import com.bakdata.conquery.models.datasets.Column;
 import com.bakdata.conquery.models.events.Block;
+import com.bakdata.conquery.models.events.ColumnarBlock;
 import com.bakdata.conquery.models.externalservice.ResultType;
 import com.bakdata.conquery.models.query.queryplan.aggregators.SingleColumnAggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.VectorizedAggregator;
 import com.bakdata.conquery.models.query.queryplan.clone.CloneContext;
 
 /**
  * Entity is included when number of events with non null values is within a
  * given range.
  */
-public class CountAggregator extends SingleColumnAggregator<Long> {
+public class CountAggregator extends SingleColumnAggregator<Long> implements VectorizedAggregator<Long> {
 
 	private long count = 0;
 
@@ -25,6 +27,11 @@ public class CountAggregator extends SingleColumnAggregator<Long> {
 		}
 	}
 
+	@Override
+	public void aggregateEvents(ColumnarBlock block, int[] events, int length) {
+		count += block.countPresent(getColumn(), events, length);
+	}
+
 	@Override
 	public Long getAggregationResult() {
 		return count;
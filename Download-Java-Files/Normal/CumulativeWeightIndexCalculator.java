@@ -0,0 +1,172 @@
+package com.iota.iri.service.tipselection.impl;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashId;
+import com.iota.iri.model.HashPrefix;
+import com.iota.iri.service.tipselection.RatingCalculator;
+import com.iota.iri.storage.tangleindex.TangleIndex;
+import com.iota.iri.utils.collections.impl.TransformingMap;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+import static com.iota.iri.storage.tangleindex.TangleIndex.NONE;
+
+/**
+ * Implementation of <tt>RatingCalculator</tt> that gives the same cumulative weights as
+ * {@link CumulativeWeightCalculator}, computed over the int arrays of a {@link TangleIndex} instead of loading the
+ * approvers from the database. The future set of every transaction is a sorted int array, bounded by
+ * {@link CumulativeWeightCalculator#MAX_FUTURE_SET_SIZE} as well.
+ *
+ * The ratings are returned as {@link IndexedRatings}, which {@link WalkerAlpha} walks over the index as well.
+ */
+public class CumulativeWeightIndexCalculator implements RatingCalculator {
+
+    private static final Logger log = LoggerFactory.getLogger(CumulativeWeightIndexCalculator.class);
+
+    private final TangleIndex index;
+
+    public CumulativeWeightIndexCalculator(TangleIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public UnIterableMap<HashId, Integer> calculate(Hash entryPoint) throws Exception {
+        log.debug("Start calculating cw starting with tx hash {}", entryPoint);
+
+        index.readLock().lock();
+        try {
+            int entryId = index.id(entryPoint);
+            if (entryId == NONE) {
+                //not indexed yet, so nothing references it
+                UnIterableMap<HashId, Integer> ratings = new TransformingMap<>(HashPrefix::createPrefix, null);
+                ratings.put(entryPoint, 1);
+                return ratings;
+            }
+            //local index + 1 of every transaction that references the entry point, 0 if it does not
+            LocalIds localIds = new LocalIds();
+            int[] order = sortTransactionsInTopologicalOrder(entryId, localIds);
+            return new IndexedRatings(index, localIds, order, calculateCwInOrder(order, localIds));
+        } finally {
+            index.readLock().unlock();
+        }
+    }
+
+    /**
+     * Iterative DFS over the approvers, a transaction is added after all of its approvers. An approver that is still
+     * on the stack closes a circle and is skipped.
+     *
+     * @return the ids in topological order, the position of every id is stored in {@code localIds}
+     */
+    private int[] sortTransactionsInTopologicalOrder(int entryId, LocalIds localIds) {
+        int[] order = new int[16];
+        int count = 0;
+        int[] stackIds = new int[16];
+        int[] stackEdges = new int[16];
+        int top = 0;
+        stackIds[0] = entryId;
+        stackEdges[0] = index.firstApproverEdge(entryId);
+        //-1 marks the ids on the stack
+        localIds.put(entryId, -1);
+
+        while (top >= 0) {
+            int edge = stackEdges[top];
+            if (edge != NONE) {
+                stackEdges[top] = index.nextApproverEdge(edge);
+                int approver = index.approver(edge);
+                if (localIds.get(approver) == 0) {
+                    if (++top == stackIds.length) {
+                        stackIds = Arrays.copyOf(stackIds, top << 1);
+                        stackEdges = Arrays.copyOf(stackEdges, top << 1);
+                    }
+                    stackIds[top] = approver;
+                    stackEdges[top] = index.firstApproverEdge(approver);
+                    localIds.put(approver, -1);
+                }
+                continue;
+            }
+            int id = stackIds[top--];
+            if (count == order.length) {
+                order = Arrays.copyOf(order, count << 1);
+            }
+            order[count] = id;
+            localIds.put(id, ++count);
+        }
+        return Arrays.copyOf(order, count);
+    }
+
+    private int[] calculateCwInOrder(int[] order, LocalIds localIds) {
+        int[] weights = new int[order.length];
+        //the future set of every transaction as sorted local indexes, released once it is rated
+        int[][] futureSets = new int[order.length][];
+        for (int local = 0; local < order.length; local++) {
+            int[] futureSet = futureSets[local];
+            futureSets[local] = null;
+            weights[local] = (futureSet == null ? 0 : futureSet.length) + 1;
+
+            int id = order[local];
+            int trunk = index.trunk(id);
+            int branch = index.branch(id);
+            updateFutureSet(futureSets, localIds, local, futureSet, trunk);
+            if (branch != trunk) {
+                updateFutureSet(futureSets, localIds, local, futureSet, branch);
+            }
+        }
+        return weights;
+    }
+
+    private static void updateFutureSet(int[][] futureSets, LocalIds localIds, int local, int[] futureSet,
+                                        int approvee) {
+        //only approvees that reference the entry point, and were not rated yet because of a circle
+        int approveeLocal = approvee == NONE ? NONE : localIds.get(approvee) - 1;
+        if (approveeLocal <= local) {
+            return;
+        }
+        futureSets[approveeLocal] = union(futureSets[approveeLocal], futureSet, local,
+                CumulativeWeightCalculator.MAX_FUTURE_SET_SIZE);
+    }
+
+    /**
+     * Merges two sorted sets and one more element, keeping at most {@code maxSize} of the smallest elements.
+     */
+    static int[] union(int[] a, int[] b, int element, int maxSize) {
+        int aLength = a == null ? 0 : a.length;
+        int bLength = b == null ? 0 : b.length;
+        if (aLength >= maxSize) {
+            return a;
+        }
+        int[] union = new int[Math.min(maxSize, aLength + bLength + 1)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        boolean elementPending = true;
+        while (k < union.length) {
+            int next = Integer.MAX_VALUE;
+            if (i < aLength) {
+                next = a[i];
+            }
+            if (j < bLength && b[j] < next) {
+                next = b[j];
+            }
+            if (elementPending && element < next) {
+                next = element;
+            }
+            if (next == Integer.MAX_VALUE) {
+                break;
+            }
+            if (i < aLength && a[i] == next) {
+                i++;
+            }
+            if (j < bLength && b[j] == next) {
+                j++;
+            }
+            if (elementPending && element == next) {
+                elementPending = false;
+            }
+            union[k++] = next;
+        }
+        return k == union.length ? union : Arrays.copyOf(union, k);
+    }
+}
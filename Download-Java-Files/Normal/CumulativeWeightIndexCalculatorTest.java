@@ -0,0 +1,196 @@
+package com.iota.iri.service.tipselection.impl;
+
+
+import com.iota.iri.conf.MainnetConfig;
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashId;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
+import com.iota.iri.storage.tangleindex.TangleIndexProvider;
+import com.iota.iri.utils.Pair;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+import com.iota.iri.zmq.MessageQ;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.util.*;
+
+import static com.iota.iri.controllers.TransactionViewModelTest.*;
+
+public class CumulativeWeightIndexCalculatorTest {
+    private static final TemporaryFolder dbFolder = new TemporaryFolder();
+    private static final TemporaryFolder logFolder = new TemporaryFolder();
+    private static final String TX_CUMULATIVE_WEIGHT_IS_NOT_AS_EXPECTED_FORMAT =
+            "tx%d cumulative weight is not as expected";
+    private static Tangle tangle;
+    private static CumulativeWeightIndexCalculator cumulativeWeightCalculator;
+    private static CumulativeWeightCalculator legacyCalculator;
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        tangle.shutdown();
+        dbFolder.delete();
+        logFolder.delete();
+    }
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        tangle = new Tangle();
+        dbFolder.create();
+        logFolder.create();
+        tangle.addPersistenceProvider( new RocksDBPersistenceProvider(
+                dbFolder.getRoot().getAbsolutePath(), logFolder.getRoot().getAbsolutePath(),1000, Tangle.COLUMN_FAMILIES, Tangle.METADATA_COLUMN_FAMILY));
+        TangleIndexProvider provider = new TangleIndexProvider(tangle);
+        tangle.addPersistenceProvider(provider);
+        tangle.init();
+        cumulativeWeightCalculator = new CumulativeWeightIndexCalculator(provider.getIndex());
+        legacyCalculator = new CumulativeWeightCalculator(tangle);
+    }
+
+    @Test
+    public void testCalculateCumulativeWeightDiamond() throws Exception {
+        TransactionViewModel transaction, transaction1, transaction2, transaction3;
+        transaction = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        transaction1 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction.getHash(),
+                transaction.getHash()), getRandomTransactionHash());
+        transaction2 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction.getHash(),
+                transaction.getHash()), getRandomTransactionHash());
+        transaction3 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction1.getHash(),
+                transaction2.getHash()), getRandomTransactionHash());
+        transaction.store(tangle);
+        transaction1.store(tangle);
+        transaction2.store(tangle);
+        transaction3.store(tangle);
+
+        UnIterableMap<HashId, Integer> txToCw = cumulativeWeightCalculator.calculate(transaction.getHash());
+
+        Assert.assertEquals(String.format(TX_CUMULATIVE_WEIGHT_IS_NOT_AS_EXPECTED_FORMAT, 3),
+                1, txToCw.get(transaction3.getHash()).intValue());
+        Assert.assertEquals(String.format(TX_CUMULATIVE_WEIGHT_IS_NOT_AS_EXPECTED_FORMAT, 1),
+                2, txToCw.get(transaction1.getHash()).intValue());
+        Assert.assertEquals(String.format(TX_CUMULATIVE_WEIGHT_IS_NOT_AS_EXPECTED_FORMAT, 2),
+                2, txToCw.get(transaction2.getHash()).intValue());
+        Assert.assertEquals(String.format(TX_CUMULATIVE_WEIGHT_IS_NOT_AS_EXPECTED_FORMAT, 0),
+                4, txToCw.get(transaction.getHash()).intValue());
+    }
+
+    @Test
+    public void testDeletedApproverIsNotRated() throws Exception {
+        TransactionViewModel transaction, transaction1, transaction2;
+        transaction = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        transaction1 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction.getHash(),
+                transaction.getHash()), getRandomTransactionHash());
+        transaction2 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction1.getHash(),
+                transaction.getHash()), getRandomTransactionHash());
+        transaction.store(tangle);
+        transaction1.store(tangle);
+        transaction2.store(tangle);
+
+        List<Pair<Indexable, ? extends Class<? extends Persistable>>> elementsToDelete = new ArrayList<>();
+        elementsToDelete.add(new Pair<>(transaction2.getHash(), Transaction.class));
+        tangle.deleteBatch(elementsToDelete);
+
+        UnIterableMap<HashId, Integer> txToCw = cumulativeWeightCalculator.calculate(transaction.getHash());
+        Assert.assertEquals("the deleted tx is still rated", 2, txToCw.size());
+        Assert.assertNull(txToCw.get(transaction2.getHash()));
+        Assert.assertEquals(String.format(TX_CUMULATIVE_WEIGHT_IS_NOT_AS_EXPECTED_FORMAT, 1),
+                1, txToCw.get(transaction1.getHash()).intValue());
+        Assert.assertEquals(String.format(TX_CUMULATIVE_WEIGHT_IS_NOT_AS_EXPECTED_FORMAT, 0),
+                2, txToCw.get(transaction.getHash()).intValue());
+    }
+
+    @Test
+    public void cwCalculationSameAsLegacy() throws Exception {
+        Hash[] hashes = new Hash[100];
+        hashes[0] = getRandomTransactionHash();
+        new TransactionViewModel(getRandomTransactionTrits(), hashes[0]).store(tangle);
+        //constant seed for consistent results
+        Random random = new Random(181783497276652981L);
+        for (int i = 1; i < hashes.length; i++) {
+            hashes[i] = getRandomTransactionHash();
+            new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(hashes[i - random.nextInt(i) - 1],
+                    hashes[i - random.nextInt(i) - 1]), hashes[i]).store(tangle);
+        }
+        UnIterableMap<HashId, Integer> legacy = legacyCalculator.calculate(hashes[0]);
+        UnIterableMap<HashId, Integer> txToCw = cumulativeWeightCalculator.calculate(hashes[0]);
+
+        Assert.assertEquals("missing txs from new calculation", legacy.size(), txToCw.size());
+        for (Hash hash : hashes) {
+            Assert.assertEquals("new calculation weight is not as expected for hash " + hash,
+                    legacy.get(hash), txToCw.get(hash));
+        }
+    }
+
+    @Test
+    public void testTangleWithCircle() throws Exception {
+        TransactionViewModel transaction;
+        Hash randomTransactionHash = getRandomTransactionHash();
+        transaction = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(randomTransactionHash, randomTransactionHash), randomTransactionHash);
+
+        transaction.store(tangle);
+
+        UnIterableMap<HashId, Integer> txToCw = cumulativeWeightCalculator.calculate(transaction.getHash());
+        Assert.assertEquals("There should be only one tx in the map", 1, txToCw.size());
+        Assert.assertEquals("The circle raised the weight", 1, txToCw.get(randomTransactionHash).intValue());
+    }
+
+    @Test
+    public void testTangleWithCircle2() throws Exception {
+        TransactionViewModel transaction, transaction1, transaction2, transaction3;
+        Hash randomTransactionHash2 = getRandomTransactionHash();
+        transaction = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                randomTransactionHash2, randomTransactionHash2), getRandomTransactionHash());
+        transaction1 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                transaction.getHash(), transaction.getHash()), getRandomTransactionHash());
+        transaction2 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                transaction1.getHash(), transaction1.getHash()), randomTransactionHash2);
+        transaction3 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(
+                transaction.getHash(), transaction.getHash()), getRandomTransactionHash());
+
+        transaction.store(tangle);
+        transaction1.store(tangle);
+        transaction2.store(tangle);
+        transaction3.store(tangle);
+
+        UnIterableMap<HashId, Integer> txToCw = cumulativeWeightCalculator.calculate(transaction.getHash());
+        Assert.assertEquals(4, txToCw.size());
+    }
+
+    @Test
+    public void testWalkOverIndexedRatings() throws Exception {
+        //1,2,3 point to transaction, 4 points to 3
+        TransactionViewModel transaction, transaction1, transaction2, transaction3, transaction4;
+        transaction = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        transaction1 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction.getHash(),
+                transaction.getHash()), getRandomTransactionHash());
+        transaction2 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction.getHash(),
+                transaction.getHash()), getRandomTransactionHash());
+        transaction3 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction.getHash(),
+                transaction.getHash()), getRandomTransactionHash());
+        transaction4 = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(transaction3.getHash(),
+                transaction3.getHash()), getRandomTransactionHash());
+        transaction.store(tangle);
+        transaction1.store(tangle);
+        transaction2.store(tangle);
+        transaction3.store(tangle);
+        transaction4.store(tangle);
+
+        UnIterableMap<HashId, Integer> rating = cumulativeWeightCalculator.calculate(transaction.getHash());
+        Assert.assertTrue(rating instanceof IndexedRatings);
+
+        WalkerAlpha walker = new WalkerAlpha((Optional::of), tangle, Mockito.mock(MessageQ.class), new Random(1),
+                new MainnetConfig());
+        //with a high alpha the walk follows the heaviest approver
+        walker.setAlpha(100);
+        Hash tip = walker.walk(transaction.getHash(), rating, new WalkValidatorNull());
+        Assert.assertEquals(transaction4.getHash(), tip);
+    }
+}
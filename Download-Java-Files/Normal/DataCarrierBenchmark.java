@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.DataSlice;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.IBatchConsumer;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.IConsumer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compare the producing throughput of {@link DataCarrier}, based on {@code Buffer} and {@code Channels}, and {@link
+ * RingDataCarrier}, under 1, 4 and 16 producer threads. Both carriers have 2 channels of 10000 slots, consumed by 2
+ * threads, like the OAP indicator aggregation does.
+ *
+ * @author wusheng
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DataCarrierBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ChannelsState {
+        private DataCarrier<Object> carrier;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            carrier = new DataCarrier<Object>("benchmark", 2, 10000);
+            carrier.setBufferStrategy(BufferStrategy.BLOCKING);
+            carrier.consume(new ListConsumer(), 2, 1);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            carrier.shutdownConsumers();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RingState {
+        private RingDataCarrier<Object> carrier;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            carrier = new RingDataCarrier<Object>("benchmark", 2, 10000);
+            carrier.setBufferStrategy(BufferStrategy.BLOCKING);
+            carrier.consume(new SliceConsumer(), 2, 1);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            carrier.shutdownConsumers();
+        }
+    }
+
+    private static final Object DATA = new Object();
+
+    @Benchmark
+    @Threads(1)
+    public boolean channels1Producer(ChannelsState state) {
+        return state.carrier.produce(DATA);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean channels4Producers(ChannelsState state) {
+        return state.carrier.produce(DATA);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean channels16Producers(ChannelsState state) {
+        return state.carrier.produce(DATA);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean ring1Producer(RingState state) {
+        return state.carrier.produce(DATA);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean ring4Producers(RingState state) {
+        return state.carrier.produce(DATA);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean ring16Producers(RingState state) {
+        return state.carrier.produce(DATA);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(DataCarrierBenchmark.class.getSimpleName())
+            .forks(1)
+            .warmupIterations(3)
+            .measurementIterations(5)
+            .jvmArgsAppend("-verbose:gc")
+            .build();
+
+        new Runner(opt).run();
+    }
+
+    private static class ListConsumer implements IConsumer<Object> {
+        protected volatile int consumed;
+
+        @Override public void init() {
+        }
+
+        @Override public void consume(List<Object> data) {
+            consumed += data.size();
+        }
+
+        @Override public void onError(List<Object> data, Throwable t) {
+        }
+
+        @Override public void onExit() {
+        }
+    }
+
+    private static class SliceConsumer extends ListConsumer implements IBatchConsumer<Object> {
+        @Override public void consume(DataSlice<Object> data) {
+            consumed += data.size();
+        }
+
+        @Override public void onError(DataSlice<Object> data, Throwable t) {
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+/**
+ * DataSlice is a reusable view of the data drained from one channel, passed to {@link IBatchConsumer}. The backing
+ * array is allocated once per consumer thread, so the slice is only valid inside {@link
+ * IBatchConsumer#consume(DataSlice)}, and must be copied if the data are kept after that.
+ *
+ * @author wusheng
+ */
+public class DataSlice<T> {
+    private final Object[] data;
+    private int size;
+
+    public DataSlice(int capacity) {
+        this.data = new Object[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return data.length;
+    }
+
+    public T get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return (T)data[index];
+    }
+
+    /**
+     * Append the element, only called by the channel which fills this slice.
+     */
+    public void add(T element) {
+        data[size++] = element;
+    }
+
+    public boolean isFull() {
+        return size == data.length;
+    }
+
+    /**
+     * Release the references to the consumed data, and make this slice empty for the next batch.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            data[i] = null;
+        }
+        size = 0;
+    }
+}
@@ -19,9 +19,11 @@ package com.alipay.sofa.jraft.rhea.client;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,6 +83,7 @@ import com.alipay.sofa.jraft.rhea.storage.Sequence;
 import com.alipay.sofa.jraft.rhea.util.ByteArray;
 import com.alipay.sofa.jraft.rhea.util.Constants;
 import com.alipay.sofa.jraft.rhea.util.Lists;
+import com.alipay.sofa.jraft.rhea.util.Maps;
 import com.alipay.sofa.jraft.rhea.util.StackTraceUtil;
 import com.alipay.sofa.jraft.rhea.util.Strings;
 import com.alipay.sofa.jraft.rhea.util.concurrent.AffinityNamedThreadFactory;
@@ -96,6 +99,7 @@ import com.alipay.sofa.jraft.util.Requires;
 import com.codahale.metrics.Histogram;
 import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
 
@@ -179,26 +183,28 @@ import com.lmax.disruptor.dsl.Disruptor;
  */
 public class DefaultRheaKVStore implements RheaKVStore {
 
-    private static final Logger   LOG = LoggerFactory.getLogger(DefaultRheaKVStore.class);
+    private static final Logger                      LOG = LoggerFactory.getLogger(DefaultRheaKVStore.class);
 
     static {
         ExtSerializerSupports.init();
     }
 
-    private StoreEngine           storeEngine;
-    private PlacementDriverClient pdClient;
-    private RheaKVRpcService      rheaKVRpcService;
-    private RheaKVStoreOptions    opts;
-    private int                   failoverRetries;
-    private long                  futureTimeoutMillis;
-    private boolean               onlyLeaderRead;
-    private Dispatcher            kvDispatcher;
-    private BatchingOptions       batchingOpts;
-    private GetBatching           getBatching;
-    private GetBatching           getBatchingOnlySafe;
-    private PutBatching           putBatching;
+    private StoreEngine                              storeEngine;
+    private PlacementDriverClient                    pdClient;
+    private RheaKVRpcService                         rheaKVRpcService;
+    private RheaKVStoreOptions                       opts;
+    private int                                      failoverRetries;
+    private long                                     futureTimeoutMillis;
+    private boolean                                  onlyLeaderRead;
+    private Dispatcher                               kvDispatcher;
+    private BatchingOptions                          batchingOpts;
+    private GetBatching                              getBatching;
+    private GetBatching                              getBatchingOnlySafe;
+    private PutBatching                              putBatching;
+    // the number of batches in flight per region, see #recordRegionBatch
+    private final ConcurrentMap<Long, Integer>       regionInflightBatches = Maps.newConcurrentMapLong();
 
-    private volatile boolean      started;
+    private volatile boolean                         started;
 
     @Override
     public synchronized boolean init(final RheaKVStoreOptions opts) {
@@ -447,6 +453,7 @@ public class DefaultRheaKVStore implements RheaKVStore {
             final RetryCallable<Map<ByteArray, byte[]>> retryCallable = retryCause -> internalMultiGet(subKeys,
                     readOnlySafe, retriesLeft - 1, retryCause);
             final MapFailoverFuture<ByteArray, byte[]> future = new MapFailoverFuture<>(retriesLeft, retryCallable);
+            recordRegionBatch("multi_get", region.getId(), subKeys.size(), future);
             internalRegionMultiGet(region, subKeys, readOnlySafe, future, retriesLeft, lastError, this.onlyLeaderRead);
             futures.add(future);
         }
@@ -902,6 +909,7 @@ public class DefaultRheaKVStore implements RheaKVStore {
             final RetryCallable<Boolean> retryCallable = retryCause -> internalPut(subEntries, retriesLeft - 1,
                     retryCause);
             final BoolFailoverFuture future = new BoolFailoverFuture(retriesLeft, retryCallable);
+            recordRegionBatch("put_list", region.getId(), subEntries.size(), future);
             internalRegionPut(region, subEntries, future, retriesLeft, lastError);
             futures.add(future);
         }
@@ -1300,13 +1308,31 @@ public class DefaultRheaKVStore implements RheaKVStore {
         return false;
     }
 
+    /**
+     * Records the size of a batch sent to a region and the number of batches in
+     * flight to that region, only with adaptive batching. A region leaves the
+     * map when its last batch completes.
+     */
+    private void recordRegionBatch(final String op, final long regionId, final int size,
+                                   final CompletableFuture<?> future) {
+        if (!this.batchingOpts.isAllowBatching() || !this.batchingOpts.isAdaptiveBatching()) {
+            return;
+        }
+        final String id = String.valueOf(regionId);
+        KVMetrics.histogram(KVMetricNames.SEND_BATCHING, op + "_region_keys", id).update(size);
+        final int inflight = this.regionInflightBatches.merge(regionId, 1, Integer::sum);
+        KVMetrics.histogram(KVMetricNames.SEND_BATCHING, op + "_region_inflight", id).update(inflight);
+        future.whenComplete((ignored, throwable) -> this.regionInflightBatches.computeIfPresent(regionId,
+                (k, count) -> count == 1 ? null : count - 1));
+    }
+
     private static boolean isValidEpoch(final Region region, final RegionEngine engine) {
         return region.getRegionEpoch().equals(engine.getRegion().getRegionEpoch());
     }
 
     private class GetBatching extends Batching<KeyEvent, byte[], byte[]> {
 
-        public GetBatching(EventFactory<KeyEvent> factory, String name, EventHandler<KeyEvent> handler) {
+        public GetBatching(EventFactory<KeyEvent> factory, String name, GetBatchingHandler handler) {
             super(factory, batchingOpts.getBufSize(), name, handler);
         }
 
@@ -1318,6 +1344,11 @@ public class DefaultRheaKVStore implements RheaKVStore {
                 event.future = future;
             });
         }
+
+        @Override
+        public void wakeup() {
+            this.ringBuffer.tryPublishEvent((event, sequence) -> event.reset());
+        }
     }
 
     private class PutBatching extends Batching<KVEvent, KVEntry, Boolean> {
@@ -1334,11 +1365,22 @@ public class DefaultRheaKVStore implements RheaKVStore {
                 event.future = future;
             });
         }
+
+        @Override
+        public void wakeup() {
+            this.ringBuffer.tryPublishEvent((event, sequence) -> event.reset());
+        }
     }
 
     private class GetBatchingHandler extends AbstractBatchingHandler<KeyEvent> {
 
-        private final boolean readOnlySafe;
+        private final boolean                         readOnlySafe;
+
+        // copied out of the events, which are reused once the handler returns
+        private final List<byte[]>                    keys    = Lists.newArrayListWithCapacity(batchingOpts
+                                                                  .getBatchSize());
+        private final List<CompletableFuture<byte[]>> futures = Lists.newArrayListWithCapacity(batchingOpts
+                                                                  .getBatchSize());
 
         private GetBatchingHandler(String metricsName, boolean readOnlySafe) {
             super(metricsName);
@@ -1348,49 +1390,75 @@ public class DefaultRheaKVStore implements RheaKVStore {
         @SuppressWarnings("unchecked")
         @Override
         public void onEvent(final KeyEvent event, final long sequence, final boolean endOfBatch) throws Exception {
-            this.events.add(event);
-            this.cachedBytes += event.key.length;
-            final int size = this.events.size();
-            if (!endOfBatch && size < batchingOpts.getBatchSize() && this.cachedBytes < batchingOpts.getMaxReadBytes()) {
+            // an event without future only wakes up the lingering requests, see Batching#wakeup
+            if (event.future != null) {
+                this.keys.add(event.key);
+                this.futures.add(event.future);
+                this.cachedBytes += event.key.length;
+            }
+            final int size = this.keys.size();
+            if (!isReadyToSend(size, batchingOpts.getMaxReadBytes(), endOfBatch)) {
                 return;
             }
 
             if (size == 1) {
+                final byte[] key = this.keys.get(0);
+                final CompletableFuture<byte[]> future = this.futures.get(0);
                 reset();
-                try {
-                    get(event.key, this.readOnlySafe, event.future, false);
-                } catch (final Throwable t) {
-                    exceptionally(t, event.future);
+                if (!isAdaptive()) {
+                    try {
+                        get(key, this.readOnlySafe, future, false);
+                    } catch (final Throwable t) {
+                        exceptionally(t, future);
+                    }
+                    return;
                 }
-            } else {
-                final List<byte[]> keys = Lists.newArrayListWithCapacity(size);
-                final CompletableFuture<byte[]>[] futures = new CompletableFuture[size];
-                for (int i = 0; i < size; i++) {
-                    final KeyEvent e = this.events.get(i);
-                    keys.add(e.key);
-                    futures[i] = e.future;
-                }
-                reset();
-                try {
-                    multiGet(keys, this.readOnlySafe).whenComplete((result, throwable) -> {
+                send(() -> get(key, this.readOnlySafe, new CompletableFuture<>(), false)).whenComplete(
+                    (result, throwable) -> {
                         if (throwable == null) {
-                            for (int i = 0; i < futures.length; i++) {
-                                final ByteArray realKey = ByteArray.wrap(keys.get(i));
-                                futures[i].complete(result.get(realKey));
-                            }
+                            future.complete(result);
                             return;
                         }
-                        exceptionally(throwable, futures);
+                        exceptionally(throwable, future);
                     });
-                } catch (final Throwable t) {
-                    exceptionally(t, futures);
-                }
+            } else {
+                final List<byte[]> keys = Lists.newArrayList(this.keys);
+                final CompletableFuture<byte[]>[] futures = this.futures.toArray(new CompletableFuture[size]);
+                reset();
+                send(() -> multiGet(keys, this.readOnlySafe)).whenComplete((result, throwable) -> {
+                    if (throwable == null) {
+                        for (int i = 0; i < futures.length; i++) {
+                            final ByteArray realKey = ByteArray.wrap(keys.get(i));
+                            futures[i].complete(result.get(realKey));
+                        }
+                        return;
+                    }
+                    exceptionally(throwable, futures);
+                });
             }
         }
+
+        @Override
+        public void reset() {
+            super.reset();
+            this.keys.clear();
+            this.futures.clear();
+        }
+
+        @Override
+        protected List<? extends CompletableFuture<?>> pendingFutures() {
+            return this.futures;
+        }
     }
 
     private class PutBatchingHandler extends AbstractBatchingHandler<KVEvent> {
 
+        // copied out of the events, which are reused once the handler returns
+        private final List<KVEntry>                    entries = Lists.newArrayListWithCapacity(batchingOpts
+                                                                   .getBatchSize());
+        private final List<CompletableFuture<Boolean>> futures = Lists.newArrayListWithCapacity(batchingOpts
+                                                                   .getBatchSize());
+
         public PutBatchingHandler(String metricsName) {
             super(metricsName);
         }
@@ -1398,58 +1466,144 @@ public class DefaultRheaKVStore implements RheaKVStore {
         @SuppressWarnings("unchecked")
         @Override
         public void onEvent(final KVEvent event, final long sequence, final boolean endOfBatch) throws Exception {
-            this.events.add(event);
-            this.cachedBytes += event.kvEntry.length();
-            final int size = this.events.size();
-            if (!endOfBatch && size < batchingOpts.getBatchSize() && this.cachedBytes < batchingOpts.getMaxWriteBytes()) {
+            // an event without future only wakes up the lingering requests, see Batching#wakeup
+            if (event.future != null) {
+                this.entries.add(event.kvEntry);
+                this.futures.add(event.future);
+                this.cachedBytes += event.kvEntry.length();
+            }
+            final int size = this.entries.size();
+            if (!isReadyToSend(size, batchingOpts.getMaxWriteBytes(), endOfBatch)) {
                 return;
             }
 
             if (size == 1) {
+                final KVEntry kv = this.entries.get(0);
+                final CompletableFuture<Boolean> future = this.futures.get(0);
                 reset();
-                final KVEntry kv = event.kvEntry;
-                try {
-                    put(kv.getKey(), kv.getValue(), event.future, false);
-                } catch (final Throwable t) {
-                    exceptionally(t, event.future);
+                if (!isAdaptive()) {
+                    try {
+                        put(kv.getKey(), kv.getValue(), future, false);
+                    } catch (final Throwable t) {
+                        exceptionally(t, future);
+                    }
+                    return;
                 }
-            } else {
-                final List<KVEntry> entries = Lists.newArrayListWithCapacity(size);
-                final CompletableFuture<Boolean>[] futures = new CompletableFuture[size];
-                for (int i = 0; i < size; i++) {
-                    final KVEvent e = this.events.get(i);
-                    entries.add(e.kvEntry);
-                    futures[i] = e.future;
-                }
-                reset();
-                try {
-                    put(entries).whenComplete((result, throwable) -> {
+                send(() -> put(kv.getKey(), kv.getValue(), new CompletableFuture<>(), false)).whenComplete(
+                    (result, throwable) -> {
                         if (throwable == null) {
-                            for (int i = 0; i < futures.length; i++) {
-                                futures[i].complete(result);
-                            }
+                            future.complete(result);
                             return;
                         }
-                        exceptionally(throwable, futures);
+                        exceptionally(throwable, future);
                     });
-                } catch (final Throwable t) {
-                    exceptionally(t, futures);
-                }
+            } else {
+                final List<KVEntry> entries = Lists.newArrayList(this.entries);
+                final CompletableFuture<Boolean>[] futures = this.futures.toArray(new CompletableFuture[size]);
+                reset();
+                send(() -> put(entries)).whenComplete((result, throwable) -> {
+                    if (throwable == null) {
+                        for (int i = 0; i < futures.length; i++) {
+                            futures[i].complete(result);
+                        }
+                        return;
+                    }
+                    exceptionally(throwable, futures);
+                });
             }
         }
+
+        @Override
+        public void reset() {
+            super.reset();
+            this.entries.clear();
+            this.futures.clear();
+        }
+
+        @Override
+        protected List<? extends CompletableFuture<?>> pendingFutures() {
+            return this.futures;
+        }
     }
 
-    private abstract class AbstractBatchingHandler<T> implements EventHandler<T> {
+    /**
+     * Sends the requests of a handler in batches. With adaptive batching (see
+     * {@link BatchingOptions#isAdaptiveBatching()}) the batches go through a
+     * {@link BatchingWindow}.
+     */
+    private abstract class AbstractBatchingHandler<T> implements EventHandler<T>, LifecycleAware {
+
+        protected final Histogram          histogramWithKeys;
+        protected final Histogram          histogramWithBytes;
+        protected final Histogram          histogramWithInflight;
 
-        protected final Histogram histogramWithKeys;
-        protected final Histogram histogramWithBytes;
+        protected int                      cachedBytes = 0;
 
-        protected final List<T>   events      = Lists.newArrayListWithCapacity(batchingOpts.getBatchSize());
-        protected int             cachedBytes = 0;
+        // null unless batching adaptively
+        private final BatchingWindow       window;
+
+        private volatile Batching<T, ?, ?> batching;
 
         public AbstractBatchingHandler(String metricsName) {
             this.histogramWithKeys = KVMetrics.histogram(KVMetricNames.SEND_BATCHING, metricsName + "_keys");
             this.histogramWithBytes = KVMetrics.histogram(KVMetricNames.SEND_BATCHING, metricsName + "_bytes");
+            this.histogramWithInflight = KVMetrics.histogram(KVMetricNames.SEND_BATCHING, metricsName + "_inflight");
+            if (batchingOpts.isAdaptiveBatching()) {
+                this.window = new BatchingWindow(batchingOpts.getBatchSize(), batchingOpts.getMaxInflightBatches(),
+                    () -> {
+                        final Batching<T, ?, ?> batching = this.batching;
+                        return batching == null ? 0 : batching.backlog();
+                    }, () -> {
+                        final Batching<T, ?, ?> batching = this.batching;
+                        if (batching != null) {
+                            batching.wakeup();
+                        }
+                    });
+            } else {
+                this.window = null;
+            }
+        }
+
+        protected abstract List<? extends CompletableFuture<?>> pendingFutures();
+
+        protected boolean isAdaptive() {
+            return this.window != null;
+        }
+
+        /**
+         * Returns true if the cached requests should be sent as a batch now, in which
+         * case a permit for one more batch in flight has been taken.
+         */
+        protected boolean isReadyToSend(final int size, final int maxBytes, final boolean endOfBatch) {
+            if (size == 0) {
+                return false;
+            }
+            final int batchSize = this.window == null ? batchingOpts.getBatchSize() : this.window.batchSize();
+            final boolean full = size >= batchSize || this.cachedBytes >= maxBytes;
+            if (!full && !endOfBatch) {
+                return false;
+            }
+            return this.window == null || this.window.tryAcquire(full);
+        }
+
+        /**
+         * Sends a batch. Without adaptive batching this returns the future of the
+         * sender as is, otherwise a future that completes after those of all the
+         * batches sent before.
+         */
+        protected <R> CompletableFuture<R> send(final Supplier<CompletableFuture<R>> sender) {
+            if (this.window == null) {
+                try {
+                    return sender.get();
+                } catch (final Throwable t) {
+                    final CompletableFuture<R> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(t);
+                    return failed;
+                }
+            }
+            final CompletableFuture<R> future = this.window.send(sender);
+            this.histogramWithInflight.update(this.window.inflight());
+            return future;
         }
 
         public void exceptionally(final Throwable t, final CompletableFuture<?>... futures) {
@@ -1459,12 +1613,29 @@ public class DefaultRheaKVStore implements RheaKVStore {
         }
 
         public void reset() {
-            this.histogramWithKeys.update(this.events.size());
+            this.histogramWithKeys.update(pendingFutures().size());
             this.histogramWithBytes.update(this.cachedBytes);
 
-            this.events.clear();
             this.cachedBytes = 0;
         }
+
+        @Override
+        public void onStart() {
+            // no-op
+        }
+
+        @Override
+        public void onShutdown() {
+            final List<? extends CompletableFuture<?>> pending = pendingFutures();
+            if (pending.isEmpty()) {
+                return;
+            }
+            final Throwable t = new IllegalStateException("Batching is shut down with lingering requests");
+            for (final CompletableFuture<?> future : pending) {
+                future.completeExceptionally(t);
+            }
+            reset();
+        }
     }
 
     private static class KeyEvent {
@@ -1496,8 +1667,9 @@ public class DefaultRheaKVStore implements RheaKVStore {
         protected final RingBuffer<T> ringBuffer;
 
         @SuppressWarnings("unchecked")
-        public Batching(EventFactory<T> factory, int bufSize, String name, EventHandler<T> handler) {
+        public Batching(EventFactory<T> factory, int bufSize, String name, AbstractBatchingHandler<T> handler) {
             this.name = name;
+            handler.batching = this;
             this.disruptor = new Disruptor<>(factory, bufSize, new NamedThreadFactory(name, true));
             this.disruptor.handleEventsWith(handler);
             this.disruptor.setDefaultExceptionHandler(new LogExceptionHandler<Object>(name));
@@ -1507,6 +1679,17 @@ public class DefaultRheaKVStore implements RheaKVStore {
 
         public abstract boolean apply(final E message, final CompletableFuture<F> future);
 
+        /**
+         * Publishes an event without request, which lets the handler send the
+         * requests lingering for a batch in flight to complete.
+         */
+        public abstract void wakeup();
+
+        public long backlog() {
+            final RingBuffer<T> ringBuffer = this.ringBuffer;
+            return ringBuffer == null ? 0 : ringBuffer.getBufferSize() - ringBuffer.remainingCapacity();
+        }
+
         public void shutdown() {
             try {
                 this.disruptor.shutdown(3L, TimeUnit.SECONDS);
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.*;
+import java.util.function.Consumer;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+
+/**
+ * EpochMergeDataCache is a double-buffered merge cache without the writing flag polling of {@link MergeDataCache}.
+ *
+ * Writers enter the current epoch by increasing its writer count, and re-check the epoch is still current, otherwise
+ * they leave and retry in the new one. So after the flush switches the epoch, no new writer could enter the retired
+ * one, and the flush only yields until the writers already in it leave, which is the time of one {@link
+ * Indicator#combine(Indicator)}, rather than sleeping.
+ *
+ * Indicators in one epoch are merged by {@link ConcurrentHashMap#compute}, so the writers from different consumer
+ * threads are only serialized on the same key.
+ *
+ * @author peng-yongsheng
+ */
+public class EpochMergeDataCache<INDICATOR extends Indicator> {
+
+    private final Epoch<INDICATOR> epochA = new Epoch<>();
+    private final Epoch<INDICATOR> epochB = new Epoch<>();
+    private volatile Epoch<INDICATOR> current = epochA;
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    /**
+     * @return true if the indicator has been combined into an existing one, false if it is the first one of the key in
+     * the current epoch.
+     */
+    public boolean merge(INDICATOR indicator) {
+        Epoch<INDICATOR> epoch = enter();
+        try {
+            Combination combination = new Combination();
+            epoch.collection.compute(indicator, (key, existing) -> {
+                if (existing == null) {
+                    return indicator;
+                }
+                existing.combine(indicator);
+                combination.combined = true;
+                return existing;
+            });
+            return combination.combined;
+        } finally {
+            epoch.writers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Switch the epoch, and send all merged indicators of the retired epoch to the given consumer.
+     *
+     * @return the number of the flushed indicators, or -1 if the other flush is running.
+     */
+    public int flush(Consumer<INDICATOR> consumer) {
+        if (!flushing.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            Epoch<INDICATOR> retired = current;
+            current = retired == epochA ? epochB : epochA;
+
+            while (retired.writers.get() > 0) {
+                Thread.yield();
+            }
+
+            int size = retired.collection.size();
+            retired.collection.values().forEach(consumer);
+            retired.collection.clear();
+            return size;
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    public int currentCollectionSize() {
+        return current.collection.size();
+    }
+
+    private Epoch<INDICATOR> enter() {
+        while (true) {
+            Epoch<INDICATOR> epoch = current;
+            epoch.writers.incrementAndGet();
+            if (epoch == current) {
+                return epoch;
+            }
+            epoch.writers.decrementAndGet();
+        }
+    }
+
+    private static class Epoch<INDICATOR extends Indicator> {
+        private final ConcurrentHashMap<INDICATOR, INDICATOR> collection = new ConcurrentHashMap<>();
+        private final AtomicInteger writers = new AtomicInteger(0);
+    }
+
+    private static class Combination {
+        private boolean combined = false;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.data;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.skywalking.oap.server.core.analysis.indicator.Indicator;
+import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
+import org.junit.*;
+
+/**
+ * @author peng-yongsheng
+ */
+public class EpochMergeDataCacheTest {
+
+    @Test
+    public void testMergeExistingKey() {
+        EpochMergeDataCache<MockIndicator> cache = new EpochMergeDataCache<>();
+        Assert.assertFalse(cache.merge(new MockIndicator("a", 1)));
+        Assert.assertTrue(cache.merge(new MockIndicator("a", 2)));
+        Assert.assertFalse(cache.merge(new MockIndicator("b", 4)));
+        Assert.assertEquals(2, cache.currentCollectionSize());
+
+        Map<String, Long> flushed = new HashMap<>();
+        Assert.assertEquals(2, cache.flush(indicator -> flushed.put(indicator.id(), indicator.value)));
+        Assert.assertEquals(3L, flushed.get("a").longValue());
+        Assert.assertEquals(4L, flushed.get("b").longValue());
+    }
+
+    @Test
+    public void testReadAfterSwap() {
+        EpochMergeDataCache<MockIndicator> cache = new EpochMergeDataCache<>();
+        cache.merge(new MockIndicator("a", 1));
+
+        List<MockIndicator> flushed = new ArrayList<>();
+        Assert.assertEquals(1, cache.flush(flushed::add));
+        Assert.assertEquals(0, cache.currentCollectionSize());
+
+        // The same key starts over in the new epoch, and leaves the flushed indicator alone.
+        Assert.assertFalse(cache.merge(new MockIndicator("a", 5)));
+        Assert.assertEquals(1L, flushed.get(0).value);
+
+        List<MockIndicator> flushedAgain = new ArrayList<>();
+        Assert.assertEquals(1, cache.flush(flushedAgain::add));
+        Assert.assertEquals(5L, flushedAgain.get(0).value);
+        Assert.assertEquals(0, cache.flush(indicator -> Assert.fail()));
+    }
+
+    @Test(timeout = 30_000)
+    public void testSwapWhileWriting() throws Exception {
+        EpochMergeDataCache<MockIndicator> cache = new EpochMergeDataCache<>();
+        cache.merge(new MockIndicator("a", 1));
+
+        MockIndicator blocking = new MockIndicator("a", 2);
+        blocking.combining = new CountDownLatch(1);
+        blocking.release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Boolean> writer = executor.submit(() -> cache.merge(blocking));
+            blocking.combining.await();
+
+            List<MockIndicator> flushed = new CopyOnWriteArrayList<>();
+            Future<Integer> flush = executor.submit(() -> cache.flush(flushed::add));
+            // The flush switched to the empty epoch, and waits for the writer still in the retired one.
+            while (cache.currentCollectionSize() != 0) {
+                Thread.sleep(1);
+            }
+            Assert.assertFalse(flush.isDone());
+            Assert.assertTrue(flushed.isEmpty());
+
+            // New writers go to the new epoch.
+            Assert.assertFalse(cache.merge(new MockIndicator("a", 4)));
+
+            blocking.release.countDown();
+            Assert.assertTrue(writer.get());
+            Assert.assertEquals(1, flush.get().intValue());
+            Assert.assertEquals(3L, flushed.get(0).value);
+
+            List<MockIndicator> flushedAgain = new ArrayList<>();
+            Assert.assertEquals(1, cache.flush(flushedAgain::add));
+            Assert.assertEquals(4L, flushedAgain.get(0).value);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 60_000)
+    public void testConcurrentMergeAndFlush() throws Exception {
+        int writers = 4;
+        int mergesPerWriter = 20_000;
+        EpochMergeDataCache<MockIndicator> cache = new EpochMergeDataCache<>();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < mergesPerWriter; j++) {
+                        cache.merge(new MockIndicator(String.valueOf(j % 16), 1));
+                    }
+                }));
+            }
+
+            AtomicLong total = new AtomicLong();
+            while (!futures.stream().allMatch(Future::isDone)) {
+                cache.flush(indicator -> total.addAndGet(indicator.value));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            cache.flush(indicator -> total.addAndGet(indicator.value));
+
+            // Nothing is lost or counted twice across the swaps.
+            Assert.assertEquals((long)writers * mergesPerWriter, total.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class MockIndicator extends Indicator {
+        private final String id;
+        private long value;
+        private CountDownLatch combining;
+        private CountDownLatch release;
+
+        MockIndicator(String id, long value) {
+            this.id = id;
+            this.value = value;
+        }
+
+        @Override public String id() {
+            return id;
+        }
+
+        @Override public void combine(Indicator indicator) {
+            MockIndicator mockIndicator = (MockIndicator)indicator;
+            value += mockIndicator.value;
+            if (mockIndicator.combining != null) {
+                mockIndicator.combining.countDown();
+                try {
+                    mockIndicator.release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override public void calculate() {
+        }
+
+        @Override public Indicator toHour() {
+            return null;
+        }
+
+        @Override public Indicator toDay() {
+            return null;
+        }
+
+        @Override public Indicator toMonth() {
+            return null;
+        }
+
+        @Override public void deserialize(RemoteData remoteData) {
+        }
+
+        @Override public RemoteData.Builder serialize() {
+            return null;
+        }
+
+        @Override public int remoteHashCode() {
+            return id.hashCode();
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof MockIndicator && id.equals(((MockIndicator)o).id);
+        }
+
+        @Override public int hashCode() {
+            return id.hashCode();
+        }
+    }
+}
@@ -21,4 +21,9 @@ public interface EventIterating {
 	default void nextTable(QueryContext ctx, Table currentTable) {}
 	
 	default void nextBlock(Block block) {}
+	
+	/**
+	 * Called after the last event of the block, so that work collected for the whole block can be done at once.
+	 */
+	default void endBlock(Block block) {}
 }
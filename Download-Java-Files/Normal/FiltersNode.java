@@ -40,6 +40,14 @@ public class FiltersNode extends QPChainNode implements EventIterating {
 		}
 	}
 	
+	@Override
+	public void endBlock(Block block) {
+		super.endBlock(block);
+		for(FilterNode<?> f:filters) {
+			f.endBlock(block);
+		}
+	}
+	
 	@Override
 	public final void nextEvent(Block block, int event) {
 		for(FilterNode<?> f : filters) {
@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -75,6 +76,7 @@ public class GoalOptimizer implements Runnable {
   private volatile boolean _shutdown = false;
   private Thread _proposalPrecomputingSchedulerThread;
   private final Timer _proposalComputationTimer;
+  private final MetricRegistry _dropwizardMetricRegistry;
   private final ModelCompletenessRequirements _defaultModelCompletenessRequirements;
   private final ModelCompletenessRequirements _requirementsWithAvailableValidWindows;
 
@@ -116,6 +118,7 @@ public class GoalOptimizer implements Runnable {
     _progressUpdateLock = new AtomicBoolean(false);
     _proposalPrecomputingProgress = new OperationProgress();
     _proposalComputationTimer = dropwizardMetricRegistry.timer(MetricRegistry.name("GoalOptimizer", "proposal-computation-timer"));
+    _dropwizardMetricRegistry = dropwizardMetricRegistry;
   }
 
   private void populateGoalByPriorityForPrecomputing() {
@@ -235,26 +238,37 @@ public class GoalOptimizer implements Runnable {
     return _numPrecomputingThreads > 0 ? _numPrecomputingThreads : 2;
   }
 
+  /**
+   * Generates the cluster model once, and optimizes a copy of it for each goal priority in parallel. The candidates
+   * are merged into the best proposal in the order of their goal priorities, so the result does not depend on which
+   * candidate finishes first.
+   */
   private void computeBestProposal() {
     long start = _time.milliseconds();
-    List<Future> futures = new ArrayList<>();
+    if (_loadMonitor == null) {
+      LOG.warn("No load monitor available. Skip computing proposal candidate.");
+      return;
+    }
+    OperationProgress operationProgress =
+        _progressUpdateLock.compareAndSet(false, true) ? _proposalPrecomputingProgress : new OperationProgress();
+    // The model is generated on the executor as well, as this thread is interrupted by the threads waiting for the cache.
+    ClusterModel clusterModel = getUninterruptibly(_proposalPrecomputingExecutor.submit(
+        () -> clusterModelForPrecomputing(operationProgress)));
+    if (clusterModel == null) {
+      return;
+    }
+
+    List<Future<OptimizerResult>> futures = new ArrayList<>();
     for (int i = 0; i < (_numPrecomputingThreads > 0 ? _numPrecomputingThreads : 1); i++) {
+      // Only the candidate with the original goal priority reports its progress.
       futures.add(_proposalPrecomputingExecutor.submit(
-          new ProposalCandidateComputer(_goalByPriorityForPrecomputing.get(i))));
+          new ProposalCandidateComputer(_goalByPriorityForPrecomputing.get(i), clusterModel,
+                                        i == 0 ? operationProgress : new OperationProgress())));
     }
-    for (Future future : futures) {
-      try {
-        boolean done = false;
-        while (!_shutdown && !done) {
-          try {
-            future.get();
-            done = true;
-          } catch (InterruptedException ie) {
-            LOG.debug("Goal optimizer received exception when precomputing the proposal candidates {}.", ie.toString());
-          }
-        }
-      } catch (ExecutionException ee) {
-        LOG.error("Goal optimizer received exception when precomputing the proposal candidates.", ee);
+    for (Future<OptimizerResult> future : futures) {
+      OptimizerResult result = getUninterruptibly(future);
+      if (result != null) {
+        updateBestProposal(result);
       }
     }
     if (!futures.isEmpty()) {
@@ -262,6 +276,40 @@ public class GoalOptimizer implements Runnable {
     }
   }
 
+  private ClusterModel clusterModelForPrecomputing(OperationProgress operationProgress) throws Exception {
+    try (AutoCloseable ignored = _loadMonitor.acquireForModelGeneration(operationProgress)) {
+      // We compute the proposal even if there is not enough modeled partitions.
+      ModelCompletenessRequirements requirements = _loadMonitor.meetCompletenessRequirements(_defaultModelCompletenessRequirements) ?
+                                                   _defaultModelCompletenessRequirements : _requirementsWithAvailableValidWindows;
+      ClusterModel clusterModel = _loadMonitor.clusterModel(_time.milliseconds(), requirements, operationProgress);
+      if (clusterModel.topics().isEmpty()) {
+        LOG.warn("The cluster model does not have valid topics, skipping proposal precomputation.");
+        return null;
+      }
+      return clusterModel;
+    }
+  }
+
+  /**
+   * Wait for the given future regardless of interrupts, until the goal optimizer shuts down.
+   *
+   * @return The result of the future, or null if it failed or the goal optimizer was shut down.
+   */
+  private <T> T getUninterruptibly(Future<T> future) {
+    try {
+      while (!_shutdown) {
+        try {
+          return future.get();
+        } catch (InterruptedException ie) {
+          LOG.debug("Goal optimizer received exception when precomputing the proposal candidates {}.", ie.toString());
+        }
+      }
+    } catch (ExecutionException ee) {
+      LOG.error("Goal optimizer received exception when precomputing the proposal candidates.", ee);
+    }
+    return null;
+  }
+
   private boolean validCachedProposal() {
     synchronized (_cacheLock) {
       return _bestProposal != null
@@ -442,7 +490,12 @@ public class GoalOptimizer implements Runnable {
       OptimizationForGoal step = new OptimizationForGoal(goal.name());
       operationProgress.addStep(step);
       LOG.debug("Optimizing goal {}", goal.name());
+      long goalStartMs = _time.milliseconds();
       boolean succeeded = goal.optimize(clusterModel, optimizedGoals, excludedTopics);
+      long goalOptimizationMs = _time.milliseconds() - goalStartMs;
+      _dropwizardMetricRegistry.timer(MetricRegistry.name("GoalOptimizer", goal.name() + "-optimization-timer"))
+                               .update(goalOptimizationMs, TimeUnit.MILLISECONDS);
+      LOG.debug("Optimized goal {} in {} ms", goal.name(), goalOptimizationMs);
       optimizedGoals.add(goal);
       statsByGoalPriority.put(goal, clusterModel.getClusterStats(_balancingConstraint));
 
@@ -657,41 +710,29 @@ public class GoalOptimizer implements Runnable {
   }
 
   /**
-   * A class that precomputes the proposal candidates and find the best proposal.
+   * A class that precomputes a proposal candidate on its own copy of the cluster model.
    */
-  private class ProposalCandidateComputer implements Runnable {
+  private class ProposalCandidateComputer implements Callable<OptimizerResult> {
     private final TreeMap<Integer, Goal> _goalByPriority;
+    private final ClusterModel _clusterModel;
+    private final OperationProgress _operationProgress;
 
-    ProposalCandidateComputer(Map<Integer, Goal> goalByPriority) {
+    ProposalCandidateComputer(Map<Integer, Goal> goalByPriority,
+                              ClusterModel clusterModel,
+                              OperationProgress operationProgress) {
       _goalByPriority = new TreeMap<>(goalByPriority);
+      _clusterModel = clusterModel;
+      _operationProgress = operationProgress;
     }
 
     @Override
-    public void run() {
+    public OptimizerResult call() throws KafkaCruiseControlException {
       LOG.debug("Starting proposal candidate computer.");
-      if (_loadMonitor == null) {
-        LOG.warn("No load monitor available. Skip computing proposal candidate.");
-        return;
-      }
-      OperationProgress operationProgress =
-          _progressUpdateLock.compareAndSet(false, true) ? _proposalPrecomputingProgress : new OperationProgress();
-
-      try (AutoCloseable ignored = _loadMonitor.acquireForModelGeneration(operationProgress)) {
-        long startMs = _time.milliseconds();
-        // We compute the proposal even if there is not enough modeled partitions.
-        ModelCompletenessRequirements requirements = _loadMonitor.meetCompletenessRequirements(_defaultModelCompletenessRequirements) ?
-                                                     _defaultModelCompletenessRequirements : _requirementsWithAvailableValidWindows;
-        ClusterModel clusterModel = _loadMonitor.clusterModel(_time.milliseconds(), requirements, operationProgress);
-        if (!clusterModel.topics().isEmpty()) {
-          OptimizerResult result = optimizations(clusterModel, _goalByPriority, operationProgress);
-          LOG.debug("Generated a proposal candidate in {} ms.", _time.milliseconds() - startMs);
-          updateBestProposal(result);
-        } else {
-          LOG.warn("The cluster model does not have valid topics, skipping proposal precomputation.");
-        }
-      } catch (Exception e) {
-        LOG.error("Proposal precomputation encountered error", e);
-      }
+      long startMs = _time.milliseconds();
+      // The shared cluster model is only read, each candidate optimizes its own copy.
+      OptimizerResult result = optimizations(_clusterModel.copy(), _goalByPriority, _operationProgress);
+      LOG.debug("Generated a proposal candidate in {} ms.", _time.milliseconds() - startMs);
+      return result;
     }
   }
 }
@@ -23,6 +23,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import javax.annotation.Nullable;
+import org.apache.beam.runners.dataflow.worker.counters.Counter;
 import org.apache.beam.vendor.guava.v20_0.com.google.common.annotations.VisibleForTesting;
 
 /** Static utility methods that provide {@link GroupingTable} implementations. */
@@ -104,6 +106,58 @@ public class GroupingTables {
         new SamplingSizeEstimator<>(accumulatorSizer, sizeEstimatorSampleRate, 1.0));
   }
 
+  /**
+   * Returns a {@link GroupingTable} that combines inputs into a accumulator with sampling {@link
+   * SizeEstimator SizeEstimators}, and that outputs the inputs without combining them for a while
+   * when too few of them share a key. The number of inputs combined into the accumulator of an
+   * earlier input is added to {@code combinedElementsCounter}, if one is given.
+   */
+  public static <K, InputT, AccumT> GroupingTable<K, InputT, AccumT> adaptiveCombiningAndSampling(
+      GroupingKeyCreator<? super K> groupingKeyCreator,
+      PairInfo pairInfo,
+      Combiner<? super K, InputT, AccumT, ?> combineFn,
+      SizeEstimator<? super K> keySizer,
+      SizeEstimator<? super AccumT> accumulatorSizer,
+      double sizeEstimatorSampleRate,
+      @Nullable Counter<Long, ?> combinedElementsCounter) {
+    return new AdaptiveCombiningGroupingTable<>(
+        DEFAULT_MAX_GROUPING_TABLE_BYTES,
+        groupingKeyCreator,
+        pairInfo,
+        combineFn,
+        new SamplingSizeEstimator<>(keySizer, sizeEstimatorSampleRate, 1.0),
+        new SamplingSizeEstimator<>(accumulatorSizer, sizeEstimatorSampleRate, 1.0),
+        combinedElementsCounter,
+        DEFAULT_REDUCTION_SAMPLE_INPUTS,
+        DEFAULT_BYPASS_INPUTS);
+  }
+
+  /**
+   * Returns an adaptive combining {@link GroupingTable} that measures its reduction over the given
+   * number of inputs.
+   */
+  @VisibleForTesting
+  static <K, InputT, AccumT> GroupingTable<K, InputT, AccumT> adaptiveCombining(
+      GroupingKeyCreator<? super K> groupingKeyCreator,
+      PairInfo pairInfo,
+      Combiner<? super K, InputT, AccumT, ?> combineFn,
+      SizeEstimator<? super K> keySizer,
+      SizeEstimator<? super AccumT> accumulatorSizer,
+      @Nullable Counter<Long, ?> combinedElementsCounter,
+      long reductionSampleInputs,
+      long bypassInputs) {
+    return new AdaptiveCombiningGroupingTable<>(
+        DEFAULT_MAX_GROUPING_TABLE_BYTES,
+        groupingKeyCreator,
+        pairInfo,
+        combineFn,
+        keySizer,
+        accumulatorSizer,
+        combinedElementsCounter,
+        reductionSampleInputs,
+        bypassInputs);
+  }
+
   /** Provides client-specific operations for grouping keys. */
   public static interface GroupingKeyCreator<K> {
     public Object createGroupingKey(K key) throws Exception;
@@ -163,6 +217,13 @@ public class GroupingTables {
    */
   static final int PER_KEY_OVERHEAD = 24 * BYTES_PER_JVM_WORD;
 
+  // By default, over how many inputs an adaptive combining table measures its reduction.
+  static final long DEFAULT_REDUCTION_SAMPLE_INPUTS = 100_000L;
+
+  // By default, how many inputs an adaptive combining table outputs without combining them once
+  // its reduction is too small.
+  static final long DEFAULT_BYPASS_INPUTS = 1_000_000L;
+
   /**
    * A base class of {@link GroupingTable} that provides the implementation of {@link #put} and
    * {@link #flush}.
@@ -252,7 +313,7 @@ public class GroupingTables {
      * Output the given entry. Does not actually remove it from the table or update this table's
      * size.
      */
-    private void output(GroupingTableEntry<K, InputT, AccumT> entry, Receiver receiver)
+    void output(GroupingTableEntry<K, InputT, AccumT> entry, Receiver receiver)
         throws Exception {
       entry.compact();
       receiver.process(pairInfo.makeOutputPair(entry.getKey(), entry.getValue()));
@@ -390,6 +451,90 @@ public class GroupingTables {
     }
   }
 
+  /**
+   * A combining table that measures its reduction, the number of inputs per table entry, over
+   * windows of inputs. When most of the inputs of a window have a key of their own, combining them
+   * only costs hashing and memory, so the table is flushed and the following inputs are output one
+   * by one, each in an accumulator of its own. Then the reduction is measured again.
+   */
+  private static class AdaptiveCombiningGroupingTable<K, InputT, AccumT>
+      extends CombiningGroupingTable<K, InputT, AccumT> {
+    // The reduction below which the table is bypassed, i.e. over 80% of the keys are new.
+    private static final double MIN_REDUCTION = 1.25;
+
+    @Nullable private final Counter<Long, ?> combinedElementsCounter;
+    private final long reductionSampleInputs;
+    private final long bypassInputs;
+
+    // Since the counter was last updated.
+    private long inputs = 0;
+    private long entries = 0;
+
+    // Within the current window of inputs.
+    private long sampledInputs = 0;
+    private long sampledEntries = 0;
+
+    private long remainingBypassInputs = 0;
+
+    private AdaptiveCombiningGroupingTable(
+        long maxSize,
+        GroupingKeyCreator<? super K> groupingKeyCreator,
+        PairInfo pairInfo,
+        Combiner<? super K, InputT, AccumT, ?> combineFn,
+        SizeEstimator<? super K> keySizer,
+        SizeEstimator<? super AccumT> accumulatorSizer,
+        @Nullable Counter<Long, ?> combinedElementsCounter,
+        long reductionSampleInputs,
+        long bypassInputs) {
+      super(maxSize, groupingKeyCreator, pairInfo, combineFn, keySizer, accumulatorSizer);
+      this.combinedElementsCounter = combinedElementsCounter;
+      this.reductionSampleInputs = reductionSampleInputs;
+      this.bypassInputs = bypassInputs;
+    }
+
+    @Override
+    public GroupingTableEntry<K, InputT, AccumT> createTableEntry(K key) throws Exception {
+      entries++;
+      return super.createTableEntry(key);
+    }
+
+    @Override
+    public void put(K key, InputT value, Receiver receiver) throws Exception {
+      inputs++;
+      if (remainingBypassInputs > 0) {
+        remainingBypassInputs--;
+        GroupingTableEntry<K, InputT, AccumT> entry = createTableEntry(key);
+        entry.add(value);
+        output(entry, receiver);
+        return;
+      }
+
+      long entriesBefore = entries;
+      super.put(key, value, receiver);
+      sampledInputs++;
+      sampledEntries += entries - entriesBefore;
+      if (sampledInputs >= reductionSampleInputs) {
+        if (sampledInputs < MIN_REDUCTION * sampledEntries) {
+          flush(receiver);
+          remainingBypassInputs = bypassInputs;
+        }
+        sampledInputs = 0;
+        sampledEntries = 0;
+      }
+    }
+
+    @Override
+    public void flush(Receiver output) throws Exception {
+      super.flush(output);
+      if (combinedElementsCounter != null) {
+        // Every entry created has been output once.
+        combinedElementsCounter.addValue(inputs - entries);
+      }
+      inputs = 0;
+      entries = 0;
+    }
+  }
+
   /** Returns the number of bytes in a JVM word. In case we failed to find the answer, returns 8. */
   private static int getBytesPerJvmWord() {
     String wordSizeInBits = System.getProperty("sun.arch.data.model");
@@ -29,6 +29,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import org.apache.beam.runners.dataflow.worker.NameContextsForTests;
+import org.apache.beam.runners.dataflow.worker.counters.Counter;
+import org.apache.beam.runners.dataflow.worker.counters.CounterName;
+import org.apache.beam.runners.dataflow.worker.counters.CounterSet;
 import org.apache.beam.runners.dataflow.worker.util.common.worker.GroupingTables.Combiner;
 import org.apache.beam.runners.dataflow.worker.util.common.worker.GroupingTables.GroupingKeyCreator;
 import org.apache.beam.runners.dataflow.worker.util.common.worker.GroupingTables.GroupingTableBase;
@@ -154,6 +157,68 @@ public class GroupingTablesTest {
             KV.of("A", 1L), KV.of("B", 2L + 3), KV.of("C", 5000L + 4), KV.of("DDDD", 6L)));
   }
 
+  @Test
+  public void testAdaptiveCombiningGroupingTable() throws Exception {
+    Counter<Long, Long> combinedElements =
+        new CounterSet().longSum(CounterName.named("combined-elements"));
+    GroupingTable<String, Integer, Long> table =
+        GroupingTables.adaptiveCombining(
+            new IdentityGroupingKeyCreator(),
+            new KvPairInfo(),
+            new SummingCombineFn(),
+            new StringPowerSizeEstimator(),
+            new IdentitySizeEstimator(),
+            combinedElements,
+            4 /* reductionSampleInputs */,
+            3 /* bypassInputs */);
+
+    TestOutputReceiver receiver =
+        new TestOutputReceiver(
+            KvCoder.of(StringUtf8Coder.of(), BigEndianLongCoder.of()),
+            NameContextsForTests.nameContextForTest());
+
+    // Two inputs per key, so the table keeps combining.
+    table.put(KV.of("A", 1), receiver);
+    table.put(KV.of("A", 2), receiver);
+    table.put(KV.of("A", 3), receiver);
+    table.put(KV.of("B", 4), receiver);
+    assertThat(receiver.outputElems, empty());
+
+    // One input per key, so the table is flushed and bypassed for the next three inputs.
+    table.put(KV.of("C", 5), receiver);
+    table.put(KV.of("D", 6), receiver);
+    table.put(KV.of("E", 7), receiver);
+    table.put(KV.of("F", 8), receiver);
+    assertEquals(6, receiver.outputElems.size());
+    assertEquals(2L, (long) combinedElements.getAggregate());
+
+    table.put(KV.of("G", 9), receiver);
+    table.put(KV.of("G", 10), receiver);
+    table.put(KV.of("G", 11), receiver);
+    assertEquals(9, receiver.outputElems.size());
+
+    // Combining again.
+    table.put(KV.of("H", 12), receiver);
+    table.put(KV.of("H", 13), receiver);
+    assertEquals(9, receiver.outputElems.size());
+
+    table.flush(receiver);
+    assertThat(
+        receiver.outputElems,
+        IsIterableContainingInAnyOrder.<Object>containsInAnyOrder(
+            KV.of("A", 6L),
+            KV.of("B", 4L),
+            KV.of("C", 5L),
+            KV.of("D", 6L),
+            KV.of("E", 7L),
+            KV.of("F", 8L),
+            KV.of("G", 9L),
+            KV.of("G", 10L),
+            KV.of("G", 11L),
+            KV.of("H", 25L)));
+    assertEquals(3L, (long) combinedElements.getAggregate());
+  }
+
   ////////////////////////////////////////////////////////////////////////////
   // Tests for the sampling size estimator.
 
@@ -299,6 +364,38 @@ public class GroupingTablesTest {
     }
   }
 
+  /** Sums integer inputs into long accumulators. */
+  private static class SummingCombineFn implements Combiner<Object, Integer, Long, Long> {
+    @Override
+    public Long createAccumulator(Object key) {
+      return 0L;
+    }
+
+    @Override
+    public Long add(Object key, Long accumulator, Integer value) {
+      return accumulator + value;
+    }
+
+    @Override
+    public Long merge(Object key, Iterable<Long> accumulators) {
+      long sum = 0;
+      for (Long part : accumulators) {
+        sum += part;
+      }
+      return sum;
+    }
+
+    @Override
+    public Long compact(Object key, Long accumulator) {
+      return accumulator;
+    }
+
+    @Override
+    public Long extract(Object key, Long accumulator) {
+      return accumulator;
+    }
+  }
+
   /** "Estimate" the size of longs by looking at their value. */
   private static class IdentitySizeEstimator implements SizeEstimator<Long> {
     public int calls = 0;
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+/**
+ * IBatchConsumer receives the data in a reusable {@link DataSlice} rather than a new {@link java.util.List} for every
+ * batch. It is supported by the channels based on {@link org.apache.skywalking.apm.commons.datacarrier.buffer.RingBuffer},
+ * other consumer drivers call {@link IConsumer#consume(java.util.List)} as before.
+ *
+ * @author wusheng
+ */
+public interface IBatchConsumer<T> extends IConsumer<T> {
+    /**
+     * @param data the slice is reused by the next batch, don't keep it after this method returns.
+     */
+    void consume(DataSlice<T> data);
+
+    void onError(DataSlice<T> data, Throwable t);
+}
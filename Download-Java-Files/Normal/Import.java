@@ -12,6 +12,7 @@ import com.bakdata.conquery.io.freemarker.Freemarker;
 import com.bakdata.conquery.io.xodus.NamespacedStorage;
 import com.bakdata.conquery.models.events.generation.BlockFactory;
 import com.bakdata.conquery.models.events.generation.ClassGenerator;
+import com.bakdata.conquery.models.events.generation.ColumnarBlockFactory;
 import com.bakdata.conquery.models.events.generation.SafeJavaString;
 import com.bakdata.conquery.models.events.generation.SafeName;
 import com.bakdata.conquery.models.identifiable.NamedImpl;
@@ -45,6 +46,10 @@ public class Import extends NamedImpl<ImportId> {
 	private ImportColumn[] columns = new ImportColumn[0];
 	private long numberOfBlocks;
 	private long numberOfEntries;
+	/**
+	 * If set, the blocks of this import are {@link com.bakdata.conquery.models.events.ColumnarBlock}s instead of generated classes.
+	 */
+	private boolean columnar = false;
 	@JsonIgnore
 	private transient BlockFactory blockFactory;
 	
@@ -71,6 +76,9 @@ public class Import extends NamedImpl<ImportId> {
 
 	@JsonIgnore
 	public synchronized BlockFactory getBlockFactory() {
+		if(blockFactory == null && columnar) {
+			blockFactory = new ColumnarBlockFactory();
+		}
 		if(blockFactory == null) {
 			String eventSource = null;
 			String blockSource = null;
@@ -170,6 +170,7 @@ public class ImportJob extends Job {
 			imp.setTable(table);
 			imp.setNumberOfBlocks(header.getGroups());
 			imp.setNumberOfEntries(header.getRows());
+			imp.setColumnar(header.isColumnar());
 			imp.setColumns(new ImportColumn[header.getColumns().length]);
 			for (int i = 0; i < header.getColumns().length; i++) {
 				PPColumn src = header.getColumns()[i];
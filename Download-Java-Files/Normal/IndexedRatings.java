@@ -0,0 +1,108 @@
+package com.iota.iri.service.tipselection.impl;
+
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.HashId;
+import com.iota.iri.storage.tangleindex.TangleIndex;
+import com.iota.iri.utils.collections.interfaces.UnIterableMap;
+
+import java.util.AbstractList;
+import java.util.Collection;
+
+/**
+ * The read only ratings of {@link CumulativeWeightIndexCalculator}, as ints by the ids of a {@link TangleIndex}.
+ * Transactions added to the index after the calculation are not rated.
+ */
+public class IndexedRatings implements UnIterableMap<HashId, Integer> {
+
+    private final TangleIndex index;
+    //local index + 1 by id, 0 if not rated
+    private final LocalIds localIds;
+    private final int[] ids;
+    private final int[] ratings;
+
+    IndexedRatings(TangleIndex index, LocalIds localIds, int[] ids, int[] ratings) {
+        this.index = index;
+        this.localIds = localIds;
+        this.ids = ids;
+        this.ratings = ratings;
+    }
+
+    TangleIndex getIndex() {
+        return index;
+    }
+
+    boolean isRated(int id) {
+        return id >= 0 && localIds.get(id) > 0;
+    }
+
+    /**
+     * @return the rating of a transaction that {@link #isRated(int)}
+     */
+    int rating(int id) {
+        return ratings[localIds.get(id) - 1];
+    }
+
+    @Override
+    public int size() {
+        return ids.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(HashId key) {
+        return key instanceof Hash && isRated(index.id((Hash) key));
+    }
+
+    @Override
+    public boolean containsValue(Integer value) {
+        for (int rating : ratings) {
+            if (value != null && rating == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Integer get(HashId key) {
+        if (!(key instanceof Hash)) {
+            return null;
+        }
+        int id = index.id((Hash) key);
+        return isRated(id) ? rating(id) : null;
+    }
+
+    @Override
+    public Integer put(HashId key, Integer value) {
+        throw new UnsupportedOperationException("IndexedRatings is read only");
+    }
+
+    @Override
+    public Integer remove(HashId key) {
+        throw new UnsupportedOperationException("IndexedRatings is read only");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("IndexedRatings is read only");
+    }
+
+    @Override
+    public Collection<Integer> values() {
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int i) {
+                return ratings[i];
+            }
+
+            @Override
+            public int size() {
+                return ratings.length;
+            }
+        };
+    }
+}
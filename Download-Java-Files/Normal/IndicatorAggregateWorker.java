@@ -38,10 +38,13 @@ public class IndicatorAggregateWorker extends AbstractWorker<Indicator> {
     private static final Logger logger = LoggerFactory.getLogger(IndicatorAggregateWorker.class);
 
     private AbstractWorker<Indicator> nextWorker;
-    private final DataCarrier<Indicator> dataCarrier;
-    private final MergeDataCache<Indicator> mergeDataCache;
+    private final RingDataCarrier<Indicator> dataCarrier;
+    private final EpochMergeDataCache<Indicator> mergeDataCache;
     private final String modelName;
     private CounterMetric aggregationCounter;
+    private CounterMetric mergedCounter;
+    private CounterMetric flushedCounter;
+    private HistogramMetric flushLatency;
     private final long l2AggregationSendCycle;
     private long lastSendTimestamp;
 
@@ -50,9 +53,9 @@ public class IndicatorAggregateWorker extends AbstractWorker<Indicator> {
         super(moduleDefineHolder);
         this.modelName = modelName;
         this.nextWorker = nextWorker;
-        this.mergeDataCache = new MergeDataCache<>();
+        this.mergeDataCache = new EpochMergeDataCache<>();
         String name = "INDICATOR_L1_AGGREGATION";
-        this.dataCarrier = new DataCarrier<>("IndicatorAggregateWorker." + modelName, name, 2, 10000);
+        this.dataCarrier = new RingDataCarrier<>("IndicatorAggregateWorker." + modelName, name, 2, 10000);
 
         BulkConsumePool.Creator creator = new BulkConsumePool.Creator(name, BulkConsumePool.Creator.recommendMaxSize() * 2, 20);
         try {
@@ -60,11 +63,17 @@ public class IndicatorAggregateWorker extends AbstractWorker<Indicator> {
         } catch (Exception e) {
             throw new UnexpectedException(e.getMessage(), e);
         }
-        this.dataCarrier.consume(ConsumerPoolFactory.INSTANCE.get(name), new AggregatorConsumer(this));
+        this.dataCarrier.consume((BulkConsumePool)ConsumerPoolFactory.INSTANCE.get(name), new AggregatorConsumer(this));
 
         MetricCreator metricCreator = moduleDefineHolder.find(TelemetryModule.NAME).provider().getService(MetricCreator.class);
         aggregationCounter = metricCreator.createCounter("indicator_aggregation", "The number of rows in aggregation",
             new MetricTag.Keys("metricName", "level", "dimensionality"), new MetricTag.Values(modelName, "1", "min"));
+        mergedCounter = metricCreator.createCounter("indicator_aggregation_merged", "The number of rows combined into the existing rows in aggregation",
+            new MetricTag.Keys("metricName", "level", "dimensionality"), new MetricTag.Values(modelName, "1", "min"));
+        flushedCounter = metricCreator.createCounter("indicator_aggregation_flushed", "The number of merged rows sent to the next worker",
+            new MetricTag.Keys("metricName", "level", "dimensionality"), new MetricTag.Values(modelName, "1", "min"));
+        flushLatency = metricCreator.createHistogramMetric("indicator_aggregation_flush_latency", "The latency of sending the merged rows to the next worker",
+            new MetricTag.Keys("metricName", "level", "dimensionality"), new MetricTag.Values(modelName, "1", "min"));
         lastSendTimestamp = System.currentTimeMillis();
 
         l2AggregationSendCycle = EnvUtil.getLong("INDICATOR_L1_AGGREGATION_SEND_CYCLE", 1000);
@@ -97,37 +106,32 @@ public class IndicatorAggregateWorker extends AbstractWorker<Indicator> {
     }
 
     private void sendToNext() {
-        mergeDataCache.switchPointer();
-        while (mergeDataCache.getLast().isWriting()) {
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {
-                logger.error(e.getMessage(), e);
-            }
-        }
+        HistogramMetric.Timer timer = flushLatency.createTimer();
+        try {
+            int flushed = mergeDataCache.flush(data -> {
+                // Write the derived values, like the detail group of PxxIndicator, before the data is serialized.
+                data.calculate();
+                if (logger.isDebugEnabled()) {
+                    logger.debug(data.toString());
+                }
 
-        mergeDataCache.getLast().collection().forEach(data -> {
-            if (logger.isDebugEnabled()) {
-                logger.debug(data.toString());
+                nextWorker.in(data);
+            });
+            if (flushed > 0) {
+                flushedCounter.inc(flushed);
             }
-
-            nextWorker.in(data);
-        });
-        mergeDataCache.finishReadingLast();
+        } finally {
+            timer.finish();
+        }
     }
 
     private void aggregate(Indicator indicator) {
-        mergeDataCache.writing();
-        if (mergeDataCache.containsKey(indicator)) {
-            mergeDataCache.get(indicator).combine(indicator);
-        } else {
-            mergeDataCache.put(indicator);
+        if (mergeDataCache.merge(indicator)) {
+            mergedCounter.inc();
         }
-
-        mergeDataCache.finishWriting();
     }
 
-    private class AggregatorConsumer implements IConsumer<Indicator> {
+    private class AggregatorConsumer implements IBatchConsumer<Indicator> {
 
         private final IndicatorAggregateWorker aggregator;
 
@@ -153,10 +157,24 @@ public class IndicatorAggregateWorker extends AbstractWorker<Indicator> {
             }
         }
 
+        @Override public void consume(DataSlice<Indicator> data) {
+            for (int i = 0; i < data.size(); i++) {
+                Indicator indicator = data.get(i);
+                if (i == data.size() - 1) {
+                    indicator.getEndOfBatchContext().setEndOfBatch(true);
+                }
+                aggregator.onWork(indicator);
+            }
+        }
+
         @Override public void onError(List<Indicator> data, Throwable t) {
             logger.error(t.getMessage(), t);
         }
 
+        @Override public void onError(DataSlice<Indicator> data, Throwable t) {
+            logger.error(t.getMessage(), t);
+        }
+
         @Override public void onExit() {
         }
     }
@@ -2,11 +2,13 @@ package com.bakdata.conquery.models.query.queryplan.aggregators.specific.sum;
 
 import com.bakdata.conquery.models.datasets.Column;
 import com.bakdata.conquery.models.events.Block;
+import com.bakdata.conquery.models.events.ColumnarBlock;
 import com.bakdata.conquery.models.externalservice.ResultType;
 import com.bakdata.conquery.models.query.queryplan.aggregators.SingleColumnAggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.VectorizedAggregator;
 import com.bakdata.conquery.models.query.queryplan.clone.CloneContext;
 
-public class IntegerSumAggregator extends SingleColumnAggregator<Long> {
+public class IntegerSumAggregator extends SingleColumnAggregator<Long> implements VectorizedAggregator<Long> {
 
 
 	private long sum = 0;
@@ -31,6 +33,11 @@ public class IntegerSumAggregator extends SingleColumnAggregator<Long> {
 		sum += addend;
 	}
 
+	@Override
+	public void aggregateEvents(ColumnarBlock block, int[] events, int length) {
+		sum += block.sumLongs(getColumn(), events, length);
+	}
+
 	@Override
 	public Long getAggregationResult() {
 		return sum;
@@ -22,6 +22,7 @@ import com.iota.iri.service.tipselection.Walker;
 import com.iota.iri.service.tipselection.impl.CumulativeWeightCalculator;
 import com.iota.iri.service.tipselection.impl.CumulativeWeightWithEdgeCalculator;
 import com.iota.iri.service.tipselection.impl.CumulativeWeightMemCalculator;
+import com.iota.iri.service.tipselection.impl.CumulativeWeightIndexCalculator;
 import com.iota.iri.service.tipselection.impl.EntryPointSelectorImpl;
 import com.iota.iri.service.tipselection.impl.EntryPointSelectorKatz;
 import com.iota.iri.service.tipselection.impl.TailFinderImpl;
@@ -36,6 +37,7 @@ import com.iota.iri.storage.rocksDB.RocksDBPersistenceProvider;
 import com.iota.iri.utils.Pair;
 import com.iota.iri.zmq.MessageQ;
 import com.iota.iri.storage.localinmemorygraph.LocalInMemoryGraphProvider;
+import com.iota.iri.storage.tangleindex.TangleIndexProvider;
 import com.iota.iri.storage.neo4j.Neo4jPersistenceProvider;
 
 import java.security.SecureRandom;
@@ -173,6 +175,9 @@ public class Iota {
         if(BaseIotaConfig.getInstance().getStreamingGraphSupport()) {
             tangle.addPersistenceProvider(new LocalInMemoryGraphProvider("", tangle));
         }
+        if(BaseIotaConfig.getInstance().getWeightCalAlgo().equals("INDEXED")) {
+            tangle.addPersistenceProvider(new TangleIndexProvider(tangle));
+        }
         if(!BaseIotaConfig.getInstance().getGraphDbPath().equals("")) {
             String graphDbPath = BaseIotaConfig.getInstance().getGraphDbPath();
             tangle.addPersistenceProvider(new Neo4jPersistenceProvider(graphDbPath));
@@ -192,6 +197,9 @@ public class Iota {
             ratingCalculator = new CumulativeWeightWithEdgeCalculator(tangle);
         } else if(BaseIotaConfig.getInstance().getWeightCalAlgo().equals("IN_MEM")) {
             ratingCalculator = new CumulativeWeightMemCalculator(tangle);
+        } else if(BaseIotaConfig.getInstance().getWeightCalAlgo().equals("INDEXED")) {
+            TangleIndexProvider provider = (TangleIndexProvider) tangle.getPersistenceProvider("TANGLE_INDEX");
+            ratingCalculator = new CumulativeWeightIndexCalculator(provider.getIndex());
         }
 
         TailFinder tailFinder = new TailFinderImpl(tangle);
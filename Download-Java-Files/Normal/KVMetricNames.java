@@ -32,6 +32,9 @@ public class KVMetricNames {
 
     public static final String DB_TIMER                  = "rhea-db-timer";
 
+    // for read index
+    public static final String READ_INDEX_TIMER          = "rhea-read-index-timer";
+
     public static final String REGION_KEYS_READ          = "rhea-region-keys-read";
     public static final String REGION_KEYS_WRITTEN       = "rhea-region-keys-written";
 
@@ -535,6 +535,16 @@ public class KafkaCruiseControlConfig extends AbstractConfig {
   public static final String BROKER_METRIC_SAMPLE_STORE_TOPIC_CONFIG = "broker.metric.sample.store.topic";
   private static final String BROKER_METRIC_SAMPLE_STORE_TOPIC_DOC = "The name of topic which is used to store the broker sample records.";
 
+  /**
+   * <code>partition.metric.sample.aggregator.checkpoint.file</code>
+   */
+  public static final String PARTITION_METRIC_SAMPLE_AGGREGATOR_CHECKPOINT_FILE_CONFIG =
+      "partition.metric.sample.aggregator.checkpoint.file";
+  private static final String PARTITION_METRIC_SAMPLE_AGGREGATOR_CHECKPOINT_FILE_DOC = "The file to checkpoint the "
+      + "partition metric sample aggregator to when the load monitor shuts down. When the file exists at startup, the "
+      + "aggregator is restored from it and the partition samples in the sample store are not loaded again. An empty "
+      + "value disables the checkpoint.";
+
   static {
     CONFIG = new ConfigDef()
         .define(BOOTSTRAP_SERVERS_CONFIG, ConfigDef.Type.LIST, ConfigDef.Importance.HIGH,
@@ -912,6 +922,11 @@ public class KafkaCruiseControlConfig extends AbstractConfig {
             "__KafkaCruiseControlModelTrainingSamples",
             ConfigDef.Importance.HIGH,
             BROKER_METRIC_SAMPLE_STORE_TOPIC_DOC)
+        .define(PARTITION_METRIC_SAMPLE_AGGREGATOR_CHECKPOINT_FILE_CONFIG,
+                ConfigDef.Type.STRING,
+                "",
+                ConfigDef.Importance.LOW,
+                PARTITION_METRIC_SAMPLE_AGGREGATOR_CHECKPOINT_FILE_DOC)
         .withClientSslSupport()
         .withClientSaslSupport();
   }
@@ -17,6 +17,9 @@ import com.linkedin.kafka.cruisecontrol.monitor.ModelCompletenessRequirements;
 import com.linkedin.kafka.cruisecontrol.monitor.metricdefinition.KafkaMetricDef;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.PartitionEntity;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.PartitionMetricSample;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -44,6 +47,21 @@ import org.slf4j.LoggerFactory;
  */
 public class KafkaPartitionMetricSampleAggregator extends MetricSampleAggregator<String, PartitionEntity> {
   private static final Logger LOG = LoggerFactory.getLogger(KafkaPartitionMetricSampleAggregator.class);
+  /**
+   * The serde of the partitions in the checkpoints of the aggregator.
+   */
+  public static final EntitySerde<PartitionEntity> PARTITION_ENTITY_SERDE = new EntitySerde<PartitionEntity>() {
+    @Override
+    public void write(PartitionEntity entity, DataOutput out) throws IOException {
+      out.writeUTF(entity.tp().topic());
+      out.writeInt(entity.tp().partition());
+    }
+
+    @Override
+    public PartitionEntity read(DataInput in) throws IOException {
+      return new PartitionEntity(new TopicPartition(in.readUTF(), in.readInt()));
+    }
+  };
   private final int _maxAllowedExtrapolationsPerPartition;
   private final Metadata _metadata;
 
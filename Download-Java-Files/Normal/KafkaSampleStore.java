@@ -221,7 +221,7 @@ public class KafkaSampleStore implements SampleStore {
     AtomicLong totalSamples = new AtomicLong(0L);
     AtomicLong numLoadedSamples = new AtomicLong(0L);
     try {
-      prepareConsumers();
+      prepareConsumers(sampleLoader.loadPartitionSamples());
 
       for (KafkaConsumer<byte[], byte[]> consumer : _consumers) {
         _metricProcessorExecutor.submit(
@@ -270,14 +270,17 @@ public class KafkaSampleStore implements SampleStore {
     _producer.close(300L, TimeUnit.SECONDS);
   }
 
-  private void prepareConsumers() {
+  private void prepareConsumers(boolean loadPartitionSamples) {
     int numConsumers = _consumers.size();
     List<List<TopicPartition>> assignments = new ArrayList<>();
     for (int i = 0; i < numConsumers; i++) {
       assignments.add(new ArrayList<>());
     }
+    // The partition sample topic is not read at all if its samples would be skipped.
+    List<String> topics = loadPartitionSamples ? Arrays.asList(_partitionMetricSampleStoreTopic, _brokerMetricSampleStoreTopic)
+                                               : Collections.singletonList(_brokerMetricSampleStoreTopic);
     int j = 0;
-    for (String topic : Arrays.asList(_partitionMetricSampleStoreTopic, _brokerMetricSampleStoreTopic)) {
+    for (String topic : topics) {
       for (PartitionInfo partInfo : _consumers.get(0).partitionsFor(topic)) {
         assignments.get(j++ % numConsumers).add(new TopicPartition(partInfo.topic(), partInfo.partition()));
       }
@@ -65,6 +65,15 @@ public class LoadConsistencyTest {
     Object[] mediumReplicaMoveClusterModelParams = {mediumReplicaMoveClusterModel, true};
     params.add(mediumReplicaMoveClusterModelParams);
 
+    // Test for success on the copy of a cluster model, also with a dead broker.
+    Object[] mediumCopiedClusterModelParams = {mediumReplicaMoveClusterModel.copy(), true};
+    params.add(mediumCopiedClusterModelParams);
+
+    ClusterModel smallDeadBrokerClusterModel = DeterministicCluster.smallClusterModel(brokerCapacity);
+    smallDeadBrokerClusterModel.setBrokerState(2, Broker.State.DEAD);
+    Object[] smallCopiedDeadBrokerClusterModelParams = {smallDeadBrokerClusterModel.copy(), true};
+    params.add(smallCopiedDeadBrokerClusterModelParams);
+
     // --FAILURE:  sum of load on sub-components not equal to the load of component.
     // Test for failure after removing replica in low level of abstraction only.
     ClusterModel smallFaultyClusterModel = DeterministicCluster.smallClusterModel(brokerCapacity);
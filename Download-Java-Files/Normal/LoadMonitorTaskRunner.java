@@ -13,6 +13,14 @@ import com.linkedin.kafka.cruisecontrol.monitor.sampling.MetricFetcherManager;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.SampleStore;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.aggregator.KafkaBrokerMetricSampleAggregator;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.aggregator.KafkaPartitionMetricSampleAggregator;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -42,6 +50,8 @@ public class LoadMonitorTaskRunner {
   // check if a bootstrap is done or not.
   private final int _configuredNumWindows;
   private final long _configuredWindowMs;
+  // null if the partition metric sample aggregator is not checkpointed.
+  private final File _partitionMetricSampleAggregatorCheckpoint;
 
   private AtomicReference<LoadMonitorTaskRunnerState> _state;
   private volatile double _bootstrapProgress;
@@ -106,6 +116,8 @@ public class LoadMonitorTaskRunner {
     _samplingIntervalMs = samplingIntervalMs;
     _configuredNumWindows = config.getInt(KafkaCruiseControlConfig.NUM_PARTITION_METRICS_WINDOWS_CONFIG);
     _configuredWindowMs = config.getLong(KafkaCruiseControlConfig.PARTITION_METRICS_WINDOW_MS_CONFIG);
+    String checkpoint = config.getString(KafkaCruiseControlConfig.PARTITION_METRIC_SAMPLE_AGGREGATOR_CHECKPOINT_FILE_CONFIG);
+    _partitionMetricSampleAggregatorCheckpoint = checkpoint.isEmpty() ? null : new File(checkpoint);
 
     _state = new AtomicReference<>(NOT_STARTED);
     _bootstrapProgress = -1.0;
@@ -175,13 +187,16 @@ public class LoadMonitorTaskRunner {
 
   /**
    * Load the samples from sample store. This task has to be executed before the load monitor actually starts.
+   *
+   * @param loadPartitionSamples whether to load the partition samples or only the broker samples.
    */
-  private void loadSamples() {
+  private void loadSamples(boolean loadPartitionSamples) {
     if (_state.compareAndSet(RUNNING, LOADING)) {
       _samplingScheduler.submit(new SampleLoadingTask(_sampleStore,
                                                       _partitionMetricSampleAggregator,
                                                       _brokerMetricSampleAggregator,
-                                                      this));
+                                                      this,
+                                                      loadPartitionSamples));
     } else {
       throw new IllegalStateException("Cannot load samples because the load monitor is in "
                                           + _state.get() + " state.");
@@ -229,8 +244,9 @@ public class LoadMonitorTaskRunner {
       throw new IllegalStateException("Cannot start the task runner because the load monitor is in "
                                           + _state.get() + " state.");
     }
+    boolean restored = restorePartitionMetricSampleAggregator();
     if (!skipLoadingSamples) {
-      loadSamples();
+      loadSamples(!restored);
     }
     _samplingScheduler.scheduleAtFixedRate(new SamplingTask(_samplingIntervalMs, _metadataClient,
                                                             this, _metricFetcherManager, _sampleStore, _time),
@@ -255,10 +271,66 @@ public class LoadMonitorTaskRunner {
       LOG.warn("Interrupted while waiting for metric fetcher manager to shutdown.");
     }
     _metricFetcherManager.shutdown();
+    checkpointPartitionMetricSampleAggregator();
     _sampleStore.close();
     LOG.info("Load monitor task runner shutdown completed.");
   }
 
+  /**
+   * Restore the partition metric sample aggregator from its checkpoint, if there is one. The checkpoint is deleted
+   * afterwards, so that a later restart without a new checkpoint loads the partition samples from the sample store.
+   * Package private for testing.
+   *
+   * @return true if the partition metric sample aggregator was restored, false otherwise.
+   */
+  boolean restorePartitionMetricSampleAggregator() {
+    File checkpoint = _partitionMetricSampleAggregatorCheckpoint;
+    if (checkpoint == null || !checkpoint.isFile()) {
+      return false;
+    }
+    boolean restored = false;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint.toPath())))) {
+      _partitionMetricSampleAggregator.restoreCheckpoint(in, KafkaPartitionMetricSampleAggregator.PARTITION_ENTITY_SERDE);
+      restored = true;
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Failed to restore the partition metric sample aggregator from " + checkpoint
+                   + ", loading the partition samples from the sample store instead.", e);
+    }
+    try {
+      Files.delete(checkpoint.toPath());
+    } catch (IOException e) {
+      LOG.warn("Failed to delete the partition metric sample aggregator checkpoint " + checkpoint, e);
+    }
+    return restored;
+  }
+
+  /**
+   * Write the checkpoint of the partition metric sample aggregator, if it is configured. The checkpoint is written to a
+   * temporary file first and then moved in place, so a failure does not leave a partial checkpoint behind.
+   * Package private for testing.
+   */
+  void checkpointPartitionMetricSampleAggregator() {
+    File checkpoint = _partitionMetricSampleAggregatorCheckpoint;
+    if (checkpoint == null) {
+      return;
+    }
+    File tmp = new File(checkpoint.getPath() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+        _partitionMetricSampleAggregator.writeCheckpoint(out, KafkaPartitionMetricSampleAggregator.PARTITION_ENTITY_SERDE);
+      }
+      Files.move(tmp.toPath(), checkpoint.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      LOG.info("Wrote the partition metric sample aggregator checkpoint to {}.", checkpoint);
+    } catch (IOException e) {
+      LOG.warn("Failed to write the partition metric sample aggregator checkpoint to " + checkpoint, e);
+      try {
+        Files.deleteIfExists(tmp.toPath());
+      } catch (IOException ioe) {
+        LOG.warn("Failed to delete " + tmp, ioe);
+      }
+    }
+  }
+
   /**
    * Pause the scheduled sampling tasks..
    */
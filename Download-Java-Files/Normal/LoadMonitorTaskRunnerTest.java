@@ -5,6 +5,7 @@
 package com.linkedin.kafka.cruisecontrol.monitor.task;
 
 import com.codahale.metrics.MetricRegistry;
+import com.linkedin.cruisecontrol.CruiseControlUnitTestUtils;
 import com.linkedin.cruisecontrol.metricdef.MetricInfo;
 import com.linkedin.kafka.cruisecontrol.common.Resource;
 import com.linkedin.kafka.clients.utils.tests.AbstractKafkaIntegrationTestHarness;
@@ -17,9 +18,13 @@ import com.linkedin.kafka.cruisecontrol.monitor.metricdefinition.KafkaMetricDef;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.MetricFetcherManager;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.MetricSampler;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.NoopSampleStore;
+import com.linkedin.kafka.cruisecontrol.monitor.sampling.PartitionEntity;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.PartitionMetricSample;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.aggregator.KafkaBrokerMetricSampleAggregator;
 import com.linkedin.kafka.cruisecontrol.monitor.sampling.aggregator.KafkaPartitionMetricSampleAggregator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -44,6 +49,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -176,6 +182,53 @@ public class LoadMonitorTaskRunnerTest extends AbstractKafkaIntegrationTestHarne
     fetcherManager.shutdown();
   }
 
+  @Test
+  public void testCheckpointPartitionMetricSampleAggregator() throws IOException {
+    File checkpoint = new File(Files.createTempDirectory("load-monitor-checkpoint").toFile(), "checkpoint");
+    Properties props = getLoadMonitorProperties();
+    props.setProperty(KafkaCruiseControlConfig.PARTITION_METRIC_SAMPLE_AGGREGATOR_CHECKPOINT_FILE_CONFIG,
+                      checkpoint.getPath());
+    KafkaCruiseControlConfig config = new KafkaCruiseControlConfig(props);
+    Metadata metadata = new Metadata(10, 10, false);
+    MetadataClient metadataClient = new MetadataClient(config, metadata, -1L, TIME);
+    KafkaPartitionMetricSampleAggregator aggregator = new KafkaPartitionMetricSampleAggregator(config, metadata);
+    CruiseControlUnitTestUtils.populateSampleAggregator(NUM_WINDOWS + 1, 2, aggregator,
+                                                        new PartitionEntity(new TopicPartition("topic-0", 0)),
+                                                        0, WINDOW_MS, METRIC_DEF);
+
+    // Nothing to restore yet.
+    assertFalse(loadMonitorTaskRunner(config, aggregator, metadataClient).restorePartitionMetricSampleAggregator());
+    loadMonitorTaskRunner(config, aggregator, metadataClient).checkpointPartitionMetricSampleAggregator();
+    assertTrue(checkpoint.isFile());
+
+    KafkaPartitionMetricSampleAggregator restored = new KafkaPartitionMetricSampleAggregator(config, metadata);
+    assertTrue(loadMonitorTaskRunner(config, restored, metadataClient).restorePartitionMetricSampleAggregator());
+    assertEquals(aggregator.numSamples(), restored.numSamples());
+    assertEquals(aggregator.allWindows(), restored.allWindows());
+    assertEquals(aggregator.availableWindows(), restored.availableWindows());
+    // The checkpoint is only restored once.
+    assertFalse(checkpoint.exists());
+
+    // A checkpoint that cannot be restored is deleted and the samples are loaded from the sample store instead.
+    Files.write(checkpoint.toPath(), new byte[]{1, 2, 3});
+    KafkaPartitionMetricSampleAggregator empty = new KafkaPartitionMetricSampleAggregator(config, metadata);
+    assertFalse(loadMonitorTaskRunner(config, empty, metadataClient).restorePartitionMetricSampleAggregator());
+    assertEquals(0, empty.numSamples());
+    assertFalse(checkpoint.exists());
+  }
+
+  private LoadMonitorTaskRunner loadMonitorTaskRunner(KafkaCruiseControlConfig config,
+                                                      KafkaPartitionMetricSampleAggregator aggregator,
+                                                      MetadataClient metadataClient) {
+    KafkaBrokerMetricSampleAggregator mockBrokerMetricSampleAggregator =
+        EasyMock.mock(KafkaBrokerMetricSampleAggregator.class);
+    MetricFetcherManager fetcherManager =
+        new MetricFetcherManager(config, aggregator, mockBrokerMetricSampleAggregator, metadataClient, METRIC_DEF,
+                                 TIME, new MetricRegistry(), Collections.singletonList(new MockSampler(0)));
+    return new LoadMonitorTaskRunner(config, fetcherManager, aggregator, mockBrokerMetricSampleAggregator,
+                                     metadataClient, TIME);
+  }
+
   private Properties getLoadMonitorProperties() {
     Properties props = KafkaCruiseControlUnitTestUtils.getKafkaCruiseControlProperties();
     props.setProperty(KafkaCruiseControlConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers());
@@ -0,0 +1,84 @@
+package com.iota.iri.service.tipselection.impl;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from the ids of a {@link com.iota.iri.storage.tangleindex.TangleIndex} to ints, for the
+ * transactions that reference an entry point. It grows with the subtangle that is rated, instead of taking an int for
+ * every transaction in the index.
+ */
+class LocalIds {
+
+    private static final int EMPTY = -1;
+    private static final int INITIAL_CAPACITY = 1 << 6;
+
+    private int[] keys = newKeys(INITIAL_CAPACITY);
+    private int[] values = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @return the value of the id, 0 if it has none
+     */
+    int get(int id) {
+        int mask = keys.length - 1;
+        for (int slot = mix(id) & mask; ; slot = (slot + 1) & mask) {
+            int key = keys[slot];
+            if (key == id) {
+                return values[slot];
+            }
+            if (key == EMPTY) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param id a non negative id
+     */
+    void put(int id, int value) {
+        int mask = keys.length - 1;
+        int slot = mix(id) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        values[slot] = value;
+        if (keys[slot] == EMPTY) {
+            keys[slot] = id;
+            //keep the load factor at most 1/2
+            if (++size << 1 > keys.length) {
+                rehash(keys.length << 1);
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = newKeys(capacity);
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = mix(key) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    //the ids are dense, so spread them before masking
+    private static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int[] newKeys(int capacity) {
+        int[] keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
@@ -49,7 +49,10 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
     private int totalDepth;
     private Tangle tangle;
     // to use
-    private List<Hash> pivotChain;
+    // updated with every block from the point where its trunk chain leaves the pivot chain, rebuilt if null
+    private volatile List<Hash> pivotChain;
+    // the last genesis found, see getGenesis()
+    private volatile Hash genesis;
 
     // 未能回溯到genesis的节点
     Queue<Hash> unTracedNodes;
@@ -100,6 +103,8 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
         tracedNodes.clear();
         parentUnTracedNodes.clear();
         parentTracedNodes.clear();
+        pivotChain = null;
+        genesis = null;
     }
 
     public void init() throws Exception {
@@ -196,6 +201,10 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
             if (entry.hi.getClass().equals(com.iota.iri.model.persistables.Transaction.class)) {
 
                 Hash key = (Hash) entry.low;
+                if (parentGraph.containsKey(key)) {
+                    // already added, the scores must not count it twice
+                    continue;
+                }
                 Transaction value = (Transaction) entry.hi;
                 TransactionViewModel model = new TransactionViewModel(value, key);
                 Hash trunk = model.getTrunkTransactionHash();
@@ -293,6 +302,7 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
                 one = tangle.next(Transaction.class, one.low);
             }
             computeToplogicalOrder();
+            pivotChain = null;
         } catch (NullPointerException e) {
             throw e;
         } catch (Exception e) {
@@ -301,11 +311,14 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
     }
 
     // base on graph
-    public void buildPivotChain() {
+    public List<Hash> buildPivotChain() {
         try {
-            this.pivotChain = pivotChain(getGenesis());
+            List<Hash> pivots = pivotChain(getGenesis());
+            this.pivotChain = pivots;
+            return pivots;
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
 
@@ -341,7 +354,7 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
             if(BaseIotaConfig.getInstance().getStreamingGraphSupport()){
                 if (BaseIotaConfig.getInstance().getConfluxScoreAlgo().equals("CUM_WEIGHT")) {
                     score = CumWeightScore.update(graph, score, vet);
-		    parentScore = CumWeightScore.computeParentScore(parentGraph, parentRevGraph);
+                    updatePivotChain(updateParentScore(vet));
                     //parentScore = CumWeightScore.updateParentScore(parentGraph, parentScore, vet);
                     //doUpdateScore(vet);
                     //rebuildParentScore(vet);
@@ -350,14 +363,71 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
                     KatzCentrality centrality = new KatzCentrality(graph, revGraph, 0.5);
                     centrality.setScore(score);
                     score = centrality.compute();
-                    parentScore = CumWeightScore.updateParentScore(parentGraph, parentScore, vet);
+                    updatePivotChain(updateParentScore(vet));
                 }
+            } else {
+                pivotChain = null;
             }
         } catch (Exception e) {
+            pivotChain = null;
             e.printStackTrace(new PrintStream(System.out));
         }
     }
 
+    /**
+     * Adds the new block to the parent scores of its trunk chain, so that they stay what
+     * CumWeightScore.computeParentScore computes over the whole parent graph. Children which arrived before the block
+     * already counted in its score, and are added to the chain along with it.
+     *
+     * @return the trunk chain of the block, from the first stored block to the block
+     */
+    private List<Hash> updateParentScore(Hash vet) {
+        double subTreeSize = parentScore.getOrDefault(vet, 0.0) + 1.0;
+        parentScore.put(vet, subTreeSize);
+        LinkedList<Hash> chain = new LinkedList<>();
+        chain.addFirst(vet);
+        Hash h = parentGraph.get(vet);
+        // bounded in case of a circle
+        int steps = parentGraph.size();
+        while (h != null && steps-- > 0) {
+            parentScore.put(h, parentScore.getOrDefault(h, 0.0) + subTreeSize);
+            if (parentGraph.containsKey(h)) {
+                chain.addFirst(h);
+            }
+            h = parentGraph.get(h);
+        }
+        return chain;
+    }
+
+    /**
+     * Only the blocks on the trunk chain of the new block got higher parent scores, so the pivot chain keeps its
+     * blocks up to the last one shared with that chain, and the rest is selected again from there.
+     */
+    private void updatePivotChain(List<Hash> chain) {
+        List<Hash> pivots = this.pivotChain;
+        if (pivots == null) {
+            return;
+        }
+        if (pivots.isEmpty() || parentGraph.containsKey(parentGraph.get(pivots.get(0)))) {
+            // no genesis before, or the genesis is not the first block any more
+            this.pivotChain = null;
+            return;
+        }
+        if (!chain.get(0).equals(pivots.get(0))) {
+            // not approving the genesis
+            return;
+        }
+        int shared = 0;
+        Iterator<Hash> it = chain.iterator();
+        it.next();
+        while (shared + 1 < pivots.size() && it.hasNext() && it.next().equals(pivots.get(shared + 1))) {
+            shared++;
+        }
+        List<Hash> updated = new ArrayList<>(pivots.subList(0, shared));
+        updated.addAll(pivotChain(pivots.get(shared)));
+        this.pivotChain = updated;
+    }
+
     private void doUpdateScore(Hash h){
         Hash genesis = getGenesis();
         if (null == genesis){
@@ -544,8 +614,12 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
 
     public Hash getPivotalHash(int depth) {
         Hash ret = null;
-        buildPivotChain();
-        if (depth == -1 || depth >= this.pivotChain.size()) {
+        // read once, saveBatch may reset it concurrently
+        List<Hash> pivots = this.pivotChain;
+        if (pivots == null) {
+            pivots = buildPivotChain();
+        }
+        if (pivots == null || depth == -1 || depth >= pivots.size()) {
             Set<Hash> set = topOrderStreaming.get(1);
             if(CollectionUtils.isEmpty(set)){
                 return null;
@@ -555,7 +629,7 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
         }
 
         // TODO if the same score, choose randomly
-        ret = this.pivotChain.get(this.pivotChain.size()-depth-1);
+        ret = pivots.get(pivots.size()-depth-1);
         return ret;
     }
 
@@ -799,9 +873,14 @@ public class LocalInMemoryGraphProvider implements AutoCloseable, PersistencePro
     }
 
     public Hash getGenesis() {
+        Hash cached = this.genesis;
+        if (cached != null && parentGraph.containsKey(cached) && !parentGraph.containsKey(parentGraph.get(cached))) {
+            return cached;
+        }
         try {
             for (Hash key : parentGraph.keySet()) {
                 if (!parentGraph.keySet().contains(parentGraph.get(key))) {
+                    this.genesis = key;
                     return key;
                 }
             }
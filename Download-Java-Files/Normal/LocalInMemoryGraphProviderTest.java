@@ -271,6 +271,49 @@ public class LocalInMemoryGraphProviderTest {
         provider1.close();
     }
 
+    @Test
+    public void testPivotalHashFollowsNewBlocks() throws Exception {
+        TransactionViewModel a, b, c, d, e, f, g, h;
+        a = new TransactionViewModel(getRandomTransactionTrits(), getRandomTransactionHash());
+        b = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(a.getHash(),
+                a.getHash()), getRandomTransactionHash());
+        c = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(a.getHash(),
+                a.getHash()), getRandomTransactionHash());
+        d = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(c.getHash(),
+                b.getHash()), getRandomTransactionHash());
+        e = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(d.getHash(),
+                d.getHash()), getRandomTransactionHash());
+        f = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(b.getHash(),
+                e.getHash()), getRandomTransactionHash());
+        g = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(f.getHash(),
+                f.getHash()), getRandomTransactionHash());
+        h = new TransactionViewModel(getRandomTransactionWithTrunkAndBranch(g.getHash(),
+                g.getHash()), getRandomTransactionHash());
+
+        a.store(tangle1);
+        b.store(tangle1);
+        c.store(tangle1);
+        Hash tip = provider1.getPivotalHash(0);
+        Assert.assertTrue(tip.equals(b.getHash()) || tip.equals(c.getHash()));
+
+        // the chain is extended from the block where the new blocks leave it
+        d.store(tangle1);
+        e.store(tangle1);
+        Assert.assertEquals(e.getHash(), provider1.getPivotalHash(0));
+        Assert.assertEquals(provider1.pivotChain(a.getHash()), Arrays.asList(a.getHash(), c.getHash(),
+                d.getHash(), e.getHash()));
+
+        // the trunk chain of b gets heavier, so the pivot chain switches to it
+        f.store(tangle1);
+        g.store(tangle1);
+        h.store(tangle1);
+        Assert.assertEquals(h.getHash(), provider1.getPivotalHash(0));
+        Assert.assertEquals(g.getHash(), provider1.getPivotalHash(1));
+        Assert.assertEquals(a.getHash(), provider1.getPivotalHash(4));
+        // reset in memory graph
+        provider1.close();
+    }
+
     @Test
     public void testBuildSubGraph() throws Exception {
         TransactionViewModel a, b, c, d, e, f, g, h, i;
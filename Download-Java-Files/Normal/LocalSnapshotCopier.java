@@ -18,9 +18,13 @@ package com.alipay.sofa.jraft.storage.snapshot.local;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.Future;
@@ -28,6 +32,8 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,9 +62,15 @@ import com.alipay.sofa.jraft.util.Utils;
  */
 public class LocalSnapshotCopier extends SnapshotCopier {
 
-    private static final Logger          LOG  = LoggerFactory.getLogger(LocalSnapshotCopier.class);
+    private static final Logger          LOG            = LoggerFactory.getLogger(LocalSnapshotCopier.class);
 
-    private final Lock                   lock = new ReentrantLock();
+    /**
+     * Marks a partially copied file with the checksum of its remote file, and once
+     * the copy is abandoned, with the length and the CRC32 of the bytes copied
+     */
+    static final String                  PARTIAL_SUFFIX = ".partial";
+
+    private final Lock                   lock           = new ReentrantLock();
     /** The copy job future object*/
     private volatile Future<?>           future;
     private boolean                      cancelled;
@@ -72,8 +84,10 @@ public class LocalSnapshotCopier extends SnapshotCopier {
     private LocalSnapshot                remoteSnapshot;
     /** remote file copier*/
     private RemoteFileCopier             copier;
-    /** current copying session*/
-    private Session                      curSession;
+    /** current copying sessions*/
+    private final Set<Session>           curSessions    = new HashSet<>();
+    /** the maximum number of files copied at the same time*/
+    private int                          parallelism    = 1;
     private SnapshotThrottle             snapshotThrottle;
 
     public void setSnapshotThrottle(SnapshotThrottle snapshotThrottle) {
@@ -101,16 +115,18 @@ public class LocalSnapshotCopier extends SnapshotCopier {
             if (!this.isOk()) {
                 break;
             }
-            final Set<String> files = this.remoteSnapshot.listFiles();
-            for (final String file : files) {
-                copyFile(file);
-            }
+            copyFiles(this.remoteSnapshot.listFiles());
         } while (false);
         if (!isOk() && writer != null && writer.isOk()) {
             writer.setError(this.getCode(), this.getErrorMsg());
         }
         if (writer != null) {
-            Utils.closeQuietly(this.writer);
+            try {
+                // keep the copied and partially copied files for the next attempt, which filters them
+                this.writer.close(this.filterBeforeCopyRemote);
+            } catch (final IOException e) {
+                LOG.warn("Fail to close snapshot writer {}", this.writer.getPath(), e);
+            }
             this.writer = null;
         }
         if (this.isOk()) {
@@ -118,10 +134,54 @@ public class LocalSnapshotCopier extends SnapshotCopier {
         }
     }
 
+    /**
+     * Copies the files with at most {@link #parallelism} sessions at the same time.
+     */
+    private void copyFiles(final Set<String> files) throws IOException, InterruptedException {
+        final ArrayDeque<PendingCopy> inflight = new ArrayDeque<>();
+        try {
+            for (final String file : files) {
+                while (inflight.size() >= this.parallelism) {
+                    finishCopyFile(inflight.pollFirst());
+                }
+                if (!isOk()) {
+                    break;
+                }
+                final PendingCopy copy = startCopyFile(file);
+                if (copy != null) {
+                    inflight.add(copy);
+                }
+            }
+            while (!inflight.isEmpty()) {
+                finishCopyFile(inflight.pollFirst());
+            }
+        } finally {
+            for (final PendingCopy copy : inflight) {
+                copy.session.cancel();
+                try {
+                    copy.session.join();
+                    abandonCopy(copy);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    FileUtils.deleteQuietly(new File(copy.filePath + PARTIAL_SUFFIX));
+                }
+                removeSession(copy.session);
+                Utils.closeQuietly(copy.session);
+            }
+        }
+    }
+
     void copyFile(String fileName) throws IOException, InterruptedException {
+        final PendingCopy copy = startCopyFile(fileName);
+        if (copy != null) {
+            finishCopyFile(copy);
+        }
+    }
+
+    private PendingCopy startCopyFile(final String fileName) throws IOException {
         if (writer.getFileMeta(fileName) != null) {
             LOG.info("Skipped downloading {}", fileName);
-            return;
+            return null;
         }
         final String filePath = writer.getPath() + File.separator + fileName;
         final Path subPath = Paths.get(filePath);
@@ -130,42 +190,49 @@ public class LocalSnapshotCopier extends SnapshotCopier {
             if (!parentDir.exists() && !parentDir.mkdirs()) {
                 LOG.error("Fail to create directory for {}", filePath);
                 setError(RaftError.EIO, "Fail to create directory");
-                return;
+                return null;
             }
         }
 
         final LocalFileMeta meta = (LocalFileMeta) remoteSnapshot.getFileMeta(fileName);
-        Session session = null;
+        final long offset = prepareResume(filePath, meta);
+        lock.lock();
         try {
-            lock.lock();
-            try {
-                if (this.cancelled) {
-                    setError(RaftError.ECANCELED, "ECANCELED");
-                    return;
-                }
-                session = copier.startCopyToFile(fileName, filePath, null);
-                if (session == null) {
-                    LOG.error("Fail to copy {}", fileName);
-                    setError(-1, "Fail to copy %s", fileName);
-                    return;
-                }
-                this.curSession = session;
+            if (this.cancelled) {
+                setError(RaftError.ECANCELED, "ECANCELED");
+                return null;
+            }
+            final Session session = copier.startCopyToFile(fileName, filePath, offset, null);
+            if (session == null) {
+                LOG.error("Fail to copy {}", fileName);
+                setError(-1, "Fail to copy %s", fileName);
+                return null;
+            }
+            this.curSessions.add(session);
+            return new PendingCopy(fileName, filePath, meta, session);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            } finally {
-                lock.unlock();
+    private void finishCopyFile(final PendingCopy copy) throws IOException, InterruptedException {
+        final Session session = copy.session;
+        try {
+            if (!isOk()) {
+                // another file failed, the snapshot is incomplete anyway
+                session.cancel();
             }
             session.join(); // join out of lock
-            lock.lock();
-            try {
-                this.curSession = null;
-            } finally {
-                lock.unlock();
-            }
+            removeSession(session);
             if (!session.status().isOk()) {
-                setError(session.status().getCode(), session.status().getErrorMsg());
+                if (isOk()) {
+                    setError(session.status().getCode(), session.status().getErrorMsg());
+                }
+                abandonCopy(copy);
                 return;
             }
-            if (!writer.addFile(fileName, meta)) {
+            FileUtils.deleteQuietly(new File(copy.filePath + PARTIAL_SUFFIX));
+            if (!writer.addFile(copy.fileName, copy.meta)) {
                 setError(RaftError.EIO, "Fail to add file to writer");
                 return;
             }
@@ -173,10 +240,100 @@ public class LocalSnapshotCopier extends SnapshotCopier {
                 setError(RaftError.EIO, "Fail to sync writer");
             }
         } finally {
-            if (session != null) {
-                Utils.closeQuietly(session);
+            Utils.closeQuietly(session);
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the file that were copied by a former attempt
+     * and can be kept. Only a file whose marker holds the checksum of the remote
+     * file, and the length and CRC32 of its copied bytes, is resumed, and only if
+     * those bytes still match. Any other one is copied from the beginning.
+     */
+    private long prepareResume(final String filePath, final LocalFileMeta meta) throws IOException {
+        final File marker = new File(filePath + PARTIAL_SUFFIX);
+        if (meta == null || !meta.hasChecksum()) {
+            FileUtils.deleteQuietly(marker);
+            return 0;
+        }
+        final File file = new File(filePath);
+        if (this.filterBeforeCopyRemote && file.exists() && marker.exists()) {
+            final String[] partial = FileUtils.readFileToString(marker, StandardCharsets.UTF_8).split("\n");
+            if (partial.length == 3 && meta.getChecksum().equals(partial[0])) {
+                final long length = parsePartial(partial[1]);
+                if (length >= 0 && file.length() >= length) {
+                    // drop whatever was written after the copy was abandoned
+                    try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                        channel.truncate(length);
+                    }
+                    if (FileUtils.checksumCRC32(file) == parsePartial(partial[2])) {
+                        LOG.info("Resume downloading {} from offset {}", filePath, length);
+                        return length;
+                    }
+                }
+                LOG.warn("The copied bytes of {} don't match its partial marker, download it again", filePath);
             }
         }
+        FileUtils.writeStringToFile(marker, meta.getChecksum(), StandardCharsets.UTF_8);
+        return 0;
+    }
+
+    private static long parsePartial(final String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Records the length and CRC32 of the bytes copied so far in the marker of a
+     * copy that failed or was cancelled, so that the next attempt can check them
+     * before resuming. Without filterBeforeCopyRemote the writer directory is
+     * destroyed anyway, and the marker is only removed.
+     */
+    private void abandonCopy(final PendingCopy copy) {
+        final File marker = new File(copy.filePath + PARTIAL_SUFFIX);
+        if (!this.filterBeforeCopyRemote || copy.meta == null || !copy.meta.hasChecksum()) {
+            FileUtils.deleteQuietly(marker);
+            return;
+        }
+        final File file = new File(copy.filePath);
+        try {
+            final long length = file.exists() ? file.length() : 0;
+            final long crc = length > 0 ? FileUtils.checksumCRC32(file) : 0;
+            FileUtils.writeStringToFile(marker, copy.meta.getChecksum() + '\n' + length + '\n' + crc,
+                StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            LOG.warn("Fail to record the partial copy of {}, it will be downloaded again", copy.filePath, e);
+            FileUtils.deleteQuietly(marker);
+        }
+    }
+
+    /**
+     * Removes the markers of partial copies whose file is not in the remote snapshot any more.
+     */
+    private void removeStalePartialMarkers(final LocalSnapshotWriter writer) {
+        final File dir = new File(writer.getPath());
+        for (final File marker : FileUtils
+            .listFiles(dir, new SuffixFileFilter(PARTIAL_SUFFIX), TrueFileFilter.INSTANCE)) {
+            final String path = dir.toPath().relativize(marker.toPath()).toString();
+            final String fileName = path.substring(0, path.length() - PARTIAL_SUFFIX.length());
+            if (this.remoteSnapshot.getFileMeta(fileName) == null) {
+                FileUtils.deleteQuietly(new File(dir, fileName));
+                FileUtils.deleteQuietly(marker);
+                LOG.info("Deleted stale partial copy: {}", marker);
+            }
+        }
+    }
+
+    private void removeSession(final Session session) {
+        lock.lock();
+        try {
+            this.curSessions.remove(session);
+        } finally {
+            lock.unlock();
+        }
     }
 
     private void loadMetaTable() throws InterruptedException {
@@ -190,17 +347,12 @@ public class LocalSnapshotCopier extends SnapshotCopier {
                     return;
                 }
                 session = this.copier.startCopy2IoBuffer(Snapshot.JRAFT_SNAPSHOT_META_FILE, metaBuf, null);
-                this.curSession = session;
+                this.curSessions.add(session);
             } finally {
                 lock.unlock();
             }
             session.join(); //join out of lock.
-            lock.lock();
-            try {
-                this.curSession = null;
-            } finally {
-                lock.unlock();
-            }
+            removeSession(session);
             if (!session.status().isOk()) {
                 LOG.warn("Fail to copy meta file: {}", session.status());
                 setError(session.status().getCode(), session.status().getErrorMsg());
@@ -270,6 +422,7 @@ public class LocalSnapshotCopier extends SnapshotCopier {
                 final String sourcePath = lastSnapshot.getPath() + File.separator + fileName;
                 final String destPath = writer.getPath() + File.separator + fileName;
                 FileUtils.deleteQuietly(new File(destPath));
+                FileUtils.deleteQuietly(new File(destPath + PARTIAL_SUFFIX));
                 try {
                     Files.createLink(Paths.get(destPath), Paths.get(sourcePath));
                 } catch (final IOException e) {
@@ -293,6 +446,7 @@ public class LocalSnapshotCopier extends SnapshotCopier {
             FileUtils.deleteQuietly(new File(removePath));
             LOG.info("Deleted file: {}", removePath);
         }
+        removeStalePartialMarkers(writer);
         return true;
     }
 
@@ -329,6 +483,7 @@ public class LocalSnapshotCopier extends SnapshotCopier {
         this.copier = new RemoteFileCopier();
         this.cancelled = false;
         this.filterBeforeCopyRemote = opts.getNodeOptions().isFilterBeforeCopyRemote();
+        this.parallelism = Math.max(1, opts.getRaftOptions().getSnapshotCopyParallelism());
         this.remoteSnapshot = new LocalSnapshot(opts.getRaftOptions());
         return this.copier.init(uri, this.snapshotThrottle, opts);
     }
@@ -372,8 +527,8 @@ public class LocalSnapshotCopier extends SnapshotCopier {
                 return;
             }
             this.cancelled = true;
-            if (this.curSession != null) {
-                this.curSession.cancel();
+            for (final Session session : this.curSessions) {
+                session.cancel();
             }
             if (this.future != null) {
                 this.future.cancel(true);
@@ -407,4 +562,19 @@ public class LocalSnapshotCopier extends SnapshotCopier {
     public SnapshotReader getReader() {
         return this.reader;
     }
+
+    private static final class PendingCopy {
+
+        private final String        fileName;
+        private final String        filePath;
+        private final LocalFileMeta meta;
+        private final Session       session;
+
+        PendingCopy(String fileName, String filePath, LocalFileMeta meta, Session session) {
+            this.fileName = fileName;
+            this.filePath = filePath;
+            this.meta = meta;
+            this.session = session;
+        }
+    }
 }
@@ -16,7 +16,13 @@
  */
 package com.alipay.sofa.jraft.storage.snapshot.local;
 
+import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import org.apache.commons.io.FileUtils;
 
 import org.junit.After;
 import org.junit.Assert;
@@ -49,7 +55,9 @@ import com.alipay.sofa.jraft.util.Utils;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Message;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
@@ -204,4 +212,167 @@ public class LocalSnapshotCopierTest extends BaseStorageTest {
         assertEquals(1, this.writer.listFiles().size());
         assertTrue(writer.listFiles().contains("testFile"));
     }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testParallelCopy() throws Exception {
+        this.raftOptions.setSnapshotCopyParallelism(2);
+        initCopier(new NodeOptions());
+        this.table.addFile("testFile2", LocalFileMetaOutter.LocalFileMeta.newBuilder().setChecksum("test2").build());
+
+        final ArgumentCaptor<RpcResponseClosure> file1 = mockGetFile("testFile", 0);
+        final ArgumentCaptor<RpcResponseClosure> file2 = mockGetFile("testFile2", 0);
+        startAndSendMeta();
+
+        // both files are requested before either one is answered
+        final RpcResponseClosure<RpcRequests.GetFileResponse> closure1 = awaitClosure(file1);
+        final RpcResponseClosure<RpcRequests.GetFileResponse> closure2 = awaitClosure(file2);
+        sendData(closure2, new byte[100], true);
+        sendData(closure1, new byte[50], true);
+        this.copier.join();
+
+        assertEquals(0, this.copier.getCode());
+        assertSame(this.reader, this.copier.getReader());
+        assertEquals(2, this.writer.listFiles().size());
+        assertEquals(50, new File(this.path, "testFile").length());
+        assertEquals(100, new File(this.path, "testFile2").length());
+    }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testResumePartialCopy() throws Exception {
+        initFilterBeforeCopyRemote();
+        final byte[] data = bytes(0, 100);
+        final File file = new File(this.path, "testFile");
+        FileUtils.writeByteArrayToFile(file, Arrays.copyOf(data, 60));
+        // as left behind by an abandoned copy, with some bytes written after it was recorded
+        FileUtils.writeByteArrayToFile(file, new byte[7], true);
+        FileUtils.writeStringToFile(partialMarker("testFile"), "test\n60\n" + crc32(Arrays.copyOf(data, 60)),
+            StandardCharsets.UTF_8);
+        // a partial copy of a file the remote snapshot doesn't have any more
+        FileUtils.writeByteArrayToFile(new File(this.path, "gone"), new byte[10]);
+        FileUtils.writeStringToFile(partialMarker("gone"), "gone\n10\n0", StandardCharsets.UTF_8);
+
+        final ArgumentCaptor<RpcResponseClosure> argument = mockGetFile("testFile", 60);
+        startAndSendMeta();
+        sendData(awaitClosure(argument), Arrays.copyOfRange(data, 60, 100), true);
+        this.copier.join();
+
+        assertEquals(0, this.copier.getCode());
+        assertArrayEquals(data, FileUtils.readFileToByteArray(file));
+        assertFalse(partialMarker("testFile").exists());
+        assertFalse(new File(this.path, "gone").exists());
+        assertFalse(partialMarker("gone").exists());
+    }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testRestartCorruptPartialCopy() throws Exception {
+        initFilterBeforeCopyRemote();
+        final byte[] data = bytes(0, 100);
+        final File file = new File(this.path, "testFile");
+        FileUtils.writeByteArrayToFile(file, Arrays.copyOf(data, 60));
+        FileUtils.writeStringToFile(partialMarker("testFile"), "test\n60\n" + (crc32(Arrays.copyOf(data, 60)) + 1),
+            StandardCharsets.UTF_8);
+
+        final ArgumentCaptor<RpcResponseClosure> argument = mockGetFile("testFile", 0);
+        startAndSendMeta();
+        sendData(awaitClosure(argument), data, true);
+        this.copier.join();
+
+        assertEquals(0, this.copier.getCode());
+        assertArrayEquals(data, FileUtils.readFileToByteArray(file));
+        assertFalse(partialMarker("testFile").exists());
+    }
+
+    @Test
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void testFailedCopyRecordsPartial() throws Exception {
+        initFilterBeforeCopyRemote();
+        final byte[] data = bytes(0, 50);
+
+        final ArgumentCaptor<RpcResponseClosure> first = mockGetFile("testFile", 0);
+        final ArgumentCaptor<RpcResponseClosure> second = mockGetFile("testFile", 50);
+        startAndSendMeta();
+        sendData(awaitClosure(first), data, false);
+        awaitClosure(second).run(new Status(RaftError.ECANCELED, "test cancel"));
+        this.copier.join();
+
+        assertEquals(RaftError.ECANCELED.getNumber(), this.copier.getCode());
+        assertNull(this.copier.getReader());
+        assertEquals("test\n50\n" + crc32(data),
+            FileUtils.readFileToString(partialMarker("testFile"), StandardCharsets.UTF_8));
+    }
+
+    private void initCopier(final NodeOptions nodeOptions) {
+        this.copier = new LocalSnapshotCopier();
+        assertTrue(this.copier.init(uri, new SnapshotCopierOptions(raftClientService, timerManager, raftOptions,
+            nodeOptions)));
+        this.copier.setStorage(this.snapshotStorage);
+    }
+
+    private void initFilterBeforeCopyRemote() {
+        final NodeOptions nodeOptions = new NodeOptions();
+        nodeOptions.setFilterBeforeCopyRemote(true);
+        Mockito.when(this.snapshotStorage.create(false)).thenReturn(this.writer);
+        initCopier(nodeOptions);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private ArgumentCaptor<RpcResponseClosure> mockGetFile(final String fileName, final long offset) {
+        final long count = Snapshot.JRAFT_SNAPSHOT_META_FILE.equals(fileName) ? Integer.MAX_VALUE : this.raftOptions
+            .getMaxByteCountPerRpc();
+        final RpcRequests.GetFileRequest request = RpcRequests.GetFileRequest.newBuilder().setReaderId(99)
+            .setFilename(fileName).setCount(count).setOffset(offset).setReadPartly(true).build();
+        final ArgumentCaptor<RpcResponseClosure> argument = ArgumentCaptor.forClass(RpcResponseClosure.class);
+        Mockito.when(
+            this.raftClientService.getFile(eq(new Endpoint("localhost", 8081)), eq(request),
+                eq(this.copyOpts.getTimeoutMs()), argument.capture())).thenReturn(new FutureImpl<Message>());
+        return argument;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void startAndSendMeta() throws Exception {
+        final ArgumentCaptor<RpcResponseClosure> argument = mockGetFile(Snapshot.JRAFT_SNAPSHOT_META_FILE, 0);
+        this.copier.start();
+        final RpcResponseClosure<RpcRequests.GetFileResponse> closure = awaitClosure(argument);
+        final ByteBuffer metaBuf = this.table.saveToByteBufferAsRemote();
+        closure.setResponse(RpcRequests.GetFileResponse.newBuilder().setReadSize(metaBuf.remaining()).setEof(true)
+            .setData(ByteString.copyFrom(metaBuf)).build());
+        closure.run(Status.OK());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static RpcResponseClosure awaitClosure(final ArgumentCaptor<RpcResponseClosure> argument)
+                                                                                                     throws InterruptedException {
+        for (int i = 0; i < 500 && argument.getAllValues().isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        return argument.getValue();
+    }
+
+    private static void sendData(final RpcResponseClosure<RpcRequests.GetFileResponse> closure, final byte[] data,
+                                 final boolean eof) {
+        closure.setResponse(RpcRequests.GetFileResponse.newBuilder().setReadSize(data.length).setEof(eof)
+            .setData(ByteString.copyFrom(data)).build());
+        closure.run(Status.OK());
+    }
+
+    private File partialMarker(final String fileName) {
+        return new File(this.path, fileName + LocalSnapshotCopier.PARTIAL_SUFFIX);
+    }
+
+    private static byte[] bytes(final int from, final int to) {
+        final byte[] data = new byte[to - from];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (from + i);
+        }
+        return data;
+    }
+
+    private static long crc32(final byte[] data) {
+        final CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        return crc.getValue();
+    }
 }
@@ -20,8 +20,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -47,6 +49,7 @@ import com.alipay.sofa.jraft.option.LogManagerOptions;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.storage.LogManager;
 import com.alipay.sofa.jraft.storage.LogStorage;
+import com.alipay.sofa.jraft.storage.PipelinedLogStorage;
 import com.alipay.sofa.jraft.util.ArrayDeque;
 import com.alipay.sofa.jraft.util.LogExceptionHandler;
 import com.alipay.sofa.jraft.util.NamedThreadFactory;
@@ -90,6 +93,7 @@ public class LogManagerImpl implements LogManager {
     private RaftOptions                                      raftOptions;
     private volatile CountDownLatch                          shutDownLatch;
     private NodeMetrics                                      nodeMetrics;
+    private SyncStage                                        syncStage;
     private final CopyOnWriteArrayList<LastLogIndexListener> lastLogIndexListeners = new CopyOnWriteArrayList<>();
 
     private enum EventType {
@@ -171,6 +175,9 @@ public class LogManagerImpl implements LogManager {
             this.firstLogIndex = this.logStorage.getFirstLogIndex();
             this.lastLogIndex = this.logStorage.getLastLogIndex();
             this.diskId = new LogId(this.lastLogIndex, this.logStorage.getTerm(this.lastLogIndex));
+            if (this.raftOptions.isLogStoragePipeline() && this.logStorage instanceof PipelinedLogStorage) {
+                this.syncStage = new SyncStage((PipelinedLogStorage) this.logStorage);
+            }
             this.fsmCaller = opts.getFsmCaller();
             this.disruptor = new Disruptor<>(new StableClosureEventFactory(), opts.getDisruptorBufferSize(),
                     new NamedThreadFactory("JRaft-LogManager-Disruptor-", true));
@@ -368,7 +375,8 @@ public class LogManagerImpl implements LogManager {
                     writtenSize += entry.getData() != null ? entry.getData().remaining() : 0;
                 }
                 this.nodeMetrics.recordSize("append-logs-bytes", writtenSize);
-                final int nAppent = this.logStorage.appendEntries(toAppend);
+                final int nAppent = this.syncStage != null ? this.syncStage.storage.appendEntriesWithoutSync(toAppend)
+                    : this.logStorage.appendEntries(toAppend);
                 if (nAppent != entriesCount) {
                     LOG.error("**Critical error**, fail to appendEntries, nAppent={}, toAppend={}", nAppent,
                         toAppend.size());
@@ -404,12 +412,21 @@ public class LogManagerImpl implements LogManager {
         LogId flush() {
             if (this.size > 0) {
                 this.lastId = appendToStorage(toAppend);
-                for (int i = 0; i < size; i++) {
-                    storage.get(i).getEntries().clear();
-                    if (hasError) {
-                        storage.get(i).run(new Status(RaftError.EIO, "Corrupted LogStorage"));
-                    } else {
-                        storage.get(i).run(Status.OK());
+                if (syncStage != null) {
+                    final List<StableClosure> closures = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        storage.get(i).getEntries().clear();
+                        closures.add(storage.get(i));
+                    }
+                    syncStage.submit(closures, this.lastId != null ? this.lastId.copy() : null);
+                } else {
+                    for (int i = 0; i < size; i++) {
+                        storage.get(i).getEntries().clear();
+                        if (hasError) {
+                            storage.get(i).run(new Status(RaftError.EIO, "Corrupted LogStorage"));
+                        } else {
+                            storage.get(i).run(Status.OK());
+                        }
                     }
                 }
                 toAppend.clear();
@@ -442,7 +459,11 @@ public class LogManagerImpl implements LogManager {
         public void onEvent(StableClosureEvent event, long sequence, boolean endOfBatch) throws Exception {
             if (event.type == EventType.SHUTDOWN) {
                 lastId = ab.flush();
+                awaitSynced();
                 setDiskId(lastId);
+                if (syncStage != null) {
+                    syncStage.shutdown();
+                }
                 shutDownLatch.countDown();
                 return;
             }
@@ -452,6 +473,7 @@ public class LogManagerImpl implements LogManager {
                 ab.append(done);
             } else {
                 this.lastId = ab.flush();
+                awaitSynced();
                 boolean ret = true;
                 switch (event.type) {
                     case LAST_LOG_ID:
@@ -499,10 +521,137 @@ public class LogManagerImpl implements LogManager {
             }
             if (endOfBatch) {
                 lastId = ab.flush();
-                setDiskId(lastId);
+                // with the sync stage, the disk id is set when the entries are synced
+                if (syncStage == null) {
+                    setDiskId(lastId);
+                }
             }
         }
 
+        private void awaitSynced() throws InterruptedException {
+            if (syncStage != null) {
+                syncStage.await();
+            }
+        }
+    }
+
+    private static class SyncBatch {
+        List<StableClosure> closures;
+        LogId               lastId;
+        CountDownLatch      synced;
+
+        public SyncBatch(List<StableClosure> closures, LogId lastId, CountDownLatch synced) {
+            super();
+            this.closures = closures;
+            this.lastId = lastId;
+            this.synced = synced;
+        }
+    }
+
+    /**
+     * Syncs the batches written by the disk thread in its own thread, so that the disk thread
+     * already encodes and writes the next batch. All batches written during a sync are synced
+     * together by the next one. The closures of a batch are run and the disk id is set after
+     * its sync.
+     */
+    private class SyncStage {
+        final PipelinedLogStorage              storage;
+        private final BlockingQueue<SyncBatch> queue = new LinkedBlockingQueue<>();
+        private final Thread                   thread;
+
+        SyncStage(PipelinedLogStorage storage) {
+            this.storage = storage;
+            this.thread = new NamedThreadFactory("JRaft-LogManager-Sync-", true).newThread(this::run);
+            this.thread.start();
+        }
+
+        void submit(List<StableClosure> closures, LogId lastId) {
+            this.queue.add(new SyncBatch(closures, lastId, null));
+        }
+
+        /**
+         * Waits until all submitted batches are synced and their closures have been run.
+         */
+        void await() throws InterruptedException {
+            final CountDownLatch synced = new CountDownLatch(1);
+            this.queue.add(new SyncBatch(null, null, synced));
+            synced.await();
+        }
+
+        void shutdown() {
+            this.thread.interrupt();
+        }
+
+        private void run() {
+            final List<SyncBatch> batches = new ArrayList<>();
+            while (true) {
+                try {
+                    batches.add(this.queue.take());
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                this.queue.drainTo(batches);
+                try {
+                    sync(batches);
+                } catch (final Throwable t) {
+                    LOG.error("Fail to sync log storage", t);
+                } finally {
+                    for (int i = 0; i < batches.size(); i++) {
+                        final SyncBatch batch = batches.get(i);
+                        if (batch.synced != null) {
+                            batch.synced.countDown();
+                        }
+                    }
+                    batches.clear();
+                }
+            }
+        }
+
+        private void sync(List<SyncBatch> batches) {
+            LogId lastId = null;
+            int batchCount = 0;
+            for (int i = 0; i < batches.size(); i++) {
+                final SyncBatch batch = batches.get(i);
+                if (batch.closures != null) {
+                    batchCount++;
+                    if (batch.lastId != null) {
+                        lastId = batch.lastId;
+                    }
+                }
+            }
+            if (batchCount == 0) {
+                // only waiting for batches synced before
+                return;
+            }
+
+            final long startMs = Utils.monotonicMs();
+            try {
+                if (!hasError && !this.storage.sync()) {
+                    reportError(RaftError.EIO.getNumber(), "Fail to sync log storage");
+                }
+            } finally {
+                nodeMetrics.recordLatency("append-logs-sync", Utils.monotonicMs() - startMs);
+                nodeMetrics.recordSize("append-logs-sync-batches", batchCount);
+            }
+
+            final boolean failed = hasError;
+            for (int i = 0; i < batches.size(); i++) {
+                final List<StableClosure> closures = batches.get(i).closures;
+                if (closures == null) {
+                    continue;
+                }
+                for (int j = 0; j < closures.size(); j++) {
+                    if (failed) {
+                        closures.get(j).run(new Status(RaftError.EIO, "Corrupted LogStorage"));
+                    } else {
+                        closures.get(j).run(Status.OK());
+                    }
+                }
+            }
+            if (!failed && lastId != null) {
+                setDiskId(lastId);
+            }
+        }
     }
 
     private void reportError(int code, String fmt, Object... args) {
@@ -273,6 +273,35 @@ public class LogManagerTest extends BaseStorageTest {
         }
     }
 
+    @Test
+    public void testAppendEntriesWithLogStoragePipeline() throws Exception {
+        this.logManager.shutdown();
+        this.logManager.join();
+        this.logStorage.shutdown();
+
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setLogStoragePipeline(true);
+        this.logStorage = new RocksDBLogStorage(path, raftOptions);
+        this.logManager = new LogManagerImpl();
+        final LogManagerOptions opts = new LogManagerOptions();
+        opts.setConfigurationManager(confManager);
+        opts.setFsmCaller(fsmCaller);
+        opts.setNodeMetrics(new NodeMetrics(false));
+        opts.setLogStorage(logStorage);
+        opts.setRaftOptions(raftOptions);
+        assertTrue(this.logManager.init(opts));
+
+        final List<LogEntry> mockEntries = this.mockAddEntries();
+
+        assertEquals(10, logManager.getLastLogIndex());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(mockEntries.get(i), this.logManager.getEntry(i + 1));
+        }
+        assertEquals(10, logManager.getLastLogIndex(true));
+        assertEquals(10, this.logManager.getLastLogId(true).getIndex());
+        assertTrue(this.logManager.checkConsistency().isOk());
+    }
+
     private List<LogEntry> mockAddEntries() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(1);
         final List<LogEntry> mockEntries = TestUtils.mockEntries(10);
@@ -0,0 +1,371 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.buffer;
+
+import com.google.protobuf.*;
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.*;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.PrefixFileFilter;
+import org.apache.skywalking.apm.util.RunnableWithExceptionProtection;
+import org.slf4j.*;
+
+/**
+ * MappedSegmentStream is the memory-mapped mode of {@link DataStream}. The data are appended into fixed-size segment
+ * files through {@link MappedByteBuffer}, and parsed back directly from the mapped memory.
+ *
+ * Segment layout: [write position: long][read position: long][length: int][message]...[0]. The offsets are kept in
+ * the segment header instead of the offset files, and committed with {@link MappedByteBuffer#force()} once per second
+ * for all messages written and read in that second. Message length is written after the message, so a message
+ * written but not committed before a crash is found by scanning from the committed write position, and the recovery
+ * scans at most one segment.
+ *
+ * The read position moves past a message only after the callback accepts it. A rejected or failed message stops the
+ * reading, and is called back again from the segment in the next round, so it survives a restart as well.
+ *
+ * @author peng-yongsheng
+ */
+class MappedSegmentStream<MESSAGE_TYPE extends GeneratedMessageV3> {
+
+    private static final Logger logger = LoggerFactory.getLogger(MappedSegmentStream.class);
+
+    private static final int WRITE_POSITION_INDEX = 0;
+    private static final int READ_POSITION_INDEX = 8;
+    private static final int HEADER_SIZE = 16;
+    private static final int LENGTH_SIZE = 4;
+
+    private final File directory;
+    private final int segmentSize;
+    private final Parser<MESSAGE_TYPE> parser;
+    private final DataStreamReader.CallBack<MESSAGE_TYPE> callBack;
+    private volatile Segment writingSegment;
+    private volatile Segment readingSegment;
+    private boolean initialized = false;
+    private volatile boolean closed = false;
+    private ScheduledExecutorService commitExecutor;
+    private ScheduledExecutorService readExecutor;
+
+    MappedSegmentStream(File directory, int segmentFileMaxSize, Parser<MESSAGE_TYPE> parser,
+        DataStreamReader.CallBack<MESSAGE_TYPE> callBack) {
+        this.directory = directory;
+        this.segmentSize = (int)Math.min(Integer.MAX_VALUE, FileUtils.ONE_MB * segmentFileMaxSize);
+        this.parser = parser;
+        this.callBack = callBack;
+    }
+
+    void clean() throws IOException {
+        String[] fileNames = directory.list(new PrefixFileFilter(BufferFileUtils.SEGMENT_FILE_PREFIX));
+        if (fileNames != null) {
+            for (String fileName : fileNames) {
+                File file = new File(directory, fileName);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Delete buffer segment file: {}", file.getAbsolutePath());
+                }
+                FileUtils.forceDelete(file);
+            }
+        }
+    }
+
+    synchronized void initialize() throws IOException {
+        if (!initialized) {
+            String[] fileNames = directory.list(new PrefixFileFilter(BufferFileUtils.SEGMENT_FILE_PREFIX));
+            if (fileNames != null && fileNames.length > 0) {
+                BufferFileUtils.sort(fileNames);
+                readingSegment = Segment.open(new File(directory, fileNames[0]));
+                if (fileNames.length == 1) {
+                    writingSegment = readingSegment;
+                } else {
+                    readingSegment.sealed = true;
+                    writingSegment = Segment.open(new File(directory, fileNames[fileNames.length - 1]));
+                }
+            } else {
+                writingSegment = createSegment();
+                readingSegment = writingSegment;
+            }
+            initialized = true;
+
+            commitExecutor = Executors.newSingleThreadScheduledExecutor();
+            commitExecutor.scheduleAtFixedRate(
+                new RunnableWithExceptionProtection(this::commit,
+                    t -> logger.error("Commit buffer segment offsets in background failure.", t)
+                ), 1, 1, TimeUnit.SECONDS);
+
+            readExecutor = Executors.newSingleThreadScheduledExecutor();
+            readExecutor.scheduleWithFixedDelay(
+                new RunnableWithExceptionProtection(this::read,
+                    t -> logger.error("Buffer segment read failure.", t)), 3, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stop the commit and read threads, commit the offsets read and written so far, then unmap the segments, so a
+     * restart continues from exactly where this stream stopped.
+     */
+    synchronized void close() throws InterruptedException {
+        if (!initialized || closed) {
+            return;
+        }
+        closed = true;
+
+        commitExecutor.shutdown();
+        readExecutor.shutdown();
+        boolean terminated = commitExecutor.awaitTermination(10, TimeUnit.SECONDS)
+            & readExecutor.awaitTermination(10, TimeUnit.SECONDS);
+
+        commit();
+        if (terminated) {
+            writingSegment.close();
+            readingSegment.close();
+        } else {
+            logger.warn("Buffer segment threads are still running, keep the segments mapped.");
+        }
+    }
+
+    synchronized void write(AbstractMessageLite messageLite) {
+        if (closed) {
+            logger.error("The buffer segment stream is closed, abandon the message.");
+            return;
+        }
+        try {
+            int size = messageLite.getSerializedSize();
+            if (size == 0) {
+                return;
+            }
+            if (HEADER_SIZE + LENGTH_SIZE + size > segmentSize) {
+                logger.error("The message size {} is larger than the buffer segment size {}, abandon it.", size, segmentSize);
+                return;
+            }
+
+            if (!writingSegment.hasRoom(size)) {
+                Segment newSegment = createSegment();
+                writingSegment.seal();
+                writingSegment = newSegment;
+            }
+            writingSegment.append(messageLite, size);
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Group commit the offsets of all messages written and read since the last commit.
+     */
+    void commit() {
+        Segment writing = writingSegment;
+        Segment reading = readingSegment;
+        writing.commit();
+        if (reading != writing) {
+            reading.commit();
+        }
+    }
+
+    private void read() {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Read buffer segment");
+        }
+
+        while (true) {
+            Segment segment = readingSegment;
+            int position = segment.readPosition;
+            if (position >= segment.writePosition) {
+                if (segment.sealed) {
+                    nextReadingSegment(segment);
+                    continue;
+                }
+                return;
+            }
+
+            int length = segment.buffer.getInt(position);
+            ByteBuffer record = segment.buffer.duplicate();
+            record.limit(position + LENGTH_SIZE + length);
+            record.position(position + LENGTH_SIZE);
+
+            MESSAGE_TYPE message = null;
+            try {
+                message = parser.parseFrom(record);
+            } catch (InvalidProtocolBufferException e) {
+                logger.error("Broken message in buffer segment {} at {}, skip it.", segment.file.getName(), position, e);
+            }
+
+            if (message != null && !callBack.call(new BufferData<>(message))) {
+                // Keep the read position, retry from this message in the next round.
+                return;
+            }
+            segment.readPosition = position + LENGTH_SIZE + length;
+        }
+    }
+
+    /**
+     * Unmap and delete the fully read segment, and move to the earliest one left. Locked with the writer, so the new
+     * writing segment is always shared rather than opened twice.
+     */
+    private synchronized void nextReadingSegment(Segment finished) {
+        finished.close();
+        try {
+            FileUtils.forceDelete(finished.file);
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+
+        String[] fileNames = directory.list(new PrefixFileFilter(BufferFileUtils.SEGMENT_FILE_PREFIX));
+        BufferFileUtils.sort(fileNames);
+        File next = new File(directory, fileNames[0]);
+        if (next.equals(writingSegment.file)) {
+            readingSegment = writingSegment;
+        } else {
+            try {
+                Segment segment = Segment.open(next);
+                segment.sealed = true;
+                readingSegment = segment;
+            } catch (IOException e) {
+                logger.error(e.getMessage(), e);
+                readingSegment = writingSegment;
+            }
+        }
+    }
+
+    private Segment createSegment() throws IOException {
+        File file;
+        do {
+            file = new File(directory, BufferFileUtils.buildFileName(BufferFileUtils.SEGMENT_FILE_PREFIX));
+        }
+        while (file.exists());
+
+        logger.info("Create a new buffer segment file: {}", file.getAbsolutePath());
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(segmentSize);
+        }
+        return Segment.open(file);
+    }
+
+    private static class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private volatile int writePosition;
+        private volatile int readPosition;
+        private volatile boolean sealed = false;
+        private boolean closed = false;
+
+        private Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Map the segment, and recover the write position by scanning the messages after the committed one.
+         */
+        private static Segment open(File file) throws IOException {
+            MappedByteBuffer buffer;
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+            }
+
+            Segment segment = new Segment(file, buffer);
+            int position = Math.max(HEADER_SIZE, (int)buffer.getLong(WRITE_POSITION_INDEX));
+            while (position + LENGTH_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + LENGTH_SIZE + length > buffer.capacity()) {
+                    break;
+                }
+                position += LENGTH_SIZE + length;
+            }
+            segment.writePosition = position;
+            segment.readPosition = Math.max(HEADER_SIZE, (int)buffer.getLong(READ_POSITION_INDEX));
+            return segment;
+        }
+
+        private boolean hasRoom(int size) {
+            return writePosition + LENGTH_SIZE + size <= buffer.capacity();
+        }
+
+        /**
+         * Write the message first and its length at last, then publish the new write position to the reader.
+         */
+        private void append(AbstractMessageLite messageLite, int size) throws IOException {
+            int position = writePosition;
+            ByteBuffer target = buffer.duplicate();
+            target.limit(position + LENGTH_SIZE + size);
+            target.position(position + LENGTH_SIZE);
+            CodedOutputStream outputStream = CodedOutputStream.newInstance(target);
+            messageLite.writeTo(outputStream);
+            outputStream.flush();
+
+            buffer.putInt(position, size);
+            writePosition = position + LENGTH_SIZE + size;
+        }
+
+        private void seal() {
+            sealed = true;
+            commit();
+        }
+
+        /**
+         * Synchronized with {@link #close()}, as the commit thread may still hold a segment the reader has finished.
+         */
+        private synchronized void commit() {
+            if (closed) {
+                return;
+            }
+            buffer.putLong(WRITE_POSITION_INDEX, writePosition);
+            buffer.putLong(READ_POSITION_INDEX, readPosition);
+            buffer.force();
+        }
+
+        /**
+         * Release the mapping now rather than at GC, otherwise the address space leaks and the file can't be deleted
+         * on Windows. The buffer must not be touched after this.
+         */
+        private synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                unmap(buffer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                logger.warn("Unmap buffer segment {} failure, it is released at GC.", file.getName(), e);
+            }
+        }
+
+        /**
+         * Unsafe#invokeCleaner since Java 9, DirectBuffer#cleaner before.
+         */
+        private static void unmap(MappedByteBuffer buffer) throws ReflectiveOperationException {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner;
+            try {
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            } catch (NoSuchMethodException e) {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+                return;
+            }
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        }
+    }
+}
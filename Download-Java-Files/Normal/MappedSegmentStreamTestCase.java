@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.library.buffer;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.PrefixFileFilter;
+import org.apache.skywalking.apm.network.language.agent.*;
+import org.junit.*;
+
+/**
+ * @author peng-yongsheng
+ */
+public class MappedSegmentStreamTestCase {
+
+    private File directory;
+    private final List<Integer> received = new CopyOnWriteArrayList<>();
+    private volatile boolean rejecting = false;
+    private final AtomicInteger failures = new AtomicInteger(0);
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("buffer-segment").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testRestartReadsBackUnreadMessages() throws Exception {
+        MappedSegmentStream<TraceSegmentObject> stream = newStream();
+        stream.initialize();
+
+        write(stream, 0, 5, 10);
+        awaitReceived(5);
+
+        // Large enough to roll over a few 1 MB segments, and closed before the reader gets through them.
+        write(stream, 5, 30, 100 * 1024);
+        stream.close();
+
+        MappedSegmentStream<TraceSegmentObject> restarted = newStream();
+        restarted.initialize();
+        awaitReceived(30);
+        restarted.close();
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            expected.add(i);
+        }
+        Assert.assertEquals(expected, received);
+        Assert.assertEquals(1, directory.list(new PrefixFileFilter(BufferFileUtils.SEGMENT_FILE_PREFIX)).length);
+    }
+
+    @Test
+    public void testWriteAfterClose() throws Exception {
+        MappedSegmentStream<TraceSegmentObject> stream = newStream();
+        stream.initialize();
+        stream.close();
+
+        write(stream, 0, 1, 10);
+
+        MappedSegmentStream<TraceSegmentObject> restarted = newStream();
+        restarted.initialize();
+        TimeUnit.SECONDS.sleep(4);
+        restarted.close();
+
+        Assert.assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testFailedCallbackRetriesTheMessage() throws Exception {
+        MappedSegmentStream<TraceSegmentObject> stream = newStream();
+        // The first message is rejected once, then fails once.
+        failures.set(2);
+        stream.initialize();
+
+        write(stream, 0, 5, 10);
+        awaitReceived(5);
+        stream.close();
+
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), received);
+    }
+
+    @Test
+    public void testRejectedMessagesSurviveRestart() throws Exception {
+        MappedSegmentStream<TraceSegmentObject> stream = newStream();
+        rejecting = true;
+        stream.initialize();
+
+        write(stream, 0, 3, 10);
+        TimeUnit.SECONDS.sleep(4);
+        stream.close();
+        Assert.assertTrue(received.isEmpty());
+
+        rejecting = false;
+        MappedSegmentStream<TraceSegmentObject> restarted = newStream();
+        restarted.initialize();
+        awaitReceived(3);
+        restarted.close();
+
+        Assert.assertEquals(Arrays.asList(0, 1, 2), received);
+    }
+
+    private MappedSegmentStream<TraceSegmentObject> newStream() {
+        return new MappedSegmentStream<>(directory, 1, TraceSegmentObject.parser(), bufferData -> {
+            if (rejecting) {
+                return false;
+            }
+            int failure = failures.getAndDecrement();
+            if (failure == 2) {
+                return false;
+            }
+            if (failure == 1) {
+                throw new IllegalStateException("Callback failure.");
+            }
+            received.add(bufferData.getMessageType().getSpans(0).getSpanId());
+            return true;
+        });
+    }
+
+    private void write(MappedSegmentStream<TraceSegmentObject> stream, int from, int to, int operationNameSize) {
+        char[] operationName = new char[operationNameSize];
+        Arrays.fill(operationName, 'a');
+        for (int i = from; i < to; i++) {
+            TraceSegmentObject.Builder segment = TraceSegmentObject.newBuilder();
+            SpanObject.Builder span = SpanObject.newBuilder();
+            span.setSpanId(i);
+            span.setOperationName(new String(operationName));
+            segment.addSpans(span);
+            stream.write(segment.build());
+        }
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(20);
+        while (received.size() < count && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        Assert.assertEquals(count, received.size());
+    }
+}
@@ -23,7 +23,11 @@ package com.alipay.sofa.jraft.rhea.options;
 public class MemoryDBOptions {
 
     // for segment snapshot file size
-    private int keysPerSegment = 4096;
+    private int     keysPerSegment = 4096;
+    // keeps the keys and values in off-heap arenas, see OffHeapMemoryRawKVStore
+    private boolean offHeap        = false;
+    // for the capacity of each off-heap arena
+    private int     arenaSize      = 64 * 1024 * 1024;
 
     public int getKeysPerSegment() {
         return keysPerSegment;
@@ -33,8 +37,25 @@ public class MemoryDBOptions {
         this.keysPerSegment = keysPerSegment;
     }
 
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public int getArenaSize() {
+        return arenaSize;
+    }
+
+    public void setArenaSize(int arenaSize) {
+        this.arenaSize = arenaSize;
+    }
+
     @Override
     public String toString() {
-        return "MemoryDBOptions{" + "keysPerSegment=" + keysPerSegment + '}';
+        return "MemoryDBOptions{" + "keysPerSegment=" + keysPerSegment + ", offHeap=" + offHeap + ", arenaSize="
+               + arenaSize + '}';
     }
 }
@@ -36,6 +36,16 @@ public final class MemoryDBOptionsConfigured implements Configured<MemoryDBOptio
         return this;
     }
 
+    public MemoryDBOptionsConfigured withOffHeap(final boolean offHeap) {
+        this.opts.setOffHeap(offHeap);
+        return this;
+    }
+
+    public MemoryDBOptionsConfigured withArenaSize(final int arenaSize) {
+        this.opts.setArenaSize(arenaSize);
+        return this;
+    }
+
     @Override
     public MemoryDBOptions config() {
         return this.opts;
@@ -502,8 +502,8 @@ public class MemoryKVStoreTest extends BaseKVStoreTest {
         assertNotNull(get(makeKey("100001")));
 
         this.kvStore.shutdown();
-        this.kvStore = new MemoryRawKVStore();
-        final MemoryDBOptions dbOpts = new MemoryDBOptions();
+        this.kvStore = newKVStore();
+        final MemoryDBOptions dbOpts = newDBOptions();
         this.kvStore.init(dbOpts);
 
         assertNull(get(makeKey("1")));
@@ -551,8 +551,8 @@ public class MemoryKVStoreTest extends BaseKVStoreTest {
         }
 
         this.kvStore.shutdown();
-        this.kvStore = new MemoryRawKVStore();
-        final MemoryDBOptions dbOpts = new MemoryDBOptions();
+        this.kvStore = newKVStore();
+        final MemoryDBOptions dbOpts = newDBOptions();
         this.kvStore.init(dbOpts);
 
         for (int i = 0; i < 4; i++) {
@@ -54,8 +54,8 @@ public class MemoryRawKVStore extends BatchRawKVStore<MemoryDBOptions> {
 
     private static final Logger                          LOG          = LoggerFactory.getLogger(MemoryRawKVStore.class);
 
-    private static final byte                            DELIMITER    = (byte) ',';
-    private static final Comparator<byte[]>              COMPARATOR   = BytesUtil.getDefaultByteArrayComparator();
+    static final byte                                    DELIMITER    = (byte) ',';
+    static final Comparator<byte[]>                      COMPARATOR   = BytesUtil.getDefaultByteArrayComparator();
 
     private final ConcurrentNavigableMap<byte[], byte[]> defaultDB    = new ConcurrentSkipListMap<>(COMPARATOR);
     private final Map<ByteArray, Long>                   sequenceDB   = new ConcurrentHashMap<>();
@@ -625,33 +625,38 @@ public class MemoryRawKVStore extends BatchRawKVStore<MemoryDBOptions> {
             snapshotFile.writeToFile(snapshotPath, "fencingKeyDB",
                 new FencingKeyDB(subRangeMap(this.fencingKeyDB, region)));
             snapshotFile.writeToFile(snapshotPath, "lockerDB", new LockerDB(subRangeMap(this.lockerDB, region)));
-            final int size = this.opts.getKeysPerSegment();
-            final List<Pair<byte[], byte[]>> segment = Lists.newArrayListWithCapacity(size);
-            int index = 0;
-            final byte[] realStartKey = BytesUtil.nullToEmpty(region.getStartKey());
-            final byte[] endKey = region.getEndKey();
-            final NavigableMap<byte[], byte[]> subMap;
-            if (endKey == null) {
-                subMap = this.defaultDB.tailMap(realStartKey);
-            } else {
-                subMap = this.defaultDB.subMap(realStartKey, endKey);
-            }
-            for (final Map.Entry<byte[], byte[]> entry : subMap.entrySet()) {
-                segment.add(Pair.of(entry.getKey(), entry.getValue()));
-                if (segment.size() >= size) {
-                    snapshotFile.writeToFile(snapshotPath, "segment" + index++, new Segment(segment));
-                    segment.clear();
-                }
-            }
-            if (!segment.isEmpty()) {
-                snapshotFile.writeToFile(snapshotPath, "segment" + index++, new Segment(segment));
-            }
-            snapshotFile.writeToFile(snapshotPath, "tailIndex", new TailIndex(--index));
+            saveDefaultDB(snapshotFile, snapshotPath, region);
         } finally {
             timeCtx.stop();
         }
     }
 
+    void saveDefaultDB(final MemoryKVStoreSnapshotFile snapshotFile, final String snapshotPath, final Region region)
+                                                                                                               throws Exception {
+        final int size = this.opts.getKeysPerSegment();
+        final List<Pair<byte[], byte[]>> segment = Lists.newArrayListWithCapacity(size);
+        int index = 0;
+        final byte[] realStartKey = BytesUtil.nullToEmpty(region.getStartKey());
+        final byte[] endKey = region.getEndKey();
+        final NavigableMap<byte[], byte[]> subMap;
+        if (endKey == null) {
+            subMap = this.defaultDB.tailMap(realStartKey);
+        } else {
+            subMap = this.defaultDB.subMap(realStartKey, endKey);
+        }
+        for (final Map.Entry<byte[], byte[]> entry : subMap.entrySet()) {
+            segment.add(Pair.of(entry.getKey(), entry.getValue()));
+            if (segment.size() >= size) {
+                snapshotFile.writeToFile(snapshotPath, "segment" + index++, new Segment(segment));
+                segment.clear();
+            }
+        }
+        if (!segment.isEmpty()) {
+            snapshotFile.writeToFile(snapshotPath, "segment" + index++, new Segment(segment));
+        }
+        snapshotFile.writeToFile(snapshotPath, "tailIndex", new TailIndex(--index));
+    }
+
     void doSnapshotLoad(final MemoryKVStoreSnapshotFile snapshotFile, final String snapshotPath) throws Exception {
         final Timer.Context timeCtx = getTimeContext("SNAPSHOT_LOAD");
         try {
@@ -664,23 +669,27 @@ public class MemoryRawKVStore extends BatchRawKVStore<MemoryDBOptions> {
             this.fencingKeyDB.putAll(fencingKeyDB.data());
             this.lockerDB.putAll(lockerDB.data());
 
-            final TailIndex tailIndex = snapshotFile.readFromFile(snapshotPath, "tailIndex", TailIndex.class);
-            final int tail = tailIndex.data();
-            final List<Segment> segments = Lists.newArrayListWithCapacity(tail + 1);
-            for (int i = 0; i <= tail; i++) {
-                final Segment segment = snapshotFile.readFromFile(snapshotPath, "segment" + i, Segment.class);
-                segments.add(segment);
-            }
-            for (final Segment segment : segments) {
-                for (final Pair<byte[], byte[]> p : segment.data()) {
-                    this.defaultDB.put(p.getKey(), p.getValue());
-                }
-            }
+            loadDefaultDB(snapshotFile, snapshotPath);
         } finally {
             timeCtx.stop();
         }
     }
 
+    void loadDefaultDB(final MemoryKVStoreSnapshotFile snapshotFile, final String snapshotPath) throws Exception {
+        final TailIndex tailIndex = snapshotFile.readFromFile(snapshotPath, "tailIndex", TailIndex.class);
+        final int tail = tailIndex.data();
+        final List<Segment> segments = Lists.newArrayListWithCapacity(tail + 1);
+        for (int i = 0; i <= tail; i++) {
+            final Segment segment = snapshotFile.readFromFile(snapshotPath, "segment" + i, Segment.class);
+            segments.add(segment);
+        }
+        for (final Segment segment : segments) {
+            for (final Pair<byte[], byte[]> p : segment.data()) {
+                this.defaultDB.put(p.getKey(), p.getValue());
+            }
+        }
+    }
+
     static <V> Map<ByteArray, V> subRangeMap(final Map<ByteArray, V> input, final Region region) {
         if (RegionHelper.isSingleGroup(region)) {
             return input;
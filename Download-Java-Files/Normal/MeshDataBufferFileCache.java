@@ -54,6 +54,7 @@ public class MeshDataBufferFileCache implements IConsumer<ServiceMeshMetricDataD
         builder.cleanWhenRestart(config.isBufferFileCleanWhenRestart());
         builder.dataFileMaxSize(config.getBufferDataMaxFileSize());
         builder.offsetFileMaxSize(config.getBufferOffsetMaxFileSize());
+        builder.memoryMapped(config.isBufferFileMemoryMapped());
         builder.parser(ServiceMeshMetric.parser());
         builder.callBack(this);
 
@@ -30,4 +30,9 @@ public class MeshModuleConfig extends ModuleConfig {
     @Setter @Getter private int bufferOffsetMaxFileSize;
     @Setter @Getter private int bufferDataMaxFileSize;
     @Setter @Getter private boolean bufferFileCleanWhenRestart;
+    /**
+     * Use the memory-mapped buffer segment files instead of the data and offset files. The segments are sized by
+     * bufferDataMaxFileSize.
+     */
+    @Setter @Getter private boolean bufferFileMemoryMapped;
 }
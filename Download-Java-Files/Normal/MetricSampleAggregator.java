@@ -9,6 +9,9 @@ import com.linkedin.cruisecontrol.exception.NotEnoughValidWindowsException;
 import com.linkedin.cruisecontrol.metricdef.MetricDef;
 import com.linkedin.cruisecontrol.model.Entity;
 import com.linkedin.cruisecontrol.monitor.sampling.MetricSample;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -73,6 +76,12 @@ import org.slf4j.LoggerFactory;
  *   ratio) and entity group coverage (valid entity group ratio) meet the requirements.
  * </p>
  *
+ * <p>
+ *   The raw metric values of all the entities can be written to a compact checkpoint with
+ *   {@link #writeCheckpoint(DataOutput, EntitySerde)} and restored with {@link #restoreCheckpoint(DataInput, EntitySerde)},
+ *   so that a restarted aggregator does not need to re-sample the whole history.
+ * </p>
+ *
  * <p>This class is thread safe.</p>
  *
  * @param <G> The aggregation entity group class. Note that the entity group will be used as a key to HashMaps,
@@ -82,6 +91,7 @@ import org.slf4j.LoggerFactory;
  */
 public class MetricSampleAggregator<G, E extends Entity<G>> extends LongGenerationed {
   private static final Logger LOG = LoggerFactory.getLogger(MetricSampleAggregator.class);
+  private static final int CHECKPOINT_VERSION = 1;
 
   private final ConcurrentMap<E, RawMetricValues> _rawMetrics;
   private final MetricSampleAggregatorState<G, E> _aggregatorState;
@@ -412,6 +422,93 @@ public class MetricSampleAggregator<G, E extends Entity<G>> extends LongGenerati
     }
   }
 
+  /**
+   * Write a checkpoint of the windows and the raw metric values of all the entities.
+   *
+   * @param out the output to write the checkpoint to.
+   * @param entitySerde the serde to write the entities with.
+   * @throws IOException if the checkpoint cannot be written.
+   */
+  public void writeCheckpoint(DataOutput out, EntitySerde<E> entitySerde) throws IOException {
+    // Holding the window rolling lock keeps the windows from rolling and new entities from being added.
+    _windowRollingLock.lock();
+    try {
+      List<Map.Entry<E, RawMetricValues>> entries = new ArrayList<>(_rawMetrics.entrySet());
+      out.writeInt(CHECKPOINT_VERSION);
+      out.writeLong(_windowMs);
+      out.writeInt(_numWindowsToKeep);
+      out.writeInt(_minSamplesPerWindow);
+      out.writeLong(_oldestWindowIndex);
+      out.writeLong(_currentWindowIndex);
+      out.writeInt(entries.size());
+      for (Map.Entry<E, RawMetricValues> entry : entries) {
+        entitySerde.write(entry.getKey(), out);
+        entry.getValue().writeTo(out);
+      }
+      LOG.debug("Wrote checkpoint of {} entities for window range [{}, {}]", entries.size(),
+                _oldestWindowIndex * _windowMs, _currentWindowIndex * _windowMs);
+    } finally {
+      _windowRollingLock.unlock();
+    }
+  }
+
+  /**
+   * Restore the windows and the raw metric values of the entities from a checkpoint written by
+   * {@link #writeCheckpoint(DataOutput, EntitySerde)}. The MetricSampleAggregator must not have any samples yet.
+   *
+   * @param in the input to read the checkpoint from.
+   * @param entitySerde the serde to read the entities with.
+   * @throws IOException if the checkpoint cannot be read.
+   */
+  public void restoreCheckpoint(DataInput in, EntitySerde<E> entitySerde) throws IOException {
+    _windowRollingLock.lock();
+    try {
+      if (!_rawMetrics.isEmpty()) {
+        throw new IllegalStateException("Cannot restore a checkpoint to a metric sample aggregator with samples.");
+      }
+      int version = in.readInt();
+      if (version != CHECKPOINT_VERSION) {
+        throw new IOException("Unsupported checkpoint version " + version);
+      }
+      long windowMs = in.readLong();
+      int numWindowsToKeep = in.readInt();
+      int minSamplesPerWindow = in.readInt();
+      long oldestWindowIndex = in.readLong();
+      long currentWindowIndex = in.readLong();
+      if (windowMs != _windowMs || numWindowsToKeep != _numWindowsToKeep
+          || minSamplesPerWindow != _minSamplesPerWindow || oldestWindowIndex < _oldestWindowIndex) {
+        throw new IllegalArgumentException(String.format("The checkpoint with window %d ms, %d windows, %d min samples "
+                                                             + "per window and oldest window %d does not match the "
+                                                             + "aggregator with window %d ms, %d windows, %d min "
+                                                             + "samples per window and oldest window %d",
+                                                         windowMs, numWindowsToKeep, minSamplesPerWindow,
+                                                         oldestWindowIndex, _windowMs, _numWindowsToKeep,
+                                                         _minSamplesPerWindow, _oldestWindowIndex));
+      }
+      // Read the whole checkpoint first so a failure leaves the aggregator empty.
+      int numEntities = in.readInt();
+      Map<E, RawMetricValues> rawMetrics = new HashMap<>(numEntities);
+      for (int i = 0; i < numEntities; i++) {
+        rawMetrics.put(identity(entitySerde.read(in)), RawMetricValues.readFrom(in));
+      }
+
+      if (oldestWindowIndex > _oldestWindowIndex) {
+        _aggregatorState.updateOldestWindowIndex(oldestWindowIndex);
+      }
+      _oldestWindowIndex = oldestWindowIndex;
+      _currentWindowIndex = currentWindowIndex;
+      _rawMetrics.putAll(rawMetrics);
+      long generation = _generation.incrementAndGet();
+      for (long windowIndex = oldestWindowIndex; windowIndex < currentWindowIndex; windowIndex++) {
+        _aggregatorState.updateWindowGeneration(windowIndex, generation);
+      }
+      LOG.info("Restored checkpoint of {} entities, current window range [{}, {}]", numEntities,
+               _oldestWindowIndex * _windowMs, _currentWindowIndex * _windowMs);
+    } finally {
+      _windowRollingLock.unlock();
+    }
+  }
+
   // package private for testing.
   MetricSampleAggregatorState<G, E> aggregatorState() {
     maybeUpdateAggregatorState();
@@ -566,4 +663,15 @@ public class MetricSampleAggregator<G, E extends Entity<G>> extends LongGenerati
   private E identity(E entity) {
     return _identityEntityMap.computeIfAbsent(entity, e -> entity);
   }
+
+  /**
+   * Writes and reads the entities in a checkpoint of the {@link MetricSampleAggregator}.
+   *
+   * @param <E> The entity class.
+   */
+  public interface EntitySerde<E> {
+    void write(E entity, DataOutput out) throws IOException;
+
+    E read(DataInput in) throws IOException;
+  }
 }
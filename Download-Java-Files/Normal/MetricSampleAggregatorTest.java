@@ -10,6 +10,13 @@ import com.linkedin.cruisecontrol.exception.NotEnoughValidWindowsException;
 import com.linkedin.cruisecontrol.metricdef.MetricDef;
 import com.linkedin.cruisecontrol.metricdef.MetricInfo;
 import com.linkedin.cruisecontrol.metricdef.AggregationFunction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -40,6 +47,19 @@ public class MetricSampleAggregatorTest {
   private static final IntegerEntity ENTITY1 = new IntegerEntity("g1", 1234);
   private static final IntegerEntity ENTITY2 = new IntegerEntity("g1", 5678);
   private static final IntegerEntity ENTITY3 = new IntegerEntity("g2", 1234);
+  private static final MetricSampleAggregator.EntitySerde<IntegerEntity> INTEGER_ENTITY_SERDE =
+      new MetricSampleAggregator.EntitySerde<IntegerEntity>() {
+        @Override
+        public void write(IntegerEntity entity, DataOutput out) throws IOException {
+          out.writeUTF(entity.group());
+          out.writeInt(entity.id());
+        }
+
+        @Override
+        public IntegerEntity read(DataInput in) throws IOException {
+          return new IntegerEntity(in.readUTF(), in.readInt());
+        }
+      };
   private final MetricDef _metricDef = CruiseControlUnitTestUtils.getMetricDef();
 
   @Test
@@ -85,6 +105,61 @@ public class MetricSampleAggregatorTest {
     assertEquals(NUM_WINDOWS, aggregator.numAvailableWindows());
   }
 
+  @Test
+  public void testRestoreCheckpoint() throws NotEnoughValidWindowsException, IOException {
+    MetricSampleAggregator<String, IntegerEntity> aggregator =
+        new MetricSampleAggregator<>(NUM_WINDOWS, WINDOW_MS, MIN_SAMPLES_PER_WINDOW, 0, _metricDef);
+    populateSampleAggregator(2 * NUM_WINDOWS - 1, MIN_SAMPLES_PER_WINDOW, aggregator, ENTITY1);
+    CruiseControlUnitTestUtils.populateSampleAggregator(2, 1, aggregator, ENTITY3, 2 * NUM_WINDOWS - 4,
+                                                        WINDOW_MS, _metricDef);
+
+    ByteArrayOutputStream checkpoint = new ByteArrayOutputStream();
+    aggregator.writeCheckpoint(new DataOutputStream(checkpoint), INTEGER_ENTITY_SERDE);
+    MetricSampleAggregator<String, IntegerEntity> restored =
+        new MetricSampleAggregator<>(NUM_WINDOWS, WINDOW_MS, MIN_SAMPLES_PER_WINDOW, 0, _metricDef);
+    restored.restoreCheckpoint(new DataInputStream(new ByteArrayInputStream(checkpoint.toByteArray())),
+                               INTEGER_ENTITY_SERDE);
+
+    assertEquals(aggregator.numSamples(), restored.numSamples());
+    assertEquals(aggregator.allWindows(), restored.allWindows());
+    assertEquals(aggregator.availableWindows(), restored.availableWindows());
+    AggregationOptions<String, IntegerEntity> options =
+        new AggregationOptions<>(0, 0, NUM_WINDOWS, 5,
+                                 Collections.emptySet(), AggregationOptions.Granularity.ENTITY, true);
+    MetricSampleAggregationResult<String, IntegerEntity> expected = aggregator.aggregate(-1, Long.MAX_VALUE, options);
+    MetricSampleAggregationResult<String, IntegerEntity> actual = restored.aggregate(-1, Long.MAX_VALUE, options);
+    assertEquals(expected.valuesAndExtrapolations().keySet(), actual.valuesAndExtrapolations().keySet());
+    for (Map.Entry<IntegerEntity, ValuesAndExtrapolations> entry : expected.valuesAndExtrapolations().entrySet()) {
+      ValuesAndExtrapolations expectedValues = entry.getValue();
+      ValuesAndExtrapolations actualValues = actual.valuesAndExtrapolations().get(entry.getKey());
+      assertEquals(expectedValues.windows(), actualValues.windows());
+      assertEquals(expectedValues.extrapolations(), actualValues.extrapolations());
+      for (MetricInfo info : _metricDef.all()) {
+        for (int i = 0; i < NUM_WINDOWS; i++) {
+          assertEquals(expectedValues.metricValues().valuesFor(info.id()).get(i),
+                       actualValues.metricValues().valuesFor(info.id()).get(i), 0);
+        }
+      }
+    }
+
+    // The restored aggregator keeps rolling windows.
+    CruiseControlUnitTestUtils.populateSampleAggregator(1, MIN_SAMPLES_PER_WINDOW, restored, ENTITY1,
+                                                        2 * NUM_WINDOWS - 1, WINDOW_MS, _metricDef);
+    assertEquals(NUM_WINDOWS + 1, restored.allWindows().size());
+    assertEquals(NUM_WINDOWS * WINDOW_MS, restored.earliestWindow().longValue());
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testRestoreCheckpointWithSamples() throws IOException {
+    MetricSampleAggregator<String, IntegerEntity> aggregator =
+        new MetricSampleAggregator<>(NUM_WINDOWS, WINDOW_MS, MIN_SAMPLES_PER_WINDOW, 0, _metricDef);
+    populateSampleAggregator(2, MIN_SAMPLES_PER_WINDOW, aggregator);
+    ByteArrayOutputStream checkpoint = new ByteArrayOutputStream();
+    aggregator.writeCheckpoint(new DataOutputStream(checkpoint), INTEGER_ENTITY_SERDE);
+    aggregator.restoreCheckpoint(new DataInputStream(new ByteArrayInputStream(checkpoint.toByteArray())),
+                                 INTEGER_ENTITY_SERDE);
+  }
+
   @Test
   public void testGeneration() {
     MetricSampleAggregator<String, IntegerEntity> aggregator =
@@ -2,11 +2,13 @@ package com.bakdata.conquery.models.query.queryplan.aggregators.specific.sum;
 
 import com.bakdata.conquery.models.datasets.Column;
 import com.bakdata.conquery.models.events.Block;
+import com.bakdata.conquery.models.events.ColumnarBlock;
 import com.bakdata.conquery.models.externalservice.ResultType;
 import com.bakdata.conquery.models.query.queryplan.aggregators.SingleColumnAggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.VectorizedAggregator;
 import com.bakdata.conquery.models.query.queryplan.clone.CloneContext;
 
-public class MoneySumAggregator extends SingleColumnAggregator<Long> {
+public class MoneySumAggregator extends SingleColumnAggregator<Long> implements VectorizedAggregator<Long> {
 
 
 	private long sum = 0L;
@@ -31,6 +33,11 @@ public class MoneySumAggregator extends SingleColumnAggregator<Long> {
 		sum = sum + addend;
 	}
 
+	@Override
+	public void aggregateEvents(ColumnarBlock block, int[] events, int length) {
+		sum = sum + block.sumLongs(getColumn(), events, length);
+	}
+
 	@Override
 	public Long getAggregationResult() {
 		return sum;
@@ -25,17 +25,22 @@ import org.apache.skywalking.apm.commons.datacarrier.buffer.*;
  * MultipleChannelsConsumer represent a single consumer thread, but support multiple channels with their {@link
  * IConsumer}s
  *
+ * The {@link RingChannels} are consumed only by the thread they are added to, so each {@link RingBuffer} keeps its
+ * single consumer.
+ *
  * @author wusheng
  */
 public class MultipleChannelsConsumer extends Thread {
     private volatile boolean running;
     private volatile ArrayList<Group> consumeTargets;
+    private volatile ArrayList<RingConsumeTarget> ringConsumeTargets;
     private volatile long size;
     private final long consumeCycle;
 
     public MultipleChannelsConsumer(String threadName, long consumeCycle) {
         super(threadName);
         this.consumeTargets = new ArrayList<Group>();
+        this.ringConsumeTargets = new ArrayList<RingConsumeTarget>();
         this.consumeCycle = consumeCycle;
     }
 
@@ -48,6 +53,9 @@ public class MultipleChannelsConsumer extends Thread {
             for (Group target : consumeTargets) {
                 hasData = hasData || consume(target);
             }
+            for (RingConsumeTarget target : ringConsumeTargets) {
+                hasData = target.consume() || hasData;
+            }
 
             if (!hasData) {
                 try {
@@ -65,6 +73,11 @@ public class MultipleChannelsConsumer extends Thread {
 
             target.consumer.onExit();
         }
+        for (RingConsumeTarget target : ringConsumeTargets) {
+            target.consume();
+
+            target.getConsumer().onExit();
+        }
     }
 
     private boolean consume(Group target) {
@@ -103,6 +116,25 @@ public class MultipleChannelsConsumer extends Thread {
         size += channels.size();
     }
 
+    /**
+     * Add a new target ring channels. All the rings of the channels are drained by this thread only, into one slice
+     * reused for all their batches.
+     *
+     * @param channels
+     * @param consumer
+     */
+    public <T> void addNewTarget(RingChannels<T> channels, IConsumer<T> consumer) {
+        RingConsumeTarget<T> target = new RingConsumeTarget<T>(consumer, channels.getBuffer(0).getBufferSize());
+        for (int i = 0; i < channels.getChannelSize(); i++) {
+            target.addDataSource(channels.getBuffer(i));
+        }
+        // Recreate the new list to avoid change list while the list is used in consuming.
+        ArrayList<RingConsumeTarget> newList = new ArrayList<RingConsumeTarget>(ringConsumeTargets);
+        newList.add(target);
+        ringConsumeTargets = newList;
+        size += channels.size();
+    }
+
     public long size() {
         return size;
     }
@@ -26,6 +26,8 @@ import org.apache.skywalking.oap.server.core.cache.*;
 import org.apache.skywalking.oap.server.core.register.*;
 import org.apache.skywalking.oap.server.core.source.DefaultScopeDefine;
 import org.apache.skywalking.oap.server.library.module.ModuleManager;
+import org.apache.skywalking.oap.server.telemetry.TelemetryModule;
+import org.apache.skywalking.oap.server.telemetry.api.MetricCreator;
 
 public class NotifyHandler implements IndicatorNotify {
     private ServiceInventoryCache serviceInventoryCache;
@@ -107,5 +109,6 @@ public class NotifyHandler implements IndicatorNotify {
         serviceInventoryCache = moduleManager.find(CoreModule.NAME).provider().getService(ServiceInventoryCache.class);
         serviceInstanceInventoryCache = moduleManager.find(CoreModule.NAME).provider().getService(ServiceInstanceInventoryCache.class);
         endpointInventoryCache = moduleManager.find(CoreModule.NAME).provider().getService(EndpointInventoryCache.class);
+        core.initMetrics(moduleManager.find(TelemetryModule.NAME).provider().getService(MetricCreator.class));
     }
 }
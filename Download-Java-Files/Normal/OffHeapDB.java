@@ -0,0 +1,489 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alipay.sofa.jraft.rhea.metadata.Region;
+import com.alipay.sofa.jraft.rhea.util.RegionHelper;
+import com.alipay.sofa.jraft.util.OnlyForTest;
+import com.alipay.sofa.jraft.util.Requires;
+
+/**
+ * The key-value records of {@link OffHeapMemoryRawKVStore}, appended to direct
+ * byte buffer arenas, with an ordered index from the key to the address of its
+ * record.
+ *
+ * A record is laid out as [live flag][key length][value length][key][value].
+ * Overwriting or deleting a key only clears the live flag of its old record, and
+ * an arena is released once it holds no live record any more. Once less than
+ * {@link #COMPACTION_LIVE_RATIO} of a full arena is live, its live records are
+ * copied to the current arena, so a few long-lived keys can't pin whole arenas,
+ * and the arenas take at most about twice the live records plus the current one.
+ * The address of a record is the id of its arena in the high 32 bits and the
+ * offset in the low 32 bits.
+ *
+ * A snapshot writes the live records of every arena as one file, in runs of
+ * adjacent records, and loading it reads each file into a new arena as is, so
+ * neither side decodes the values.
+ *
+ * @author jiachun.fjc
+ */
+final class OffHeapDB {
+
+    private static final int                           HEADER_SIZE           = 9;
+    private static final byte                          DEAD                  = 0;
+    private static final byte                          LIVE                  = 1;
+    private static final double                        COMPACTION_LIVE_RATIO = 0.5;
+
+    private final ConcurrentNavigableMap<byte[], Long> index;
+    private final Map<Integer, Arena>                  arenas                = new ConcurrentHashMap<>();
+    private final int                                  arenaSize;
+
+    // guards the allocation in the arenas
+    private final Object                               allocLock             = new Object();
+    private Arena                                      current;
+    private int                                        nextArenaId;
+    // one compaction at a time, the records it copies may fill and seal the current arena
+    private final AtomicBoolean                        compacting            = new AtomicBoolean();
+
+    OffHeapDB(final Comparator<byte[]> comparator, final int arenaSize) {
+        Requires.requireTrue(arenaSize > HEADER_SIZE, "arenaSize is too small: %d", arenaSize);
+        this.index = new ConcurrentSkipListMap<>(comparator);
+        this.arenaSize = arenaSize;
+    }
+
+    ConcurrentNavigableMap<byte[], Long> index() {
+        return this.index;
+    }
+
+    byte[] get(final byte[] key) {
+        for (;;) {
+            final Long address = this.index.get(key);
+            if (address == null) {
+                return null;
+            }
+            final byte[] value = value(address);
+            if (value != null) {
+                return value;
+            }
+            // the record was replaced and its arena released in the meantime, read the new one
+        }
+    }
+
+    /**
+     * Returns the value of the record at the given address, or null if its arena
+     * was already released.
+     */
+    byte[] value(final long address) {
+        final Arena arena = this.arenas.get(arenaId(address));
+        if (arena == null) {
+            return null;
+        }
+        final int offset = offset(address);
+        final ByteBuffer buf = arena.buf.duplicate();
+        final int keyLength = buf.getInt(offset + 1);
+        final byte[] value = new byte[buf.getInt(offset + 5)];
+        buf.position(offset + HEADER_SIZE + keyLength);
+        buf.get(value);
+        return value;
+    }
+
+    /**
+     * Returns the previous value, or null if there was none.
+     */
+    byte[] put(final byte[] key, final byte[] value) {
+        final long address = append(key, value);
+        final Long prevAddress = this.index.put(key, address);
+        if (prevAddress == null) {
+            return null;
+        }
+        final byte[] prevValue = value(prevAddress);
+        release(prevAddress);
+        return prevValue;
+    }
+
+    /**
+     * Returns the current value, or null if the value was put.
+     */
+    byte[] putIfAbsent(final byte[] key, final byte[] value) {
+        for (;;) {
+            final byte[] prevValue = get(key);
+            if (prevValue != null) {
+                return prevValue;
+            }
+            final long address = append(key, value);
+            if (this.index.putIfAbsent(key, address) == null) {
+                return null;
+            }
+            release(address);
+        }
+    }
+
+    /**
+     * Appends the value to the current one, separated by the delimiter.
+     */
+    void merge(final byte[] key, final byte[] value, final byte delimiter) {
+        for (;;) {
+            final Long prevAddress = this.index.get(key);
+            if (prevAddress == null) {
+                final long address = append(key, value);
+                if (this.index.putIfAbsent(key, address) == null) {
+                    return;
+                }
+                release(address);
+                continue;
+            }
+            final byte[] prevValue = value(prevAddress);
+            if (prevValue == null) {
+                continue;
+            }
+            final byte[] newValue = new byte[prevValue.length + 1 + value.length];
+            System.arraycopy(prevValue, 0, newValue, 0, prevValue.length);
+            newValue[prevValue.length] = delimiter;
+            System.arraycopy(value, 0, newValue, prevValue.length + 1, value.length);
+            final long address = append(key, newValue);
+            if (this.index.replace(key, prevAddress, address)) {
+                release(prevAddress);
+                return;
+            }
+            release(address);
+        }
+    }
+
+    void delete(final byte[] key) {
+        final Long address = this.index.remove(key);
+        if (address != null) {
+            release(address);
+        }
+    }
+
+    void deleteRange(final byte[] startKey, final byte[] endKey) {
+        for (final byte[] key : this.index.subMap(startKey, endKey).keySet()) {
+            delete(key);
+        }
+    }
+
+    @OnlyForTest
+    long capacity() {
+        long capacity = 0;
+        for (final Arena arena : this.arenas.values()) {
+            capacity += arena.buf.capacity();
+        }
+        return capacity;
+    }
+
+    void clear() {
+        synchronized (this.allocLock) {
+            this.index.clear();
+            this.arenas.clear();
+            this.current = null;
+        }
+    }
+
+    /**
+     * Writes the live records of the region, one file per arena, and returns the
+     * number of files.
+     */
+    int save(final String snapshotPath, final Region region) throws IOException {
+        final List<Arena> snapshot;
+        synchronized (this.allocLock) {
+            snapshot = new ArrayList<>(this.arenas.values());
+        }
+        snapshot.sort(Comparator.comparingInt(arena -> arena.id));
+        final boolean singleGroup = RegionHelper.isSingleGroup(region);
+        int count = 0;
+        for (final Arena arena : snapshot) {
+            final Path path = Paths.get(snapshotPath, "arena" + count);
+            if (writeArena(arena, path, singleGroup ? null : region)) {
+                count++;
+            } else {
+                Files.deleteIfExists(path);
+            }
+        }
+        return count;
+    }
+
+    void load(final String snapshotPath, final int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            final Path path = Paths.get(snapshotPath, "arena" + i);
+            final Arena arena;
+            try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                final long size = channel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("arena file is too large: " + path + ", size=" + size);
+                }
+                arena = newArena(Math.max(this.arenaSize, (int) size));
+                final ByteBuffer dst = arena.buf.duplicate();
+                dst.limit((int) size);
+                while (dst.hasRemaining()) {
+                    if (channel.read(dst) < 0) {
+                        throw new IOException("fail to read arena file " + path + ", expects " + size
+                                              + " bytes, but read " + dst.position());
+                    }
+                }
+                arena.position = (int) size;
+            }
+            final ByteBuffer buf = arena.buf.duplicate();
+            int offset = 0;
+            while (offset < arena.position) {
+                final int keyLength = buf.getInt(offset + 1);
+                final byte[] key = new byte[keyLength];
+                buf.position(offset + HEADER_SIZE);
+                buf.get(key);
+                final int size = HEADER_SIZE + keyLength + buf.getInt(offset + 5);
+                arena.liveRecords.incrementAndGet();
+                arena.liveBytes.addAndGet(size);
+                final Long prevAddress = this.index.put(key, address(arena.id, offset));
+                if (prevAddress != null) {
+                    release(prevAddress);
+                }
+                offset += size;
+            }
+        }
+    }
+
+    private boolean writeArena(final Arena arena, final Path path, final Region region) throws IOException {
+        final ByteBuffer buf = arena.buf.duplicate();
+        final int end = arena.position;
+        boolean written = false;
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // adjacent records to keep are written with one call
+            int runStart = -1;
+            int offset = 0;
+            while (offset < end) {
+                final int keyLength = buf.getInt(offset + 1);
+                final int size = HEADER_SIZE + keyLength + buf.getInt(offset + 5);
+                final boolean keep = buf.get(offset) == LIVE && (region == null || isKeyInRegion(buf, offset, region));
+                if (keep && runStart < 0) {
+                    runStart = offset;
+                } else if (!keep && runStart >= 0) {
+                    writeFully(channel, buf, runStart, offset);
+                    written = true;
+                    runStart = -1;
+                }
+                offset += size;
+            }
+            if (runStart >= 0) {
+                writeFully(channel, buf, runStart, end);
+                written = true;
+            }
+            channel.force(true);
+        }
+        return written;
+    }
+
+    private static boolean isKeyInRegion(final ByteBuffer buf, final int offset, final Region region) {
+        final byte[] key = new byte[buf.getInt(offset + 1)];
+        buf.position(offset + HEADER_SIZE);
+        buf.get(key);
+        return RegionHelper.isKeyInRegion(key, region);
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buf, final int from, final int to)
+                                                                                                               throws IOException {
+        final ByteBuffer src = buf.duplicate();
+        src.limit(to);
+        src.position(from);
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+
+    private long append(final byte[] key, final byte[] value) {
+        final int size = HEADER_SIZE + key.length + value.length;
+        final long address;
+        boolean compact = false;
+        synchronized (this.allocLock) {
+            Arena arena = this.current;
+            if (arena == null || arena.buf.capacity() - arena.position < size) {
+                arena = newArena(Math.max(this.arenaSize, size));
+                final Arena prev = this.current;
+                this.current = arena;
+                if (prev != null && prev.liveRecords.get() == 0) {
+                    this.arenas.remove(prev.id);
+                } else if (prev != null) {
+                    compact = isSparse(prev);
+                }
+            }
+            final int offset = arena.position;
+            final ByteBuffer buf = arena.buf.duplicate();
+            buf.position(offset);
+            buf.put(LIVE);
+            buf.putInt(key.length);
+            buf.putInt(value.length);
+            buf.put(key);
+            buf.put(value);
+            arena.liveRecords.incrementAndGet();
+            arena.liveBytes.addAndGet(size);
+            arena.position = offset + size;
+            address = address(arena.id, offset);
+        }
+        if (compact) {
+            compactSparseArenas();
+        }
+        return address;
+    }
+
+    private void release(final long address) {
+        final Arena arena = this.arenas.get(arenaId(address));
+        if (arena == null) {
+            return;
+        }
+        final int offset = offset(address);
+        final int size = HEADER_SIZE + arena.buf.getInt(offset + 1) + arena.buf.getInt(offset + 5);
+        arena.buf.put(offset, DEAD);
+        arena.liveBytes.addAndGet(-size);
+        if (arena.liveRecords.decrementAndGet() == 0) {
+            synchronized (this.allocLock) {
+                if (arena != this.current) {
+                    this.arenas.remove(arena.id);
+                }
+            }
+            return;
+        }
+        final boolean sparse;
+        synchronized (this.allocLock) {
+            sparse = isSparse(arena);
+        }
+        if (sparse) {
+            compactSparseArenas();
+        }
+    }
+
+    /**
+     * Copies the live records of all sparse arenas to the current one. The
+     * copies replace the old records in the index only if those are still the
+     * current ones, otherwise the copy is released again, so a concurrent write
+     * always wins. The emptied arenas are released like any other.
+     */
+    private void compactSparseArenas() {
+        if (!this.compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (;;) {
+                final Arena arena;
+                synchronized (this.allocLock) {
+                    arena = nextSparseArena();
+                    if (arena == null) {
+                        return;
+                    }
+                    arena.compacted = true;
+                }
+                relocate(arena);
+            }
+        } finally {
+            this.compacting.set(false);
+        }
+    }
+
+    private void relocate(final Arena arena) {
+        final ByteBuffer buf = arena.buf.duplicate();
+        final int end = arena.position;
+        int offset = 0;
+        while (offset < end) {
+            final int keyLength = buf.getInt(offset + 1);
+            final int valueLength = buf.getInt(offset + 5);
+            if (buf.get(offset) == LIVE) {
+                final byte[] key = new byte[keyLength];
+                final byte[] value = new byte[valueLength];
+                buf.position(offset + HEADER_SIZE);
+                buf.get(key);
+                buf.get(value);
+                final long address = address(arena.id, offset);
+                final long newAddress = append(key, value);
+                if (this.index.replace(key, address, newAddress)) {
+                    release(address);
+                } else {
+                    release(newAddress);
+                }
+            }
+            offset += HEADER_SIZE + keyLength + valueLength;
+        }
+    }
+
+    // must hold the allocLock
+    private Arena nextSparseArena() {
+        for (final Arena arena : this.arenas.values()) {
+            if (isSparse(arena)) {
+                return arena;
+            }
+        }
+        return null;
+    }
+
+    // must hold the allocLock
+    private boolean isSparse(final Arena arena) {
+        return arena != this.current && !arena.compacted && this.arenas.containsKey(arena.id)
+               && arena.liveBytes.get() < arena.position * COMPACTION_LIVE_RATIO;
+    }
+
+    private Arena newArena(final int capacity) {
+        synchronized (this.allocLock) {
+            final Arena arena = new Arena(this.nextArenaId++, ByteBuffer.allocateDirect(capacity));
+            this.arenas.put(arena.id, arena);
+            return arena;
+        }
+    }
+
+    private static long address(final int arenaId, final int offset) {
+        return ((long) arenaId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int arenaId(final long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(final long address) {
+        return (int) address;
+    }
+
+    private static final class Arena {
+
+        private final int           id;
+        // direct memory, freed by the GC once the arena is released
+        private final ByteBuffer    buf;
+        private final AtomicInteger liveRecords = new AtomicInteger();
+        private final AtomicInteger liveBytes   = new AtomicInteger();
+        // the end of the last record, written under the allocLock
+        private volatile int        position;
+        // set under the allocLock once its live records are copied, it is never compacted twice
+        private boolean             compacted;
+
+        Arena(int id, ByteBuffer buf) {
+            this.id = id;
+            this.buf = buf;
+        }
+    }
+}
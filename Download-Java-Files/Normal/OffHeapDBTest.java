@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.storage;
+
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.util.BytesUtil;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author jiachun.fjc
+ */
+public class OffHeapDBTest {
+
+    private static final int ARENA_SIZE = 4096;
+
+    private final OffHeapDB  db         = new OffHeapDB(BytesUtil.getDefaultByteArrayComparator(), ARENA_SIZE);
+
+    @Test
+    public void compactionTest() {
+        // hot keys are overwritten all the time, and now and then a cold key is put that is never overwritten,
+        // so without compaction every arena would keep a cold record and never be released
+        for (int round = 0; round < 2000; round++) {
+            for (int i = 0; i < 50; i++) {
+                this.db.put(BytesUtil.writeUtf8("hot_" + i), BytesUtil.writeUtf8("hot_value_" + round));
+            }
+            if (round % 10 == 0) {
+                this.db.put(BytesUtil.writeUtf8("cold_" + round), BytesUtil.writeUtf8("cold_value_" + round));
+            }
+            // about twice the live records, plus the current arena and the one being compacted
+            assertTrue("capacity " + this.db.capacity() + " at round " + round, this.db.capacity() <= 8 * ARENA_SIZE);
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertArrayEquals(BytesUtil.writeUtf8("hot_value_1999"), this.db.get(BytesUtil.writeUtf8("hot_" + i)));
+        }
+        for (int round = 0; round < 2000; round += 10) {
+            assertArrayEquals(BytesUtil.writeUtf8("cold_value_" + round),
+                this.db.get(BytesUtil.writeUtf8("cold_" + round)));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.storage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+
+/**
+ * @author jiachun.fjc
+ */
+public class OffHeapKVIterator implements KVIterator {
+
+    private final OffHeapDB                            db;
+    private final ConcurrentNavigableMap<byte[], Long> index;
+
+    private Map.Entry<byte[], Long>                    cursorEntry;
+
+    OffHeapKVIterator(OffHeapDB db) {
+        this.db = db;
+        this.index = db.index();
+    }
+
+    @Override
+    public boolean isValid() {
+        return this.cursorEntry != null;
+    }
+
+    @Override
+    public void seekToFirst() {
+        this.cursorEntry = this.index.firstEntry();
+    }
+
+    @Override
+    public void seekToLast() {
+        this.cursorEntry = this.index.lastEntry();
+    }
+
+    @Override
+    public void seek(final byte[] target) {
+        this.cursorEntry = this.index.ceilingEntry(target);
+    }
+
+    @Override
+    public void seekForPrev(final byte[] target) {
+        this.cursorEntry = this.index.lowerEntry(target);
+    }
+
+    @Override
+    public void next() {
+        this.cursorEntry = this.index.higherEntry(this.cursorEntry.getKey());
+    }
+
+    @Override
+    public void prev() {
+        this.cursorEntry = this.index.lowerEntry(this.cursorEntry.getKey());
+    }
+
+    @Override
+    public byte[] key() {
+        return this.cursorEntry.getKey();
+    }
+
+    @Override
+    public byte[] value() {
+        final byte[] value = this.db.value(this.cursorEntry.getValue());
+        // the record was replaced after the cursor moved here
+        return value != null ? value : this.db.get(this.cursorEntry.getKey());
+    }
+
+    @Override
+    public void close() throws Exception {
+        // no-op
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.storage.memorydb;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.alipay.sofa.jraft.rhea.options.MemoryDBOptions;
+import com.alipay.sofa.jraft.rhea.storage.KVEntry;
+import com.alipay.sofa.jraft.rhea.storage.KVStoreClosure;
+import com.alipay.sofa.jraft.rhea.storage.MemoryRawKVStore;
+import com.alipay.sofa.jraft.rhea.storage.OffHeapMemoryRawKVStore;
+import com.alipay.sofa.jraft.rhea.storage.RawKVStore;
+import com.alipay.sofa.jraft.rhea.storage.SyncKVStore;
+
+import static com.alipay.sofa.jraft.rhea.KeyValueTool.makeKey;
+import static com.alipay.sofa.jraft.rhea.KeyValueTool.makeValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Runs all tests of {@link MemoryKVStoreTest} against {@link OffHeapMemoryRawKVStore},
+ * with small arenas so that the records are spread over many of them.
+ *
+ * @author jiachun.fjc
+ */
+public class OffHeapMemoryKVStoreTest extends MemoryKVStoreTest {
+
+    @Override
+    protected MemoryRawKVStore newKVStore() {
+        return new OffHeapMemoryRawKVStore();
+    }
+
+    @Override
+    protected MemoryDBOptions newDBOptions() {
+        final MemoryDBOptions opts = new MemoryDBOptions();
+        opts.setOffHeap(true);
+        opts.setArenaSize(4096);
+        return opts;
+    }
+
+    @Test
+    public void overwriteTest() {
+        // every round fills more than one arena, so the arenas of the former rounds are released
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 200; i++) {
+                this.kvStore.put(makeKey("overwrite_test_" + i), makeValue("overwrite_test_value_" + round), null);
+            }
+        }
+        for (int i = 0; i < 200; i += 2) {
+            this.kvStore.delete(makeKey("overwrite_test_" + i), null);
+        }
+        for (int i = 0; i < 200; i++) {
+            final byte[] value = get(makeKey("overwrite_test_" + i));
+            if (i % 2 == 0) {
+                assertNull(value);
+            } else {
+                assertArrayEquals(makeValue("overwrite_test_value_9"), value);
+            }
+        }
+
+        final List<KVEntry> entries = new SyncKVStore<List<KVEntry>>() {
+            @Override
+            public void execute(RawKVStore kvStore, KVStoreClosure closure) {
+                kvStore.scan(makeKey("overwrite_test_"), null, closure);
+            }
+        }.apply(this.kvStore);
+        assertEquals(100, entries.size());
+    }
+
+    @Test
+    public void largeValueTest() {
+        final byte[] key = makeKey("large_value_test");
+        final byte[] value = new byte[3 * 4096];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) i;
+        }
+        this.kvStore.put(key, value, null);
+        this.kvStore.put(makeKey("large_value_test_next"), makeValue("next"), null);
+        assertArrayEquals(value, get(key));
+        assertArrayEquals(makeValue("next"), get(makeKey("large_value_test_next")));
+    }
+
+    private byte[] get(final byte[] key) {
+        return new SyncKVStore<byte[]>() {
+            @Override
+            public void execute(RawKVStore kvStore, KVStoreClosure closure) {
+                kvStore.get(key, closure);
+            }
+        }.apply(this.kvStore);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.rhea.storage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alipay.sofa.jraft.rhea.metadata.Region;
+import com.alipay.sofa.jraft.rhea.options.MemoryDBOptions;
+import com.alipay.sofa.jraft.rhea.util.ByteArray;
+import com.alipay.sofa.jraft.rhea.util.Lists;
+import com.alipay.sofa.jraft.rhea.util.Maps;
+import com.alipay.sofa.jraft.rhea.util.StackTraceUtil;
+import com.alipay.sofa.jraft.util.BytesUtil;
+import com.codahale.metrics.Timer;
+
+import static com.alipay.sofa.jraft.rhea.storage.MemoryKVStoreSnapshotFile.TailIndex;
+
+/**
+ * A {@link MemoryRawKVStore} that keeps the key-value data in off-heap arenas
+ * (see {@link OffHeapDB}) instead of a skip list of byte arrays, so that large
+ * regions neither grow the old generation nor slow down the GC, and snapshots
+ * copy whole arenas instead of serializing segments of key-value pairs.
+ *
+ * The sequences, fencing tokens and locks stay on heap.
+ *
+ * @author jiachun.fjc
+ */
+public class OffHeapMemoryRawKVStore extends MemoryRawKVStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OffHeapMemoryRawKVStore.class);
+
+    private volatile OffHeapDB  defaultDB;
+
+    @Override
+    public boolean init(final MemoryDBOptions opts) {
+        this.defaultDB = new OffHeapDB(COMPARATOR, opts.getArenaSize());
+        return super.init(opts);
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        this.defaultDB.clear();
+    }
+
+    @Override
+    public KVIterator localIterator() {
+        return new OffHeapKVIterator(this.defaultDB);
+    }
+
+    @Override
+    public void get(final byte[] key, @SuppressWarnings("unused") final boolean readOnlySafe,
+                    final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("GET");
+        try {
+            final byte[] value = this.defaultDB.get(key);
+            setSuccess(closure, value);
+        } catch (final Exception e) {
+            LOG.error("Fail to [GET], key: [{}], {}.", Arrays.toString(key), StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [GET]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void multiGet(final List<byte[]> keys, @SuppressWarnings("unused") final boolean readOnlySafe,
+                         final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("MULTI_GET");
+        try {
+            final Map<ByteArray, byte[]> resultMap = Maps.newHashMap();
+            for (final byte[] key : keys) {
+                final byte[] value = this.defaultDB.get(key);
+                if (value == null) {
+                    continue;
+                }
+                resultMap.put(ByteArray.wrap(key), value);
+            }
+            setSuccess(closure, resultMap);
+        } catch (final Exception e) {
+            LOG.error("Fail to [MULTI_GET], key size: [{}], {}.", keys.size(), StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [MULTI_GET]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void scan(final byte[] startKey, final byte[] endKey, final int limit, final boolean readOnlySafe,
+                     final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("SCAN");
+        final List<KVEntry> entries = Lists.newArrayList();
+        // 'limit == 0' means that the number of queries is not limited, see MemoryRawKVStore#scan
+        final int maxCount = limit > 0 ? limit : Integer.MAX_VALUE;
+        try {
+            for (final Map.Entry<byte[], Long> entry : subIndex(startKey, endKey).entrySet()) {
+                byte[] value = this.defaultDB.value(entry.getValue());
+                if (value == null) {
+                    // replaced after the index was read
+                    value = this.defaultDB.get(entry.getKey());
+                    if (value == null) {
+                        continue;
+                    }
+                }
+                entries.add(new KVEntry(entry.getKey(), value));
+                if (entries.size() >= maxCount) {
+                    break;
+                }
+            }
+            setSuccess(closure, entries);
+        } catch (final Exception e) {
+            LOG.error("Fail to [SCAN], range: ['[{}, {})'], {}.", Arrays.toString(startKey), Arrays.toString(endKey),
+                StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [SCAN]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void put(final byte[] key, final byte[] value, final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("PUT");
+        try {
+            this.defaultDB.put(key, value);
+            setSuccess(closure, Boolean.TRUE);
+        } catch (final Exception e) {
+            LOG.error("Fail to [PUT], [{}, {}], {}.", Arrays.toString(key), Arrays.toString(value),
+                StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [PUT]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void getAndPut(final byte[] key, final byte[] value, final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("GET_PUT");
+        try {
+            final byte[] prevVal = this.defaultDB.put(key, value);
+            setSuccess(closure, prevVal);
+        } catch (final Exception e) {
+            LOG.error("Fail to [GET_PUT], [{}, {}], {}.", Arrays.toString(key), Arrays.toString(value),
+                StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [GET_PUT]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void merge(final byte[] key, final byte[] value, final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("MERGE");
+        try {
+            this.defaultDB.merge(key, value, DELIMITER);
+            setSuccess(closure, Boolean.TRUE);
+        } catch (final Exception e) {
+            LOG.error("Fail to [MERGE], [{}, {}], {}.", Arrays.toString(key), Arrays.toString(value),
+                StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [MERGE]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void put(final List<KVEntry> entries, final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("PUT_LIST");
+        try {
+            for (final KVEntry entry : entries) {
+                this.defaultDB.put(entry.getKey(), entry.getValue());
+            }
+            setSuccess(closure, Boolean.TRUE);
+        } catch (final Exception e) {
+            LOG.error("Failed to [PUT_LIST], [size = {}], {}.", entries.size(), StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [PUT_LIST]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void putIfAbsent(final byte[] key, final byte[] value, final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("PUT_IF_ABSENT");
+        try {
+            final byte[] prevValue = this.defaultDB.putIfAbsent(key, value);
+            setSuccess(closure, prevValue);
+        } catch (final Exception e) {
+            LOG.error("Fail to [PUT_IF_ABSENT], [{}, {}], {}.", Arrays.toString(key), Arrays.toString(value),
+                StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [PUT_IF_ABSENT]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void delete(final byte[] key, final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("DELETE");
+        try {
+            this.defaultDB.delete(key);
+            setSuccess(closure, Boolean.TRUE);
+        } catch (final Exception e) {
+            LOG.error("Fail to [DELETE], [{}], {}.", Arrays.toString(key), StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [DELETE]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public void deleteRange(final byte[] startKey, final byte[] endKey, final KVStoreClosure closure) {
+        final Timer.Context timeCtx = getTimeContext("DELETE_RANGE");
+        try {
+            this.defaultDB.deleteRange(startKey, endKey);
+            setSuccess(closure, Boolean.TRUE);
+        } catch (final Exception e) {
+            LOG.error("Fail to [DELETE_RANGE], ['[{}, {})'], {}.", Arrays.toString(startKey), Arrays.toString(endKey),
+                StackTraceUtil.stackTrace(e));
+            setFailure(closure, "Fail to [DELETE_RANGE]");
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public long getApproximateKeysInRange(final byte[] startKey, final byte[] endKey) {
+        final Timer.Context timeCtx = getTimeContext("APPROXIMATE_KEYS");
+        try {
+            return subIndex(startKey, endKey).size();
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    public byte[] jumpOver(final byte[] startKey, final long distance) {
+        final Timer.Context timeCtx = getTimeContext("JUMP_OVER");
+        try {
+            final ConcurrentNavigableMap<byte[], Long> tailIndex = subIndex(startKey, null);
+            if (tailIndex.isEmpty()) {
+                return null;
+            }
+            long approximateKeys = 0;
+            byte[] lastKey = null;
+            for (final byte[] key : tailIndex.keySet()) {
+                lastKey = key;
+                if (++approximateKeys >= distance) {
+                    break;
+                }
+            }
+            if (lastKey == null) {
+                return null;
+            }
+            final byte[] endKey = new byte[lastKey.length];
+            System.arraycopy(lastKey, 0, endKey, 0, lastKey.length);
+            return endKey;
+        } finally {
+            timeCtx.stop();
+        }
+    }
+
+    @Override
+    void saveDefaultDB(final MemoryKVStoreSnapshotFile snapshotFile, final String snapshotPath, final Region region)
+                                                                                                               throws Exception {
+        final int count = this.defaultDB.save(snapshotPath, region);
+        snapshotFile.writeToFile(snapshotPath, "tailIndex", new TailIndex(count - 1));
+    }
+
+    @Override
+    void loadDefaultDB(final MemoryKVStoreSnapshotFile snapshotFile, final String snapshotPath) throws Exception {
+        final TailIndex tailIndex = snapshotFile.readFromFile(snapshotPath, "tailIndex", TailIndex.class);
+        this.defaultDB.load(snapshotPath, tailIndex.data() + 1);
+    }
+
+    private ConcurrentNavigableMap<byte[], Long> subIndex(final byte[] startKey, final byte[] endKey) {
+        final byte[] realStartKey = BytesUtil.nullToEmpty(startKey);
+        if (endKey == null) {
+            return this.defaultDB.index().tailMap(realStartKey);
+        }
+        return this.defaultDB.index().subMap(realStartKey, endKey);
+    }
+}
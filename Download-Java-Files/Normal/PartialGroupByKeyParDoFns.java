@@ -31,6 +31,8 @@ import org.apache.beam.runners.core.SideInputReader;
 import org.apache.beam.runners.core.StepContext;
 import org.apache.beam.runners.dataflow.util.CloudObject;
 import org.apache.beam.runners.dataflow.util.PropertyNames;
+import org.apache.beam.runners.dataflow.worker.counters.Counter;
+import org.apache.beam.runners.dataflow.worker.counters.CounterName;
 import org.apache.beam.runners.dataflow.worker.util.common.worker.GroupingTable;
 import org.apache.beam.runners.dataflow.worker.util.common.worker.GroupingTables;
 import org.apache.beam.runners.dataflow.worker.util.common.worker.ParDoFn;
@@ -66,10 +68,12 @@ public class PartialGroupByKeyParDoFns {
     AppliedCombineFn<K, InputT, AccumT, ?> combineFn;
     SideInputReader sideInputReader;
     StepContext stepContext;
+    Counter<Long, ?> combinedElementsCounter;
     if (cloudUserFn == null) {
       combineFn = null;
       sideInputReader = NullSideInputReader.empty();
       stepContext = null;
+      combinedElementsCounter = null;
     } else {
       Object deserializedFn =
           SerializableUtils.deserializeFromByteArray(
@@ -83,9 +87,21 @@ public class PartialGroupByKeyParDoFns {
           executionContext.getSideInputReader(
               sideInputInfos, combineFn.getSideInputViews(), operationContext);
       stepContext = executionContext.getStepContext(operationContext);
+      combinedElementsCounter =
+          operationContext
+              .counterFactory()
+              .longSum(
+                  CounterName.named("combined-elements")
+                      .withOriginalName(operationContext.nameContext()));
     }
     return create(
-        options, inputElementCoder, combineFn, sideInputReader, receivers.get(0), stepContext);
+        options,
+        inputElementCoder,
+        combineFn,
+        sideInputReader,
+        receivers.get(0),
+        stepContext,
+        combinedElementsCounter);
   }
 
   @VisibleForTesting
@@ -95,7 +111,8 @@ public class PartialGroupByKeyParDoFns {
       @Nullable AppliedCombineFn<K, InputT, AccumT, ?> combineFn,
       SideInputReader sideInputReader,
       Receiver receiver,
-      @Nullable StepContext stepContext)
+      @Nullable StepContext stepContext,
+      @Nullable Counter<Long, ?> combinedElementsCounter)
       throws Exception {
     Coder<K> keyCoder = inputElementCoder.getKeyCoder();
     Coder<?> valueCoder = inputElementCoder.getValueCoder();
@@ -116,13 +133,14 @@ public class PartialGroupByKeyParDoFns {
               GlobalCombineFnRunners.create(combineFn.getFn()), sideInputReader, options);
 
       GroupingTable<WindowedValue<K>, InputT, AccumT> groupingTable =
-          GroupingTables.combiningAndSampling(
+          GroupingTables.adaptiveCombiningAndSampling(
               new WindowingCoderGroupingKeyCreator<>(keyCoder),
               PairInfo.create(),
               valueCombiner,
               new CoderSizeEstimator<>(WindowedValue.getValueOnlyCoder(keyCoder)),
               new CoderSizeEstimator<>(combineFn.getAccumulatorCoder()),
-              0.001 /*sizeEstimatorSampleRate*/);
+              0.001 /*sizeEstimatorSampleRate*/,
+              combinedElementsCounter);
       if (sideInputReader.isEmpty()) {
         return new SimplePartialGroupByKeyParDoFn<>(groupingTable, receiver);
       } else if (options.as(StreamingOptions.class).isStreaming()) {
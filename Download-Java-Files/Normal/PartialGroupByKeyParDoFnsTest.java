@@ -45,6 +45,7 @@ import org.apache.beam.runners.dataflow.worker.PartialGroupByKeyParDoFns.Streami
 import org.apache.beam.runners.dataflow.worker.PartialGroupByKeyParDoFns.WindowingCoderGroupingKeyCreator;
 import org.apache.beam.runners.dataflow.worker.counters.Counter.CounterUpdateExtractor;
 import org.apache.beam.runners.dataflow.worker.counters.CounterFactory.LongCounterMean;
+import org.apache.beam.runners.dataflow.worker.counters.CounterName;
 import org.apache.beam.runners.dataflow.worker.counters.CounterSet;
 import org.apache.beam.runners.dataflow.worker.util.common.worker.GroupingTables;
 import org.apache.beam.runners.dataflow.worker.util.common.worker.GroupingTables.Combiner;
@@ -309,7 +310,8 @@ public class PartialGroupByKeyParDoFnsTest {
                 WindowingStrategy.globalDefault()),
             mockSideInputReader,
             receiver,
-            stepContext);
+            stepContext,
+            counterSet.longSum(CounterName.named("combined-elements")));
     assertTrue(pgbk instanceof BatchSideInputPGBKParDoFn);
   }
 
@@ -336,7 +338,8 @@ public class PartialGroupByKeyParDoFnsTest {
                 Sum.ofIntegers(), CoderRegistry.createDefault(), kvCoder),
             NullSideInputReader.empty(),
             receiver,
-            null);
+            null,
+            counterSet.longSum(CounterName.named("combined-elements")));
     assertTrue(pgbk instanceof SimplePartialGroupByKeyParDoFn);
   }
 
@@ -373,7 +376,8 @@ public class PartialGroupByKeyParDoFnsTest {
                 WindowingStrategy.globalDefault()),
             mockSideInputReader,
             receiver,
-            mockStreamingStepContext);
+            mockStreamingStepContext,
+            counterSet.longSum(CounterName.named("combined-elements")));
     assertTrue(pgbk instanceof StreamingSideInputPGBKParDoFn);
   }
 
@@ -1,10 +1,27 @@
 package com.iota.iri.hash;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import static com.iota.iri.hash.PearlDiver.State.*;
 
+/**
+ * Searches the nonce of a transaction for the proof of work.
+ *
+ * The Curl state is bit-sliced: every trit is a low and a high word with one nonce per bit, and {@link #LANE_WORDS}
+ * words per trit are transformed together, so one transform tries {@code 64 * LANE_WORDS} nonces.
+ *
+ * The searches run on worker threads shared by all instances, which are started once and then kept. A search is
+ * split into one job per requested thread, and a job is queued again after {@link #SLICE_TRANSFORMS} transforms, so
+ * concurrent searches take turns on the workers instead of waiting for each other.
+ */
 public class PearlDiver {
 
     enum State {
@@ -21,12 +38,47 @@ public class PearlDiver {
     private static final long HIGH_BITS = 0b11111111_11111111_11111111_11111111_11111111_11111111_11111111_11111111L;
     private static final long LOW_BITS = 0b00000000_00000000_00000000_00000000_00000000_00000000_00000000_00000000L;
 
-    private volatile State state;
-    private final Object syncObj = new Object();
+    //words per trit, every word has 64 nonces. A constant, so that the JIT unrolls the loops over the words.
+    static final int LANE_WORDS = 4;
+    private static final int STATE_WORDS = CURL_STATE_LENGTH * LANE_WORDS;
+    private static final int NONCES_PER_TRANSFORM = 64 * LANE_WORDS;
+    //transforms of a job before it is queued again
+    static final int SLICE_TRANSFORMS = 32;
 
+    private static final ExecutorService WORKERS = newWorkers();
+
+    //hash rate of all searches, over the time when any search was running
+    private static final LongAdder hashCount = new LongAdder();
+    private static final Object meterLock = new Object();
+    private static int runningSearches;
+    private static long busySince;
+    private static long busyNanos;
+
+    private final Set<Search> searches = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cancels the searches that are running on this instance.
+     */
     public void cancel() {
-        synchronized (syncObj) {
-            state = CANCELLED;
+        for (Search search : searches) {
+            search.cancel();
+        }
+    }
+
+    /**
+     * @return true if a search is running on this instance, so that {@link #cancel()} reaches it
+     */
+    boolean isSearching() {
+        return !searches.isEmpty();
+    }
+
+    /**
+     * @return the nonces tried per second, over the time when any search was running
+     */
+    public static long getHashRate() {
+        synchronized (meterLock) {
+            long busy = busyNanos + (runningSearches > 0 ? System.nanoTime() - busySince : 0);
+            return busy == 0 ? 0 : (long) (hashCount.sum() * 1_000_000_000.0 / busy);
         }
     }
 
@@ -40,151 +92,223 @@ public class PearlDiver {
         }
     }
 
-    public synchronized boolean search(final byte[] transactionTrits, final int minWeightMagnitude,
-                                       int numberOfThreads) {
+    /**
+     * Searches the nonce, and writes it to the end of the transaction trits when it is found. Searches may run
+     * concurrently, also on the same instance.
+     *
+     * @param numberOfThreads the number of jobs of the search, 80% of the processors if not positive
+     * @return true if the nonce was found, false if the search was cancelled
+     */
+    public boolean search(final byte[] transactionTrits, final int minWeightMagnitude,
+                          int numberOfThreads) {
 
         validateParameters(transactionTrits, minWeightMagnitude);
-        synchronized (syncObj) {
-            state = RUNNING;
-        }
 
-        final long[] midStateLow = new long[CURL_STATE_LENGTH];
-        final long[] midStateHigh = new long[CURL_STATE_LENGTH];
+        final long[] midStateLow = new long[STATE_WORDS];
+        final long[] midStateHigh = new long[STATE_WORDS];
         initializeMidCurlStates(transactionTrits, midStateLow, midStateHigh);
 
         if (numberOfThreads <= 0) {
             int available = Runtime.getRuntime().availableProcessors();
             numberOfThreads = Math.max(1, Math.floorDiv(available * 8, 10));
         }
-        List<Thread> workers = new ArrayList<>(numberOfThreads);
-        while (numberOfThreads-- > 0) {
-            long[] midStateCopyLow = midStateLow.clone();
-            long[] midStateCopyHigh = midStateHigh.clone();
-            Runnable runnable = getRunnable(numberOfThreads, transactionTrits, minWeightMagnitude, midStateCopyLow, midStateCopyHigh);
-            Thread worker = new Thread(runnable);
-            workers.add(worker);
-            worker.setName(this + ":worker-" + numberOfThreads);
-            worker.setDaemon(true);
-            worker.start();
-        }
-        for (Thread worker : workers) {
+        Search search = new Search(transactionTrits, minWeightMagnitude, numberOfThreads);
+        searches.add(search);
+        searchStarted();
+        try {
+            for (int jobIndex = 0; jobIndex < numberOfThreads; jobIndex++) {
+                WORKERS.execute(new Job(search, jobIndex, midStateLow.clone(), midStateHigh.clone()));
+            }
             try {
-                worker.join();
+                search.done.await();
             } catch (InterruptedException e) {
-                synchronized (syncObj) {
-                    state = CANCELLED;
-                }
+                search.cancel();
+                Thread.currentThread().interrupt();
             }
+            return search.state == COMPLETED;
+        } finally {
+            searchFinished();
+            searches.remove(search);
         }
-        return state == COMPLETED;
     }
 
-    private Runnable getRunnable(final int threadIndex, final byte[] transactionTrits, final int minWeightMagnitude,
-                                 final long[] midStateCopyLow, final long[] midStateCopyHigh) {
-        return () -> {
-            for (int i = 0; i < threadIndex; i++) {
-                increment(midStateCopyLow, midStateCopyHigh, 162 + CURL_HASH_LENGTH / 9,
-                    162 + (CURL_HASH_LENGTH / 9) * 2);
+    private static ExecutorService newWorkers() {
+        int size = Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        //the queue is FIFO, so the jobs of concurrent searches take turns
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread worker = new Thread(r);
+            worker.setName("pearl-diver-worker-" + count.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+    }
+
+    private static void searchStarted() {
+        synchronized (meterLock) {
+            if (runningSearches++ == 0) {
+                busySince = System.nanoTime();
             }
+        }
+    }
 
-            final long[] stateLow = new long[CURL_STATE_LENGTH];
-            final long[] stateHigh = new long[CURL_STATE_LENGTH];
+    private static void searchFinished() {
+        synchronized (meterLock) {
+            if (--runningSearches == 0) {
+                busyNanos += System.nanoTime() - busySince;
+            }
+        }
+    }
 
-            final long[] scratchpadLow = new long[CURL_STATE_LENGTH];
-            final long[] scratchpadHigh = new long[CURL_STATE_LENGTH];
+    private static class Search {
 
-            final int maskStartIndex = CURL_HASH_LENGTH - minWeightMagnitude;
-            long mask = 0;
-            while (state == RUNNING && mask == 0) {
+        private final byte[] transactionTrits;
+        private final int maskStartIndex;
+        private final CountDownLatch done;
+        private volatile State state = RUNNING;
 
-                increment(midStateCopyLow, midStateCopyHigh, 162 + (CURL_HASH_LENGTH / 9) * 2,
-                    CURL_HASH_LENGTH);
+        Search(byte[] transactionTrits, int minWeightMagnitude, int jobs) {
+            this.transactionTrits = transactionTrits;
+            this.maskStartIndex = CURL_HASH_LENGTH - minWeightMagnitude;
+            this.done = new CountDownLatch(jobs);
+        }
 
-                copy(midStateCopyLow, midStateCopyHigh, stateLow, stateHigh);
-                transform(stateLow, stateHigh, scratchpadLow, scratchpadHigh);
+        synchronized void cancel() {
+            if (state == RUNNING) {
+                state = CANCELLED;
+            }
+        }
 
-                mask = HIGH_BITS;
-                for (int i = maskStartIndex; i < CURL_HASH_LENGTH && mask != 0; i++) {
-                    mask &= ~(stateLow[i] ^ stateHigh[i]);
+        synchronized void complete(long[] midStateLow, long[] midStateHigh, int word, long mask) {
+            if (state != RUNNING) {
+                return;
+            }
+            state = COMPLETED;
+            long outMask = mask & -mask;
+            for (int i = 0; i < CURL_HASH_LENGTH; i++) {
+                int index = i * LANE_WORDS + word;
+                transactionTrits[TRANSACTION_LENGTH - CURL_HASH_LENGTH + i] =
+                    (midStateLow[index] & outMask) == 0 ? 1
+                        : (midStateHigh[index] & outMask) == 0 ? (byte) -1 : (byte) 0;
+            }
+        }
+    }
+
+    private static class Job implements Runnable {
+
+        private final Search search;
+        private final long[] midStateCopyLow;
+        private final long[] midStateCopyHigh;
+
+        private final long[] stateLow = new long[STATE_WORDS];
+        private final long[] stateHigh = new long[STATE_WORDS];
+        private final long[] scratchpadLow = new long[STATE_WORDS];
+        private final long[] scratchpadHigh = new long[STATE_WORDS];
+
+        Job(Search search, int jobIndex, long[] midStateCopyLow, long[] midStateCopyHigh) {
+            this.search = search;
+            this.midStateCopyLow = midStateCopyLow;
+            this.midStateCopyHigh = midStateCopyHigh;
+            //every word of every job starts from another nonce
+            for (int word = 0; word < LANE_WORDS; word++) {
+                for (int i = 0; i < jobIndex * LANE_WORDS + word; i++) {
+                    increment(midStateCopyLow, midStateCopyHigh, word, 162 + CURL_HASH_LENGTH / 9,
+                        162 + (CURL_HASH_LENGTH / 9) * 2);
                 }
             }
-            if (mask != 0) {
-                synchronized (syncObj) {
-                    if (state == RUNNING) {
-                        state = COMPLETED;
-                        long outMask = 1;
-                        while ((outMask & mask) == 0) {
-                            outMask <<= 1;
-                        }
-                        for (int i = 0; i < CURL_HASH_LENGTH; i++) {
-                            transactionTrits[TRANSACTION_LENGTH - CURL_HASH_LENGTH + i] =
-                                (midStateCopyLow[i] & outMask) == 0 ? 1
-                                    : (midStateCopyHigh[i] & outMask) == 0 ? (byte) -1 : (byte) 0;
-                        }
+        }
+
+        @Override
+        public void run() {
+            int transforms = 0;
+            while (search.state == RUNNING && transforms < SLICE_TRANSFORMS) {
+                transforms++;
+                for (int word = 0; word < LANE_WORDS; word++) {
+                    increment(midStateCopyLow, midStateCopyHigh, word, 162 + (CURL_HASH_LENGTH / 9) * 2,
+                        CURL_HASH_LENGTH);
+                }
+
+                copy(midStateCopyLow, midStateCopyHigh, stateLow, stateHigh);
+                transform(stateLow, stateHigh, scratchpadLow, scratchpadHigh);
+
+                for (int word = 0; word < LANE_WORDS; word++) {
+                    long mask = HIGH_BITS;
+                    for (int i = search.maskStartIndex; i < CURL_HASH_LENGTH && mask != 0; i++) {
+                        int index = i * LANE_WORDS + word;
+                        mask &= ~(stateLow[index] ^ stateHigh[index]);
+                    }
+                    if (mask != 0) {
+                        search.complete(midStateCopyLow, midStateCopyHigh, word, mask);
+                        break;
                     }
                 }
             }
-        };
+            hashCount.add((long) transforms * NONCES_PER_TRANSFORM);
+            if (search.state == RUNNING) {
+                WORKERS.execute(this);
+            } else {
+                search.done.countDown();
+            }
+        }
     }
 
     private static void copy(long[] srcLow, long[] srcHigh, long[] destLow, long[] destHigh) {
-        System.arraycopy(srcLow, 0, destLow, 0, CURL_STATE_LENGTH);
-        System.arraycopy(srcHigh, 0, destHigh, 0, CURL_STATE_LENGTH);
+        System.arraycopy(srcLow, 0, destLow, 0, STATE_WORDS);
+        System.arraycopy(srcHigh, 0, destHigh, 0, STATE_WORDS);
+    }
+
+    private static void set(long[] low, long[] high, int trit, long lowBits, long highBits) {
+        for (int word = 0; word < LANE_WORDS; word++) {
+            low[trit * LANE_WORDS + word] = lowBits;
+            high[trit * LANE_WORDS + word] = highBits;
+        }
+    }
+
+    private static void setTrit(long[] midStateLow, long[] midStateHigh, int trit, byte value) {
+        switch (value) {
+            case 0:
+                set(midStateLow, midStateHigh, trit, HIGH_BITS, HIGH_BITS);
+                break;
+            case 1:
+                set(midStateLow, midStateHigh, trit, LOW_BITS, HIGH_BITS);
+                break;
+            default:
+                set(midStateLow, midStateHigh, trit, HIGH_BITS, LOW_BITS);
+        }
     }
 
     private static void initializeMidCurlStates(byte[] transactionTrits, long[] midStateLow, long[] midStateHigh) {
         for (int i = CURL_HASH_LENGTH; i < CURL_STATE_LENGTH; i++) {
-            midStateLow[i] = HIGH_BITS;
-            midStateHigh[i] = HIGH_BITS;
+            set(midStateLow, midStateHigh, i, HIGH_BITS, HIGH_BITS);
         }
 
         int offset = 0;
-        final long[] curlScratchpadLow = new long[CURL_STATE_LENGTH];
-        final long[] curlScratchpadHigh = new long[CURL_STATE_LENGTH];
+        final long[] curlScratchpadLow = new long[STATE_WORDS];
+        final long[] curlScratchpadHigh = new long[STATE_WORDS];
         for (int i = (TRANSACTION_LENGTH - CURL_HASH_LENGTH) / CURL_HASH_LENGTH; i-- > 0; ) {
 
             for (int j = 0; j < CURL_HASH_LENGTH; j++) {
-                switch (transactionTrits[offset++]) {
-                    case 0:
-                        midStateLow[j] = HIGH_BITS;
-                        midStateHigh[j] = HIGH_BITS;
-                        break;
-                    case 1:
-                        midStateLow[j] = LOW_BITS;
-                        midStateHigh[j] = HIGH_BITS;
-                        break;
-                    default:
-                        midStateLow[j] = HIGH_BITS;
-                        midStateHigh[j] = LOW_BITS;
-                }
+                setTrit(midStateLow, midStateHigh, j, transactionTrits[offset++]);
             }
             transform(midStateLow, midStateHigh, curlScratchpadLow, curlScratchpadHigh);
         }
 
         for (int i = 0; i < 162; i++) {
-            switch (transactionTrits[offset++]) {
-                case 0:
-                    midStateLow[i] = HIGH_BITS;
-                    midStateHigh[i] = HIGH_BITS;
-                    break;
-                case 1:
-                    midStateLow[i] = LOW_BITS;
-                    midStateHigh[i] = HIGH_BITS;
-                    break;
-                default:
-                    midStateLow[i] = HIGH_BITS;
-                    midStateHigh[i] = LOW_BITS;
-            }
+            setTrit(midStateLow, midStateHigh, i, transactionTrits[offset++]);
         }
 
-        midStateLow[162 + 0] = 0b1101101101101101101101101101101101101101101101101101101101101101L;
-        midStateHigh[162 + 0] = 0b1011011011011011011011011011011011011011011011011011011011011011L;
-        midStateLow[162 + 1] = 0b1111000111111000111111000111111000111111000111111000111111000111L;
-        midStateHigh[162 + 1] = 0b1000111111000111111000111111000111111000111111000111111000111111L;
-        midStateLow[162 + 2] = 0b0111111111111111111000000000111111111111111111000000000111111111L;
-        midStateHigh[162 + 2] = 0b1111111111000000000111111111111111111000000000111111111111111111L;
-        midStateLow[162 + 3] = 0b1111111111000000000000000000000000000111111111111111111111111111L;
-        midStateHigh[162 + 3] = 0b0000000000111111111111111111111111111111111111111111111111111111L;
+        set(midStateLow, midStateHigh, 162 + 0,
+            0b1101101101101101101101101101101101101101101101101101101101101101L,
+            0b1011011011011011011011011011011011011011011011011011011011011011L);
+        set(midStateLow, midStateHigh, 162 + 1,
+            0b1111000111111000111111000111111000111111000111111000111111000111L,
+            0b1000111111000111111000111111000111111000111111000111111000111111L);
+        set(midStateLow, midStateHigh, 162 + 2,
+            0b0111111111111111111000000000111111111111111111000000000111111111L,
+            0b1111111111000000000111111111111111111000000000111111111111111111L);
+        set(midStateLow, midStateHigh, 162 + 3,
+            0b1111111111000000000000000000000000000111111111111111111111111111L,
+            0b0000000000111111111111111111111111111111111111111111111111111111L);
     }
 
     private static void transform(final long[] stateLow, final long[] stateHigh,
@@ -194,37 +318,41 @@ public class PearlDiver {
             copy(stateLow, stateHigh, scratchpadLow, scratchpadHigh);
 
             int scratchpadIndex = 0;
-            for (int stateIndex = 0; stateIndex < CURL_STATE_LENGTH; stateIndex++) {
-                final long alpha = scratchpadLow[scratchpadIndex];
-                final long beta = scratchpadHigh[scratchpadIndex];
-                if (scratchpadIndex < 365) {
-                    scratchpadIndex += 364;
+            for (int stateIndex = 0; stateIndex < STATE_WORDS; stateIndex += LANE_WORDS) {
+                final int alphaIndex = scratchpadIndex;
+                if (scratchpadIndex < 365 * LANE_WORDS) {
+                    scratchpadIndex += 364 * LANE_WORDS;
                 } else {
-                    scratchpadIndex += -365;
+                    scratchpadIndex += -365 * LANE_WORDS;
+                }
+                for (int word = 0; word < LANE_WORDS; word++) {
+                    final long alpha = scratchpadLow[alphaIndex + word];
+                    final long beta = scratchpadHigh[alphaIndex + word];
+                    final long gamma = scratchpadHigh[scratchpadIndex + word];
+                    final long delta = (alpha | (~gamma)) & (scratchpadLow[scratchpadIndex + word] ^ beta);
+
+                    stateLow[stateIndex + word] = ~delta;
+                    stateHigh[stateIndex + word] = (alpha ^ gamma) | delta;
                 }
-                final long gamma = scratchpadHigh[scratchpadIndex];
-                final long delta = (alpha | (~gamma)) & (scratchpadLow[scratchpadIndex] ^ beta);
-
-                stateLow[stateIndex] = ~delta;
-                stateHigh[stateIndex] = (alpha ^ gamma) | delta;
             }
         }
     }
 
-    private static void increment(final long[] midStateCopyLow, final long[] midStateCopyHigh,
+    private static void increment(final long[] midStateCopyLow, final long[] midStateCopyHigh, final int word,
                                   final int fromIndex, final int toIndex) {
 
         for (int i = fromIndex; i < toIndex; i++) {
-            if (midStateCopyLow[i] == LOW_BITS) {
-                midStateCopyLow[i] = HIGH_BITS;
-                midStateCopyHigh[i] = LOW_BITS;
-            } else if (midStateCopyHigh[i] == LOW_BITS) {
-                midStateCopyHigh[i] = HIGH_BITS;
+            int index = i * LANE_WORDS + word;
+            if (midStateCopyLow[index] == LOW_BITS) {
+                midStateCopyLow[index] = HIGH_BITS;
+                midStateCopyHigh[index] = LOW_BITS;
+            } else if (midStateCopyHigh[index] == LOW_BITS) {
+                midStateCopyHigh[index] = HIGH_BITS;
                 break;
             } else {
-                midStateCopyLow[i] = LOW_BITS;
+                midStateCopyLow[index] = LOW_BITS;
                 break;
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package com.iota.iri.benchmarks.powbenchmark;
+
+import com.iota.iri.hash.PearlDiver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+
+@State(Scope.Thread)
+public class PearlDiverBenchmark {
+
+    private static final int TRANSACTION_LENGTH = 8019;
+    private static final int MIN_WEIGHT_MAGNITUDE = 9;
+
+    private final PearlDiver pearlDiver = new PearlDiver();
+    private final Random random = new Random();
+    private byte[] transactionTrits;
+
+    @Param({"1", "-1"})
+    private int numberOfThreads;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        transactionTrits = new byte[TRANSACTION_LENGTH];
+        for (int i = 0; i < TRANSACTION_LENGTH; i++) {
+            transactionTrits[i] = (byte) (random.nextInt(3) - 1);
+        }
+    }
+
+    @Benchmark
+    public boolean search() {
+        return pearlDiver.search(transactionTrits, MIN_WEIGHT_MAGNITUDE, numberOfThreads);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean concurrentSearches() {
+        return pearlDiver.search(transactionTrits, MIN_WEIGHT_MAGNITUDE, numberOfThreads);
+    }
+}
@@ -4,10 +4,16 @@ import com.iota.iri.controllers.TransactionViewModelTest;
 import com.iota.iri.model.Hash;
 import com.iota.iri.model.TransactionHash;
 import com.iota.iri.utils.Converter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 import static org.junit.Assert.*;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -40,6 +46,48 @@ public class PearlDiverTest {
         pearlDiver.cancel();
     }
 
+    @Test
+    public void testConcurrentSearches() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Hash>> hashes = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                hashes.add(executor.submit(() -> {
+                    byte[] trits = TransactionViewModelTest.getRandomTransactionTrits();
+                    assertTrue(pearlDiver.search(trits, MIN_WEIGHT_MAGNITUDE, 2));
+                    return TransactionHash.calculate(SpongeFactory.Mode.CURLP81, trits);
+                }));
+            }
+            for (Future<Hash> hash : hashes) {
+                for (int j = Hash.SIZE_IN_TRITS - MIN_WEIGHT_MAGNITUDE; j < Hash.SIZE_IN_TRITS; j++) {
+                    assertEquals(0, hash.get().trits()[j]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue("The hash rate should be measured", PearlDiver.getHashRate() > 0);
+    }
+
+    @Test(timeout = 30_000)
+    public void testCancelRunningSearch() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            byte[] trits = TransactionViewModelTest.getRandomTransactionTrits();
+            //too heavy to be found before it is cancelled
+            Future<Boolean> found = executor.submit(() -> pearlDiver.search(trits, 60, NUM_CORES));
+            //a cancel before the search started would not reach it
+            while (!pearlDiver.isSearching()) {
+                assertFalse("The search should not end before it is cancelled", found.isDone());
+                Thread.sleep(1);
+            }
+            pearlDiver.cancel();
+            assertFalse(found.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Test(expected = RuntimeException.class)
     public void testInvalidMagnitude() {
         pearlDiver.search(new byte[8019], -1, NUM_CORES);
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.alipay.sofa.jraft.entity.AtomicBallot;
+
+/**
+ * The ballots of the pending logs of a leader, in a ring indexed by log index.
+ *
+ * Ballots are only added by one thread at a time, but granted and committed by
+ * all replicator threads concurrently without a lock: the pending index is
+ * advanced by CAS and only increases, and the ring is only replaced by a bigger
+ * copy holding the same ballots, so a grant on a ballot from the replaced ring
+ * is not lost.
+ *
+ * @author boyan (boyan@alibaba-inc.com)
+ */
+class PendingBallotRing {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final class Slot {
+        final long         index;
+        final AtomicBallot ballot;
+
+        Slot(long index, AtomicBallot ballot) {
+            this.index = index;
+            this.ballot = ballot;
+        }
+    }
+
+    private final AtomicLong                     pendingIndex;
+    private volatile long                        tailIndex;
+    private volatile AtomicReferenceArray<Slot> slots;
+
+    PendingBallotRing(long pendingIndex) {
+        this.pendingIndex = new AtomicLong(pendingIndex);
+        this.tailIndex = pendingIndex;
+        this.slots = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns the index of the first pending log.
+     */
+    long getPendingIndex() {
+        return this.pendingIndex.get();
+    }
+
+    /**
+     * Returns the index after the last pending log.
+     */
+    long getTailIndex() {
+        return this.tailIndex;
+    }
+
+    /**
+     * Adds the ballot of the next log, must not be called concurrently.
+     */
+    void add(AtomicBallot ballot) {
+        final long index = this.tailIndex;
+        AtomicReferenceArray<Slot> slots = this.slots;
+        if (index - this.pendingIndex.get() >= slots.length()) {
+            slots = grow(slots);
+        }
+        slots.set(mask(slots, index), new Slot(index, ballot));
+        // publishes the slot
+        this.tailIndex = index + 1;
+    }
+
+    private AtomicReferenceArray<Slot> grow(AtomicReferenceArray<Slot> slots) {
+        final AtomicReferenceArray<Slot> grown = new AtomicReferenceArray<>(slots.length() << 1);
+        for (long i = this.pendingIndex.get(); i < this.tailIndex; i++) {
+            final Slot slot = slots.get(mask(slots, i));
+            if (slot != null && slot.index == i) {
+                grown.set(mask(grown, i), slot);
+            }
+        }
+        this.slots = grown;
+        return grown;
+    }
+
+    /**
+     * Returns the ballot of the log, or null if it is not pending anymore.
+     */
+    AtomicBallot get(long index) {
+        final AtomicReferenceArray<Slot> slots = this.slots;
+        final Slot slot = slots.get(mask(slots, index));
+        return slot != null && slot.index == index ? slot.ballot : null;
+    }
+
+    /**
+     * Commits all logs up to the given index.
+     *
+     * @return true if this call advanced the pending index, false if the logs
+     * have already been committed
+     */
+    boolean commit(long lastCommittedIndex) {
+        long pendingIndex;
+        do {
+            pendingIndex = this.pendingIndex.get();
+            if (lastCommittedIndex < pendingIndex) {
+                return false;
+            }
+        } while (!this.pendingIndex.compareAndSet(pendingIndex, lastCommittedIndex + 1));
+
+        // help gc, a slot that is copied to a grown ring meanwhile is overwritten later.
+        final AtomicReferenceArray<Slot> slots = this.slots;
+        for (long i = pendingIndex; i <= lastCommittedIndex; i++) {
+            final int pos = mask(slots, i);
+            final Slot slot = slots.get(pos);
+            if (slot != null && slot.index == i) {
+                slots.compareAndSet(pos, slot, null);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ballots of the pending logs.
+     */
+    List<AtomicBallot> pendingBallots() {
+        final List<AtomicBallot> ballots = new ArrayList<>();
+        for (long i = this.pendingIndex.get(); i < this.tailIndex; i++) {
+            final AtomicBallot ballot = get(i);
+            if (ballot != null) {
+                ballots.add(ballot);
+            }
+        }
+        return ballots;
+    }
+
+    private static int mask(AtomicReferenceArray<Slot> slots, long index) {
+        return (int) (index & (slots.length() - 1));
+    }
+}
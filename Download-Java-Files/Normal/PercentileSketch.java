@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.indicator;
+
+import java.util.Arrays;
+
+/**
+ * PercentileSketch is a mergeable, fixed-memory histogram with logarithmic buckets, in the way of DDSketch. Every
+ * value is located in the bucket {@code ceil(log(value) / log(gamma))}, with {@code gamma = (1 + a) / (1 - a)}, so any
+ * percentile read from the sketch is within the relative accuracy {@code a} of the real one.
+ *
+ * Counts are kept in one primitive array starting from {@link #offset}. When the range of buckets grows over {@link
+ * #maxBuckets}, the lowest buckets are collapsed into each other, which keeps the high percentiles accurate.
+ *
+ * Value 0 is counted in a dedicated bucket, with key {@link #ZERO_BUCKET} when the sketch is converted into {@link
+ * IntKeyLongValueArray}.
+ *
+ * The converted array starts with two marker elements, {@link #FORMAT_VERSION_KEY} with the {@link #FORMAT_VERSION}, and
+ * {@link #RELATIVE_ACCURACY_KEY} with the relative accuracy in parts per million. An array without the markers is a
+ * detail group persisted before the sketch, keyed by the linear {@code value / precision} buckets, and is converted
+ * when it is added into the sketch.
+ *
+ * @author wusheng
+ */
+public class PercentileSketch {
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final int DEFAULT_MAX_BUCKETS = 2048;
+    public static final int ZERO_BUCKET = -1;
+    public static final int FORMAT_VERSION_KEY = Integer.MIN_VALUE;
+    public static final int RELATIVE_ACCURACY_KEY = Integer.MIN_VALUE + 1;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final double PARTS_PER_MILLION = 1_000_000;
+
+    private static final long[] EMPTY = new long[0];
+
+    private final long relativeAccuracyPpm;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBuckets;
+
+    private long zeroCount;
+    private long[] counts = EMPTY;
+    private int offset;
+    private long total;
+
+    public PercentileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    /**
+     * @param relativeAccuracy in (0, 1), e.g. 0.01 means the percentile is within 1% of the real value.
+     * @param maxBuckets upper bound of the bucket array length, which bounds the memory of the sketch.
+     */
+    public PercentileSketch(double relativeAccuracy, int maxBuckets) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1), but is " + relativeAccuracy);
+        }
+        if (maxBuckets <= 0) {
+            throw new IllegalArgumentException("maxBuckets must be positive, but is " + maxBuckets);
+        }
+        this.relativeAccuracyPpm = Math.round(relativeAccuracy * PARTS_PER_MILLION);
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+    }
+
+    public void add(int value) {
+        add(value, 1);
+    }
+
+    public void add(int value, long count) {
+        if (value <= 0) {
+            zeroCount += count;
+            total += count;
+        } else {
+            addBucket((int)Math.ceil(Math.log(value) / logGamma), count);
+        }
+    }
+
+    /**
+     * Add the count into the bucket directly, used when the sketch is restored from {@link IntKeyLongValueArray}.
+     */
+    public void addBucket(int bucket, long count) {
+        if (bucket == ZERO_BUCKET) {
+            zeroCount += count;
+            total += count;
+            return;
+        }
+
+        if (counts.length == 0) {
+            counts = new long[Math.min(8, maxBuckets)];
+            offset = bucket;
+        }
+        int index = bucket - offset;
+        if (index < 0 || index >= counts.length) {
+            index = extendRange(bucket);
+        }
+        counts[index] += count;
+        total += count;
+    }
+
+    /**
+     * Add all counts of the detail group, which could be in the format of any version.
+     */
+    public void addAll(IntKeyLongValueArray detailGroup) {
+        long formatVersion = 0;
+        long accuracyPpm = relativeAccuracyPpm;
+        for (int i = 0; i < detailGroup.size(); i++) {
+            IntKeyLongValue element = detailGroup.get(i);
+            if (element.getKey() == FORMAT_VERSION_KEY) {
+                formatVersion = element.getValue();
+            } else if (element.getKey() == RELATIVE_ACCURACY_KEY) {
+                accuracyPpm = element.getValue();
+            }
+        }
+        if (formatVersion > FORMAT_VERSION) {
+            throw new IllegalStateException("Unknown percentile detail group format version " + formatVersion);
+        }
+
+        double accuracy = accuracyPpm / PARTS_PER_MILLION;
+        double storedGamma = (1 + accuracy) / (1 - accuracy);
+        for (int i = 0; i < detailGroup.size(); i++) {
+            IntKeyLongValue element = detailGroup.get(i);
+            int key = element.getKey();
+            if (key == FORMAT_VERSION_KEY || key == RELATIVE_ACCURACY_KEY) {
+                continue;
+            }
+            if (formatVersion == 0) {
+                // Linear bucket of the detail groups persisted before the sketch.
+                add(key, element.getValue());
+            } else if (accuracyPpm == relativeAccuracyPpm || key == ZERO_BUCKET) {
+                addBucket(key, element.getValue());
+            } else {
+                add(bucketValue(key, storedGamma), element.getValue());
+            }
+        }
+    }
+
+    public void merge(PercentileSketch sketch) {
+        zeroCount += sketch.zeroCount;
+        total += sketch.zeroCount;
+        for (int i = 0; i < sketch.counts.length; i++) {
+            if (sketch.counts[i] != 0) {
+                addBucket(sketch.offset + i, sketch.counts[i]);
+            }
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void clear() {
+        zeroCount = 0;
+        counts = EMPTY;
+        offset = 0;
+        total = 0;
+    }
+
+    public int percentile(int percentileRank) {
+        return percentiles(percentileRank)[0];
+    }
+
+    /**
+     * Calculate all given percentiles in one pass over the buckets. Like {@link PxxIndicator} always did, the
+     * percentile is the first bucket which makes the accumulated count reach {@code round(total * rank / 100)}.
+     *
+     * @param percentileRanks in [0, 100], in any order.
+     * @return the percentile values, in the same order of the given ranks.
+     */
+    public int[] percentiles(int... percentileRanks) {
+        int[] results = new int[percentileRanks.length];
+        if (total == 0) {
+            return results;
+        }
+
+        int[] order = new int[percentileRanks.length];
+        for (int i = 0; i < order.length; i++) {
+            int j = i;
+            while (j > 0 && percentileRanks[order[j - 1]] > percentileRanks[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+
+        int next = 0;
+        long count = zeroCount;
+        while (zeroCount != 0 && next < order.length && count >= roof(percentileRanks[order[next]])) {
+            results[order[next++]] = 0;
+        }
+        for (int i = 0; i < counts.length && next < order.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            count += counts[i];
+            while (next < order.length && count >= roof(percentileRanks[order[next]])) {
+                results[order[next++]] = bucketValue(offset + i, gamma);
+            }
+        }
+        return results;
+    }
+
+    public IntKeyLongValueArray toIntKeyLongValueArray() {
+        IntKeyLongValueArray detailGroup = new IntKeyLongValueArray(2 + nonEmptyBuckets());
+        detailGroup.add(new IntKeyLongValue(FORMAT_VERSION_KEY, FORMAT_VERSION));
+        detailGroup.add(new IntKeyLongValue(RELATIVE_ACCURACY_KEY, relativeAccuracyPpm));
+        if (zeroCount != 0) {
+            detailGroup.add(new IntKeyLongValue(ZERO_BUCKET, zeroCount));
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                detailGroup.add(new IntKeyLongValue(offset + i, counts[i]));
+            }
+        }
+        return detailGroup;
+    }
+
+    private long roof(int percentileRank) {
+        return Math.round(total * percentileRank * 1.0f / 100);
+    }
+
+    /**
+     * The representative value of the bucket, which is within the relative accuracy to all values in the bucket.
+     */
+    private static int bucketValue(int bucket, double gamma) {
+        return (int)Math.round(2 * Math.pow(gamma, bucket) / (gamma + 1));
+    }
+
+    private int nonEmptyBuckets() {
+        int size = zeroCount == 0 ? 0 : 1;
+        for (long count : counts) {
+            if (count != 0) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Grow the bucket array to include the given bucket, collapse the lowest buckets when the range exceeds {@link
+     * #maxBuckets}.
+     *
+     * @return the index of the given bucket in the array after extending.
+     */
+    private int extendRange(int bucket) {
+        int newLow = Math.min(offset, bucket);
+        int newHigh = Math.max(offset + counts.length - 1, bucket);
+
+        if ((long)newHigh - newLow + 1 > maxBuckets) {
+            newLow = newHigh - maxBuckets + 1;
+        }
+
+        int newLength = Math.min(maxBuckets, Math.max(newHigh - newLow + 1, counts.length * 2));
+        if (newHigh - newLow + 1 < newLength && newLow == offset) {
+            // Keep the headroom at the high end, as the latency mostly grows upward.
+            newHigh = newLow + newLength - 1;
+        } else {
+            newLow = newHigh - newLength + 1;
+        }
+
+        long[] newCounts = new long[newLength];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                int index = Math.max(offset + i, newLow) - newLow;
+                newCounts[index] += counts[i];
+            }
+        }
+        counts = newCounts;
+        offset = newLow;
+        return Math.max(bucket, newLow) - newLow;
+    }
+
+    @Override public String toString() {
+        return "PercentileSketch{total=" + total + ", zeroCount=" + zeroCount + ", offset=" + offset + ", counts=" + Arrays.toString(counts) + '}';
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.oap.server.core.analysis.indicator;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author wusheng
+ */
+public class PercentileSketchTest {
+
+    @Test
+    public void testPercentilesInOnePass() {
+        PercentileSketch sketch = new PercentileSketch();
+        int[] values = {11, 10, 10, 10, 5, 5, 5, 6, 6, 7, 10};
+        for (int value : values) {
+            sketch.add(value);
+        }
+
+        int[] percentiles = sketch.percentiles(99, 75, 50);
+        Assert.assertArrayEquals(new int[] {11, 10, 7}, percentiles);
+        Assert.assertEquals(11, sketch.getTotal());
+    }
+
+    @Test
+    public void testZeroValue() {
+        PercentileSketch sketch = new PercentileSketch();
+        sketch.add(0);
+        sketch.add(0);
+        sketch.add(0);
+        sketch.add(100);
+
+        Assert.assertEquals(0, sketch.percentile(50));
+        Assert.assertEquals(100, sketch.percentile(99));
+    }
+
+    @Test
+    public void testRelativeAccuracyAndMerge() {
+        Random random = new Random(1);
+        int[] values = new int[100000];
+        PercentileSketch left = new PercentileSketch();
+        PercentileSketch right = new PercentileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1000000);
+            if (i % 2 == 0) {
+                left.add(values[i]);
+            } else {
+                right.add(values[i]);
+            }
+        }
+        left.merge(right);
+        Arrays.sort(values);
+
+        int[] percentiles = left.percentiles(50, 90, 99);
+        assertWithinAccuracy(values[49999], percentiles[0]);
+        assertWithinAccuracy(values[89999], percentiles[1]);
+        assertWithinAccuracy(values[98999], percentiles[2]);
+    }
+
+    @Test
+    public void testMaxBucketsKeepsHighPercentiles() {
+        PercentileSketch sketch = new PercentileSketch(PercentileSketch.DEFAULT_RELATIVE_ACCURACY, 64);
+        for (int value = 1; value <= 100000; value++) {
+            sketch.add(value);
+        }
+
+        assertWithinAccuracy(99000, sketch.percentile(99));
+        Assert.assertEquals(100000, sketch.getTotal());
+    }
+
+    @Test
+    public void testRestoreFromIntKeyLongValueArray() {
+        PercentileSketch sketch = new PercentileSketch();
+        sketch.add(0);
+        for (int value = 1; value <= 1000; value++) {
+            sketch.add(value);
+        }
+
+        PercentileSketch restored = new PercentileSketch();
+        restored.addAll(sketch.toIntKeyLongValueArray());
+
+        Assert.assertEquals(sketch.getTotal(), restored.getTotal());
+        Assert.assertArrayEquals(sketch.percentiles(50, 75, 99), restored.percentiles(50, 75, 99));
+    }
+
+    @Test
+    public void testRestoreFromLinearDetailGroup() {
+        // Persisted before the sketch, keyed by value / precision, without the format markers.
+        IntKeyLongValueArray detailGroup = new IntKeyLongValueArray();
+        detailGroup.add(new IntKeyLongValue(5, 3));
+        detailGroup.add(new IntKeyLongValue(6, 2));
+        detailGroup.add(new IntKeyLongValue(10, 5));
+        detailGroup.add(new IntKeyLongValue(11, 1));
+
+        PercentileSketch restored = new PercentileSketch();
+        restored.addAll(detailGroup);
+
+        Assert.assertEquals(11, restored.getTotal());
+        Assert.assertArrayEquals(new int[] {11, 10, 10}, restored.percentiles(99, 75, 50));
+    }
+
+    @Test
+    public void testRestoreFromOtherRelativeAccuracy() {
+        PercentileSketch sketch = new PercentileSketch(0.05, PercentileSketch.DEFAULT_MAX_BUCKETS);
+        for (int value = 1; value <= 1000; value++) {
+            sketch.add(value);
+        }
+        IntKeyLongValueArray detailGroup = sketch.toIntKeyLongValueArray();
+        Assert.assertEquals(PercentileSketch.FORMAT_VERSION_KEY, detailGroup.get(0).getKey());
+        Assert.assertEquals(PercentileSketch.FORMAT_VERSION, detailGroup.get(0).getValue());
+        Assert.assertEquals(PercentileSketch.RELATIVE_ACCURACY_KEY, detailGroup.get(1).getKey());
+        Assert.assertEquals(50000, detailGroup.get(1).getValue());
+
+        PercentileSketch restored = new PercentileSketch();
+        restored.addAll(detailGroup);
+
+        Assert.assertEquals(1000, restored.getTotal());
+        // Within both relative accuracies.
+        Assert.assertEquals(990, restored.percentile(99), 990 * (0.05 + PercentileSketch.DEFAULT_RELATIVE_ACCURACY) + 1);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRejectUnknownFormatVersion() {
+        IntKeyLongValueArray detailGroup = new IntKeyLongValueArray();
+        detailGroup.add(new IntKeyLongValue(PercentileSketch.FORMAT_VERSION_KEY, PercentileSketch.FORMAT_VERSION + 1));
+        new PercentileSketch().addAll(detailGroup);
+    }
+
+    private void assertWithinAccuracy(int expected, int actual) {
+        Assert.assertEquals(expected, actual, expected * PercentileSketch.DEFAULT_RELATIVE_ACCURACY + 1);
+    }
+}
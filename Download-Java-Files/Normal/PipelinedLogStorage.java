@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alipay.sofa.jraft.storage;
+
+import java.util.List;
+
+import com.alipay.sofa.jraft.entity.LogEntry;
+
+/**
+ * Log entry storage that separates the write of entries from making them durable,
+ * so that the next entries can be written while the previous ones are synced.
+ *
+ * @author boyan (boyan@alibaba-inc.com)
+ */
+public interface PipelinedLogStorage extends LogStorage {
+
+    /**
+     * Append entries to log without waiting for them to be durable, return
+     * append success number. The entries are readable but may be lost until
+     * the next {@link #sync()}.
+     */
+    int appendEntriesWithoutSync(List<LogEntry> entries);
+
+    /**
+     * Make all entries appended before durable.
+     */
+    boolean sync();
+}
@@ -25,6 +25,7 @@ public class Preprocessed {
 	private final PPColumn primaryColumn;
 	private final PPColumn[] columns;
 	private final ImportDescriptor descriptor;
+	private final boolean columnar;
 	private long rows = 0;
 	private CDateRange eventRange;
 	private long writtenGroups = 0;
@@ -37,6 +38,7 @@ public class Preprocessed {
 		this.file = descriptor.getInputFile();
 		this.name = descriptor.getName();
 		this.descriptor = descriptor;
+		this.columnar = config.isColumnarBlocks();
 		
 		Input input = descriptor.getInputs()[0];
 		columns = new PPColumn[input.getWidth()];
@@ -122,6 +124,7 @@ public class Preprocessed {
 	
 	public void writeToFile() throws IOException {
 		Import imp = Import.createForPreprocessing(descriptor.getTable(), descriptor.getName(), columns);
+		imp.setColumnar(columnar);
 		
 		for(int entityId = 0; entityId < entries.size(); entityId++) {
 			List<Object[]> events = entries.get(entityId);
@@ -143,6 +146,7 @@ public class Preprocessed {
 				.columns(columns)
 				.groups(writtenGroups)
 				.validityHash(hash)
+				.columnar(columnar)
 				.build();
 		
 		try {
@@ -15,4 +15,8 @@ public class PreprocessingConfig {
 	private PreprocessingDirectories[] directories;
 	@Min(1)
 	private int threads = Runtime.getRuntime().availableProcessors();
+	/**
+	 * write the blocks as {@link com.bakdata.conquery.models.events.ColumnarBlock}s instead of generated block classes
+	 */
+	private boolean columnarBlocks = false;
 }
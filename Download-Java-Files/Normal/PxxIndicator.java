@@ -18,7 +18,6 @@
 
 package org.apache.skywalking.oap.server.core.analysis.indicator;
 
-import java.util.*;
 import lombok.*;
 import org.apache.skywalking.oap.server.core.analysis.indicator.annotation.*;
 import org.apache.skywalking.oap.server.core.query.sql.Function;
@@ -31,6 +30,11 @@ import org.apache.skywalking.oap.server.core.storage.annotation.Column;
  * observations in a group of observations fall. For example, the 20th percentile is the value (or score) below which
  * 20% of the observations may be found.
  *
+ * The observations are kept in a {@link PercentileSketch}, a primitive log-bucket histogram, so combining an indicator
+ * costs no allocation and the percentile is read with one pass over the buckets. {@link #detailGroup} is the storage
+ * and remote format of the sketch, holding only the non-empty buckets, and is rebuilt from the sketch in {@link
+ * #calculate()}. A detail group persisted before the sketch holds linear buckets, it is converted when loaded.
+ *
  * @author wusheng, peng-yongsheng
  */
 public abstract class PxxIndicator extends Indicator implements IntValueHolder {
@@ -40,13 +44,23 @@ public abstract class PxxIndicator extends Indicator implements IntValueHolder {
 
     @Getter @Setter @Column(columnName = VALUE, isValue = true, function = Function.Avg) private int value;
     @Getter @Setter @Column(columnName = PRECISION) private int precision;
-    @Getter @Setter @Column(columnName = DETAIL_GROUP) private IntKeyLongValueArray detailGroup;
+    @Column(columnName = DETAIL_GROUP) private IntKeyLongValueArray detailGroup;
 
     private final int percentileRank;
-    private Map<Integer, IntKeyLongValue> detailIndex;
+    private final PercentileSketch sketch;
+    /**
+     * True when the sketch has been loaded from the {@link #detailGroup}, and is the latest data since then. The
+     * detail group is only the same data again after {@link #calculate()}.
+     */
+    private boolean sketchLoaded;
 
     public PxxIndicator(int percentileRank) {
+        this(percentileRank, PercentileSketch.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public PxxIndicator(int percentileRank, double relativeAccuracy) {
         this.percentileRank = percentileRank;
+        this.sketch = new PercentileSketch(relativeAccuracy, PercentileSketch.DEFAULT_MAX_BUCKETS);
         detailGroup = new IntKeyLongValueArray(30);
     }
 
@@ -54,64 +68,48 @@ public abstract class PxxIndicator extends Indicator implements IntValueHolder {
     public final void combine(@SourceFrom int value, @Arg int precision) {
         this.precision = precision;
 
-        this.indexCheckAndInit();
-
-        int index = value / precision;
-        IntKeyLongValue element = detailIndex.get(index);
-        if (element == null) {
-            element = new IntKeyLongValue();
-            element.setKey(index);
-            element.setValue(1);
-            addElement(element);
-        } else {
-            element.addValue(1);
-        }
+        loadedSketch().add(value / precision);
     }
 
     @Override
     public void combine(Indicator indicator) {
         PxxIndicator pxxIndicator = (PxxIndicator)indicator;
-        this.indexCheckAndInit();
-        pxxIndicator.indexCheckAndInit();
-
-        pxxIndicator.detailIndex.forEach((key, element) -> {
-            IntKeyLongValue existingElement = this.detailIndex.get(key);
-            if (existingElement == null) {
-                existingElement = new IntKeyLongValue();
-                existingElement.setKey(key);
-                existingElement.setValue(element.getValue());
-                addElement(element);
-            } else {
-                existingElement.addValue(element.getValue());
-            }
-        });
+        PercentileSketch sketch = loadedSketch();
+        if (pxxIndicator.sketchLoaded) {
+            sketch.merge(pxxIndicator.sketch);
+        } else {
+            sketch.addAll(pxxIndicator.detailGroup);
+        }
     }
 
+    /**
+     * Calculate the percentile, and write the sketch into {@link #detailGroup}, which is read for storage and remote.
+     */
     @Override
     public final void calculate() {
-        Collections.sort(detailGroup);
-        int total = detailGroup.stream().mapToInt(element -> (int)element.getValue()).sum();
-        int roof = Math.round(total * percentileRank * 1.0f / 100);
+        PercentileSketch sketch = loadedSketch();
+        value = sketch.percentile(percentileRank) * precision;
+        detailGroup = sketch.toIntKeyLongValueArray();
+    }
 
-        int count = 0;
-        for (IntKeyLongValue element : detailGroup) {
-            count += element.getValue();
-            if (count >= roof) {
-                value = element.getKey() * precision;
-                return;
-            }
-        }
+    /**
+     * @return the buckets of the sketch as of the last {@link #calculate()}.
+     */
+    public IntKeyLongValueArray getDetailGroup() {
+        return detailGroup;
     }
 
-    private void addElement(IntKeyLongValue element) {
-        detailGroup.add(element);
-        detailIndex.put(element.getKey(), element);
+    public void setDetailGroup(IntKeyLongValueArray detailGroup) {
+        this.detailGroup = detailGroup;
+        sketchLoaded = false;
     }
 
-    private void indexCheckAndInit() {
-        if (detailIndex == null) {
-            detailIndex = new HashMap<>();
-            detailGroup.forEach(element -> detailIndex.put(element.getKey(), element));
+    private PercentileSketch loadedSketch() {
+        if (!sketchLoaded) {
+            sketch.clear();
+            sketch.addAll(detailGroup);
+            sketchLoaded = true;
         }
+        return sketch;
     }
 }
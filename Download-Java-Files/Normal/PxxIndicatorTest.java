@@ -93,6 +93,46 @@ public class PxxIndicatorTest {
         Assert.assertEquals(70, indicatorMocker.getValue());
     }
 
+    @Test
+    public void combineLinearDetailGroupTest() {
+        // A row persisted before the sketch, keyed by value / precision.
+        IntKeyLongValueArray detailGroup = new IntKeyLongValueArray();
+        detailGroup.add(new IntKeyLongValue(5, 3));
+        detailGroup.add(new IntKeyLongValue(6, 1));
+        detailGroup.add(new IntKeyLongValue(10, 3));
+        PxxIndicatorMocker persisted = new PxxIndicatorMocker(50);
+        persisted.setPrecision(precision);
+        persisted.setDetailGroup(detailGroup);
+
+        PxxIndicatorMocker indicatorMocker = new PxxIndicatorMocker(50);
+        indicatorMocker.combine(61, precision);
+        indicatorMocker.combine(71, precision);
+        indicatorMocker.combine(100, precision);
+        indicatorMocker.combine(110, precision);
+
+        indicatorMocker.combine(persisted);
+        indicatorMocker.calculate();
+
+        Assert.assertEquals(70, indicatorMocker.getValue());
+        Assert.assertEquals(PercentileSketch.FORMAT_VERSION_KEY, indicatorMocker.getDetailGroup().get(0).getKey());
+    }
+
+    @Test
+    public void detailGroupRoundTripTest() {
+        PxxIndicatorMocker indicatorMocker = new PxxIndicatorMocker(99);
+        indicatorMocker.combine(50, precision);
+        indicatorMocker.combine(110, precision);
+        indicatorMocker.calculate();
+
+        PxxIndicatorMocker restored = new PxxIndicatorMocker(99);
+        restored.setPrecision(precision);
+        restored.setDetailGroup(indicatorMocker.getDetailGroup());
+        restored.combine(100, precision);
+        restored.calculate();
+
+        Assert.assertEquals(110, restored.getValue());
+    }
+
     public class PxxIndicatorMocker extends PxxIndicator {
 
         public PxxIndicatorMocker(int percentileRank) {
@@ -50,6 +50,11 @@ public abstract class QPChainNode extends QPNode {
 		child.nextBlock(block);
 	}
 	
+	@Override
+	public void endBlock(Block block) {
+		child.endBlock(block);
+	}
+	
 	@Override
 	public List<QPNode> getChildren() {
 		return Collections.singletonList(child);
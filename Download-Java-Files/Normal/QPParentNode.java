@@ -73,6 +73,13 @@ public abstract class QPParentNode extends QPNode {
 		}
 	}
 	
+	@Override
+	public void endBlock(Block block) {
+		for(QPNode agg:currentTableChildren) {
+			agg.endBlock(block);
+		}
+	}
+	
 	@Override
 	public void nextEvent(Block block, int event) {
 		for(QPNode agg:currentTableChildren) {
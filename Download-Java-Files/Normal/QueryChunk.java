@@ -0,0 +1,52 @@
+package com.bakdata.conquery.models.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import com.bakdata.conquery.models.datasets.Table;
+import com.bakdata.conquery.models.query.entity.Entity;
+import com.bakdata.conquery.models.query.queryplan.QueryPlan;
+import com.bakdata.conquery.models.query.results.EntityResult;
+import com.bakdata.conquery.models.query.results.NotContainedEntityResult;
+import com.bakdata.conquery.models.query.results.ShardResult;
+import com.google.common.base.Stopwatch;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Executes the {@link QueryPart}s of a chunk of neighbouring entities in one task and adds their results to the
+ * {@link ShardResult} as soon as the chunk is done. Entities that are not contained are not added at all.
+ */
+@RequiredArgsConstructor
+public class QueryChunk implements Callable<Integer> {
+
+	private final QueryContext ctx;
+	private final QueryPlan plan;
+	private final Set<Table> requiredTables;
+	private final List<Entity> entities;
+	private final ShardResult result;
+
+	/**
+	 * @return the number of executed entities, which is less than the size of the chunk if the query was cancelled
+	 */
+	@Override
+	public Integer call() throws Exception {
+		Stopwatch timer = Stopwatch.createStarted();
+		List<EntityResult> results = new ArrayList<>();
+		int executed = 0;
+		for(Entity entity : entities) {
+			if(result.isCancelled()) {
+				break;
+			}
+			EntityResult entityResult = new QueryPart(ctx, plan, requiredTables, entity).call();
+			if(!(entityResult instanceof NotContainedEntityResult)) {
+				results.add(entityResult);
+			}
+			executed++;
+		}
+		result.addChunk(results, executed, timer.stop());
+		return executed;
+	}
+}
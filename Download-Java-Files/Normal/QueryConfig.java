@@ -1,5 +1,7 @@
 package com.bakdata.conquery.models.config;
 
+import javax.validation.constraints.Min;
+
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -8,4 +10,9 @@ import lombok.ToString;
 public class QueryConfig {
 
 	private ThreadPoolDefinition executionPool = new ThreadPoolDefinition();
+	/**
+	 * number of neighbouring entities that are executed as one task of the execution pool
+	 */
+	@Min(1)
+	private int entitiesPerTask = 1024;
 }
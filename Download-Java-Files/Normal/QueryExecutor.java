@@ -4,6 +4,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -12,7 +14,6 @@ import com.bakdata.conquery.models.events.BlockManager;
 import com.bakdata.conquery.models.identifiable.ids.specific.ManagedQueryId;
 import com.bakdata.conquery.models.query.entity.Entity;
 import com.bakdata.conquery.models.query.queryplan.QueryPlan;
-import com.bakdata.conquery.models.query.results.EntityResult;
 import com.bakdata.conquery.models.query.results.ShardResult;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -25,25 +26,52 @@ import lombok.extern.slf4j.Slf4j;
 public class QueryExecutor implements Closeable {
 
 	private final ListeningExecutorService pool;
+	private final int entitiesPerTask;
+	/**
+	 * the shards of the queries that are still executing, so that they can be cancelled
+	 */
+	private final Map<ManagedQueryId, ShardResult> executing = new ConcurrentHashMap<>();
 	
 	public QueryExecutor(ConqueryConfig config) {
 		this.pool = config.getQueries().getExecutionPool().createService("Query Executor %d");
+		this.entitiesPerTask = config.getQueries().getEntitiesPerTask();
 	}
 
 	public ShardResult execute(QueryPlanContext context, ManagedQuery query) {
 		QueryPlan plan = query.getQuery().createQueryPlan(context);
-		return execute(
+		ShardResult result = execute(
 				context.getBlockManager(),
 				new QueryContext(
 					context.getWorker().getStorage()
 				),
 				query.getId(),
 				plan,
-				pool
+				pool,
+				entitiesPerTask
 		);
+		executing.put(query.getId(), result);
+		result.getFuture().addListener(() -> executing.remove(query.getId(), result), MoreExecutors.directExecutor());
+		return result;
+	}
+	
+	/**
+	 * Cancels the query if it is still executing on this worker. Its result is then sent as failed.
+	 */
+	public void cancel(ManagedQueryId queryId) {
+		ShardResult result = executing.get(queryId);
+		if(result == null) {
+			log.debug("Query {} is not executing, nothing to cancel", queryId);
+			return;
+		}
+		log.info("Cancelling query {}", queryId);
+		result.cancel();
 	}
 
-	public static ShardResult execute(BlockManager blockManager, QueryContext context, ManagedQueryId queryId, QueryPlan plan, ListeningExecutorService executor) {
+	/**
+	 * Executes the plan for all entities of the block manager. The entities are split into chunks of neighbouring ids,
+	 * each executed as one task, which add their results to the returned {@link ShardResult} as soon as they are done.
+	 */
+	public static ShardResult execute(BlockManager blockManager, QueryContext context, ManagedQueryId queryId, QueryPlan plan, ListeningExecutorService executor, int entitiesPerTask) {
 		Collection<Entity> entries = blockManager.getEntities().values();
 		if(entries.isEmpty()) {
 			log.warn("entries for query {} are empty", queryId);
@@ -51,8 +79,8 @@ public class QueryExecutor implements Closeable {
 		ShardResult result = new ShardResult();
 		result.setQueryId(queryId);
 		
-		List<ListenableFuture<EntityResult>> futures = plan
-			.execute(context, entries)
+		List<ListenableFuture<Integer>> futures = plan
+			.executeChunked(context, entries, entitiesPerTask, result)
 			.map(executor::submit)
 			.collect(Collectors.toList());
 		
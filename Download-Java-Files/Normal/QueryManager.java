@@ -10,6 +10,7 @@ import com.bakdata.conquery.models.auth.subjects.User;
 import com.bakdata.conquery.models.exceptions.JSONException;
 import com.bakdata.conquery.models.identifiable.IdMap;
 import com.bakdata.conquery.models.identifiable.ids.specific.ManagedQueryId;
+import com.bakdata.conquery.models.messages.namespaces.specific.CancelQuery;
 import com.bakdata.conquery.models.messages.namespaces.specific.ExecuteQuery;
 import com.bakdata.conquery.models.query.results.ShardResult;
 import com.bakdata.conquery.models.worker.Namespace;
@@ -79,6 +80,12 @@ public class QueryManager {
 		return query;
 	}
 
+	public void cancelQuery(ManagedQuery query) {
+		for(WorkerInformation worker : namespace.getWorkers()) {
+			worker.send(new CancelQuery(query.getId()));
+		}
+	}
+
 	public void addQueryResult(ShardResult result) {
 		ManagedQuery managedQuery = queries.getOrFail(result.getQueryId());
 		managedQuery.addResult(result);
@@ -38,6 +38,7 @@ public class QueryPart implements Callable<EntityResult> {
 					for(int event = block.size()-1; event >= 0 ; event--) {
 						queryPlan.nextEvent(block, event);
 					}
+					queryPlan.endBlock(block);
 				}
 			}
 	
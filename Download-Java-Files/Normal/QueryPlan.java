@@ -7,6 +7,7 @@ import java.util.stream.Stream;
 
 import com.bakdata.conquery.models.datasets.Table;
 import com.bakdata.conquery.models.events.Block;
+import com.bakdata.conquery.models.query.QueryChunk;
 import com.bakdata.conquery.models.query.QueryContext;
 import com.bakdata.conquery.models.query.QueryPart;
 import com.bakdata.conquery.models.query.entity.Entity;
@@ -14,6 +15,9 @@ import com.bakdata.conquery.models.query.queryplan.aggregators.Aggregator;
 import com.bakdata.conquery.models.query.queryplan.aggregators.specific.SpecialDateUnion;
 import com.bakdata.conquery.models.query.queryplan.clone.CloneContext;
 import com.bakdata.conquery.models.query.results.EntityResult;
+import com.bakdata.conquery.models.query.results.ShardResult;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Streams;
 
 public interface QueryPlan extends EventIterating {
 
@@ -25,16 +29,30 @@ public interface QueryPlan extends EventIterating {
 	QueryPlan clone(CloneContext ctx);
 
 	default Stream<QueryPart> execute(QueryContext context, Collection<Entity> entries) {
-		//collect required tables
-		Set<Table> requiredTables = this.collectRequiredTables()
-			.stream()
-			.map(context.getStorage().getDataset().getTables()::getOrFail)
-			.collect(Collectors.toSet());
+		Set<Table> requiredTables = resolveRequiredTables(context);
 		
 		return entries
 			.stream()
 			.map(entity -> new QueryPart(context, this, requiredTables, entity));
 	}
+	
+	/**
+	 * Like {@link #execute(QueryContext, Collection)} but with one task per chunk of entities, in the order of the given entries.
+	 */
+	default Stream<QueryChunk> executeChunked(QueryContext context, Collection<Entity> entries, int chunkSize, ShardResult result) {
+		Set<Table> requiredTables = resolveRequiredTables(context);
+		
+		return Streams
+			.stream(Iterables.partition(entries, chunkSize))
+			.map(chunk -> new QueryChunk(context, this, requiredTables, chunk, result));
+	}
+	
+	default Set<Table> resolveRequiredTables(QueryContext context) {
+		return this.collectRequiredTables()
+			.stream()
+			.map(context.getStorage().getDataset().getTables()::getOrFail)
+			.collect(Collectors.toSet());
+	}
 
 	EntityResult createResult();
 
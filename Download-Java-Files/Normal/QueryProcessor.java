@@ -10,6 +10,7 @@ import com.bakdata.conquery.models.datasets.Dataset;
 import com.bakdata.conquery.models.exceptions.JSONException;
 import com.bakdata.conquery.models.query.IQuery;
 import com.bakdata.conquery.models.query.ManagedQuery;
+import com.bakdata.conquery.models.query.QueryStatus;
 import com.bakdata.conquery.models.worker.Namespace;
 import com.bakdata.conquery.models.worker.Namespaces;
 
@@ -18,6 +19,11 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class QueryProcessor {
 
+	/**
+	 * The message of a query that was asked to cancel, but whose shards did not report back yet.
+	 */
+	public static final String CANCELLING = "CANCELLING";
+
 	private final Namespaces namespaces;
 	private final MasterMetaStorage storage;
 
@@ -40,8 +46,14 @@ public class QueryProcessor {
 	}
 
 	public SQStatus cancel(Dataset dataset, ManagedQuery query, URLBuilder urlb) {
+		namespaces.get(dataset.getId()).getQueryManager().cancelQuery(query);
 		
-		return null;
+		// The shards report back asynchronously, the outcome is polled with getStatus
+		SQStatus status = SQStatus.buildFromQuery(storage, query, urlb);
+		if(status.getStatus() == QueryStatus.RUNNING) {
+			status.setMessage(CANCELLING);
+		}
+		return status;
 	}
 
 }
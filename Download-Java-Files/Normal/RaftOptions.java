@@ -49,6 +49,17 @@ public class RaftOptions {
     private boolean        replicatorPipeline        = true;
     /** The maximum replicator pipeline in-flight requests/responses, only valid when enable replicator pipeline. */
     private int            maxReplicatorInflightMsgs = 256;
+    /**
+     * Whether to sync the log storage in its own stage, so that the next batch is written while the
+     * previous ones are synced, and one sync covers all batches written meanwhile. Only valid when
+     * the log storage is a {@link com.alipay.sofa.jraft.storage.PipelinedLogStorage}.
+     */
+    private boolean        logStoragePipeline        = false;
+    /**
+     * The maximum number of files a follower downloads at the same time when installing a
+     * snapshot from the leader. The files share the snapshot throttle.
+     */
+    private int            snapshotCopyParallelism   = 1;
     /** Internal disruptor buffers size for Node/FSMCaller/LogManager etc. */
     private int            disruptorBufferSize       = 16384;
 
@@ -90,6 +101,22 @@ public class RaftOptions {
         this.maxReplicatorInflightMsgs = maxReplicatorPiplelinePendingResponses;
     }
 
+    public boolean isLogStoragePipeline() {
+        return this.logStoragePipeline;
+    }
+
+    public void setLogStoragePipeline(boolean logStoragePipeline) {
+        this.logStoragePipeline = logStoragePipeline;
+    }
+
+    public int getSnapshotCopyParallelism() {
+        return this.snapshotCopyParallelism;
+    }
+
+    public void setSnapshotCopyParallelism(int snapshotCopyParallelism) {
+        this.snapshotCopyParallelism = snapshotCopyParallelism;
+    }
+
     public int getDisruptorBufferSize() {
         return this.disruptorBufferSize;
     }
@@ -185,7 +212,8 @@ public class RaftOptions {
                + maxAppendBufferSize + ", maxElectionDelayMs=" + maxElectionDelayMs + ", electionHeartbeatFactor="
                + electionHeartbeatFactor + ", applyBatch=" + applyBatch + ", sync=" + sync + ", syncMeta=" + syncMeta
                + ", replicatorPipeline=" + replicatorPipeline + ", maxReplicatorInflightMsgs="
-               + maxReplicatorInflightMsgs + ", disruptorBufferSize=" + disruptorBufferSize + ", readOnlyOptions="
+               + maxReplicatorInflightMsgs + ", logStoragePipeline=" + logStoragePipeline + ", snapshotCopyParallelism="
+               + snapshotCopyParallelism + ", disruptorBufferSize=" + disruptorBufferSize + ", readOnlyOptions="
                + readOnlyOptions + '}';
     }
 }
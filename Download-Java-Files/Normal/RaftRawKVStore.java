@@ -29,11 +29,15 @@ import com.alipay.sofa.jraft.closure.ReadIndexClosure;
 import com.alipay.sofa.jraft.entity.Task;
 import com.alipay.sofa.jraft.error.RaftError;
 import com.alipay.sofa.jraft.rhea.errors.Errors;
+import com.alipay.sofa.jraft.rhea.metrics.KVMetrics;
 import com.alipay.sofa.jraft.rhea.serialization.Serializers;
 import com.alipay.sofa.jraft.rhea.util.Clock;
 import com.alipay.sofa.jraft.rhea.util.Pair;
 import com.alipay.sofa.jraft.rhea.util.concurrent.DistributedLock;
 import com.alipay.sofa.jraft.util.BytesUtil;
+import com.codahale.metrics.Timer;
+
+import static com.alipay.sofa.jraft.rhea.metrics.KVMetricNames.READ_INDEX_TIMER;
 
 /**
  * KVStore based on RAFT replica state machine.
@@ -47,11 +51,14 @@ public class RaftRawKVStore implements RawKVStore {
     private final Node          node;
     private final RawKVStore    kvStore;
     private final Executor      readIndexExecutor;
+    // the time from a read to its confirmation by 'ReadIndex', per region
+    private final Timer         readIndexTimer;
 
-    public RaftRawKVStore(Node node, RawKVStore kvStore, Executor readIndexExecutor) {
+    public RaftRawKVStore(long regionId, Node node, RawKVStore kvStore, Executor readIndexExecutor) {
         this.node = node;
         this.kvStore = kvStore;
         this.readIndexExecutor = readIndexExecutor;
+        this.readIndexTimer = KVMetrics.timer(READ_INDEX_TIMER, String.valueOf(regionId));
     }
 
     @Override
@@ -70,10 +77,12 @@ public class RaftRawKVStore implements RawKVStore {
             this.kvStore.get(key, false, closure);
             return;
         }
+        final Timer.Context ctx = this.readIndexTimer.time();
         this.node.readIndex(BytesUtil.EMPTY_BYTES, new ReadIndexClosure() {
 
             @Override
             public void run(final Status status, final long index, final byte[] reqCtx) {
+                ctx.stop();
                 if (status.isOk()) {
                     kvStore.get(key, true, closure);
                     return;
@@ -104,10 +113,12 @@ public class RaftRawKVStore implements RawKVStore {
             this.kvStore.multiGet(keys, false, closure);
             return;
         }
+        final Timer.Context ctx = this.readIndexTimer.time();
         this.node.readIndex(BytesUtil.EMPTY_BYTES, new ReadIndexClosure() {
 
             @Override
             public void run(final Status status, final long index, final byte[] reqCtx) {
+                ctx.stop();
                 if (status.isOk()) {
                     kvStore.multiGet(keys, true, closure);
                     return;
@@ -150,10 +161,12 @@ public class RaftRawKVStore implements RawKVStore {
             this.kvStore.scan(startKey, endKey, limit, false, closure);
             return;
         }
+        final Timer.Context ctx = this.readIndexTimer.time();
         this.node.readIndex(BytesUtil.EMPTY_BYTES, new ReadIndexClosure() {
 
             @Override
             public void run(final Status status, final long index, final byte[] reqCtx) {
+                ctx.stop();
                 if (status.isOk()) {
                     kvStore.scan(startKey, endKey, limit, true, closure);
                     return;
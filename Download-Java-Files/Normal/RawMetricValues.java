@@ -8,6 +8,10 @@ import com.linkedin.cruisecontrol.common.WindowIndexedArrays;
 import com.linkedin.cruisecontrol.metricdef.MetricDef;
 import com.linkedin.cruisecontrol.metricdef.MetricInfo;
 import com.linkedin.cruisecontrol.monitor.sampling.MetricSample;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
@@ -25,13 +29,21 @@ import org.slf4j.LoggerFactory;
  *   {@link MetricDef}. It also performs the {@link Extrapolation} if some of the values are missing from the
  *   metrics samples.
  * </p>
+ * <p>
+ *   The values of all the metrics are kept in a single array, one contiguous run of windows per metric id, so an
+ *   entity costs one array instead of a map entry and an array per metric, and the aggregation walks each metric
+ *   with a tight loop over its windows.
+ * </p>
  */
 public class RawMetricValues extends WindowIndexedArrays {
   private static final Logger LOG = LoggerFactory.getLogger(RawMetricValues.class);
   // The minimum required samples for a window to not involve any extrapolation.
   private final int _minSamplesPerWindow;
-  // The metric id to value array mapping. The array is a cyclic buffer. Each array slot represents a window.
-  private final Map<Integer, float[]> _valuesByMetricId;
+  // The values of metric id m are at [m * length(), (m + 1) * length()). Each run is a cyclic buffer and each slot
+  // represents a window. The array is allocated with the first sample, when the metric definition is known.
+  private float[] _values;
+  // A bit set to indicate which metric ids have values.
+  private final BitSet _metricIds;
   // The number of samples per window. The array is a cyclic buffer. Each array slot represents a window.
   private final short[] _counts;
   // A bit set to indicate whether a given window has extrapolation or not.
@@ -55,7 +67,8 @@ public class RawMetricValues extends WindowIndexedArrays {
       throw new IllegalArgumentException("The number of windows should be at least 2 because at least one available"
                                              + " window and one current window are needed.");
     }
-    _valuesByMetricId = new HashMap<>();
+    _values = new float[0];
+    _metricIds = new BitSet();
     _counts = new short[numWindowsToKeep];
     _extrapolations = new BitSet(numWindowsToKeep);
     _validity = new BitSet(numWindowsToKeep);
@@ -79,8 +92,9 @@ public class RawMetricValues extends WindowIndexedArrays {
                                              + "than the current window index " + currentWindowIndex());
     }
     int idx = (int) (windowIndex % _counts.length);
+    ensureCapacity(metricDef.size());
     for (Map.Entry<Integer, Double> entry : sample.allMetricValues().entrySet()) {
-      _valuesByMetricId.computeIfAbsent(entry.getKey(), k -> new float[_counts.length]);
+      _metricIds.set(entry.getKey());
       updateValue(entry.getValue(), metricDef.metricInfo(entry.getKey()), idx);
     }
     _counts[idx]++;
@@ -227,72 +241,163 @@ public class RawMetricValues extends WindowIndexedArrays {
   }
 
   private ValuesAndExtrapolations aggregate(SortedSet<Long> windowIndexes, MetricDef metricDef, boolean checkWindow) {
-    if (_valuesByMetricId.isEmpty()) {
+    if (_metricIds.isEmpty()) {
       return ValuesAndExtrapolations.empty(windowIndexes.size(), metricDef);
     }
-    Map<Integer, MetricValues> aggValues = new HashMap<>();
+    // The extrapolation of a window does not depend on the metric, so resolve the windows once for all the metrics.
+    int numWindows = windowIndexes.size();
+    int[] indexes = new int[numWindows];
+    Extrapolation[] windowExtrapolations = new Extrapolation[numWindows];
     SortedMap<Integer, Extrapolation> extrapolations = new TreeMap<>();
-    for (Map.Entry<Integer, float[]> entry : _valuesByMetricId.entrySet()) {
-      int metricId = entry.getKey();
-      float[] values = entry.getValue();
-      MetricInfo info = metricDef.metricInfo(metricId);
+    int resultIndex = 0;
+    for (long windowIndex : windowIndexes) {
+      // When we query the latest window, we need to skip the window validation because the valid windows do not
+      // include the current active window.
+      if (checkWindow) {
+        validateIndex(windowIndex);
+      }
+      int idx = arrayIndex(windowIndex);
+      indexes[resultIndex] = idx;
+      Extrapolation extrapolation = extrapolation(idx);
+      if (extrapolation != null) {
+        windowExtrapolations[resultIndex] = extrapolation;
+        extrapolations.put(resultIndex, extrapolation);
+      }
+      resultIndex++;
+    }
 
-      MetricValues aggValuesForMetric = new MetricValues(windowIndexes.size());
+    Map<Integer, MetricValues> aggValues = new HashMap<>();
+    for (int metricId = _metricIds.nextSetBit(0); metricId >= 0; metricId = _metricIds.nextSetBit(metricId + 1)) {
+      MetricInfo info = metricDef.metricInfo(metricId);
+      int offset = metricId * _counts.length;
+      MetricValues aggValuesForMetric = new MetricValues(numWindows);
       aggValues.put(metricId, aggValuesForMetric);
-
-      int resultIndex = 0;
-      for (long windowIndex : windowIndexes) {
-        // When we query the latest window, we need to skip the window validation because the valid windows do not
-        // include the current active window.
-        if (checkWindow) {
-          validateIndex(windowIndex);
-        }
-        int idx = arrayIndex(windowIndex);
-        // Sufficient samples
-        if (_counts[idx] >= _minSamplesPerWindow) {
-          aggValuesForMetric.set(resultIndex, getValue(info, idx, values));
-        // Not quite sufficient, but have some available.
-        } else if (_counts[idx] >= halfMinRequiredSamples()) {
-          extrapolations.putIfAbsent(resultIndex, Extrapolation.AVG_AVAILABLE);
-          aggValuesForMetric.set(resultIndex, getValue(info, idx, values));
-        // Not sufficient, check the neighbors. The neighbors only exist when the index is not on the edge, i.e
-        // neither the first nor last index.
-        } else if (idx != firstIdx() && idx != lastIdx()
-            && _counts[prevIdx(idx)] >= _minSamplesPerWindow
-            && _counts[nextIdx(idx)] >= _minSamplesPerWindow) {
-          extrapolations.putIfAbsent(resultIndex, Extrapolation.AVG_ADJACENT);
-          int prevIdx = prevIdx(idx);
-          int nextIdx = nextIdx(idx);
-          double total = _valuesByMetricId.get(metricId)[prevIdx] + (_counts[idx] == 0 ? 0 : _valuesByMetricId.get(metricId)[idx])
-              + _valuesByMetricId.get(metricId)[nextIdx];
-          switch (info.aggregationFunction()) {
-            case AVG:
-              double counts = _counts[prevIdx] + _counts[idx] + _counts[nextIdx];
-              aggValuesForMetric.set(resultIndex, total / counts);
-              break;
-            case MAX: // fall through.
-            case LATEST:
-              // for max and latest, we already only keep the largest or last value.
-              aggValuesForMetric.set(resultIndex, _counts[idx] > 0 ?  total / 3 : total / 2);
-              break;
-            default:
-              throw new IllegalStateException("Should never be here.");
-          }
-        // Neighbor not available, use the insufficient samples.
-        } else if (_counts[idx] > 0) {
-          aggValuesForMetric.set(resultIndex, getValue(info, idx, values));
-          extrapolations.putIfAbsent(resultIndex, Extrapolation.FORCED_INSUFFICIENT);
-        // Nothing is available, just return all 0 and NO_VALID_EXTRAPOLATION.
+      for (int i = 0; i < numWindows; i++) {
+        int idx = indexes[i];
+        Extrapolation extrapolation = windowExtrapolations[i];
+        if (extrapolation == Extrapolation.AVG_ADJACENT) {
+          aggValuesForMetric.set(i, getAvgAdjacentValue(info, idx, offset));
+        } else if (extrapolation == Extrapolation.NO_VALID_EXTRAPOLATION) {
+          // Nothing is available, just return 0.
+          aggValuesForMetric.set(i, 0);
         } else {
-          aggValuesForMetric.set(resultIndex, 0);
-          extrapolations.putIfAbsent(resultIndex, Extrapolation.NO_VALID_EXTRAPOLATION);
+          // Sufficient samples, or the insufficient samples that are available.
+          aggValuesForMetric.set(i, getValue(info, idx, offset));
         }
-        resultIndex++;
       }
     }
     return new ValuesAndExtrapolations(new AggregatedMetricValues(aggValues), extrapolations);
   }
 
+  /**
+   * @return the extrapolation needed for the given array index, or null if it has sufficient samples.
+   */
+  private Extrapolation extrapolation(int idx) {
+    if (_counts[idx] >= _minSamplesPerWindow) {
+      // Sufficient samples
+      return null;
+    } else if (_counts[idx] >= halfMinRequiredSamples()) {
+      // Not quite sufficient, but have some available.
+      return Extrapolation.AVG_AVAILABLE;
+    } else if (idx != firstIdx() && idx != lastIdx()
+        && _counts[prevIdx(idx)] >= _minSamplesPerWindow
+        && _counts[nextIdx(idx)] >= _minSamplesPerWindow) {
+      // Not sufficient, check the neighbors. The neighbors only exist when the index is not on the edge, i.e
+      // neither the first nor last index.
+      return Extrapolation.AVG_ADJACENT;
+    } else if (_counts[idx] > 0) {
+      // Neighbor not available, use the insufficient samples.
+      return Extrapolation.FORCED_INSUFFICIENT;
+    }
+    return Extrapolation.NO_VALID_EXTRAPOLATION;
+  }
+
+  private double getAvgAdjacentValue(MetricInfo info, int idx, int offset) {
+    int prevIdx = prevIdx(idx);
+    int nextIdx = nextIdx(idx);
+    double total = _values[offset + prevIdx] + (_counts[idx] == 0 ? 0 : _values[offset + idx])
+        + _values[offset + nextIdx];
+    switch (info.aggregationFunction()) {
+      case AVG:
+        double counts = _counts[prevIdx] + _counts[idx] + _counts[nextIdx];
+        return total / counts;
+      case MAX: // fall through.
+      case LATEST:
+        // for max and latest, we already only keep the largest or last value.
+        return _counts[idx] > 0 ? total / 3 : total / 2;
+      default:
+        throw new IllegalStateException("Should never be here.");
+    }
+  }
+
+  /**
+   * Write the state of this RawMetricValues to a checkpoint, which can be read back with {@link #readFrom(DataInput)}.
+   * Only the metrics that have values are written.
+   *
+   * @param out the output to write to.
+   * @throws IOException if the output cannot be written.
+   */
+  public synchronized void writeTo(DataOutput out) throws IOException {
+    out.writeInt(_counts.length);
+    out.writeInt(_minSamplesPerWindow);
+    out.writeLong(_oldestWindowIndex);
+    for (short count : _counts) {
+      out.writeShort(count);
+    }
+    writeBitSet(_validity, out);
+    writeBitSet(_extrapolations, out);
+    writeBitSet(_metricIds, out);
+    for (int metricId = _metricIds.nextSetBit(0); metricId >= 0; metricId = _metricIds.nextSetBit(metricId + 1)) {
+      int offset = metricId * _counts.length;
+      for (int i = 0; i < _counts.length; i++) {
+        out.writeFloat(_values[offset + i]);
+      }
+    }
+  }
+
+  /**
+   * Read a RawMetricValues from a checkpoint written by {@link #writeTo(DataOutput)}.
+   *
+   * @param in the input to read from.
+   * @return the RawMetricValues in the checkpoint.
+   * @throws IOException if the input cannot be read.
+   */
+  public static RawMetricValues readFrom(DataInput in) throws IOException {
+    RawMetricValues rawValues = new RawMetricValues(in.readInt(), in.readInt());
+    rawValues._oldestWindowIndex = in.readLong();
+    for (int i = 0; i < rawValues._counts.length; i++) {
+      rawValues._counts[i] = in.readShort();
+    }
+    rawValues._validity.or(readBitSet(in));
+    rawValues._extrapolations.or(readBitSet(in));
+    rawValues._metricIds.or(readBitSet(in));
+    rawValues.ensureCapacity(rawValues._metricIds.length());
+    for (int metricId = rawValues._metricIds.nextSetBit(0); metricId >= 0;
+         metricId = rawValues._metricIds.nextSetBit(metricId + 1)) {
+      int offset = metricId * rawValues._counts.length;
+      for (int i = 0; i < rawValues._counts.length; i++) {
+        rawValues._values[offset + i] = in.readFloat();
+      }
+    }
+    return rawValues;
+  }
+
+  private static void writeBitSet(BitSet bitSet, DataOutput out) throws IOException {
+    long[] words = bitSet.toLongArray();
+    out.writeShort(words.length);
+    for (long word : words) {
+      out.writeLong(word);
+    }
+  }
+
+  private static BitSet readBitSet(DataInput in) throws IOException {
+    long[] words = new long[in.readUnsignedShort()];
+    for (int i = 0; i < words.length; i++) {
+      words[i] = in.readLong();
+    }
+    return BitSet.valueOf(words);
+  }
+
   /**
    * @return the total number of samples added to this RawMetricValues.
    */
@@ -304,16 +409,16 @@ public class RawMetricValues extends WindowIndexedArrays {
     return count;
   }
 
-  private float getValue(MetricInfo info, int index, float[] values) {
+  private float getValue(MetricInfo info, int index, int offset) {
     if (_counts[index] == 0) {
       return 0;
     }
     switch (info.aggregationFunction()) {
       case AVG:
-        return values[index] / _counts[index];
+        return _values[offset + index] / _counts[index];
       case MAX:
       case LATEST:
-        return values[index];
+        return _values[offset + index];
       default:
         throw new IllegalStateException("Should never be here.");
     }
@@ -336,16 +441,23 @@ public class RawMetricValues extends WindowIndexedArrays {
   }
 
   private void add(double newValue, int metricId, int index) {
-    _valuesByMetricId.get(metricId)[index] = (float) (_counts[index] == 0 ? newValue : _valuesByMetricId.get(metricId)[index] + newValue);
+    int i = metricId * _counts.length + index;
+    _values[i] = (float) (_counts[index] == 0 ? newValue : _values[i] + newValue);
   }
 
   private void max(double newValue, int metricId, int index) {
-    _valuesByMetricId.get(metricId)[index] = (float) (_counts[index] == 0 ? newValue : Math.max(
-        _valuesByMetricId.get(metricId)[index], newValue));
+    int i = metricId * _counts.length + index;
+    _values[i] = (float) (_counts[index] == 0 ? newValue : Math.max(_values[i], newValue));
   }
 
   private void latest(double newValue, int metricId, int index) {
-    _valuesByMetricId.get(metricId)[index] = (float) newValue;
+    _values[metricId * _counts.length + index] = (float) newValue;
+  }
+
+  private void ensureCapacity(int numMetrics) {
+    if (_values.length < numMetrics * _counts.length) {
+      _values = Arrays.copyOf(_values, numMetrics * _counts.length);
+    }
   }
 
   private void updateValidityAndExtrapolation(int index) {
@@ -9,6 +9,11 @@ import com.linkedin.cruisecontrol.metricdef.MetricDef;
 import com.linkedin.cruisecontrol.metricdef.MetricInfo;
 import com.linkedin.cruisecontrol.metricdef.AggregationFunction;
 import com.linkedin.cruisecontrol.monitor.sampling.MetricSample;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -276,6 +281,34 @@ public class RawMetricValuesTest {
     assertFalse(rawValues.isExtrapolatedAtWindowIndex(NUM_WINDOWS - 1));
   }
 
+  @Test
+  public void testCheckpoint() throws IOException {
+    RawMetricValues rawValues = new RawMetricValues(NUM_WINDOWS_TO_KEEP, MIN_SAMPLES_PER_WINDOW);
+    prepareWindowMissingAtIndex(rawValues, Arrays.asList(2, 4), 1);
+
+    ByteArrayOutputStream checkpoint = new ByteArrayOutputStream();
+    rawValues.writeTo(new DataOutputStream(checkpoint));
+    RawMetricValues restored =
+        RawMetricValues.readFrom(new DataInputStream(new ByteArrayInputStream(checkpoint.toByteArray())));
+
+    assertEquals(rawValues.numSamples(), restored.numSamples());
+    assertEquals(rawValues.numWindowsWithExtrapolation(), restored.numWindowsWithExtrapolation());
+    for (long windowIndex = 1; windowIndex < NUM_WINDOWS_TO_KEEP; windowIndex++) {
+      assertEquals(rawValues.isValidAtWindowIndex(windowIndex), restored.isValidAtWindowIndex(windowIndex));
+      assertEquals(rawValues.isExtrapolatedAtWindowIndex(windowIndex), restored.isExtrapolatedAtWindowIndex(windowIndex));
+      assertEquals(rawValues.sampleCountsAtWindowIndex(windowIndex), restored.sampleCountsAtWindowIndex(windowIndex));
+    }
+    ValuesAndExtrapolations expected = aggregate(rawValues, allIndexes(1));
+    ValuesAndExtrapolations actual = aggregate(restored, allIndexes(1));
+    assertEquals(expected.extrapolations(), actual.extrapolations());
+    for (int metricId = 0; metricId < _metricDef.size(); metricId++) {
+      for (int i = 0; i < NUM_WINDOWS; i++) {
+        assertEquals(expected.metricValues().valuesFor(metricId).get(i),
+                     actual.metricValues().valuesFor(metricId).get(i), 0);
+      }
+    }
+  }
+
   @Test
   public void testIsValid() {
     RawMetricValues rawValues = new RawMetricValues(NUM_WINDOWS_TO_KEEP, MIN_SAMPLES_PER_WINDOW);
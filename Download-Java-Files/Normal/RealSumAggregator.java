@@ -2,11 +2,13 @@ package com.bakdata.conquery.models.query.queryplan.aggregators.specific.sum;
 
 import com.bakdata.conquery.models.datasets.Column;
 import com.bakdata.conquery.models.events.Block;
+import com.bakdata.conquery.models.events.ColumnarBlock;
 import com.bakdata.conquery.models.externalservice.ResultType;
 import com.bakdata.conquery.models.query.queryplan.aggregators.SingleColumnAggregator;
+import com.bakdata.conquery.models.query.queryplan.aggregators.VectorizedAggregator;
 import com.bakdata.conquery.models.query.queryplan.clone.CloneContext;
 
-public class RealSumAggregator extends SingleColumnAggregator<Double> {
+public class RealSumAggregator extends SingleColumnAggregator<Double> implements VectorizedAggregator<Double> {
 
 
 	private double sum;
@@ -32,6 +34,11 @@ public class RealSumAggregator extends SingleColumnAggregator<Double> {
 		sum += addend;
 	}
 
+	@Override
+	public void aggregateEvents(ColumnarBlock block, int[] events, int length) {
+		sum += block.sumReals(getColumn(), events, length);
+	}
+
 	@Override
 	public Double getAggregationResult() {
 		return sum;
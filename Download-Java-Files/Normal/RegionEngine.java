@@ -129,7 +129,7 @@ public class RegionEngine implements Lifecycle<RegionEngineOptions> {
         if (this.node != null) {
             final RawKVStore rawKVStore = this.storeEngine.getRawKVStore();
             final Executor readIndexExecutor = this.storeEngine.getReadIndexExecutor();
-            this.raftRawKVStore = new RaftRawKVStore(this.node, rawKVStore, readIndexExecutor);
+            this.raftRawKVStore = new RaftRawKVStore(this.region.getId(), this.node, rawKVStore, readIndexExecutor);
             this.metricsRawKVStore = new MetricsRawKVStore(this.region.getId(), this.raftRawKVStore);
             // metrics config
             if (this.regionMetricsReporter == null && metricsReportPeriod > 0) {
@@ -16,11 +16,10 @@
  */
 package com.alipay.sofa.jraft.storage.snapshot.remote;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -120,19 +119,42 @@ public class RemoteFileCopier {
     }
 
     public Session startCopyToFile(String source, String destPath, CopyOptions opts) throws IOException {
+        return startCopyToFile(source, destPath, 0, opts);
+    }
+
+    /**
+     * Copy `source` from remote to local dest, keeping the first `offset` bytes
+     * of an existing dest file and fetching only the rest.
+     *
+     * @param source   source from remote
+     * @param destPath local path
+     * @param offset   the number of bytes already copied to dest
+     * @param opts     options of copy
+     * @return the copy session, or null if dest can't be prepared
+     */
+    public Session startCopyToFile(String source, String destPath, long offset, CopyOptions opts) throws IOException {
         final File file = new File(destPath);
+        final long keep = file.exists() ? Math.min(offset, file.length()) : 0;
 
-        // delete exists file.
-        if (file.exists()) {
+        // delete exists file, it may be a hard link to a file of the last snapshot.
+        if (keep == 0 && file.exists()) {
             if (!file.delete()) {
                 LOG.error("Fail to delete destPath: {}", destPath);
                 return null;
             }
         }
 
-        final OutputStream out = new BufferedOutputStream(new FileOutputStream(file, false));
-        final BoltSession session = newBoltSession(source);
-        session.setOutputStream(out);
+        final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE);
+        try {
+            channel.truncate(keep);
+            channel.position(keep);
+        } catch (final IOException e) {
+            Utils.closeQuietly(channel);
+            throw e;
+        }
+        final BoltSession session = newBoltSession(source, keep);
+        session.setFileChannel(channel);
         session.setDestPath(destPath);
         session.setDestBuf(null);
         if (opts != null) {
@@ -143,9 +165,16 @@ public class RemoteFileCopier {
     }
 
     private BoltSession newBoltSession(String source) {
+        return newBoltSession(source, 0);
+    }
+
+    private BoltSession newBoltSession(String source, long offset) {
         final GetFileRequest.Builder reqBuilder = GetFileRequest.newBuilder();
         reqBuilder.setFilename(source);
         reqBuilder.setReaderId(this.readId);
+        if (offset > 0) {
+            reqBuilder.setOffset(offset);
+        }
         return new BoltSession(this.rpcService, this.timerManager, this.snapshotThrottle, this.raftOptions, reqBuilder,
             this.endpoint);
     }
@@ -16,6 +16,9 @@
  */
 package com.alipay.sofa.jraft.storage.snapshot.remote;
 
+import java.io.File;
+import java.nio.file.Files;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -25,15 +28,22 @@ import org.mockito.Mockito;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import com.alipay.sofa.jraft.core.TimerManager;
+import com.alipay.sofa.jraft.option.CopyOptions;
 import com.alipay.sofa.jraft.option.NodeOptions;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.option.SnapshotCopierOptions;
 import com.alipay.sofa.jraft.rpc.RaftClientService;
+import com.alipay.sofa.jraft.rpc.RpcRequests;
+import com.alipay.sofa.jraft.rpc.RpcResponseClosure;
 import com.alipay.sofa.jraft.util.Endpoint;
+import com.alipay.sofa.jraft.util.Utils;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 
 @RunWith(value = MockitoJUnitRunner.class)
 public class RemoteFileCopierTest {
@@ -65,4 +75,32 @@ public class RemoteFileCopierTest {
         assertFalse(copier.init("remote://localhost:8081/999", null, new SnapshotCopierOptions(rpcService,
             timerManager, new RaftOptions(), new NodeOptions())));
     }
+
+    @Test
+    public void testStartCopyToFileFromOffset() throws Exception {
+        final RaftOptions raftOptions = new RaftOptions();
+        Mockito.when(rpcService.connect(new Endpoint("localhost", 8081))).thenReturn(true);
+        assertTrue(copier.init("remote://localhost:8081/999", null, new SnapshotCopierOptions(rpcService, timerManager,
+            raftOptions, new NodeOptions())));
+
+        final File file = File.createTempFile("remote-file-copier", ".data");
+        try {
+            Files.write(file.toPath(), new byte[10]);
+            final Session session = copier.startCopyToFile("data", file.getAbsolutePath(), 4, null);
+            assertNotNull(session);
+            try {
+                // the bytes after the offset are fetched again
+                assertEquals(4, file.length());
+                final RpcRequests.GetFileRequest request = RpcRequests.GetFileRequest.newBuilder().setReaderId(999)
+                    .setFilename("data").setOffset(4).setCount(raftOptions.getMaxByteCountPerRpc())
+                    .setReadPartly(true).build();
+                Mockito.verify(rpcService).getFile(eq(new Endpoint("localhost", 8081)), eq(request),
+                    eq(new CopyOptions().getTimeoutMs()), any(RpcResponseClosure.class));
+            } finally {
+                Utils.closeQuietly(session);
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.buffer;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.skywalking.apm.commons.datacarrier.callback.QueueBlockingCallback;
+import org.apache.skywalking.apm.commons.datacarrier.common.PaddedAtomicLong;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.DataSlice;
+
+/**
+ * RingBuffer is a preallocated, multiple producers and single consumer ring, the alternative of {@link Buffer}.
+ *
+ * Producers claim a sequence by CAS on the padded producer sequence, then publish the data into the slot. The only
+ * consumer drains the published slots in order into a reusable {@link DataSlice}, and releases them by moving the
+ * padded consumer sequence. Unlike {@link Buffer}, the data are never overwritten before consumed, so {@link
+ * BufferStrategy#OVERRIDE} works as {@link BufferStrategy#IF_POSSIBLE}, the new data are abandoned when the ring is
+ * full.
+ *
+ * @author wusheng
+ */
+public class RingBuffer<T> {
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+    private final PaddedAtomicLong producerSequence = new PaddedAtomicLong(0);
+    private final PaddedAtomicLong consumerSequence = new PaddedAtomicLong(0);
+    private volatile BufferStrategy strategy;
+    private List<QueueBlockingCallback<T>> callbacks;
+
+    /**
+     * @param bufferSize rounded up to the power of 2.
+     */
+    RingBuffer(int bufferSize, BufferStrategy strategy) {
+        int capacity = 1;
+        while (capacity < bufferSize) {
+            capacity <<= 1;
+        }
+        slots = new AtomicReferenceArray<T>(capacity);
+        mask = capacity - 1;
+        this.strategy = strategy;
+        callbacks = new LinkedList<QueueBlockingCallback<T>>();
+    }
+
+    void setStrategy(BufferStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    void addCallback(QueueBlockingCallback<T> callback) {
+        callbacks.add(callback);
+    }
+
+    boolean save(T data) {
+        boolean isFirstTimeBlocking = true;
+        while (true) {
+            long sequence = producerSequence.get();
+            if (sequence - consumerSequence.get() > mask) {
+                if (!BufferStrategy.BLOCKING.equals(strategy)) {
+                    return false;
+                }
+                if (isFirstTimeBlocking) {
+                    isFirstTimeBlocking = false;
+                    for (QueueBlockingCallback<T> callback : callbacks) {
+                        callback.notify(data);
+                    }
+                }
+                try {
+                    Thread.sleep(1L);
+                } catch (InterruptedException e) {
+                }
+                continue;
+            }
+            if (producerSequence.compareAndSet(sequence, sequence + 1)) {
+                slots.lazySet((int)sequence & mask, data);
+                return true;
+            }
+        }
+    }
+
+    public int getBufferSize() {
+        return mask + 1;
+    }
+
+    /**
+     * @return the number of claimed but not consumed slots, only an estimation while producing.
+     */
+    public int size() {
+        return (int)(producerSequence.get() - consumerSequence.get());
+    }
+
+    /**
+     * Move the published data into the slice in order, until the ring is empty, the next slot is claimed but not
+     * published yet, or the slice is full. Must be called by only one consumer thread.
+     *
+     * @return the number of drained data.
+     */
+    public int drainTo(DataSlice<T> slice) {
+        long sequence = consumerSequence.get();
+        int drained = 0;
+        while (!slice.isFull()) {
+            int index = (int)sequence & mask;
+            T data = slots.get(index);
+            if (data == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            slice.add(data);
+            sequence++;
+            drained++;
+        }
+        if (drained > 0) {
+            consumerSequence.lazySet(sequence);
+        }
+        return drained;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.buffer;
+
+import org.apache.skywalking.apm.commons.datacarrier.callback.QueueBlockingCallback;
+import org.apache.skywalking.apm.commons.datacarrier.partition.IDataPartitioner;
+
+/**
+ * RingChannels is the {@link Channels} made of {@link RingBuffer}s. Each ring could only be consumed by one thread.
+ *
+ * @author wusheng
+ */
+public class RingChannels<T> {
+    private final RingBuffer<T>[] bufferChannels;
+    private IDataPartitioner<T> dataPartitioner;
+    private BufferStrategy strategy;
+    private final long size;
+
+    public RingChannels(int channelSize, int bufferSize, IDataPartitioner<T> partitioner, BufferStrategy strategy) {
+        this.dataPartitioner = partitioner;
+        this.strategy = strategy;
+        bufferChannels = new RingBuffer[channelSize];
+        long size = 0;
+        for (int i = 0; i < channelSize; i++) {
+            bufferChannels[i] = new RingBuffer<T>(bufferSize, strategy);
+            size += bufferChannels[i].getBufferSize();
+        }
+        this.size = size;
+    }
+
+    public boolean save(T data) {
+        int retryCountDown = 1;
+        if (!BufferStrategy.BLOCKING.equals(strategy)) {
+            int maxRetryCount = dataPartitioner.maxRetryCount();
+            if (maxRetryCount > 1) {
+                retryCountDown = maxRetryCount;
+            }
+        }
+        for (; retryCountDown > 0; retryCountDown--) {
+            int index = dataPartitioner.partition(bufferChannels.length, data);
+            if (bufferChannels[index].save(data)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void setPartitioner(IDataPartitioner<T> dataPartitioner) {
+        this.dataPartitioner = dataPartitioner;
+    }
+
+    /**
+     * override the strategy at runtime. Same as {@link Channels#setStrategy(BufferStrategy)}, the channels are
+     * overridden one by one.
+     *
+     * @param strategy
+     */
+    public void setStrategy(BufferStrategy strategy) {
+        this.strategy = strategy;
+        for (RingBuffer<T> buffer : bufferChannels) {
+            buffer.setStrategy(strategy);
+        }
+    }
+
+    public int getChannelSize() {
+        return this.bufferChannels.length;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public RingBuffer<T> getBuffer(int index) {
+        return this.bufferChannels[index];
+    }
+
+    public void addCallback(QueueBlockingCallback<T> callback) {
+        for (RingBuffer<T> channel : bufferChannels) {
+            channel.addCallback(callback);
+        }
+    }
+}
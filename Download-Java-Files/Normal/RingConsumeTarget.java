@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.RingBuffer;
+
+/**
+ * RingConsumeTarget drains its {@link RingBuffer}s into one reusable {@link DataSlice}, and passes the slice to the
+ * {@link IConsumer}. It must be consumed by only one thread, the {@link RingConsumerThread} or the {@link
+ * MultipleChannelsConsumer} it is assigned to, so every ring keeps a single consumer.
+ *
+ * @author wusheng
+ */
+class RingConsumeTarget<T> {
+    private final IConsumer<T> consumer;
+    private final List<RingBuffer<T>> dataSources;
+    private final DataSlice<T> slice;
+
+    RingConsumeTarget(IConsumer<T> consumer, int sliceSize) {
+        this.consumer = consumer;
+        this.dataSources = new ArrayList<RingBuffer<T>>();
+        this.slice = new DataSlice<T>(sliceSize);
+    }
+
+    /**
+     * add whole ring to consume. Must be called before the target is consumed.
+     *
+     * @param sourceBuffer
+     */
+    void addDataSource(RingBuffer<T> sourceBuffer) {
+        this.dataSources.add(sourceBuffer);
+    }
+
+    IConsumer<T> getConsumer() {
+        return consumer;
+    }
+
+    boolean consume() {
+        boolean hasData = false;
+        for (int i = 0; i < dataSources.size(); i++) {
+            RingBuffer<T> dataSource = dataSources.get(i);
+            if (dataSource.drainTo(slice) == 0) {
+                continue;
+            }
+            hasData = true;
+            try {
+                if (consumer instanceof IBatchConsumer) {
+                    consumeSlice((IBatchConsumer<T>)consumer);
+                } else {
+                    consumeList();
+                }
+            } finally {
+                slice.clear();
+            }
+        }
+        return hasData;
+    }
+
+    private void consumeSlice(IBatchConsumer<T> batchConsumer) {
+        try {
+            batchConsumer.consume(slice);
+        } catch (Throwable t) {
+            batchConsumer.onError(slice, t);
+        }
+    }
+
+    private void consumeList() {
+        List<T> consumeList = new ArrayList<T>(slice.size());
+        for (int i = 0; i < slice.size(); i++) {
+            consumeList.add(slice.get(i));
+        }
+        try {
+            consumer.consume(consumeList);
+        } catch (Throwable t) {
+            consumer.onError(consumeList, t);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier.consumer;
+
+import java.util.List;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.RingBuffer;
+
+/**
+ * RingConsumerThread is the only consumer of its {@link RingBuffer}s. The data are drained into one {@link DataSlice}
+ * allocated for the whole life of this thread, and passed to {@link IBatchConsumer#consume(DataSlice)}. The plain
+ * {@link IConsumer} still gets a new {@link List} for every batch.
+ *
+ * @author wusheng
+ */
+public class RingConsumerThread<T> extends Thread {
+    private volatile boolean running;
+    private final RingConsumeTarget<T> target;
+    private final long consumeCycle;
+
+    public RingConsumerThread(String threadName, IConsumer<T> consumer, int sliceSize, long consumeCycle) {
+        super(threadName);
+        this.target = new RingConsumeTarget<T>(consumer, sliceSize);
+        this.consumeCycle = consumeCycle;
+    }
+
+    /**
+     * add whole ring to consume. Must be called before this thread starts.
+     *
+     * @param sourceBuffer
+     */
+    public void addDataSource(RingBuffer<T> sourceBuffer) {
+        target.addDataSource(sourceBuffer);
+    }
+
+    @Override
+    public void run() {
+        running = true;
+
+        while (running) {
+            boolean hasData = target.consume();
+
+            if (!hasData) {
+                try {
+                    Thread.sleep(consumeCycle);
+                } catch (InterruptedException e) {
+                }
+            }
+        }
+
+        // consumer thread is going to stop
+        // consume the last time
+        target.consume();
+
+        target.getConsumer().onExit();
+    }
+
+    public void shutdown() {
+        running = false;
+    }
+}
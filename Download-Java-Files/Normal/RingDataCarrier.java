@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier;
+
+import org.apache.skywalking.apm.commons.datacarrier.buffer.*;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.*;
+import org.apache.skywalking.apm.commons.datacarrier.partition.*;
+
+/**
+ * RingDataCarrier is the {@link DataCarrier} based on {@link RingChannels}. Each channel is consumed by one {@link
+ * RingConsumerThread}, so the number of consumer threads is at most the number of channels, or all the channels are
+ * consumed by one thread of a {@link BulkConsumePool}. Consumers implementing {@link IBatchConsumer} receive the
+ * reusable {@link DataSlice}, instead of a new list for every batch.
+ *
+ * @author wusheng
+ */
+public class RingDataCarrier<T> {
+    private final int bufferSize;
+    private final int channelSize;
+    private RingChannels<T> channels;
+    private RingConsumerThread<T>[] consumerThreads;
+    private BulkConsumePool consumerPool;
+    private volatile boolean running;
+    private String name;
+
+    public RingDataCarrier(int channelSize, int bufferSize) {
+        this("DEFAULT", channelSize, bufferSize);
+    }
+
+    public RingDataCarrier(String name, int channelSize, int bufferSize) {
+        this(name, name, channelSize, bufferSize);
+    }
+
+    public RingDataCarrier(String name, String envPrefix, int channelSize, int bufferSize) {
+        this.name = name;
+        this.bufferSize = EnvUtil.getInt(envPrefix + "_BUFFER_SIZE", bufferSize);
+        this.channelSize = EnvUtil.getInt(envPrefix + "_CHANNEL_SIZE", channelSize);
+        channels = new RingChannels<T>(this.channelSize, this.bufferSize, new SimpleRollingPartitioner<T>(), BufferStrategy.BLOCKING);
+    }
+
+    /**
+     * set a new IDataPartitioner. It will cover the current one or default one.(Default is {@link
+     * SimpleRollingPartitioner}
+     *
+     * @param dataPartitioner to partition data into different channel by some rules.
+     * @return RingDataCarrier instance for chain
+     */
+    public RingDataCarrier setPartitioner(IDataPartitioner<T> dataPartitioner) {
+        this.channels.setPartitioner(dataPartitioner);
+        return this;
+    }
+
+    /**
+     * override the strategy at runtime. Notice, {@link RingChannels} will override several channels one by one.
+     *
+     * @param strategy
+     */
+    public RingDataCarrier setBufferStrategy(BufferStrategy strategy) {
+        this.channels.setStrategy(strategy);
+        return this;
+    }
+
+    /**
+     * produce data to buffer, using the givven {@link BufferStrategy}.
+     *
+     * @param data
+     * @return false means produce data failure. The data will not be consumed.
+     */
+    public boolean produce(T data) {
+        if (consumerThreads != null || consumerPool != null) {
+            if (!running) {
+                return false;
+            }
+        }
+
+        return this.channels.save(data);
+    }
+
+    /**
+     * set consumer threads to this Carrier. consumer begin to run when {@link RingDataCarrier#produce} begin to work.
+     *
+     * @param consumer single instance of consumer, all consumer threads will all use this instance.
+     * @param num number of consumer threads, at most the number of channels.
+     * @param consumeCycle sleep time in millis when there is no data.
+     * @return
+     */
+    public synchronized RingDataCarrier consume(IConsumer<T> consumer, int num, long consumeCycle) {
+        checkNotPooled();
+        shutdownConsumers();
+
+        num = Math.max(1, Math.min(num, channels.getChannelSize()));
+        consumer.init();
+        RingConsumerThread<T>[] threads = new RingConsumerThread[num];
+        for (int i = 0; i < num; i++) {
+            threads[i] = new RingConsumerThread<T>("DataCarrier." + name + ".RingConsumer." + i + ".Thread", consumer, channels.getBuffer(0).getBufferSize(), consumeCycle);
+            threads[i].setDaemon(true);
+        }
+        for (int channelIndex = 0; channelIndex < channels.getChannelSize(); channelIndex++) {
+            threads[channelIndex % num].addDataSource(channels.getBuffer(channelIndex));
+        }
+        for (RingConsumerThread<T> thread : threads) {
+            thread.start();
+        }
+        consumerThreads = threads;
+        running = true;
+        return this;
+    }
+
+    /**
+     * set consumer threads to this Carrier, with 20 millis consume cycle.
+     *
+     * @param consumer single instance of consumer, all consumer threads will all use this instance.
+     * @param num number of consumer threads, at most the number of channels.
+     * @return
+     */
+    public RingDataCarrier consume(IConsumer<T> consumer, int num) {
+        return this.consume(consumer, num, 20);
+    }
+
+    /**
+     * Set a consumer pool to consume the channels of this RingDataCarrier. All the channels are consumed by one thread
+     * of the pool, which could be shared with other carriers.
+     *
+     * @param consumerPool
+     * @param consumer
+     * @return
+     */
+    public synchronized RingDataCarrier consume(BulkConsumePool consumerPool, IConsumer<T> consumer) {
+        checkNotPooled();
+        shutdownConsumers();
+
+        consumer.init();
+        consumerPool.add(this.name, channels, consumer);
+        consumerPool.begin();
+        this.consumerPool = consumerPool;
+        running = true;
+        return this;
+    }
+
+    /**
+     * A ring must have only one consumer, and the channels could not be taken back from the pool threads.
+     */
+    private void checkNotPooled() {
+        if (consumerPool != null) {
+            throw new IllegalStateException("The channels of " + name + " are consumed by a pool already.");
+        }
+    }
+
+    /**
+     * shutdown all consumer threads, and wait for them to consume the left data. Notice {@link BufferStrategy}: if
+     * {@link BufferStrategy} == {@link BufferStrategy#BLOCKING}, shutdown consumers maybe cause blocking when
+     * producing.
+     */
+    public synchronized void shutdownConsumers() {
+        if (consumerPool != null) {
+            running = false;
+            consumerPool.close();
+            return;
+        }
+        if (consumerThreads == null) {
+            return;
+        }
+        running = false;
+        for (RingConsumerThread<T> thread : consumerThreads) {
+            thread.shutdown();
+        }
+        for (RingConsumerThread<T> thread : consumerThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
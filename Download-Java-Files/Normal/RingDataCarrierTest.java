@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package org.apache.skywalking.apm.commons.datacarrier;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.BufferStrategy;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.RingBuffer;
+import org.apache.skywalking.apm.commons.datacarrier.buffer.RingChannels;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.DataSlice;
+import org.apache.skywalking.apm.commons.datacarrier.consumer.IBatchConsumer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.powermock.api.support.membermodification.MemberModifier;
+
+/**
+ * @author wusheng
+ */
+public class RingDataCarrierTest {
+    @Test
+    public void testProduceAndDrain() throws IllegalAccessException {
+        RingDataCarrier<SampleData> carrier = new RingDataCarrier<SampleData>(2, 100);
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(carrier.produce(new SampleData().setName("d" + i)));
+        }
+
+        RingChannels<SampleData> channels = (RingChannels<SampleData>)(MemberModifier.field(RingDataCarrier.class, "channels").get(carrier));
+        RingBuffer<SampleData> buffer1 = channels.getBuffer(0);
+        RingBuffer<SampleData> buffer2 = channels.getBuffer(1);
+        Assert.assertEquals(128, buffer1.getBufferSize());
+
+        DataSlice<SampleData> slice = new DataSlice<SampleData>(buffer1.getBufferSize());
+        Assert.assertEquals(2, buffer1.drainTo(slice));
+        Assert.assertEquals("d0", slice.get(0).getName());
+        Assert.assertEquals("d2", slice.get(1).getName());
+        slice.clear();
+        Assert.assertEquals(2, buffer2.drainTo(slice));
+        Assert.assertEquals(0, buffer1.size());
+        Assert.assertEquals(0, buffer2.size());
+    }
+
+    @Test
+    public void testIfPossibleProduce() {
+        RingDataCarrier<SampleData> carrier = new RingDataCarrier<SampleData>(2, 100);
+        carrier.setBufferStrategy(BufferStrategy.IF_POSSIBLE);
+
+        int success = 0;
+        for (int i = 0; i < 500; i++) {
+            if (carrier.produce(new SampleData().setName("d" + i))) {
+                success++;
+            }
+        }
+        Assert.assertEquals(256, success);
+    }
+
+    @Test
+    public void testMultipleProducersWithBatchConsumer() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 10000;
+        final RingDataCarrier<SampleData> carrier = new RingDataCarrier<SampleData>(2, 128);
+        final AtomicInteger consumed = new AtomicInteger(0);
+        final CountDownLatch done = new CountDownLatch(producers * perProducer);
+        carrier.consume(new IBatchConsumer<SampleData>() {
+            @Override public void consume(DataSlice<SampleData> data) {
+                consumed.addAndGet(data.size());
+                for (int i = 0; i < data.size(); i++) {
+                    done.countDown();
+                }
+            }
+
+            @Override public void onError(DataSlice<SampleData> data, Throwable t) {
+            }
+
+            @Override public void init() {
+            }
+
+            @Override public void consume(List<SampleData> data) {
+                Assert.fail("IBatchConsumer should receive the slice.");
+            }
+
+            @Override public void onError(List<SampleData> data, Throwable t) {
+            }
+
+            @Override public void onExit() {
+            }
+        }, 2, 1);
+
+        for (int p = 0; p < producers; p++) {
+            new Thread() {
+                @Override public void run() {
+                    for (int i = 0; i < perProducer; i++) {
+                        carrier.produce(new SampleData().setName("d" + i));
+                    }
+                }
+            }.start();
+        }
+
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        carrier.shutdownConsumers();
+        Assert.assertEquals(producers * perProducer, consumed.get());
+    }
+}
@@ -50,7 +50,7 @@ import com.alipay.sofa.jraft.entity.EnumOutter.EntryType;
 import com.alipay.sofa.jraft.entity.LogEntry;
 import com.alipay.sofa.jraft.entity.LogId;
 import com.alipay.sofa.jraft.option.RaftOptions;
-import com.alipay.sofa.jraft.storage.LogStorage;
+import com.alipay.sofa.jraft.storage.PipelinedLogStorage;
 import com.alipay.sofa.jraft.util.Bits;
 import com.alipay.sofa.jraft.util.StorageOptionsFactory;
 import com.alipay.sofa.jraft.util.Utils;
@@ -62,7 +62,7 @@ import com.alipay.sofa.jraft.util.Utils;
  *
  * 2018-Apr-06 7:27:47 AM
  */
-public class RocksDBLogStorage implements LogStorage {
+public class RocksDBLogStorage implements PipelinedLogStorage {
 
     private static final Logger LOG = LoggerFactory.getLogger(RocksDBLogStorage.class);
 
@@ -87,6 +87,7 @@ public class RocksDBLogStorage implements LogStorage {
     private RocksDB                         db;
     private DBOptions                       dbOptions;
     private WriteOptions                    writeOptions;
+    private WriteOptions                    noSyncWriteOptions;
     private final List<ColumnFamilyOptions> cfOptions     = new ArrayList<>();
     private ColumnFamilyHandle              defaultHandle;
     private ColumnFamilyHandle              confHandle;
@@ -140,6 +141,8 @@ public class RocksDBLogStorage implements LogStorage {
 
             this.writeOptions = new WriteOptions();
             this.writeOptions.setSync(this.sync);
+            this.noSyncWriteOptions = new WriteOptions();
+            this.noSyncWriteOptions.setSync(false);
             this.totalOrderReadOptions = new ReadOptions();
             this.totalOrderReadOptions.setTotalOrderSeek(true);
 
@@ -197,6 +200,8 @@ public class RocksDBLogStorage implements LogStorage {
                     if (Arrays.equals(FIRST_LOG_IDX_KEY, ks)) {
                         setFirstLogIndex(Bits.getLong(bs, 0));
                         this.truncatePrefixInBackground(0L, this.firstLogIndex);
+                    } else if (Arrays.equals(SYNC_KEY, ks)) {
+                        // only written to sync the WAL
                     } else {
                         LOG.warn("Unknown entry in configuration storage key={}, value={}", Arrays.toString(ks),
                             Arrays.toString(bs));
@@ -217,6 +222,11 @@ public class RocksDBLogStorage implements LogStorage {
      */
     public static final byte[] FIRST_LOG_IDX_KEY = Utils.getBytes("meta/firstLogIndex");
 
+    /**
+     * Key in configuration column family, that is written with sync to sync all writes before.
+     */
+    private static final byte[] SYNC_KEY          = Utils.getBytes("meta/sync");
+
     /**
      * Save the first log index into conf column family.
      */
@@ -254,10 +264,20 @@ public class RocksDBLogStorage implements LogStorage {
      * @param template write batch template
      */
     private boolean executeBatch(WriteBatchTemplate template) {
+        return executeBatch(this.writeOptions, template);
+    }
+
+    /**
+     * Execute write batch template with the given write options.
+     *
+     * @param options  write options
+     * @param template write batch template
+     */
+    private boolean executeBatch(WriteOptions options, WriteBatchTemplate template) {
         readLock.lock();
         try (final WriteBatch batch = new WriteBatch()) {
             template.execute(batch);
-            this.db.write(this.writeOptions, batch);
+            this.db.write(options, batch);
         } catch (final RocksDBException e) {
             LOG.error("Execute rocksdb operation failed", e);
             return false;
@@ -280,12 +300,14 @@ public class RocksDBLogStorage implements LogStorage {
             }
             // 3. close options
             this.writeOptions.close();
+            this.noSyncWriteOptions.close();
             this.totalOrderReadOptions.close();
             // 4. help gc.
             this.cfOptions.clear();
             this.db = null;
             this.totalOrderReadOptions = null;
             this.writeOptions = null;
+            this.noSyncWriteOptions = null;
             this.defaultHandle = null;
             this.confHandle = null;
         } finally {
@@ -414,11 +436,38 @@ public class RocksDBLogStorage implements LogStorage {
 
     @Override
     public int appendEntries(List<LogEntry> entries) {
+        return appendEntries(this.writeOptions, entries);
+    }
+
+    @Override
+    public int appendEntriesWithoutSync(List<LogEntry> entries) {
+        return appendEntries(this.noSyncWriteOptions, entries);
+    }
+
+    @Override
+    public boolean sync() {
+        if (!this.sync) {
+            return true;
+        }
+        readLock.lock();
+        try {
+            // A synced write syncs the WAL with all unsynced writes before.
+            this.db.put(this.confHandle, this.writeOptions, SYNC_KEY, SYNC_KEY);
+            return true;
+        } catch (final RocksDBException e) {
+            LOG.error("Fail to sync log storage", e);
+            return false;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private int appendEntries(WriteOptions options, List<LogEntry> entries) {
         if (entries == null || entries.isEmpty()) {
             return 0;
         }
         final int entriesCount = entries.size();
-        final boolean ret = this.executeBatch(batch -> {
+        final boolean ret = this.executeBatch(options, batch -> {
             for (int i = 0; i < entriesCount; i++) {
                 final LogEntry entry = entries.get(i);
                 if (entry.getType() == EntryType.ENTRY_TYPE_CONFIGURATION) {
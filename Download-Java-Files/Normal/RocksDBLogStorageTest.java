@@ -178,4 +178,24 @@ public class RocksDBLogStorageTest extends BaseStorageTest {
             }
         }
     }
+
+    @Test
+    public void testAppendEntriesWithoutSync() {
+        List<LogEntry> entries = TestUtils.mockEntries();
+
+        assertEquals(10, ((RocksDBLogStorage) this.logStorage).appendEntriesWithoutSync(entries));
+        assertTrue(((RocksDBLogStorage) this.logStorage).sync());
+        assertEquals(9, this.logStorage.getLastLogIndex());
+
+        //reload log storage.
+        this.logStorage.shutdown();
+        this.logStorage = new RocksDBLogStorage(path, new RaftOptions());
+        this.logStorage.init(this.confManager);
+
+        assertEquals(0, this.logStorage.getFirstLogIndex());
+        assertEquals(9, this.logStorage.getLastLogIndex());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(entries.get(i), this.logStorage.getEntry(i));
+        }
+    }
 }
@@ -19,10 +19,13 @@
 package org.apache.skywalking.oap.server.core.alarm.provider;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
 import org.apache.skywalking.oap.server.core.alarm.AlarmMessage;
 import org.apache.skywalking.oap.server.core.alarm.MetaInAlarm;
@@ -46,6 +49,10 @@ import org.slf4j.LoggerFactory;
 public class RunningRule {
     private static final Logger logger = LoggerFactory.getLogger(RunningRule.class);
     private static DateTimeFormatter TIME_BUCKET_FORMATTER = DateTimeFormat.forPattern("yyyyMMddHHmm");
+    /**
+     * Windows are only checked in shards when each shard has at least this number of windows.
+     */
+    private static final int MIN_WINDOWS_PER_SHARD = 512;
 
     private String ruleName;
     private int period;
@@ -139,9 +146,53 @@ public class RunningRule {
      * Check the conditions, decide to whether trigger alarm.
      */
     public List<AlarmMessage> check() {
+        return check(windows.entrySet());
+    }
+
+    /**
+     * Check the conditions like {@link #check()}, with the windows sharded by the entity across the given executor.
+     * Each window is always checked by one shard, so no lock is needed.
+     *
+     * @param executor to run the shards, or null to check in the current thread.
+     * @param shardCount the max number of shards.
+     */
+    public List<AlarmMessage> check(ExecutorService executor, int shardCount) {
+        shardCount = Math.min(shardCount, windows.size() / MIN_WINDOWS_PER_SHARD);
+        if (executor == null || shardCount <= 1) {
+            return check();
+        }
+
+        List<List<Map.Entry<MetaInAlarm, Window>>> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>(windows.size() / shardCount + 1));
+        }
+        for (Map.Entry<MetaInAlarm, Window> entry : windows.entrySet()) {
+            shards.get((entry.getKey().hashCode() & Integer.MAX_VALUE) % shardCount).add(entry);
+        }
+
+        List<Future<List<AlarmMessage>>> futures = new ArrayList<>(shardCount);
+        for (List<Map.Entry<MetaInAlarm, Window>> shard : shards) {
+            futures.add(executor.submit(() -> check(shard)));
+        }
+
+        List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
+        for (Future<List<AlarmMessage>> future : futures) {
+            try {
+                alarmMessageList.addAll(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while checking the rule " + ruleName, e);
+            } catch (ExecutionException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+        return alarmMessageList;
+    }
+
+    private List<AlarmMessage> check(Collection<Map.Entry<MetaInAlarm, Window>> entries) {
         List<AlarmMessage> alarmMessageList = new ArrayList<>(30);
 
-        windows.entrySet().forEach(entry -> {
+        entries.forEach(entry -> {
             MetaInAlarm meta = entry.getKey();
             Window window = entry.getValue();
             AlarmMessage alarmMessage = window.checkAlarm();
@@ -159,10 +210,61 @@ public class RunningRule {
         return alarmMessageList;
     }
 
+    /**
+     * @return true if the value of the indicator matches the threshold by the rule op.
+     */
+    private boolean matchThreshold(Indicator indicator) {
+        switch (valueType) {
+            case LONG:
+                long lvalue = ((LongValueHolder)indicator).getValue();
+                long lexpected = threshold.getLongThreshold();
+                switch (op) {
+                    case GREATER:
+                        return lvalue > lexpected;
+                    case LESS:
+                        return lvalue < lexpected;
+                    case EQUAL:
+                        return lvalue == lexpected;
+                }
+                break;
+            case INT:
+                int ivalue = ((IntValueHolder)indicator).getValue();
+                int iexpected = threshold.getIntThreshold();
+                switch (op) {
+                    case LESS:
+                        return ivalue < iexpected;
+                    case GREATER:
+                        return ivalue > iexpected;
+                    case EQUAL:
+                        return ivalue == iexpected;
+                }
+                break;
+            case DOUBLE:
+                double dvalue = ((DoubleValueHolder)indicator).getValue();
+                double dexpected = threshold.getDoubleThreadhold();
+                switch (op) {
+                    case EQUAL:
+                        // NOTICE: double equal is not reliable in Java,
+                        // match result is not predictable
+                        return dvalue == dexpected;
+                    case GREATER:
+                        return dvalue > dexpected;
+                    case LESS:
+                        return dvalue < dexpected;
+                }
+                break;
+        }
+        return false;
+    }
+
     /**
      * A indicator window, based on {@link AlarmRule#period}. This window slides with time, just keeps the recent
      * N(period) buckets.
      *
+     * Each bucket only keeps whether its value matches the threshold, in a primitive ring, and the number of the
+     * matched buckets is maintained when a value is added or a bucket slides out. So adding a value and checking the
+     * window are O(1), rather than scanning the whole window.
+     *
      * @author wusheng
      */
     public class Window {
@@ -171,7 +273,12 @@ public class RunningRule {
         private int counter;
         private int silenceCountdown;
 
-        private LinkedList<Indicator> values;
+        /**
+         * The ring of matching results, {@link #head} is the bucket of {@link #endTime}.
+         */
+        private boolean[] matches;
+        private int head;
+        private volatile int matchCount;
         private ReentrantLock lock = new ReentrantLock();
 
         public Window(int period) {
@@ -193,13 +300,16 @@ public class RunningRule {
                     if (minutes <= 0) {
                         return;
                     }
-                    if (minutes > values.size()) {
+                    if (minutes >= period) {
                         // re-init
                         init();
                     } else {
                         for (int i = 0; i < minutes; i++) {
-                            values.removeFirst();
-                            values.addLast(null);
+                            head = (head + 1) % period;
+                            if (matches[head]) {
+                                matches[head] = false;
+                                matchCount--;
+                            }
                         }
                     }
                     endTime = current;
@@ -214,26 +324,27 @@ public class RunningRule {
 
             LocalDateTime timebucket = TIME_BUCKET_FORMATTER.parseLocalDateTime(bucket + "");
 
-            int minutes = Minutes.minutesBetween(timebucket, endTime).getMinutes();
-            if (minutes == -1) {
-                this.moveTo(timebucket);
-
-            }
+            boolean match = matchThreshold(indicator);
 
             lock.lock();
             try {
+                int minutes = Minutes.minutesBetween(timebucket, endTime).getMinutes();
                 if (minutes < 0) {
                     moveTo(timebucket);
                     minutes = 0;
                 }
 
-                if (minutes >= values.size()) {
+                if (minutes >= period) {
                     // too old data
                     // also should happen, but maybe if agent/probe mechanism time is not right.
                     return;
                 }
 
-                values.set(values.size() - minutes - 1, indicator);
+                int index = (head - minutes + period) % period;
+                if (matches[index] != match) {
+                    matches[index] = match;
+                    matchCount += match ? 1 : -1;
+                }
             } finally {
                 lock.unlock();
             }
@@ -267,81 +378,14 @@ public class RunningRule {
         }
 
         private boolean isMatch() {
-            int matchCount = 0;
-            for (Indicator indicator : values) {
-                if (indicator == null) {
-                    continue;
-                }
-
-                switch (valueType) {
-                    case LONG:
-                        long lvalue = ((LongValueHolder)indicator).getValue();
-                        long lexpected = RunningRule.this.threshold.getLongThreshold();
-                        switch (op) {
-                            case GREATER:
-                                if (lvalue > lexpected)
-                                    matchCount++;
-                                break;
-                            case LESS:
-                                if (lvalue < lexpected)
-                                    matchCount++;
-                                break;
-                            case EQUAL:
-                                if (lvalue == lexpected)
-                                    matchCount++;
-                                break;
-                        }
-                        break;
-                    case INT:
-                        int ivalue = ((IntValueHolder)indicator).getValue();
-                        int iexpected = RunningRule.this.threshold.getIntThreshold();
-                        switch (op) {
-                            case LESS:
-                                if (ivalue < iexpected)
-                                    matchCount++;
-                                break;
-                            case GREATER:
-                                if (ivalue > iexpected)
-                                    matchCount++;
-                                break;
-                            case EQUAL:
-                                if (ivalue == iexpected)
-                                    matchCount++;
-                                break;
-                        }
-                        break;
-                    case DOUBLE:
-                        double dvalue = ((DoubleValueHolder)indicator).getValue();
-                        double dexpected = RunningRule.this.threshold.getDoubleThreadhold();
-                        switch (op) {
-                            case EQUAL:
-                                // NOTICE: double equal is not reliable in Java,
-                                // match result is not predictable
-                                if (dvalue == dexpected)
-                                    matchCount++;
-                                break;
-                            case GREATER:
-                                if (dvalue > dexpected)
-                                    matchCount++;
-                                break;
-                            case LESS:
-                                if (dvalue < dexpected)
-                                    matchCount++;
-                                break;
-                        }
-                        break;
-                }
-            }
-
             // Reach the threshold in current bucket.
             return matchCount >= countThreshold;
         }
 
         private void init() {
-            values = new LinkedList();
-            for (int i = 0; i < period; i++) {
-                values.add(null);
-            }
+            matches = new boolean[period];
+            head = period - 1;
+            matchCount = 0;
         }
     }
 }
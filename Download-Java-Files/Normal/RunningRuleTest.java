@@ -19,6 +19,8 @@
 package org.apache.skywalking.oap.server.core.alarm.provider;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.apache.skywalking.oap.server.core.alarm.*;
 import org.apache.skywalking.oap.server.core.analysis.indicator.*;
 import org.apache.skywalking.oap.server.core.remote.grpc.proto.RemoteData;
@@ -58,11 +60,13 @@ public class RunningRuleTest {
         RunningRule.Window window = windows.get(getMetaInAlarm(123));
         LocalDateTime endTime = Whitebox.getInternalState(window, "endTime");
         int period = Whitebox.getInternalState(window, "period");
-        LinkedList<Indicator> indicatorBuffer = Whitebox.getInternalState(window, "values");
+        boolean[] matches = Whitebox.getInternalState(window, "matches");
+        int matchCount = Whitebox.getInternalState(window, "matchCount");
 
         Assert.assertTrue(startTime.equals(endTime));
         Assert.assertEquals(15, period);
-        Assert.assertEquals(15, indicatorBuffer.size());
+        Assert.assertEquals(15, matches.length);
+        Assert.assertEquals(1, matchCount);
     }
 
     @Test
@@ -101,6 +105,38 @@ public class RunningRuleTest {
         Assert.assertEquals("Successful rate of endpoint Service_123 is lower than 75%", alarmMessages.get(0).getAlarmMessage());
     }
 
+    @Test
+    public void testShardedCheck() {
+        AlarmRule alarmRule = new AlarmRule();
+        alarmRule.setAlarmRuleName("endpoint_percent_rule");
+        alarmRule.setIndicatorName("endpoint_percent");
+        alarmRule.setOp("<");
+        alarmRule.setThreshold("75");
+        alarmRule.setCount(3);
+        alarmRule.setPeriod(15);
+        alarmRule.setMessage("Successful rate of endpoint {name} is lower than 75%");
+
+        RunningRule runningRule = new RunningRule(alarmRule);
+
+        int entities = 2000;
+        for (int id = 0; id < entities; id++) {
+            runningRule.in(getMetaInAlarm(id), getIndicator(201808301434L, 70));
+            runningRule.in(getMetaInAlarm(id), getIndicator(201808301436L, 71));
+            runningRule.in(getMetaInAlarm(id), getIndicator(201808301438L, 74));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Assert.assertEquals(0, runningRule.check(executor, 4).size());
+            runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808301441"));
+            Assert.assertEquals(0, runningRule.check(executor, 4).size());
+            runningRule.moveTo(TIME_BUCKET_FORMATTER.parseLocalDateTime("201808301442"));
+            Assert.assertEquals(entities, runningRule.check(executor, 4).size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testNoAlarm() {
         AlarmRule alarmRule = new AlarmRule();
@@ -15,22 +15,26 @@ public class SampleLoadingTask implements Runnable {
   private final KafkaPartitionMetricSampleAggregator _partitionMetricSampleAggregator;
   private final KafkaBrokerMetricSampleAggregator _brokerMetricSampleAggregator;
   private final LoadMonitorTaskRunner _loadMonitorTaskRunner;
+  private final boolean _loadPartitionSamples;
 
   SampleLoadingTask(SampleStore sampleStore,
                     KafkaPartitionMetricSampleAggregator partitionMetricSampleAggregator,
                     KafkaBrokerMetricSampleAggregator brokerMetricSampleAggregator,
-                    LoadMonitorTaskRunner loadMonitorTaskRunner) {
+                    LoadMonitorTaskRunner loadMonitorTaskRunner,
+                    boolean loadPartitionSamples) {
     _sampleStore = sampleStore;
     _partitionMetricSampleAggregator = partitionMetricSampleAggregator;
     _brokerMetricSampleAggregator = brokerMetricSampleAggregator;
     _loadMonitorTaskRunner = loadMonitorTaskRunner;
+    _loadPartitionSamples = loadPartitionSamples;
   }
 
   @Override
   public void run() {
     try {
       _sampleStore.loadSamples(new SampleStore.SampleLoader(_partitionMetricSampleAggregator,
-                                                            _brokerMetricSampleAggregator));
+                                                            _brokerMetricSampleAggregator,
+                                                            _loadPartitionSamples));
       ModelParameters.updateModelCoefficient();
     } finally {
       // The sample loading task is run before the load monitor starts.
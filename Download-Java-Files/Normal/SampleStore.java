@@ -53,16 +53,30 @@ public interface SampleStore extends CruiseControlConfigurable {
   class SampleLoader {
     private final KafkaPartitionMetricSampleAggregator _partitionMetricSampleAggregator;
     private final KafkaBrokerMetricSampleAggregator _brokerMetricSampleAggregator;
+    private final boolean _loadPartitionSamples;
 
     public SampleLoader(KafkaPartitionMetricSampleAggregator partitionMetricSampleAggregator,
                         KafkaBrokerMetricSampleAggregator brokerMetricSampleAggregator) {
+      this(partitionMetricSampleAggregator, brokerMetricSampleAggregator, true);
+    }
+
+    /**
+     * @param loadPartitionSamples false to skip the partition samples, e.g. because the partition metric sample
+     *                             aggregator was restored from a checkpoint which has them already.
+     */
+    public SampleLoader(KafkaPartitionMetricSampleAggregator partitionMetricSampleAggregator,
+                        KafkaBrokerMetricSampleAggregator brokerMetricSampleAggregator,
+                        boolean loadPartitionSamples) {
       _partitionMetricSampleAggregator = partitionMetricSampleAggregator;
       _brokerMetricSampleAggregator = brokerMetricSampleAggregator;
+      _loadPartitionSamples = loadPartitionSamples;
     }
 
     public void loadSamples(MetricSampler.Samples samples) {
-      for (PartitionMetricSample sample : samples.partitionMetricSamples()) {
-        _partitionMetricSampleAggregator.addSample(sample, false);
+      if (_loadPartitionSamples) {
+        for (PartitionMetricSample sample : samples.partitionMetricSamples()) {
+          _partitionMetricSampleAggregator.addSample(sample, false);
+        }
       }
       for (BrokerMetricSample sample : samples.brokerMetricSamples()) {
         _brokerMetricSampleAggregator.addSample(sample);
@@ -70,6 +84,13 @@ public interface SampleStore extends CruiseControlConfigurable {
       ModelParameters.addMetricObservation(samples.brokerMetricSamples());
     }
 
+    /**
+     * @return false if the partition samples are skipped, so the sample store does not need to read them at all.
+     */
+    public boolean loadPartitionSamples() {
+      return _loadPartitionSamples;
+    }
+
     public long partitionSampleCount() {
       return _partitionMetricSampleAggregator.numSamples();
     }
@@ -43,13 +43,14 @@ public class SegmentStandardizationWorker extends AbstractWorker<SegmentStandard
 
     public SegmentStandardizationWorker(ModuleDefineHolder moduleDefineHolder,
         SegmentParse.Producer segmentParseCreator, String path, int offsetFileMaxSize,
-        int dataFileMaxSize, boolean cleanWhenRestart, boolean isV6) throws IOException {
+        int dataFileMaxSize, boolean cleanWhenRestart, boolean memoryMapped, boolean isV6) throws IOException {
         super(moduleDefineHolder);
 
         BufferStream.Builder<UpstreamSegment> builder = new BufferStream.Builder<>(path);
         builder.cleanWhenRestart(cleanWhenRestart);
         builder.dataFileMaxSize(dataFileMaxSize);
         builder.offsetFileMaxSize(offsetFileMaxSize);
+        builder.memoryMapped(memoryMapped);
         builder.parser(UpstreamSegment.parser());
         builder.callBack(segmentParseCreator);
 
@@ -4,7 +4,9 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import com.bakdata.conquery.io.mina.MessageSender;
 import com.bakdata.conquery.models.identifiable.ids.specific.ManagedQueryId;
@@ -12,6 +14,7 @@ import com.bakdata.conquery.models.messages.namespaces.NamespaceMessage;
 import com.bakdata.conquery.models.messages.namespaces.specific.CollectQueryResult;
 import com.bakdata.conquery.models.query.IQuery;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.Uninterruptibles;
 
@@ -28,20 +31,74 @@ public class ShardResult {
 	private LocalDateTime startTime = LocalDateTime.now();
 	private LocalDateTime finishTime;
 	@JsonIgnore
-	private ListenableFuture<List<EntityResult>> future;
+	private ListenableFuture<?> future;
+	@JsonIgnore
+	private volatile boolean cancelled = false;
+	@JsonIgnore
+	private int executedChunks = 0;
+	@JsonIgnore
+	private long executedEntities = 0;
+	@JsonIgnore
+	private long chunkTimeNanos = 0;
+	@JsonIgnore
+	private long maxChunkTimeNanos = 0;
 	
 	public synchronized void addResult(EntityResult result) {
 		results.add(result);
 	}
+	
+	/**
+	 * Adds the results of one executed {@link com.bakdata.conquery.models.query.QueryChunk} together with its timing.
+	 * Chunks that complete after the shard was cancelled or finished are dropped, the results may already be sent.
+	 */
+	public synchronized void addChunk(List<EntityResult> chunkResults, int entities, Stopwatch timer) {
+		if(cancelled || finishTime != null) {
+			return;
+		}
+		results.addAll(chunkResults);
+		long nanos = timer.elapsed(TimeUnit.NANOSECONDS);
+		executedChunks++;
+		executedEntities += entities;
+		chunkTimeNanos += nanos;
+		maxChunkTimeNanos = Math.max(maxChunkTimeNanos, nanos);
+	}
+	
+	/**
+	 * Stops the execution, chunks that are already running stop before their next entity.
+	 * The shard is then reported as failed, so that its partial results are not taken for a complete one.
+	 */
+	public void cancel() {
+		cancelled = true;
+		if(future != null) {
+			future.cancel(false);
+		}
+	}
 
 	public synchronized void finish() {
 		if(finishTime == null) {
 			try {
-				results = new ArrayList<>(Uninterruptibles.getUninterruptibly(future));
-				finishTime = LocalDateTime.now();
-				log.info("Finished query {} with {} results within {}", queryId, results.size(), Duration.between(startTime, finishTime));
+				Uninterruptibles.getUninterruptibly(future);
 			} catch (ExecutionException e) {
 				log.error("Failed query "+queryId, e);
+				results.add(EntityResult.failed(-1, e.getCause()));
+			} catch (CancellationException e) {
+				cancelled = true;
+			}
+			if(cancelled) {
+				log.info("Cancelled query {}", queryId);
+				results.add(EntityResult.failed(-1, new CancellationException("Query " + queryId + " was cancelled")));
+			}
+			finishTime = LocalDateTime.now();
+			log.info("Finished query {} with {} results within {}", queryId, results.size(), Duration.between(startTime, finishTime));
+			if(executedChunks > 0) {
+				log.debug(
+					"Query {} executed {} entities in {} chunks, {} avg and {} max per chunk",
+					queryId,
+					executedEntities,
+					executedChunks,
+					Duration.ofNanos(chunkTimeNanos / executedChunks),
+					Duration.ofNanos(maxChunkTimeNanos)
+				);
 			}
 		}
 	}
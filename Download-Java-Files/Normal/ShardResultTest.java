@@ -0,0 +1,40 @@
+package com.bakdata.conquery.models.query.results;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.Futures;
+
+public class ShardResultTest {
+
+	@Test
+	public void chunkAfterCancelIsDropped() {
+		ShardResult result = new ShardResult();
+		result.setFuture(Futures.immediateFuture(null));
+		result.addChunk(Collections.singletonList(EntityResult.failed(1, new IllegalStateException())), 1, Stopwatch.createStarted());
+
+		result.cancel();
+		result.addChunk(Collections.singletonList(EntityResult.failed(2, new IllegalStateException())), 1, Stopwatch.createStarted());
+		assertThat(result.getExecutedChunks()).isEqualTo(1);
+		assertThat(result.getResults()).hasSize(1);
+
+		result.finish();
+		// the chunk result and the cancellation
+		assertThat(result.getResults()).hasSize(2);
+	}
+
+	@Test
+	public void chunkAfterFinishIsDropped() {
+		ShardResult result = new ShardResult();
+		result.setFuture(Futures.immediateFuture(null));
+		result.finish();
+
+		result.addChunk(Collections.singletonList(EntityResult.failed(1, new IllegalStateException())), 1, Stopwatch.createStarted());
+		assertThat(result.getExecutedChunks()).isEqualTo(0);
+		assertThat(result.getResults()).isEmpty();
+	}
+}
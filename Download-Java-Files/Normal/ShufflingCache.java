@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 ConsenSys AG.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+package tech.pegasys.artemis.datastructures.util;
+
+import com.google.common.primitives.UnsignedLong;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import net.consensys.cava.bytes.Bytes32;
+import tech.pegasys.artemis.datastructures.state.Validator;
+
+/**
+ * The committees of the shufflings of recent epochs, by shuffling seed and epoch. A shuffling is
+ * only reused while the active validator indices it was computed for are the same.
+ *
+ * <p>One cache is shared by a {@link
+ * tech.pegasys.artemis.datastructures.state.BeaconStateWithCache} and all of its copies.
+ */
+public final class ShufflingCache {
+
+  // The previous, current and next epoch of a few competing chains.
+  private static final int MAX_SHUFFLINGS = 16;
+
+  private static final ExecutorService PRECOMPUTE_EXECUTOR =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "shuffling-precompute");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final Map<Key, CompletableFuture<Shuffling>> shufflings =
+      new LinkedHashMap<Key, CompletableFuture<Shuffling>>(MAX_SHUFFLINGS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<Shuffling>> eldest) {
+          return size() > MAX_SHUFFLINGS;
+        }
+      };
+
+  /**
+   * Returns the committees of the shuffling, computing them only if they are not cached yet. Waits
+   * for the shuffling if it is being precomputed.
+   *
+   * @param seed - A shuffling seed.
+   * @param validators - The validator registry.
+   * @param epoch - Epoch under consideration.
+   * @return The committees of validator indices, which must not be modified.
+   */
+  public int[][] get_committees(Bytes32 seed, List<Validator> validators, UnsignedLong epoch) {
+    int[] active_validator_indices =
+        BeaconStateUtil.get_active_validator_index_array(validators, epoch);
+    Key key = new Key(seed, epoch);
+    CompletableFuture<Shuffling> cached;
+    synchronized (shufflings) {
+      cached = shufflings.get(key);
+    }
+    if (cached != null) {
+      try {
+        Shuffling shuffling = cached.join();
+        if (Arrays.equals(shuffling.active_validator_indices, active_validator_indices)) {
+          return shuffling.committees;
+        }
+      } catch (CompletionException e) {
+        // Computed again below, so the caller gets the exception.
+      }
+    }
+    Shuffling shuffling = new Shuffling(seed, active_validator_indices);
+    synchronized (shufflings) {
+      shufflings.put(key, CompletableFuture.completedFuture(shuffling));
+    }
+    return shuffling.committees;
+  }
+
+  /**
+   * Computes the committees of the shuffling in the background, unless they are already cached.
+   *
+   * @param seed - A shuffling seed.
+   * @param validators - The validator registry, only read before returning.
+   * @param epoch - Epoch under consideration.
+   */
+  public void precompute(Bytes32 seed, List<Validator> validators, UnsignedLong epoch) {
+    int[] active_validator_indices =
+        BeaconStateUtil.get_active_validator_index_array(validators, epoch);
+    Key key = new Key(seed, epoch);
+    synchronized (shufflings) {
+      if (!shufflings.containsKey(key)) {
+        shufflings.put(
+            key,
+            CompletableFuture.supplyAsync(
+                () -> new Shuffling(seed, active_validator_indices), PRECOMPUTE_EXECUTOR));
+      }
+    }
+  }
+
+  private static final class Shuffling {
+    private final int[] active_validator_indices;
+    private final int[][] committees;
+
+    private Shuffling(Bytes32 seed, int[] active_validator_indices) {
+      this.active_validator_indices = active_validator_indices;
+      this.committees = BeaconStateUtil.compute_committees(seed, active_validator_indices);
+    }
+  }
+
+  private static final class Key {
+    private final Bytes32 seed;
+    private final UnsignedLong epoch;
+
+    private Key(Bytes32 seed, UnsignedLong epoch) {
+      this.seed = seed;
+      this.epoch = epoch;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return seed.equals(other.seed) && epoch.equals(other.epoch);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(seed, epoch);
+    }
+  }
+}
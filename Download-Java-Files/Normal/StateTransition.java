@@ -223,6 +223,14 @@ public class StateTransition {
           "State root after finalUpdates(): " + HashTreeUtil.hash_tree_root(state.toBytes()),
           printEnabled);
       EpochProcessorUtil.finalUpdates(state);
+
+      // Shuffle the committees of the new epoch while waiting for its first slot.
+      state
+          .getShufflingCache()
+          .precompute(
+              state.getCurrent_shuffling_seed(),
+              state.getValidator_registry(),
+              state.getCurrent_shuffling_epoch());
     } catch (EpochProcessingException e) {
       LOG.log(Level.WARN, "  Epoch processing error: " + e, printEnabled);
     }
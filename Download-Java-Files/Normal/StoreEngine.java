@@ -55,6 +55,7 @@ import com.alipay.sofa.jraft.rhea.storage.KVClosureAdapter;
 import com.alipay.sofa.jraft.rhea.storage.KVOperation;
 import com.alipay.sofa.jraft.rhea.storage.KVStoreClosure;
 import com.alipay.sofa.jraft.rhea.storage.MemoryRawKVStore;
+import com.alipay.sofa.jraft.rhea.storage.OffHeapMemoryRawKVStore;
 import com.alipay.sofa.jraft.rhea.storage.RocksRawKVStore;
 import com.alipay.sofa.jraft.rhea.storage.StorageType;
 import com.alipay.sofa.jraft.rhea.util.Constants;
@@ -633,9 +634,10 @@ public class StoreEngine implements Lifecycle<StoreEngineOptions> {
             memoryOpts = new MemoryDBOptions();
             opts.setMemoryDBOptions(memoryOpts);
         }
-        final MemoryRawKVStore memoryRawKVStore = new MemoryRawKVStore();
+        final MemoryRawKVStore memoryRawKVStore = memoryOpts.isOffHeap() ? new OffHeapMemoryRawKVStore()
+            : new MemoryRawKVStore();
         if (!memoryRawKVStore.init(memoryOpts)) {
-            LOG.error("Fail to init [MemoryRawKVStore].");
+            LOG.error("Fail to init [{}].", memoryRawKVStore.getClass().getSimpleName());
             return false;
         }
         this.rawKVStore = memoryRawKVStore;
@@ -92,6 +92,14 @@ public interface StreamingDataflowWorkerOptions extends DataflowWorkerHarnessOpt
 
   void setWindmillServiceStreamingRpcBatchLimit(int value);
 
+  @Description(
+      "The maximum weight of the cache of per-key state, in megabytes. Defaults to a fifth of the "
+          + "maximum heap size, and to at least 100 MB.")
+  @Default.InstanceFactory(StateCacheMbFactory.class)
+  int getStateCacheMb();
+
+  void setStateCacheMb(int value);
+
   /**
    * Factory for creating local Windmill address. Reads from system propery 'windmill.hostport' for
    * backwards compatibility.
@@ -189,4 +197,21 @@ public interface StreamingDataflowWorkerOptions extends DataflowWorkerHarnessOpt
       return streamingOptions.isEnableStreamingEngine() ? Integer.MAX_VALUE : 1;
     }
   }
+
+  /**
+   * Sizes the state cache to a fifth of the maximum heap size, or to 100 MB if the heap size is
+   * unknown or smaller than 500 MB.
+   */
+  static class StateCacheMbFactory implements DefaultValueFactory<Integer> {
+    private static final int MIN_STATE_CACHE_MB = 100;
+
+    @Override
+    public Integer create(PipelineOptions options) {
+      long maxMemory = Runtime.getRuntime().maxMemory();
+      if (maxMemory == Long.MAX_VALUE) {
+        return MIN_STATE_CACHE_MB;
+      }
+      return (int) Math.max(MIN_STATE_CACHE_MB, (maxMemory >> 20) / 5);
+    }
+  }
 }
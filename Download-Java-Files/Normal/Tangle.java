@@ -3,6 +3,7 @@ package com.iota.iri.storage;
 import com.iota.iri.conf.BaseIotaConfig;
 import com.iota.iri.model.Hash;
 import com.iota.iri.storage.localinmemorygraph.LocalInMemoryGraphProvider;
+import com.iota.iri.storage.tangleindex.TangleIndexProvider;
 import com.iota.iri.model.StateDiff;
 import com.iota.iri.model.persistables.*;
 import com.iota.iri.utils.Pair;
@@ -51,6 +52,12 @@ public class Tangle {
                     return prov;
                 }
             }
+        } else if(provider.equals("TANGLE_INDEX")) {
+            for(PersistenceProvider prov : this.persistenceProviders) {
+                if(prov.getClass().equals(TangleIndexProvider.class)) {
+                    return prov;
+                }
+            }
         }
         return null;
     }
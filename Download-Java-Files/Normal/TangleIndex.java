@@ -0,0 +1,246 @@
+package com.iota.iri.storage.tangleindex;
+
+import com.iota.iri.model.Hash;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the approvals in the tangle, so that tip selection can walk it over primitive arrays instead of
+ * loading the approvers of every transaction from the database.
+ *
+ * Every hash gets a dense int id when it is first seen, either as a stored transaction or as the trunk or branch of
+ * one. The trunk and branch of a transaction are kept in int arrays by id. The approvers are kept as forward-star
+ * lists: the first approver edge of every id, and the approver and the next edge of every edge. Like a CSR layout
+ * this needs no object per edge, but a new transaction is added in constant time without rebuilding the arrays.
+ *
+ * Additions and removals hold the write lock. Readers walking the arrays with the id and edge accessors should hold
+ * {@link #readLock()}, {@link #id(Hash)} and {@link #hash(int)} take it themselves.
+ */
+public class TangleIndex {
+
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private final Map<Hash, Integer> ids = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Hash[] hashes = new Hash[INITIAL_CAPACITY];
+    // NONE until the transaction itself is added
+    private int[] trunks = newIds(INITIAL_CAPACITY);
+    private int[] branches = newIds(INITIAL_CAPACITY);
+    private int[] firstApproverEdges = newIds(INITIAL_CAPACITY);
+    private int[] approverCounts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private int[] edgeApprovers = new int[2 * INITIAL_CAPACITY];
+    private int[] nextEdges = new int[2 * INITIAL_CAPACITY];
+    private int edgeCount;
+
+    /**
+     * Adds a transaction and its approvals.
+     *
+     * @return false if the transaction was already added
+     */
+    public boolean add(Hash hash, Hash trunk, Hash branch) {
+        lock.writeLock().lock();
+        try {
+            int id = getOrCreateId(hash);
+            if (trunks[id] != NONE) {
+                return false;
+            }
+            int trunkId = getOrCreateId(trunk);
+            int branchId = getOrCreateId(branch);
+            trunks[id] = trunkId;
+            branches[id] = branchId;
+            addApprover(trunkId, id);
+            if (branchId != trunkId) {
+                addApprover(branchId, id);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the approvals of a transaction. Its id is kept, as other transactions may still reference it, and it is
+     * no longer {@link #isStored(int) stored}.
+     *
+     * @return false if the transaction was not added
+     */
+    public boolean remove(Hash hash) {
+        lock.writeLock().lock();
+        try {
+            Integer id = ids.get(hash);
+            if (id == null || trunks[id] == NONE) {
+                return false;
+            }
+            removeApprover(trunks[id], id);
+            if (branches[id] != trunks[id]) {
+                removeApprover(branches[id], id);
+            }
+            trunks[id] = NONE;
+            branches[id] = NONE;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            Arrays.fill(hashes, 0, size, null);
+            Arrays.fill(trunks, 0, size, NONE);
+            Arrays.fill(branches, 0, size, NONE);
+            Arrays.fill(firstApproverEdges, 0, size, NONE);
+            Arrays.fill(approverCounts, 0, size, 0);
+            size = 0;
+            edgeCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * @return the id of the hash, or {@link #NONE} if it was never seen
+     */
+    public int id(Hash hash) {
+        lock.readLock().lock();
+        try {
+            Integer id = ids.get(hash);
+            return id == null ? NONE : id;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Hash hash(int id) {
+        lock.readLock().lock();
+        try {
+            return hashes[id];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of ids, which are {@code 0} to {@code size() - 1}
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the transaction itself was added, and not only referenced by another one
+     */
+    public boolean isStored(int id) {
+        return trunks[id] != NONE;
+    }
+
+    public int trunk(int id) {
+        return trunks[id];
+    }
+
+    public int branch(int id) {
+        return branches[id];
+    }
+
+    public int approverCount(int id) {
+        return approverCounts[id];
+    }
+
+    /**
+     * @return the first approver edge of the transaction, or {@link #NONE} if it has no approvers
+     */
+    public int firstApproverEdge(int id) {
+        return firstApproverEdges[id];
+    }
+
+    /**
+     * @return the approver edge after the given one, or {@link #NONE} if it was the last
+     */
+    public int nextApproverEdge(int edge) {
+        return nextEdges[edge];
+    }
+
+    public int approver(int edge) {
+        return edgeApprovers[edge];
+    }
+
+    private int getOrCreateId(Hash hash) {
+        Integer id = ids.get(hash);
+        if (id != null) {
+            return id;
+        }
+        if (size == hashes.length) {
+            int capacity = size << 1;
+            hashes = Arrays.copyOf(hashes, capacity);
+            trunks = copyOfIds(trunks, capacity);
+            branches = copyOfIds(branches, capacity);
+            firstApproverEdges = copyOfIds(firstApproverEdges, capacity);
+            approverCounts = Arrays.copyOf(approverCounts, capacity);
+        }
+        hashes[size] = hash;
+        ids.put(hash, size);
+        return size++;
+    }
+
+    private void addApprover(int approvee, int approver) {
+        //the genesis approves itself
+        if (approvee == approver) {
+            return;
+        }
+        if (edgeCount == edgeApprovers.length) {
+            edgeApprovers = Arrays.copyOf(edgeApprovers, edgeCount << 1);
+            nextEdges = Arrays.copyOf(nextEdges, edgeCount << 1);
+        }
+        edgeApprovers[edgeCount] = approver;
+        nextEdges[edgeCount] = firstApproverEdges[approvee];
+        firstApproverEdges[approvee] = edgeCount++;
+        approverCounts[approvee]++;
+    }
+
+    /**
+     * Unlinks the edge of the approver from the approvers of the approvee. The edge itself is not reused.
+     */
+    private void removeApprover(int approvee, int approver) {
+        int previous = NONE;
+        for (int edge = firstApproverEdges[approvee]; edge != NONE; edge = nextEdges[edge]) {
+            if (edgeApprovers[edge] == approver) {
+                if (previous == NONE) {
+                    firstApproverEdges[approvee] = nextEdges[edge];
+                } else {
+                    nextEdges[previous] = nextEdges[edge];
+                }
+                approverCounts[approvee]--;
+                return;
+            }
+            previous = edge;
+        }
+    }
+
+    private static int[] newIds(int capacity) {
+        int[] ids = new int[capacity];
+        Arrays.fill(ids, NONE);
+        return ids;
+    }
+
+    private static int[] copyOfIds(int[] ids, int capacity) {
+        int length = ids.length;
+        int[] copy = Arrays.copyOf(ids, capacity);
+        Arrays.fill(copy, length, capacity, NONE);
+        return copy;
+    }
+}
@@ -0,0 +1,210 @@
+package com.iota.iri.storage.tangleindex;
+
+import com.iota.iri.controllers.TransactionViewModel;
+import com.iota.iri.model.Hash;
+import com.iota.iri.model.TransactionHash;
+import com.iota.iri.model.persistables.Transaction;
+import com.iota.iri.storage.Indexable;
+import com.iota.iri.storage.Persistable;
+import com.iota.iri.storage.PersistenceProvider;
+import com.iota.iri.storage.Tangle;
+import com.iota.iri.utils.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Keeps a {@link TangleIndex} of the transactions in the tangle up to date. It is filled from the other providers on
+ * {@link #init()}, so it has to be added after them, and then updated with every transaction saved or deleted.
+ */
+public class TangleIndexProvider implements PersistenceProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(TangleIndexProvider.class);
+
+    private final Tangle tangle;
+    private final TangleIndex index = new TangleIndex();
+    private volatile boolean available;
+
+    public TangleIndexProvider(Tangle tangle) {
+        this.tangle = tangle;
+    }
+
+    public TangleIndex getIndex() {
+        return index;
+    }
+
+    @Override
+    public void init() throws Exception {
+        long start = System.currentTimeMillis();
+        Pair<Indexable, Persistable> one = tangle.getFirst(Transaction.class, TransactionHash.class);
+        while (one != null && one.low != null) {
+            add((Hash) one.low, (Transaction) one.hi);
+            one = tangle.next(Transaction.class, one.low);
+        }
+        available = true;
+        log.info("Indexed {} transactions in {} ms", index.size(), System.currentTimeMillis() - start);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public void shutdown() {
+        available = false;
+        index.clear();
+    }
+
+    @Override
+    public boolean save(Persistable model, Indexable index) throws Exception {
+        return false;
+    }
+
+    @Override
+    public void delete(Class<?> model, Indexable index) throws Exception {
+        if (model == Transaction.class) {
+            this.index.remove((Hash) index);
+        }
+    }
+
+    @Override
+    public boolean update(Persistable model, Indexable index, String item) throws Exception {
+        return false;
+    }
+
+    @Override
+    public boolean saveBatch(List<Pair<Indexable, Persistable>> models) throws Exception {
+        for (Pair<Indexable, Persistable> entry : models) {
+            if (entry.hi instanceof Transaction) {
+                add((Hash) entry.low, (Transaction) entry.hi);
+            }
+        }
+        return false;
+    }
+
+    private void add(Hash hash, Transaction transaction) {
+        TransactionViewModel model = new TransactionViewModel(transaction, hash);
+        index.add(hash, model.getTrunkTransactionHash(), model.getBranchTransactionHash());
+    }
+
+    @Override
+    public boolean exists(Class<?> model, Indexable key) throws Exception {
+        return false;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> latest(Class<?> model, Class<?> indexModel) throws Exception {
+        return null;
+    }
+
+    @Override
+    public Set<Indexable> keysWithMissingReferences(Class<?> modelClass, Class<?> otherClass) throws Exception {
+        return null;
+    }
+
+    @Override
+    public Persistable get(Class<?> model, Indexable index) throws Exception {
+        return null;
+    }
+
+    @Override
+    public boolean mayExist(Class<?> model, Indexable index) throws Exception {
+        return false;
+    }
+
+    @Override
+    public long count(Class<?> model) throws Exception {
+        return 0;
+    }
+
+    @Override
+    public Set<Indexable> keysStartingWith(Class<?> modelClass, byte[] value) {
+        return null;
+    }
+
+    @Override
+    public Persistable seek(Class<?> model, byte[] key) throws Exception {
+        return null;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> next(Class<?> model, Indexable index) throws Exception {
+        return null;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> previous(Class<?> model, Indexable index) throws Exception {
+        return null;
+    }
+
+    @Override
+    public Pair<Indexable, Persistable> first(Class<?> model, Class<?> indexModel) throws Exception {
+        return null;
+    }
+
+    @Override
+    public void deleteBatch(Collection<Pair<Indexable, ? extends Class<? extends Persistable>>> models) throws Exception {
+        for (Pair<Indexable, ? extends Class<? extends Persistable>> entry : models) {
+            if (entry.hi == Transaction.class) {
+                index.remove((Hash) entry.low);
+            }
+        }
+    }
+
+    @Override
+    public void clear(Class<?> column) throws Exception {
+
+    }
+
+    @Override
+    public void clearMetadata(Class<?> column) throws Exception {
+
+    }
+
+    @Override
+    public void addTxnCount(long count) {
+
+    }
+
+    @Override
+    public long getTotalTxns() throws Exception {
+        return 0;
+    }
+
+    @Override
+    public List<Hash> getSiblings(Hash block) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void buildGraph() {
+
+    }
+
+    @Override
+    public void computeScore() {
+
+    }
+
+    @Override
+    public Hash getPivotalHash(int depth) {
+        return null;
+    }
+
+    @Override
+    public List<Hash> getChain(HashMap<Integer, Set<Hash>> topOrder) {
+        return null;
+    }
+
+    @Override
+    public Set<Hash> getChild(Hash block) {
+        return null;
+    }
+
+    @Override
+    public int getNumOfTips() {
+        return -1;
+    }
+}
\ No newline at end of file
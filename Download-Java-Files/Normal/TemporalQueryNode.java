@@ -89,6 +89,16 @@ public class TemporalQueryNode extends QPNode {
 		preceding.getChild().nextBlock(block);
 	}
 
+	/**
+	 * Calls endBlock on its children.
+	 * @param block the finished Block
+	 */
+	@Override
+	public void endBlock(Block block) {
+		reference.getChild().endBlock(block);
+		preceding.getChild().endBlock(block);
+	}
+
 	/**
 	 * Calls nextBlock on its children.documentation code for refactored matchers.
 	 * @param ctx The new QueryContext
@@ -29,6 +29,11 @@ public class TraceServiceModuleConfig extends ModuleConfig {
     @Setter @Getter private int bufferOffsetMaxFileSize;
     @Setter @Getter private int bufferDataMaxFileSize;
     @Setter @Getter private boolean bufferFileCleanWhenRestart;
+    /**
+     * Use the memory-mapped buffer segment files instead of the data and offset files. The segments are sized by
+     * bufferDataMaxFileSize.
+     */
+    @Setter @Getter private boolean bufferFileMemoryMapped;
     /**
      * The sample rate precision is 1/10000. 10000 means 100% sample in default.
      */
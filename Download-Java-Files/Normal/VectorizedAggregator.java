@@ -0,0 +1,19 @@
+package com.bakdata.conquery.models.query.queryplan.aggregators;
+
+import com.bakdata.conquery.models.events.ColumnarBlock;
+
+/**
+ * An {@link Aggregator} that can aggregate all accepted events of a {@link ColumnarBlock} in one call.
+ * The {@link com.bakdata.conquery.models.query.queryplan.specific.AggregatorNode} collects the accepted events of such a block
+ * and hands them over when the block ends, instead of calling {@link #aggregateEvent} for every event.
+ * Only aggregators whose result does not depend on the order of the events should implement this.
+ */
+public interface VectorizedAggregator<T> extends Aggregator<T> {
+
+	/**
+	 * Has to produce the same result as calling {@link #aggregateEvent} for the first {@code length} events in order,
+	 * except for the rounding of floating point sums.
+	 * The array may be modified by the aggregator.
+	 */
+	void aggregateEvents(ColumnarBlock block, int[] events, int length);
+}
@@ -9,6 +9,7 @@ import com.iota.iri.service.tipselection.TailFinder;
 import com.iota.iri.service.tipselection.WalkValidator;
 import com.iota.iri.service.tipselection.Walker;
 import com.iota.iri.storage.Tangle;
+import com.iota.iri.storage.tangleindex.TangleIndex;
 import com.iota.iri.utils.collections.interfaces.UnIterableMap;
 import com.iota.iri.zmq.MessageQ;
 import org.slf4j.Logger;
@@ -54,6 +55,9 @@ public class WalkerAlpha implements Walker {
         if (!walkValidator.isValid(entryPoint)) {
             throw new IllegalStateException("entry point failed consistency check: " + entryPoint.toString());
         }
+        if (ratings instanceof IndexedRatings) {
+            return walk(entryPoint, (IndexedRatings) ratings, walkValidator);
+        }
         
         Optional<Hash> nextStep;
         Deque<Hash> traversedTails = new LinkedList<>();
@@ -71,6 +75,92 @@ public class WalkerAlpha implements Walker {
         return traversedTails.getLast();
     }
 
+    /**
+     * Same walk as {@link #walk(Hash, UnIterableMap, WalkValidator)}, with the approvers and ratings read from the
+     * {@link TangleIndex} of the ratings.
+     */
+    private Hash walk(Hash entryPoint, IndexedRatings ratings, WalkValidator walkValidator) throws Exception {
+        TangleIndex index = ratings.getIndex();
+        int[] approvers = new int[8];
+        Hash[] approverHashes = new Hash[8];
+        double[] weights = new double[8];
+        int traversedTails = 1;
+        Hash tail = entryPoint;
+
+        //Walk
+        while (true) {
+            int count = 0;
+            index.readLock().lock();
+            try {
+                int id = index.id(tail);
+                //filter based on tangle state when starting the walk
+                for (int edge = id == TangleIndex.NONE ? TangleIndex.NONE : index.firstApproverEdge(id);
+                     edge != TangleIndex.NONE; edge = index.nextApproverEdge(edge)) {
+                    int approver = index.approver(edge);
+                    if (ratings.isRated(approver)) {
+                        if (count == approvers.length) {
+                            approvers = Arrays.copyOf(approvers, count << 1);
+                            approverHashes = Arrays.copyOf(approverHashes, count << 1);
+                            weights = Arrays.copyOf(weights, count << 1);
+                        }
+                        approvers[count] = approver;
+                        approverHashes[count] = index.hash(approver);
+                        count++;
+                    }
+                }
+            } finally {
+                index.readLock().unlock();
+            }
+
+            //select next tail to step to
+            Optional<Hash> nextTailHash = Optional.empty();
+            while (!nextTailHash.isPresent() && count > 0) {
+                int selected = select(ratings, approvers, weights, count);
+                nextTailHash = findTailIfValid(approverHashes[selected], walkValidator);
+                //if next tail is not valid, re-select while removing it from approvers
+                count--;
+                approvers[selected] = approvers[count];
+                approverHashes[selected] = approverHashes[count];
+            }
+            if (!nextTailHash.isPresent()) {
+                //no existing approver = tip
+                break;
+            }
+            tail = nextTailHash.get();
+            traversedTails++;
+        }
+
+        log.debug("{} tails traversed to find tip", traversedTails);
+        messageQ.publish("mctn %d", traversedTails);
+
+        return tail;
+    }
+
+    private int select(IndexedRatings ratings, int[] approvers, double[] weights, int count) {
+        int maxRating = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            maxRating = Math.max(maxRating, ratings.rating(approvers[i]));
+        }
+
+        //transition probability function (normalize ratings based on Hmax)
+        double weightsSum = 0;
+        for (int i = 0; i < count; i++) {
+            weights[i] = Math.exp(alpha * (ratings.rating(approvers[i]) - maxRating));
+            weightsSum += weights[i];
+        }
+
+        //select the next transaction
+        double target = random.nextDouble() * weightsSum;
+        int approverIndex;
+        for (approverIndex = 0; approverIndex < count - 1; approverIndex++) {
+            target -= weights[approverIndex];
+            if (target <= 0) {
+                break;
+            }
+        }
+        return approverIndex;
+    }
+
     private Optional<Hash> selectApprover(Hash tailHash, UnIterableMap<HashId, Integer> ratings, WalkValidator walkValidator) throws Exception {
         Set<Hash> approvers = new HashSet<Hash>();
         if(BaseIotaConfig.getInstance().getWeightCalAlgo().equals("IN_MEM")) {
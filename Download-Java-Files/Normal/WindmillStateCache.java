@@ -20,8 +20,13 @@ package org.apache.beam.runners.dataflow.worker;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -32,18 +37,20 @@ import org.apache.beam.runners.dataflow.worker.status.StatusDataProvider;
 import org.apache.beam.sdk.state.State;
 import org.apache.beam.sdk.util.Weighted;
 import org.apache.beam.vendor.grpc.v1p13p1.com.google.protobuf.ByteString;
-import org.apache.beam.vendor.guava.v20_0.com.google.common.cache.Cache;
-import org.apache.beam.vendor.guava.v20_0.com.google.common.cache.CacheBuilder;
-import org.apache.beam.vendor.guava.v20_0.com.google.common.cache.RemovalCause;
-import org.apache.beam.vendor.guava.v20_0.com.google.common.cache.Weigher;
 import org.apache.beam.vendor.guava.v20_0.com.google.common.collect.HashMultimap;
 
 /**
  * Process-wide cache of per-key state.
  *
- * <p>This is backed by Guava {@link Cache} which is thread-safe. The entries are accessed often
- * from multiple threads. Logical consistency of each entry requires accessing each key (computation
- * * processing key * state_family * namespace) by a single thread at a time. {@link
+ * <p>Each computation has its own LRU cache, and all of them share a maximum weight. A computation
+ * may grow past its quota, an equal share of the maximum weight between the computations with
+ * cached state, while the others leave weight unused. Once the maximum weight is exceeded, entries
+ * are evicted from the computation furthest over its quota, so a hot computation does not evict
+ * the state of the others.
+ *
+ * <p>The entries are accessed often from multiple threads, each computation's cache is guarded by
+ * its own lock. Logical consistency of each entry requires accessing each key (computation *
+ * processing key * state_family * namespace) by a single thread at a time. {@link
  * StreamingDataflowWorker} ensures that a single computation * processing key is executing on one
  * thread at a time, so this is safe.
  */
@@ -57,140 +64,226 @@ public class WindmillStateCache implements StatusDataProvider {
   // Overhead of each cache entry.  Two longs, plus a hash table.
   private static final int PER_CACHE_ENTRY_OVERHEAD =
       16 + HASH_MAP_ENTRY_OVERHEAD * INITIAL_HASH_MAP_CAPACITY;
+  private static final long DEFAULT_MAX_WEIGHT = 100000000; // 100 MB
 
-  private Cache<StateId, StateCacheEntry> stateCache;
-  private HashMultimap<ComputationKey, StateId> keyIndex =
-      HashMultimap.<ComputationKey, StateId>create();
-  private int displayedWeight = 0; // Only used for status pages and unit tests.
+  private final long maxWeight;
+  private final ConcurrentMap<String, ComputationCache> computationCaches =
+      new ConcurrentHashMap<>();
+  private final AtomicLong weight = new AtomicLong();
 
   public WindmillStateCache() {
-    final Weigher<Weighted, Weighted> weigher = Weighers.weightedKeysAndValues();
-
-    stateCache =
-        CacheBuilder.newBuilder()
-            .maximumWeight(100000000 /* 100 MB */)
-            .recordStats()
-            .weigher(weigher)
-            .removalListener(
-                removal -> {
-                  if (removal.getCause() != RemovalCause.REPLACED) {
-                    synchronized (this) {
-                      StateId id = (StateId) removal.getKey();
-                      if (removal.getCause() != RemovalCause.EXPLICIT) {
-                        // When we invalidate a key explicitly, we'll also update the keyIndex, so
-                        // no need to do it here.
-                        keyIndex.remove(id.getComputationKey(), id);
-                      }
-                      displayedWeight -= weigher.weigh(id, removal.getValue());
-                    }
-                  }
-                })
-            .build();
+    this(DEFAULT_MAX_WEIGHT);
+  }
+
+  public WindmillStateCache(long maxWeight) {
+    this.maxWeight = maxWeight;
   }
 
   public long getWeight() {
-    return displayedWeight;
+    return weight.get();
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
   }
 
   /** Per-computation view of the state cache. */
   public class ForComputation {
-    private final String computation;
+    private final ComputationCache cache;
 
-    private ForComputation(String computation) {
-      this.computation = computation;
+    private ForComputation(ComputationCache cache) {
+      this.cache = cache;
     }
 
     /** Invalidate all cache entries for this computation and {@code processingKey}. */
     public void invalidate(ByteString processingKey) {
-      synchronized (this) {
-        ComputationKey key = new ComputationKey(computation, processingKey);
-        for (StateId id : keyIndex.get(key)) {
-          stateCache.invalidate(id);
-        }
-        keyIndex.removeAll(key);
-      }
+      cache.invalidate(processingKey);
     }
 
     /** Returns a per-computation, per-key view of the state cache. */
     public ForKey forKey(ByteString key, String stateFamily, long cacheToken) {
-      return new ForKey(computation, key, stateFamily, cacheToken);
+      return new ForKey(cache, key, stateFamily, cacheToken);
     }
   }
 
   /** Per-computation, per-key view of the state cache. */
   public class ForKey {
-    private final String computation;
+    private final ComputationCache cache;
     private final ByteString key;
     private final String stateFamily;
     private final long cacheToken;
 
-    private ForKey(String computation, ByteString key, String stateFamily, long cacheToken) {
-      this.computation = computation;
+    private ForKey(ComputationCache cache, ByteString key, String stateFamily, long cacheToken) {
+      this.cache = cache;
       this.key = key;
       this.stateFamily = stateFamily;
       this.cacheToken = cacheToken;
     }
 
     public <T extends State> T get(StateNamespace namespace, StateTag<T> address) {
-      return WindmillStateCache.this.get(
-          computation, key, stateFamily, cacheToken, namespace, address);
+      return cache.get(
+          new StateId(cache.computation, key, stateFamily, namespace),
+          cacheToken,
+          namespace,
+          address);
     }
 
     public <T extends State> void put(
         StateNamespace namespace, StateTag<T> address, T value, long weight) {
-      WindmillStateCache.this.put(
-          computation, key, stateFamily, cacheToken, namespace, address, value, weight);
+      cache.put(
+          new StateId(cache.computation, key, stateFamily, namespace),
+          cacheToken,
+          namespace,
+          address,
+          value,
+          weight);
+      // Evicted outside of the lock of the computation, which may not be the one evicted from.
+      evictIfNeeded();
     }
   }
 
   /** Returns a per-computation view of the state cache. */
   public ForComputation forComputation(String computation) {
-    return new ForComputation(computation);
+    return new ForComputation(
+        computationCaches.computeIfAbsent(computation, ComputationCache::new));
   }
 
-  private <T extends State> T get(
-      String computation,
-      ByteString processingKey,
-      String stateFamily,
-      long token,
-      StateNamespace namespace,
-      StateTag<T> address) {
-    StateId id = new StateId(computation, processingKey, stateFamily, namespace);
-    StateCacheEntry entry = stateCache.getIfPresent(id);
-    if (entry == null) {
-      return null;
-    }
-    if (entry.getToken() != token) {
-      stateCache.invalidate(id);
-      return null;
-    }
-    return entry.get(namespace, address);
+  private void evictIfNeeded() {
+    while (weight.get() > maxWeight) {
+      long activeComputations =
+          computationCaches.values().stream().filter(cache -> cache.getWeight() > 0).count();
+      long quota = maxWeight / Math.max(1, activeComputations);
+      ComputationCache victim = null;
+      long victimExcess = 0;
+      for (ComputationCache cache : computationCaches.values()) {
+        long excess = cache.getWeight() - quota;
+        if (victim == null || excess > victimExcess) {
+          victim = cache;
+          victimExcess = excess;
+        }
+      }
+      if (victim == null || !victim.evictEldest()) {
+        return;
+      }
+    }
   }
 
-  private <T extends State> void put(
-      String computation,
-      ByteString processingKey,
-      String stateFamily,
-      long token,
-      StateNamespace namespace,
-      StateTag<T> address,
-      T value,
-      long weight) {
-    StateId id = new StateId(computation, processingKey, stateFamily, namespace);
-    StateCacheEntry entry = stateCache.getIfPresent(id);
-    if (entry == null) {
-      synchronized (this) {
-        keyIndex.put(id.getComputationKey(), id);
+  /** The LRU cache of the state of one computation. */
+  private class ComputationCache {
+    private final String computation;
+    // In access order, so the eldest entry is the least recently used.
+    private final LinkedHashMap<StateId, StateCacheEntry> entries =
+        new LinkedHashMap<>(16, 0.75f, true);
+    private final HashMultimap<ByteString, StateId> keyIndex = HashMultimap.create();
+    // Only read without the lock for choosing which computation to evict from.
+    private volatile long weight = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long evictedWeight = 0;
+
+    private ComputationCache(String computation) {
+      this.computation = computation;
+    }
+
+    private long getWeight() {
+      return weight;
+    }
+
+    private synchronized <T extends State> T get(
+        StateId id, long token, StateNamespace namespace, StateTag<T> address) {
+      StateCacheEntry entry = entries.get(id);
+      if (entry != null && entry.getToken() != token) {
+        remove(id);
+        entry = null;
+      }
+      T value = entry == null ? null : entry.get(namespace, address);
+      if (value == null) {
+        misses++;
+      } else {
+        hits++;
+      }
+      return value;
+    }
+
+    private synchronized <T extends State> void put(
+        StateId id,
+        long token,
+        StateNamespace namespace,
+        StateTag<T> address,
+        T value,
+        long valueWeight) {
+      StateCacheEntry entry = entries.get(id);
+      if (entry != null && entry.getToken() != token) {
+        remove(id);
+        entry = null;
+      }
+      if (entry == null) {
+        entry = new StateCacheEntry(token);
+        entries.put(id, entry);
+        keyIndex.put(id.getComputationKey().getKey(), id);
+        addWeight(id.getWeight() + entry.getWeight());
+      }
+      addWeight(entry.put(namespace, address, value, valueWeight));
+    }
+
+    private synchronized void invalidate(ByteString processingKey) {
+      for (StateId id : keyIndex.removeAll(processingKey)) {
+        remove(id);
       }
     }
-    if (entry == null || entry.getToken() != token) {
-      entry = new StateCacheEntry(token);
-      this.displayedWeight += (int) id.getWeight();
-      this.displayedWeight += (int) entry.getWeight();
+
+    /** Evicts the least recently used entry, returns false if there is none. */
+    private synchronized boolean evictEldest() {
+      Iterator<StateId> iterator = entries.keySet().iterator();
+      if (!iterator.hasNext()) {
+        return false;
+      }
+      evictions++;
+      evictedWeight += remove(iterator.next());
+      return true;
+    }
+
+    /** Removes the entry, returns the weight freed. */
+    private long remove(StateId id) {
+      StateCacheEntry entry = entries.remove(id);
+      if (entry == null) {
+        return 0;
+      }
+      keyIndex.remove(id.getComputationKey().getKey(), id);
+      long entryWeight = id.getWeight() + entry.getWeight();
+      addWeight(-entryWeight);
+      return entryWeight;
+    }
+
+    private void addWeight(long delta) {
+      weight += delta;
+      WindmillStateCache.this.weight.addAndGet(delta);
+    }
+
+    private synchronized void appendSummaryHtml(PrintWriter response) {
+      long requests = hits + misses;
+      // As for Guava's CacheStats, the hit ratio is one before any requests.
+      double hitRatio = requests == 0 ? 1.0 : (double) hits / requests;
+      response.println(
+          "<tr><td>"
+              + computation
+              + "</td><td>"
+              + hitRatio
+              + "</td><td>"
+              + hits
+              + "</td><td>"
+              + misses
+              + "</td><td>"
+              + evictions
+              + "</td><td>"
+              + evictedWeight
+              + "</td><td>"
+              + entries.size()
+              + "</td><td>"
+              + weight
+              + "</td></tr>");
     }
-    this.displayedWeight += (int) entry.put(namespace, address, value, weight);
-    // Always add back to the cache to update the weight.
-    stateCache.put(id, entry);
   }
 
   private static class ComputationKey {
@@ -347,14 +440,15 @@ public class WindmillStateCache implements StatusDataProvider {
   /** Print summary statistics of the cache to the given {@link PrintWriter}. */
   @Override
   public void appendSummaryHtml(PrintWriter response) {
-    response.println("Cache Stats: <br><table border=0>");
+    response.println("Cache Stats: <br>");
+    response.println("Weight: " + getWeight() + " / " + maxWeight + "<br><table border=0>");
     response.println(
-        "<tr><th>Hit Ratio</th><th>Evictions</th><th>Size</th><th>Weight</th></tr><tr>");
-    response.println("<th>" + stateCache.stats().hitRate() + "</th>");
-    response.println("<th>" + stateCache.stats().evictionCount() + "</th>");
-    response.println("<th>" + stateCache.size() + "</th>");
-    response.println("<th>" + getWeight() + "</th>");
-    response.println("</tr></table><br>");
+        "<tr><th>Computation</th><th>Hit Ratio</th><th>Hits</th><th>Misses</th>"
+            + "<th>Evictions</th><th>Evicted Weight</th><th>Size</th><th>Weight</th></tr>");
+    for (ComputationCache cache : computationCaches.values()) {
+      cache.appendSummaryHtml(response);
+    }
+    response.println("</table><br>");
   }
 
   public BaseStatusServlet statusServlet() {
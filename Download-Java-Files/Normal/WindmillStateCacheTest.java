@@ -232,4 +232,29 @@ public class WindmillStateCacheTest {
     assertEquals(
         new TestState("g3"), keyCache3.get(StateNamespaces.global(), new TestStateTag("tag3")));
   }
+
+  /** Verifies that a computation over its quota only evicts its own entries. */
+  @Test
+  public void testComputationQuota() throws Exception {
+    cache = new WindmillStateCache(1000);
+    WindmillStateCache.ForKey keyCache1 =
+        cache.forComputation("comp1").forKey(ByteString.copyFromUtf8("k"), STATE_FAMILY, 0L);
+    WindmillStateCache.ForKey keyCache2 =
+        cache.forComputation("comp2").forKey(ByteString.copyFromUtf8("k"), STATE_FAMILY, 0L);
+
+    // Each entry weighs 217, so each computation's quota of 500 holds two.
+    keyCache2.put(windowNamespace(0), new TestStateTag("tag"), new TestState("c2w0"), 100);
+    keyCache2.put(windowNamespace(1), new TestStateTag("tag"), new TestState("c2w1"), 100);
+    assertEquals(434, cache.getWeight());
+    for (int i = 0; i < 10; i++) {
+      keyCache1.put(windowNamespace(i), new TestStateTag("tag"), new TestState("c1w" + i), 100);
+    }
+    assertEquals(868, cache.getWeight());
+
+    assertNull(keyCache1.get(windowNamespace(7), new TestStateTag("tag")));
+    assertEquals(new TestState("c1w8"), keyCache1.get(windowNamespace(8), new TestStateTag("tag")));
+    assertEquals(new TestState("c1w9"), keyCache1.get(windowNamespace(9), new TestStateTag("tag")));
+    assertEquals(new TestState("c2w0"), keyCache2.get(windowNamespace(0), new TestStateTag("tag")));
+    assertEquals(new TestState("c2w1"), keyCache2.get(windowNamespace(1), new TestStateTag("tag")));
+  }
 }